@@ -25,7 +25,9 @@ import org.ibp.api.brapi.v1.common.SingleEntityResponse;
 import org.ibp.api.domain.common.PagedResult;
 import org.ibp.api.domain.search.SearchDto;
 import org.ibp.api.java.germplasm.GermplasmService;
+import org.ibp.api.mapper.DtoMapper;
 import org.ibp.api.rest.common.PaginatedSearch;
+import org.ibp.api.rest.common.SearchCountCache;
 import org.ibp.api.rest.common.SearchSpec;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -53,6 +55,9 @@ public class GermplasmResourceBrapi {
 	@Autowired
 	private SearchRequestService searchRequestService;
 
+	@Autowired
+	private SearchCountCache searchCountCache;
+
 	@Autowired
 	private StudyDataManager studyDataManager;
 
@@ -92,12 +97,12 @@ public class GermplasmResourceBrapi {
 			germplasmSearchRequestDTO.setCommonCropNames(Lists.newArrayList(commonCropName));
 		}
 
-		final PagedResult<GermplasmDTO> resultPage = this.getGermplasmDTOPagedResult(germplasmSearchRequestDTO, currentPage, pageSize);
+		final PagedResult<GermplasmDTO> resultPage = this.getGermplasmDTOPagedResult(germplasmSearchRequestDTO, currentPage, pageSize, null);
 
 		final List<Germplasm> germplasmList = new ArrayList<>();
 
 		if (resultPage.getPageResults() != null) {
-			final ModelMapper mapper = new ModelMapper();
+			final ModelMapper mapper = DtoMapper.getInstance();
 			for (final GermplasmDTO germplasmDTO : resultPage.getPageResults()) {
 				final Germplasm germplasm = mapper.map(germplasmDTO, Germplasm.class);
 				germplasmList.add(germplasm);
@@ -150,11 +155,11 @@ public class GermplasmResourceBrapi {
 			germplasmSearchRequestDTO.setCommonCropNames(Lists.newArrayList(commonCropName));
 		}
 
-		final PagedResult<GermplasmDTO> resultPage = this.getGermplasmDTOPagedResult(germplasmSearchRequestDTO, currentPage, pageSize);
+		final PagedResult<GermplasmDTO> resultPage = this.getGermplasmDTOPagedResult(germplasmSearchRequestDTO, currentPage, pageSize, null);
 		final List<Germplasm> germplasmList = new ArrayList<>();
 
 		if (resultPage.getPageResults() != null) {
-			final ModelMapper mapper = new ModelMapper();
+			final ModelMapper mapper = DtoMapper.getInstance();
 			for (final GermplasmDTO germplasmDTO : resultPage.getPageResults()) {
 				final Germplasm germplasm = mapper.map(germplasmDTO, Germplasm.class);
 				germplasmList.add(germplasm);
@@ -183,7 +188,7 @@ public class GermplasmResourceBrapi {
 		final GermplasmDTO germplasmDTO = this.germplasmService.getGermplasmDTObyGUID(germplasmDbId);
 
 		if (germplasmDTO != null) {
-			final ModelMapper mapper = new ModelMapper();
+			final ModelMapper mapper = DtoMapper.getInstance();
 			final Germplasm germplasm = mapper.map(germplasmDTO, Germplasm.class);
 			final SingleEntityResponse<Germplasm> singleGermplasmResponse = new SingleEntityResponse<>(germplasm);
 
@@ -278,12 +283,12 @@ public class GermplasmResourceBrapi {
 				HttpStatus.NOT_FOUND);
 		}
 
-		final PagedResult<GermplasmDTO> resultPage = this.getGermplasmDTOPagedResult(germplasmSearchRequestDTO, currentPage, pageSize);
+		final PagedResult<GermplasmDTO> resultPage = this.getGermplasmDTOPagedResult(germplasmSearchRequestDTO, currentPage, pageSize, searchResultsDbid);
 
 		final List<Germplasm> germplasmList = new ArrayList<>();
 
 		if (resultPage.getPageResults() != null) {
-			final ModelMapper mapper = new ModelMapper();
+			final ModelMapper mapper = DtoMapper.getInstance();
 			for (final GermplasmDTO germplasmDTO : resultPage.getPageResults()) {
 				final Germplasm germplasm = mapper.map(germplasmDTO, Germplasm.class);
 				germplasmList.add(germplasm);
@@ -302,25 +307,28 @@ public class GermplasmResourceBrapi {
 
 	}
 
+	/**
+	 * @param searchRequestId id of the saved search request the results belong to, if any, so that it is only counted once
+	 */
 	private PagedResult<GermplasmDTO> getGermplasmDTOPagedResult(final GermplasmSearchRequestDto germplasmSearchRequestDTO,
-		final Integer currentPage, final Integer pageSize) {
+		final Integer currentPage, final Integer pageSize, final String searchRequestId) {
 		final Integer finalPageNumber = currentPage == null ? BrapiPagedResult.DEFAULT_PAGE_NUMBER : currentPage;
 		final Integer finalPageSize = pageSize == null ? BrapiPagedResult.DEFAULT_PAGE_SIZE : pageSize;
-		return new PaginatedSearch()
-			.executeBrapiSearch(finalPageNumber, finalPageSize,
-				new SearchSpec<GermplasmDTO>() {
-
-					@Override
-					public long getCount() {
-						return GermplasmResourceBrapi.this.germplasmService.countGermplasmDTOs(germplasmSearchRequestDTO);
-					}
-
-					@Override
-					public List<GermplasmDTO> getResults(final PagedResult<GermplasmDTO> pagedResult) {
-						return GermplasmResourceBrapi.this.germplasmService
-							.searchGermplasmDTO(germplasmSearchRequestDTO, new PageRequest(finalPageNumber, finalPageSize));
-					}
-				});
+		final SearchSpec<GermplasmDTO> searchSpec = new SearchSpec<GermplasmDTO>() {
+
+			@Override
+			public long getCount() {
+				return GermplasmResourceBrapi.this.germplasmService.countGermplasmDTOs(germplasmSearchRequestDTO);
+			}
+
+			@Override
+			public List<GermplasmDTO> getResults(final PagedResult<GermplasmDTO> pagedResult) {
+				return GermplasmResourceBrapi.this.germplasmService
+					.searchGermplasmDTO(germplasmSearchRequestDTO, new PageRequest(finalPageNumber, finalPageSize));
+			}
+		};
+		return new PaginatedSearch().executeBrapiSearch(finalPageNumber, finalPageSize,
+			searchRequestId == null ? searchSpec : this.searchCountCache.cached(searchRequestId, searchSpec));
 	}
 
 	@ApiOperation(value = "Search germplasms by study", notes = "Search germplasms by study")
@@ -357,7 +365,7 @@ public class GermplasmResourceBrapi {
 		final List<Germplasm> germplasmList = new ArrayList<>();
 
 		if (resultPage.getPageResults() != null) {
-			final ModelMapper mapper = new ModelMapper();
+			final ModelMapper mapper = DtoMapper.getInstance();
 			for (final GermplasmDTO germplasmDTO : resultPage.getPageResults()) {
 				final Germplasm germplasm = mapper.map(germplasmDTO, Germplasm.class);
 				germplasmList.add(germplasm);
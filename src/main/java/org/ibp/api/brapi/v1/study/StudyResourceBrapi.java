@@ -2,7 +2,7 @@
 package org.ibp.api.brapi.v1.study;
 
 import com.fasterxml.jackson.annotation.JsonView;
-import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import com.google.common.base.Preconditions;
@@ -39,20 +39,21 @@ import org.ibp.api.brapi.v1.common.Result;
 import org.ibp.api.brapi.v1.common.SingleEntityResponse;
 import org.ibp.api.brapi.v1.observation.ObservationVariableResult;
 import org.ibp.api.domain.common.PagedResult;
+import org.ibp.api.domain.dataset.ObservationImportSessionDTO;
 import org.ibp.api.exception.BrapiNotFoundException;
 import org.ibp.api.exception.ResourceNotFoundException;
 import org.ibp.api.java.dataset.DatasetService;
+import org.ibp.api.java.dataset.ObservationImportSessionService;
 import org.ibp.api.java.impl.middleware.dataset.validator.InstanceValidator;
 import org.ibp.api.java.ontology.VariableService;
 import org.ibp.api.java.study.StudyService;
+import org.ibp.api.mapper.DtoMapper;
 import org.ibp.api.rest.common.PaginatedSearch;
 import org.ibp.api.rest.common.SearchSpec;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -66,11 +67,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletResponse;
-import java.io.BufferedOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.io.BufferedWriter;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -95,6 +94,8 @@ public class StudyResourceBrapi {
 	private static final String CONTENT_TYPE = "Content-Type";
 	private static final String CONTENT_DISPOSITION = "Content-Disposition";
 
+	private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
 	@Autowired
 	private StudyDataManager studyDataManager;
 
@@ -116,6 +117,9 @@ public class StudyResourceBrapi {
 	@Autowired
 	private StudyInstanceService studyInstanceService;
 
+	@Autowired
+	private ObservationImportSessionService observationImportSessionService;
+
 	@ApiOperation(value = "List of studies", notes = "Get a list of studies.")
 	@RequestMapping(value = "/{crop}/brapi/v1/studies", method = RequestMethod.GET)
 	@ResponseBody
@@ -216,18 +220,12 @@ public class StudyResourceBrapi {
 	private SingleEntityResponse<StudyObservationTable> getStudyObservations(final int studyDbId) throws Exception {
 		StudyObservationTable studyObservationsTable = new StudyObservationTable();
 
-		final Integer trialDbId = this.studyDataManager.getProjectIdByStudyDbId(studyDbId);
-
-		if (trialDbId == null) {
-			throw new Exception("studyDbId " + studyDbId + " does not exist");
-		}
-
-		final TrialObservationTable trialObservationTable = this.studyService.getTrialObservationTable(trialDbId, studyDbId);
+		final TrialObservationTable trialObservationTable = this.getTrialObservationTable(studyDbId);
 
 		final int resultNumber = trialObservationTable == null ? 0 : 1;
 
 		if (resultNumber != 0) {
-			final ModelMapper modelMapper = new ModelMapper();
+			final ModelMapper modelMapper = DtoMapper.getInstance();
 			studyObservationsTable = modelMapper.map(trialObservationTable, StudyObservationTable.class);
 		}
 
@@ -239,6 +237,16 @@ public class StudyResourceBrapi {
 		return new SingleEntityResponse<>(metadata, studyObservationsTable);
 	}
 
+	private TrialObservationTable getTrialObservationTable(final int studyDbId) throws Exception {
+		final Integer trialDbId = this.studyDataManager.getProjectIdByStudyDbId(studyDbId);
+
+		if (trialDbId == null) {
+			throw new Exception("studyDbId " + studyDbId + " does not exist");
+		}
+
+		return this.studyService.getTrialObservationTable(trialDbId, studyDbId);
+	}
+
 	@ApiOperation(value = "Get study details", notes = "Get study details")
 	@RequestMapping(value = "/{crop}/brapi/v1/studies/{studyDbId}", method = RequestMethod.GET)
 	@JsonView(BrapiView.BrapiV1_3.class)
@@ -276,76 +284,52 @@ public class StudyResourceBrapi {
 
 	@ApiOperation(value = "", hidden = true)
 	@RequestMapping(value = "/{crop}/brapi/v1/studies/{studyDbId}/table/csv", method = RequestMethod.GET)
-	private ResponseEntity<FileSystemResource> streamCSV(@PathVariable final String crop, @PathVariable final Integer studyDbId)
+	public void streamCSV(final HttpServletResponse response, @PathVariable final String crop, @PathVariable final Integer studyDbId)
 		throws Exception {
 
-		final File file = this.createDownloadFile(this.getStudyObservations(studyDbId).getResult(), ',', "studyObservations.csv");
-		return StudyResourceBrapi.createResponseEntityForFileDownload(file);
+		this.writeStudyObservations(response, studyDbId, ',', "studyObservations.csv");
 	}
 
 	@ApiOperation(value = "", hidden = true)
 	@RequestMapping(value = "/{crop}/brapi/v1/studies/{studyDbId}/table/tsv", method = RequestMethod.GET)
-	private ResponseEntity<FileSystemResource> streamTSV(@PathVariable final String crop, @PathVariable final Integer studyDbId)
+	public void streamTSV(final HttpServletResponse response, @PathVariable final String crop, @PathVariable final Integer studyDbId)
 		throws Exception {
-		final File file = this.createDownloadFile(this.getStudyObservations(studyDbId).getResult(), '\t', "studyObservations.tsv");
 
-		return StudyResourceBrapi.createResponseEntityForFileDownload(file);
-	}
-
-	private File createDownloadFile(final StudyObservationTable table, final char sep, final String pathname) throws IOException {
-		// create mapper and schema
-		final CsvMapper mapper = new CsvMapper();
-		CsvSchema schema = mapper.schemaFor(List.class);
-		schema = schema.withColumnSeparator(sep);
-
-		// output writer
-		final ObjectWriter myObjectWriter = mapper.writer(schema);
-		final File resultFile = new File(pathname);
-		final List<String> header = new ArrayList<>(table.getHeaderRow());
-
-		final Object[] variableIds = table.getObservationVariableDbIds().toArray();
-		final Object[] variableNames = table.getObservationVariableNames().toArray();
-		for (int i = 0; i < variableIds.length; i++) {
-			header.add(variableNames[i] + "|" + variableIds[i]);
-		}
-
-		final List<List<String>> data = table.getData();
-		data.add(0, header);
-
-		mapper.writeValue(resultFile, data);
-
-		final FileOutputStream tempFileOutputStream = new FileOutputStream(resultFile);
-		final BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(tempFileOutputStream, 1024);
-		final OutputStreamWriter writerOutputStream = new OutputStreamWriter(bufferedOutputStream, StandardCharsets.UTF_8);
-
-		myObjectWriter.writeValue(writerOutputStream, data);
-		return resultFile;
+		this.writeStudyObservations(response, studyDbId, '\t', "studyObservations.tsv");
 	}
 
 	/**
-	 * Creates ResponseEntity to download a file from a controller.
-	 *
-	 * @param file - file to be downloaded
-	 * @return
+	 * Writes the observation table row by row to the response, without copying the table or creating a file.
 	 */
-	private static ResponseEntity<FileSystemResource> createResponseEntityForFileDownload(final File file) {
-
-		final String filename = file.getName();
-		final String fileWithFullPath = file.getAbsolutePath();
-		final HttpHeaders respHeaders = new HttpHeaders();
+	private void writeStudyObservations(final HttpServletResponse response, final int studyDbId, final char separator,
+		final String filename) throws Exception {
 
-		final File resource = new File(fileWithFullPath);
-		final FileSystemResource fileSystemResource = new FileSystemResource(resource);
+		final TrialObservationTable table = this.getTrialObservationTable(studyDbId);
 
-		final String mimeType = FileUtils.detectMimeType(filename);
 		final String sanitizedFilename = FileUtils.sanitizeFileName(filename);
-
-		respHeaders.set(StudyResourceBrapi.CONTENT_TYPE, String.format("%s;charset=utf-8", mimeType));
-		respHeaders.set(StudyResourceBrapi.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"; filename*=utf-8''%s",
+		response.setHeader(StudyResourceBrapi.CONTENT_TYPE, String.format("%s;charset=utf-8", FileUtils.detectMimeType(filename)));
+		response.setHeader(StudyResourceBrapi.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"; filename*=utf-8''%s",
 			sanitizedFilename, FileUtils.encodeFilenameForDownload(sanitizedFilename)));
 
-		return new ResponseEntity<>(fileSystemResource, respHeaders, HttpStatus.OK);
+		final CsvSchema schema = CSV_MAPPER.schemaFor(List.class).withColumnSeparator(separator);
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+		try (final SequenceWriter sequenceWriter = CSV_MAPPER.writer(schema).writeValues(writer)) {
+			if (table == null) {
+				return;
+			}
 
+			final List<String> header = new ArrayList<>(table.getHeaderRow());
+			final Object[] variableIds = table.getObservationVariableDbIds().toArray();
+			final Object[] variableNames = table.getObservationVariableNames().toArray();
+			for (int i = 0; i < variableIds.length; i++) {
+				header.add(variableNames[i] + "|" + variableIds[i]);
+			}
+			sequenceWriter.write(header);
+
+			for (final List<String> row : table.getData()) {
+				sequenceWriter.write(row);
+			}
+		}
 	}
 
 	@ApiOperation(value = "Get studies observation variables by studyDbId", notes = "Get studies observation variables by studyDbId")
@@ -467,4 +451,61 @@ public class StudyResourceBrapi {
 		return new ResponseEntity<>(entityListResponse, HttpStatus.OK);
 	}
 
+	@ApiOperation(value = "Open observations import session",
+		notes = "Open a session to import the observations of a study in batches. Sessions expire after a day without changes")
+	@RequestMapping(value = "/{crop}/brapi/v1/studies/{studyDbId}/observations/import-sessions", method = RequestMethod.POST)
+	@ResponseBody
+	public ResponseEntity<ObservationImportSessionDTO> openObservationImportSession(
+		@PathVariable final String crop,
+		@PathVariable final Integer studyDbId) {
+		return new ResponseEntity<>(this.observationImportSessionService.open(crop, studyDbId), HttpStatus.CREATED);
+	}
+
+	@ApiOperation(value = "Get observations import session", notes = "Get the batches staged and committed in an import session")
+	@RequestMapping(value = "/{crop}/brapi/v1/studies/{studyDbId}/observations/import-sessions/{sessionId}", method = RequestMethod.GET)
+	@ResponseBody
+	public ResponseEntity<ObservationImportSessionDTO> getObservationImportSession(
+		@PathVariable final String crop,
+		@PathVariable final Integer studyDbId,
+		@PathVariable final String sessionId) {
+		return new ResponseEntity<>(this.observationImportSessionService.getSession(crop, studyDbId, sessionId), HttpStatus.OK);
+	}
+
+	@ApiOperation(value = "Stage observations batch",
+		notes = "Validate a batch of observations and stage it in the import session. Sending a batch again with the same sequence "
+			+ "number replaces it, so a batch that failed can be fixed and sent again")
+	@RequestMapping(value = "/{crop}/brapi/v1/studies/{studyDbId}/observations/import-sessions/{sessionId}/batches/{sequenceNumber}",
+		method = RequestMethod.PUT)
+	@ResponseBody
+	public ResponseEntity<ObservationImportSessionDTO> stageObservationsBatch(
+		@PathVariable final String crop,
+		@PathVariable final Integer studyDbId,
+		@PathVariable final String sessionId,
+		@PathVariable final Integer sequenceNumber,
+		@RequestBody final NewObservationRequest newObservationRequest) {
+		return new ResponseEntity<>(this.observationImportSessionService
+			.stageBatch(crop, studyDbId, sessionId, sequenceNumber, newObservationRequest.observations), HttpStatus.OK);
+	}
+
+	@ApiOperation(value = "Commit observations import session",
+		notes = "Save the staged batches in the order of their sequence numbers, each one in its own transaction. If a batch fails, "
+			+ "the batches before it stay saved and the commit can be retried for the rest. Committing a session again saves nothing")
+	@RequestMapping(value = "/{crop}/brapi/v1/studies/{studyDbId}/observations/import-sessions/{sessionId}/commit",
+		method = RequestMethod.POST)
+	@ResponseBody
+	public ResponseEntity<EntityListResponse<ObservationDTO>> commitObservationImportSession(
+		@PathVariable final String crop,
+		@PathVariable final Integer studyDbId,
+		@PathVariable final String sessionId) {
+
+		final List<ObservationDTO> observations = this.observationImportSessionService.commit(crop, studyDbId, sessionId);
+
+		final Result<ObservationDTO> results = new Result<ObservationDTO>().withObservations(observations);
+		@SuppressWarnings("unchecked") final Metadata metadata = new Metadata().withStatus(
+			Lists.newArrayList(Collections.singletonMap("ignored-fields", "collector, observationDbId, observationTimeStamp")));
+		final EntityListResponse<ObservationDTO> entityListResponse = new EntityListResponse<>(metadata, results);
+
+		return new ResponseEntity<>(entityListResponse, HttpStatus.OK);
+	}
+
 }
@@ -20,10 +20,10 @@ import org.ibp.api.brapi.v1.common.Result;
 import org.ibp.api.brapi.v1.common.SingleEntityResponse;
 import org.ibp.api.domain.common.PagedResult;
 import org.ibp.api.java.study.StudyService;
+import org.ibp.api.mapper.DtoMapper;
 import org.ibp.api.rest.common.PaginatedSearch;
 import org.ibp.api.rest.common.SearchSpec;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.PropertyMap;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -160,16 +160,7 @@ public class TrialResourceBrapi {
 		final int resultNumber = mwTrialObservationTable == null ? 0 : 1;
 
 		if (resultNumber != 0) {
-			final PropertyMap<TrialObservationTable, org.ibp.api.brapi.v1.trial.TrialObservationTable> mappingSpec =
-				new PropertyMap<TrialObservationTable, org.ibp.api.brapi.v1.trial.TrialObservationTable>() {
-
-					@Override
-					protected void configure() {
-						this.map(this.source.getStudyDbId(), this.destination.getTrialDbId());
-					}
-				};
-			final ModelMapper modelMapper = new ModelMapper();
-			modelMapper.addMappings(mappingSpec);
+			final ModelMapper modelMapper = DtoMapper.getInstance();
 			trialObservationsTable = modelMapper.map(mwTrialObservationTable, org.ibp.api.brapi.v1.trial.TrialObservationTable.class);
 		}
 
@@ -19,6 +19,7 @@ import org.ibp.api.brapi.v1.germplasm.Germplasm;
 import org.ibp.api.domain.common.PagedResult;
 import org.ibp.api.java.germplasm.GermplasmService;
 import org.ibp.api.java.impl.middleware.common.validator.BaseValidator;
+import org.ibp.api.mapper.DtoMapper;
 import org.ibp.api.rest.common.PaginatedSearch;
 import org.ibp.api.rest.common.SearchSpec;
 import org.modelmapper.ModelMapper;
@@ -116,7 +117,7 @@ public class GermplasmResourceBrapi {
 
 	private List<Germplasm> mapGermplasm(final List<GermplasmDTO> germplasmDTOList) {
 		final List<Germplasm> germplasmList = new ArrayList<>();
-		final ModelMapper mapper = new ModelMapper();
+		final ModelMapper mapper = DtoMapper.getInstance();
 		if (!CollectionUtils.isEmpty(germplasmDTOList)) {
 			for (final GermplasmDTO germplasmDTO : germplasmDTOList) {
 				final Germplasm germplasm = mapper.map(germplasmDTO, Germplasm.class);
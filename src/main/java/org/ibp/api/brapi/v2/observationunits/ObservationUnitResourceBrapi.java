@@ -17,17 +17,26 @@ import org.ibp.api.brapi.v1.common.Metadata;
 import org.ibp.api.brapi.v1.common.Pagination;
 import org.ibp.api.brapi.v1.common.Result;
 import org.ibp.api.brapi.v1.common.SingleEntityResponse;
+import org.ibp.api.domain.common.KeysetPagedResult;
 import org.ibp.api.domain.common.PagedResult;
 import org.ibp.api.domain.search.SearchDto;
+import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.java.dataset.DatasetService;
+import org.ibp.api.java.impl.middleware.dataset.ObservationChanges;
 import org.ibp.api.java.study.StudyService;
+import org.ibp.api.mapper.DtoMapper;
 import org.ibp.api.rest.common.PaginatedSearch;
+import org.ibp.api.rest.common.SearchCountCache;
 import org.ibp.api.rest.common.SearchSpec;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -36,24 +45,35 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.function.Supplier;
 
 @Api(value = "BrAPI Observation Unit Services")
 @Controller
 public class ObservationUnitResourceBrapi {
 
+	public static final String NEXT_PAGE_TOKEN_HEADER = "X-Next-Page-Token";
+
 	@Autowired
 	private DatasetService datasetService;
 
 	@Autowired
 	private SearchRequestService searchRequestService;
 
+	@Autowired
+	private SearchCountCache searchCountCache;
+
 	@Autowired
 	private StudyService studyService;
 
 	@Autowired
 	private ObservationUnitService observationUnitService;
 
+	@Autowired
+	private ObservationUnitSearchResults observationUnitSearchResults;
+
 	@ApiOperation(value = "Post observation units search", notes = "Post observation units search")
 	@RequestMapping(value = "/{crop}/brapi/v2/search/observationunits", method = RequestMethod.POST)
 	@ResponseBody
@@ -63,6 +83,7 @@ public class ObservationUnitResourceBrapi {
 
 		final String searchRequestId =
 			this.searchRequestService.saveSearchRequest(observationUnitsSearchRequestDto, ObservationUnitsSearchRequestDto.class).toString();
+		this.observationUnitSearchResults.put(searchRequestId, observationUnitsSearchRequestDto);
 
 		final SearchDto searchDto = new SearchDto(searchRequestId);
 		final SingleEntityResponse<SearchDto> singleObservationUnitsResponse = new SingleEntityResponse<>(searchDto);
@@ -71,7 +92,12 @@ public class ObservationUnitResourceBrapi {
 
 	}
 
-	@ApiOperation(value = "Get Observation Unit search", notes = "Get the results of a Observation Unit search request")
+	@ApiOperation(value = "Get Observation Unit search", notes = "Get the results of a Observation Unit search request. "
+		+ "When changedSince is sent, only the observation units with observations created or updated since that watermark are returned, "
+		+ "and the watermark to send in the next request is returned in the " + ObservationChanges.WATERMARK_HEADER
+		+ " header. When pageToken is sent (empty for the first page), the page that follows the token is returned without an offset, "
+		+ "and the token of the next page is returned in the " + NEXT_PAGE_TOKEN_HEADER + " header, which is missing on the last page "
+		+ "<p><strong>Note:</strong> changedSince and pageToken are non-standard BrAPI parameters</p>")
 	@RequestMapping(value = "/{crop}/brapi/v2/search/observationunits/{searchResultsDbid}", method = RequestMethod.GET)
 	@ResponseBody
 	@JsonView(BrapiView.BrapiV2.class)
@@ -82,24 +108,36 @@ public class ObservationUnitResourceBrapi {
 			required = false) final Integer currentPage,
 		@ApiParam(value = BrapiPagedResult.PAGE_SIZE_DESCRIPTION, required = false)
 		@RequestParam(value = "pageSize",
-			required = false) final Integer pageSize
+			required = false) final Integer pageSize,
+		@ApiParam(value = "Watermark returned by a previous request, in milliseconds since the epoch", required = false)
+		@RequestParam(value = "changedSince", required = false) final Long changedSince,
+		@ApiParam(value = "Token returned by the previous page, or empty for the first page", required = false)
+		@RequestParam(value = "pageToken", required = false) final String pageToken
 	) {
-		final ObservationUnitsSearchRequestDto observationUnitsSearchRequestDto;
-
-		try {
-			observationUnitsSearchRequestDto =
-				(ObservationUnitsSearchRequestDto) this.searchRequestService
-					.getSearchRequest(Integer.valueOf(searchResultsDbid), ObservationUnitsSearchRequestDto.class);
-		} catch (final NumberFormatException | MiddlewareException e) {
-			return new ResponseEntity<>(
-				new EntityListResponse<>(new Result<>(new ArrayList<PhenotypeSearchDTO>())).withMessage("no search request found"),
-				HttpStatus.NOT_FOUND);
+		if (pageToken != null) {
+			return this.getObservationUnitsSearchAfter(searchResultsDbid, pageToken, pageSize, changedSince);
 		}
 
-		final ModelMapper mapper = ObservationUnitMapper.getInstance();
-		final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO = mapper.map(observationUnitsSearchRequestDto, PhenotypeSearchRequestDTO.class);
+		final PagedResult<PhenotypeSearchDTO> resultPage;
+		final HttpHeaders headers = new HttpHeaders();
+		if (changedSince != null) {
+			final ObservationUnitSearchResults.Changes changes =
+				this.observationUnitSearchResults.getChanges(searchResultsDbid, () -> this.getSearchRequest(searchResultsDbid), changedSince);
+			if (changes == null) {
+				return this.getSearchRequestNotFoundResponse();
+			}
+			headers.add(ObservationChanges.WATERMARK_HEADER, String.valueOf(changes.getWatermark()));
+			resultPage = this.getChangesPagedResult(changes, currentPage, pageSize, searchResultsDbid + "@" + changedSince);
+		} else {
+			final ObservationUnitSearchResults.Search search =
+				this.observationUnitSearchResults.getSearch(searchResultsDbid, () -> this.getSearchRequest(searchResultsDbid));
+			if (search == null) {
+				return this.getSearchRequestNotFoundResponse();
+			}
 
-		final PagedResult<PhenotypeSearchDTO> resultPage = this.getObservationUnitDtoPagedResult(phenotypeSearchRequestDTO, currentPage, pageSize);
+			resultPage = search.isCollected() ? this.getCollectedPagedResult(search, currentPage, pageSize)
+				: this.getObservationUnitDtoPagedResult(search::newPhenotypeSearchRequest, currentPage, pageSize, searchResultsDbid);
+		}
 
 		final Result<PhenotypeSearchDTO> results = new Result<PhenotypeSearchDTO>().withData(resultPage.getPageResults());
 		final Pagination pagination = new Pagination().withPageNumber(resultPage.getPageNumber()).withPageSize(resultPage.getPageSize())
@@ -109,30 +147,135 @@ public class ObservationUnitResourceBrapi {
 
 		final EntityListResponse<PhenotypeSearchDTO> entityListResponse = new EntityListResponse<>(metadata, results);
 
-		return new ResponseEntity<>(entityListResponse, HttpStatus.OK);
+		return new ResponseEntity<>(entityListResponse, headers, HttpStatus.OK);
 
 	}
 
-	private PagedResult<PhenotypeSearchDTO> getObservationUnitDtoPagedResult(
-		final PhenotypeSearchRequestDTO phenotypeSearchDTO,
+	private ResponseEntity<EntityListResponse<PhenotypeSearchDTO>> getObservationUnitsSearchAfter(final String searchResultsDbid,
+		final String pageToken, final Integer pageSize, final Long changedSince) {
+		final ObservationUnitSearchResults.Search search = changedSince != null ? null
+			: this.observationUnitSearchResults.getSearch(searchResultsDbid, () -> this.getSearchRequest(searchResultsDbid));
+		if (changedSince == null && search == null) {
+			return this.getSearchRequestNotFoundResponse();
+		}
+		// Only the searches with collected ids have a stable key to seek from
+		if (search == null || !search.isCollected()) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationUnitsSearchRequestDto.class.getName());
+			errors.reject("observation.units.search.page.token.not.supported", "");
+			throw new ApiRequestValidationException(errors.getAllErrors());
+		}
+
+		final KeysetPagedResult<PhenotypeSearchDTO> resultPage = new PaginatedSearch()
+			.executeKeysetSearch(StringUtils.isEmpty(pageToken) ? null : pageToken, pageSize == null ? BrapiPagedResult.DEFAULT_PAGE_SIZE : pageSize,
+				new SearchSpec<PhenotypeSearchDTO>() {
+
+					@Override
+					public long getCount() {
+						return search.getObservationUnitDbIds().size();
+					}
+
+					@Override
+					public List<PhenotypeSearchDTO> getResults(final PagedResult<PhenotypeSearchDTO> pagedResult) {
+						throw new UnsupportedOperationException("Offset pages are not read by keyset searches");
+					}
+
+					@Override
+					public List<PhenotypeSearchDTO> getResultsAfter(final String lastKey, final int maxResults) {
+						return ObservationUnitResourceBrapi.this.observationUnitSearchResults.getPageAfter(search, lastKey, maxResults);
+					}
+
+					@Override
+					public String getKey(final PhenotypeSearchDTO result) {
+						return result.getObservationUnitDbId();
+					}
+				});
+
+		final HttpHeaders headers = new HttpHeaders();
+		if (resultPage.isHasNextPage()) {
+			headers.add(NEXT_PAGE_TOKEN_HEADER, resultPage.getNextPageToken());
+		}
+		final long totalCount = search.getObservationUnitDbIds().size();
+		final Pagination pagination = new Pagination().withPageSize(resultPage.getPageSize()).withTotalCount(totalCount)
+			.withTotalPages((int) ((totalCount + resultPage.getPageSize() - 1) / resultPage.getPageSize()));
+		final EntityListResponse<PhenotypeSearchDTO> entityListResponse = new EntityListResponse<>(new Metadata().withPagination(pagination),
+			new Result<PhenotypeSearchDTO>().withData(resultPage.getPageResults()));
+		return new ResponseEntity<>(entityListResponse, headers, HttpStatus.OK);
+	}
+
+	private ObservationUnitsSearchRequestDto getSearchRequest(final String searchResultsDbid) {
+		try {
+			return (ObservationUnitsSearchRequestDto) this.searchRequestService
+				.getSearchRequest(Integer.valueOf(searchResultsDbid), ObservationUnitsSearchRequestDto.class);
+		} catch (final NumberFormatException | MiddlewareException e) {
+			return null;
+		}
+	}
+
+	private ResponseEntity<EntityListResponse<PhenotypeSearchDTO>> getSearchRequestNotFoundResponse() {
+		return new ResponseEntity<>(
+			new EntityListResponse<>(new Result<>(new ArrayList<PhenotypeSearchDTO>())).withMessage("no search request found"),
+			HttpStatus.NOT_FOUND);
+	}
+
+	private PagedResult<PhenotypeSearchDTO> getChangesPagedResult(final ObservationUnitSearchResults.Changes changes,
+		final Integer currentPage, final Integer pageSize, final String changesId) {
+		if (!changes.isEmpty()) {
+			return this.getObservationUnitDtoPagedResult(changes::newPhenotypeSearchRequest, currentPage, pageSize, changesId);
+		}
+		// Without changed units the search is not run, as an empty list of units does not restrict it
+		return new PaginatedSearch().executeBrapiSearch(currentPage, pageSize, new SearchSpec<PhenotypeSearchDTO>() {
+
+			@Override
+			public long getCount() {
+				return 0;
+			}
+
+			@Override
+			public List<PhenotypeSearchDTO> getResults(final PagedResult<PhenotypeSearchDTO> pagedResult) {
+				return Collections.emptyList();
+			}
+		});
+	}
+
+	private PagedResult<PhenotypeSearchDTO> getCollectedPagedResult(final ObservationUnitSearchResults.Search search,
 		final Integer currentPage, final Integer pageSize) {
+		// Only the observation units of the requested page are fetched, by id
+		return new PaginatedSearch().executeBrapiSearch(currentPage, pageSize, new SearchSpec<PhenotypeSearchDTO>() {
+
+			@Override
+			public long getCount() {
+				return search.getObservationUnitDbIds().size();
+			}
+
+			@Override
+			public List<PhenotypeSearchDTO> getResults(final PagedResult<PhenotypeSearchDTO> pagedResult) {
+				return ObservationUnitResourceBrapi.this.observationUnitSearchResults
+					.getPage(search, pagedResult.getPageNumber(), pagedResult.getPageSize());
+			}
+		});
+	}
+
+	private PagedResult<PhenotypeSearchDTO> getObservationUnitDtoPagedResult(
+		final Supplier<PhenotypeSearchRequestDTO> phenotypeSearchRequest,
+		final Integer currentPage, final Integer pageSize, final String searchRequestId) {
 		final Integer finalPageNumber = currentPage == null ? BrapiPagedResult.DEFAULT_PAGE_NUMBER : currentPage;
 		final Integer finalPageSize = pageSize == null ? BrapiPagedResult.DEFAULT_PAGE_SIZE : pageSize;
+		// The pages of a search request are usually fetched one after the other, so its results are only counted once
 		return new PaginatedSearch()
-			.executeBrapiSearch(finalPageNumber, finalPageSize,
+			.executeBrapiSearch(finalPageNumber, finalPageSize, this.searchCountCache.cached(searchRequestId,
 				new SearchSpec<PhenotypeSearchDTO>() {
 
 					@Override
 					public long getCount() {
-						return ObservationUnitResourceBrapi.this.studyService.countPhenotypes(phenotypeSearchDTO);
+						return ObservationUnitResourceBrapi.this.studyService.countPhenotypes(phenotypeSearchRequest.get());
 					}
 
 					@Override
 					public List<PhenotypeSearchDTO> getResults(final PagedResult<PhenotypeSearchDTO> pagedResult) {
 						return ObservationUnitResourceBrapi.this.studyService
-							.searchPhenotypes(finalPageSize, finalPageNumber, phenotypeSearchDTO);
+							.searchPhenotypes(finalPageSize, finalPageNumber, phenotypeSearchRequest.get());
 					}
-				});
+				}));
 	}
 
 	// TODO complete PUT see plantbreeding/API/issues/411
@@ -143,7 +286,7 @@ public class ObservationUnitResourceBrapi {
 		@PathVariable String observationUnitDbId,
 		@RequestBody final ObservationUnitPatchRequestDTO requestDTO) {
 
-		final ModelMapper mapper = new ModelMapper();
+		final ModelMapper mapper = DtoMapper.getInstance();
 		final org.generationcp.middleware.api.brapi.v2.observationunit.ObservationUnitPatchRequestDTO observationUnitPatchRequestDTO
 			= mapper.map(requestDTO, org.generationcp.middleware.api.brapi.v2.observationunit.ObservationUnitPatchRequestDTO.class);
 		this.observationUnitService.update(observationUnitDbId, observationUnitPatchRequestDTO);
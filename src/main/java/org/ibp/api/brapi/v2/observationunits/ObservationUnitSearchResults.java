@@ -0,0 +1,376 @@
+package org.ibp.api.brapi.v2.observationunits;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.generationcp.middleware.ContextHolder;
+import org.generationcp.middleware.domain.search_request.brapi.v2.ObservationUnitsSearchRequestDto;
+import org.generationcp.middleware.service.api.phenotype.PhenotypeSearchDTO;
+import org.generationcp.middleware.service.api.phenotype.PhenotypeSearchRequestDTO;
+import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.java.impl.middleware.dataset.ObservationChanges;
+import org.ibp.api.java.study.StudyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the observation unit ids matched by the observation unit search requests, collected once per search request when its first page
+ * is read, so that each page is fetched by the ids of the page instead of running the whole search again. Searches matching more than
+ * {@code brapi.observationunits.search.results.max.search.ids} units keep only their search request, and their pages are read with the
+ * live search. Searches are kept for {@code brapi.observationunits.search.results.ttl.minutes}, and at most
+ * {@code brapi.observationunits.search.results.max.cached.ids} ids are kept; after that they are loaded from the saved search request and
+ * collected again.
+ * <p>
+ * Searches restricted to the observation units changed since a watermark are kept the same way, with the ids of the changed units read
+ * once per watermark, so that all their pages see the same changes.
+ * <p>
+ * The kept search requests are shared by the concurrent requests for the pages of a search, so they are never handed out: every page
+ * gets its own copy (see {@link Search#newPhenotypeSearchRequest()}).
+ */
+@Component
+public class ObservationUnitSearchResults {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ObservationUnitSearchResults.class);
+
+	@Value("${brapi.observationunits.search.results.ttl.minutes:30}")
+	private long ttlMinutes;
+
+	@Value("${brapi.observationunits.search.results.max.cached.ids:2000000}")
+	private long maxCachedIds;
+
+	@Value("${brapi.observationunits.search.results.max.search.ids:500000}")
+	private long maxSearchIds;
+
+	@Value("${brapi.observationunits.search.results.chunk.size:5000}")
+	private int chunkSize;
+
+	@Value("${brapi.observationunits.search.results.size:1000}")
+	private long size;
+
+	@Value("${brapi.observationunits.search.changes.max.ids:100000}")
+	private int maxChangedIds;
+
+	@Autowired
+	private ObservationChanges observationChanges;
+
+	@Autowired
+	private StudyService studyService;
+
+	private Cache<String, PhenotypeSearchRequestDTO> searchRequests;
+
+	private Cache<String, Search> searches;
+
+	private Cache<String, Changes> changes;
+
+	@PostConstruct
+	public void init() {
+		this.searchRequests = CacheBuilder.newBuilder()
+			.maximumSize(this.size)
+			.expireAfterWrite(this.ttlMinutes, TimeUnit.MINUTES)
+			.build();
+		this.searches = CacheBuilder.newBuilder()
+			.maximumWeight(this.maxCachedIds)
+			.weigher((final String key, final Search search) -> Math.max(1, search.getObservationUnitDbIds().size()))
+			.expireAfterWrite(this.ttlMinutes, TimeUnit.MINUTES)
+			.build();
+		this.changes = CacheBuilder.newBuilder()
+			.maximumWeight(this.maxCachedIds)
+			.weigher((final String key, final Changes search) -> Math.max(1, search.getObservationUnitDbIds().size()))
+			.expireAfterWrite(this.ttlMinutes, TimeUnit.MINUTES)
+			.build();
+	}
+
+	/**
+	 * Keeps the search request posted, mapped to the phenotype search, until its first page is read.
+	 */
+	public void put(final String searchRequestId, final ObservationUnitsSearchRequestDto searchRequestDto) {
+		this.searchRequests.put(this.getKey(searchRequestId), this.map(searchRequestDto));
+	}
+
+	/**
+	 * Collects the ids of the observation units matched by the search request, in the order of the live search, the first time the
+	 * search is read. The search request is the one posted to this node, or the one of the loader if it is not kept.
+	 *
+	 * @return the search, or null if the loader does not find the search request
+	 */
+	public Search getSearch(final String searchRequestId, final Supplier<ObservationUnitsSearchRequestDto> loader) {
+		final String key = this.getKey(searchRequestId);
+		final Search cachedSearch = this.searches.getIfPresent(key);
+		if (cachedSearch != null) {
+			return cachedSearch;
+		}
+		PhenotypeSearchRequestDTO phenotypeSearchRequestDTO = this.searchRequests.getIfPresent(key);
+		if (phenotypeSearchRequestDTO == null) {
+			final ObservationUnitsSearchRequestDto searchRequestDto = loader.get();
+			if (searchRequestDto == null) {
+				return null;
+			}
+			phenotypeSearchRequestDTO = this.map(searchRequestDto);
+		}
+		final PhenotypeSearchRequestDTO searchRequest = phenotypeSearchRequestDTO;
+		try {
+			// The pages requested at the same time wait for the ids to be collected once
+			final Search search = this.searches.get(key, () -> this.collect(searchRequestId, searchRequest));
+			this.searchRequests.invalidate(key);
+			return search;
+		} catch (final ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private Search collect(final String searchRequestId, final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO) {
+		final Search search = new Search(phenotypeSearchRequestDTO, null);
+		final long count = this.studyService.countPhenotypes(search.newPhenotypeSearchRequest());
+		if (count > this.maxSearchIds) {
+			LOG.debug("Search request {} matches {} observation units, its pages are read with the live search", searchRequestId, count);
+			return search;
+		}
+
+		// The middleware has no ids-only query, so the ids are read a chunk of units at a time
+		final List<String> observationUnitDbIds = new ArrayList<>((int) count);
+		int pageNumber = 0;
+		List<PhenotypeSearchDTO> chunk;
+		do {
+			chunk = this.studyService.searchPhenotypes(this.chunkSize, pageNumber++, search.newPhenotypeSearchRequest());
+			for (final PhenotypeSearchDTO phenotypeSearchDTO : chunk) {
+				observationUnitDbIds.add(phenotypeSearchDTO.getObservationUnitDbId());
+			}
+		} while (chunk.size() == this.chunkSize);
+		return new Search(phenotypeSearchRequestDTO, observationUnitDbIds);
+	}
+
+	/**
+	 * Fetches the observation units of the given page of a search with collected ids, in the order they were matched.
+	 */
+	public List<PhenotypeSearchDTO> getPage(final Search search, final int pageNumber, final int pageSize) {
+		final List<String> observationUnitDbIds = search.getObservationUnitDbIds();
+		final int fromIndex = (int) Math.min((long) pageNumber * pageSize, observationUnitDbIds.size());
+		final int toIndex = Math.min(fromIndex + pageSize, observationUnitDbIds.size());
+		return this.getUnits(search, observationUnitDbIds.subList(fromIndex, toIndex));
+	}
+
+	/**
+	 * Fetches the observation units that follow the unit with the given id in a search with collected ids, or the first ones if the id is
+	 * null, so the pages read with page tokens don't move when units are added or removed while they are read.
+	 */
+	public List<PhenotypeSearchDTO> getPageAfter(final Search search, final String lastObservationUnitDbId, final int maxResults) {
+		final List<String> observationUnitDbIds = search.getObservationUnitDbIds();
+		final int fromIndex;
+		if (lastObservationUnitDbId == null) {
+			fromIndex = 0;
+		} else {
+			final Integer position = search.getPosition(lastObservationUnitDbId);
+			if (position == null) {
+				final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationUnitsSearchRequestDto.class.getName());
+				errors.reject("observation.units.search.page.token.invalid", "");
+				throw new ApiRequestValidationException(errors.getAllErrors());
+			}
+			fromIndex = position + 1;
+		}
+		final int toIndex = (int) Math.min((long) fromIndex + maxResults, observationUnitDbIds.size());
+		return this.getUnits(search, observationUnitDbIds.subList(fromIndex, toIndex));
+	}
+
+	private List<PhenotypeSearchDTO> getUnits(final Search search, final List<String> pageIds) {
+		if (pageIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		// The other filters are kept as they also apply to the observations of each unit
+		final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO = search.newPhenotypeSearchRequest();
+		phenotypeSearchRequestDTO.setObservationUnitDbIds(new ArrayList<>(pageIds));
+		final List<PhenotypeSearchDTO> results = this.studyService.searchPhenotypes(pageIds.size(), 0, phenotypeSearchRequestDTO);
+
+		final Map<String, Integer> positions = new HashMap<>();
+		for (int i = 0; i < pageIds.size(); i++) {
+			positions.put(pageIds.get(i), i);
+		}
+		final List<PhenotypeSearchDTO> page = new ArrayList<>(results);
+		page.sort((o1, o2) -> Integer.compare(positions.getOrDefault(o1.getObservationUnitDbId(), Integer.MAX_VALUE),
+			positions.getOrDefault(o2.getObservationUnitDbId(), Integer.MAX_VALUE)));
+		return page;
+	}
+
+	/**
+	 * Reads the ids of the observation units with observations created or updated since the watermark, restricted to the studies and
+	 * units of the search request, together with the watermark for the next request. The phenotype search of the changes is the search
+	 * request restricted to those units, so the other filters are applied by the live search. The changes are kept for each watermark,
+	 * so the following pages see the same units.
+	 *
+	 * @return the changes, or null if the loader does not find the search request
+	 */
+	public Changes getChanges(
+		final String searchRequestId, final Supplier<ObservationUnitsSearchRequestDto> loader, final long changedSince) {
+		final String key = this.getKey(searchRequestId) + "@" + changedSince;
+		final Changes cachedChanges = this.changes.getIfPresent(key);
+		if (cachedChanges != null) {
+			return cachedChanges;
+		}
+		final ObservationUnitsSearchRequestDto searchRequestDto = loader.get();
+		if (searchRequestDto == null) {
+			return null;
+		}
+
+		// Taken before reading the changes, so the observations saved while searching are part of the next request
+		final long watermark = this.observationChanges.newWatermark();
+		final List<String> observationUnitDbIds = this.observationChanges.getChangedObservationUnitDbIds(changedSince,
+			searchRequestDto.getStudyDbIds(), searchRequestDto.getObservationUnitDbIds(), this.maxChangedIds + 1);
+		if (observationUnitDbIds.size() > this.maxChangedIds) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationUnitsSearchRequestDto.class.getName());
+			errors.reject("observation.changes.too.many", new String[] {String.valueOf(this.maxChangedIds)}, "");
+			throw new ApiRequestValidationException(errors.getAllErrors());
+		}
+
+		final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO = this.map(searchRequestDto);
+		phenotypeSearchRequestDTO.setObservationUnitDbIds(observationUnitDbIds);
+		final Changes searchChanges = new Changes(phenotypeSearchRequestDTO, watermark);
+		this.changes.put(key, searchChanges);
+		return searchChanges;
+	}
+
+	private PhenotypeSearchRequestDTO map(final ObservationUnitsSearchRequestDto searchRequestDto) {
+		return ObservationUnitMapper.getInstance().map(searchRequestDto, PhenotypeSearchRequestDTO.class);
+	}
+
+	private static PhenotypeSearchRequestDTO copy(final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO) {
+		return ObservationUnitMapper.getInstance().map(phenotypeSearchRequestDTO, PhenotypeSearchRequestDTO.class);
+	}
+
+	private String getKey(final String searchRequestId) {
+		// Search request ids are only unique within a crop database
+		return ContextHolder.getCurrentCrop() + ":" + searchRequestId;
+	}
+
+	void setTtlMinutes(final long ttlMinutes) {
+		this.ttlMinutes = ttlMinutes;
+	}
+
+	void setMaxCachedIds(final long maxCachedIds) {
+		this.maxCachedIds = maxCachedIds;
+	}
+
+	void setMaxSearchIds(final long maxSearchIds) {
+		this.maxSearchIds = maxSearchIds;
+	}
+
+	void setChunkSize(final int chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	void setSize(final long size) {
+		this.size = size;
+	}
+
+	void setMaxChangedIds(final int maxChangedIds) {
+		this.maxChangedIds = maxChangedIds;
+	}
+
+	void setObservationChanges(final ObservationChanges observationChanges) {
+		this.observationChanges = observationChanges;
+	}
+
+	void setStudyService(final StudyService studyService) {
+		this.studyService = studyService;
+	}
+
+	public static final class Search {
+
+		private final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO;
+		private final List<String> observationUnitDbIds;
+		private final Map<String, Integer> positions;
+
+		Search(final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO, final List<String> observationUnitDbIds) {
+			this.phenotypeSearchRequestDTO = copy(phenotypeSearchRequestDTO);
+			this.observationUnitDbIds =
+				observationUnitDbIds == null ? null : Collections.unmodifiableList(new ArrayList<>(observationUnitDbIds));
+			this.positions = new HashMap<>();
+			if (observationUnitDbIds != null) {
+				for (int i = 0; i < observationUnitDbIds.size(); i++) {
+					this.positions.put(observationUnitDbIds.get(i), i);
+				}
+			}
+		}
+
+		/**
+		 * @return a copy of the search request, which the caller may change
+		 */
+		public PhenotypeSearchRequestDTO newPhenotypeSearchRequest() {
+			return copy(this.phenotypeSearchRequestDTO);
+		}
+
+		/**
+		 * @return whether the ids of the matched units were collected, otherwise the pages are read with the live search
+		 */
+		public boolean isCollected() {
+			return this.observationUnitDbIds != null;
+		}
+
+		/**
+		 * @return the position of the unit in the collected ids, or null if it was not matched
+		 */
+		Integer getPosition(final String observationUnitDbId) {
+			return this.positions.get(observationUnitDbId);
+		}
+
+		/**
+		 * @return the ids of the matched units in the order of the live search, empty if they were not collected
+		 */
+		public List<String> getObservationUnitDbIds() {
+			return this.observationUnitDbIds == null ? Collections.<String>emptyList() : this.observationUnitDbIds;
+		}
+	}
+
+	public static final class Changes {
+
+		private final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO;
+		private final List<String> observationUnitDbIds;
+		private final long watermark;
+
+		Changes(final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO, final long watermark) {
+			this.phenotypeSearchRequestDTO = copy(phenotypeSearchRequestDTO);
+			this.observationUnitDbIds = Collections.unmodifiableList(new ArrayList<>(phenotypeSearchRequestDTO.getObservationUnitDbIds()));
+			this.watermark = watermark;
+		}
+
+		/**
+		 * @return a copy of the search request restricted to the changed units, which the caller may change. Check {@link #isEmpty()}
+		 * first, as an empty list of units does not restrict the search
+		 */
+		public PhenotypeSearchRequestDTO newPhenotypeSearchRequest() {
+			return copy(this.phenotypeSearchRequestDTO);
+		}
+
+		public List<String> getObservationUnitDbIds() {
+			return this.observationUnitDbIds;
+		}
+
+		public boolean isEmpty() {
+			return this.observationUnitDbIds.isEmpty();
+		}
+
+		/**
+		 * @return the watermark to send with the next request for changes
+		 */
+		public long getWatermark() {
+			return this.watermark;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package org.ibp.api.domain.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Page of results of a keyset (cursor) search. Instead of a page number and counts, every page has the token to fetch the page that
+ * follows it, which is null for the last page.
+ *
+ * @param <T> the type of list the page contains.
+ */
+public class KeysetPagedResult<T> {
+
+	private final List<T> pageResults = new ArrayList<>();
+	private final int pageSize;
+	private final String nextPageToken;
+
+	public KeysetPagedResult(final int pageSize, final List<T> pageResults, final String nextPageToken) {
+		this.pageSize = pageSize;
+		this.pageResults.addAll(pageResults);
+		this.nextPageToken = nextPageToken;
+	}
+
+	public List<T> getPageResults() {
+		return this.pageResults;
+	}
+
+	public int getPageSize() {
+		return this.pageSize;
+	}
+
+	public String getNextPageToken() {
+		return this.nextPageToken;
+	}
+
+	public boolean isHasNextPage() {
+		return this.nextPageToken != null;
+	}
+}
@@ -0,0 +1,100 @@
+package org.ibp.api.domain.dataset;
+
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+public class ObservationImportSessionDTO implements Serializable {
+
+	private static final long serialVersionUID = 4212839475617702316L;
+
+	private String sessionId;
+	private Integer studyDbId;
+	private boolean committed;
+	private List<Integer> stagedBatches;
+	private List<Integer> committedBatches;
+	private int stagedObservations;
+	private int committedObservations;
+	private Date createdDate;
+	private Date lastUpdatedDate;
+
+	public String getSessionId() {
+		return this.sessionId;
+	}
+
+	public void setSessionId(final String sessionId) {
+		this.sessionId = sessionId;
+	}
+
+	public Integer getStudyDbId() {
+		return this.studyDbId;
+	}
+
+	public void setStudyDbId(final Integer studyDbId) {
+		this.studyDbId = studyDbId;
+	}
+
+	public boolean isCommitted() {
+		return this.committed;
+	}
+
+	public void setCommitted(final boolean committed) {
+		this.committed = committed;
+	}
+
+	public List<Integer> getStagedBatches() {
+		return this.stagedBatches;
+	}
+
+	public void setStagedBatches(final List<Integer> stagedBatches) {
+		this.stagedBatches = stagedBatches;
+	}
+
+	public List<Integer> getCommittedBatches() {
+		return this.committedBatches;
+	}
+
+	public void setCommittedBatches(final List<Integer> committedBatches) {
+		this.committedBatches = committedBatches;
+	}
+
+	public int getStagedObservations() {
+		return this.stagedObservations;
+	}
+
+	public void setStagedObservations(final int stagedObservations) {
+		this.stagedObservations = stagedObservations;
+	}
+
+	public int getCommittedObservations() {
+		return this.committedObservations;
+	}
+
+	public void setCommittedObservations(final int committedObservations) {
+		this.committedObservations = committedObservations;
+	}
+
+	public Date getCreatedDate() {
+		return this.createdDate;
+	}
+
+	public void setCreatedDate(final Date createdDate) {
+		this.createdDate = createdDate;
+	}
+
+	public Date getLastUpdatedDate() {
+		return this.lastUpdatedDate;
+	}
+
+	public void setLastUpdatedDate(final Date lastUpdatedDate) {
+		this.lastUpdatedDate = lastUpdatedDate;
+	}
+
+	@Override
+	public String toString() {
+		return ReflectionToStringBuilder.toString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+	}
+}
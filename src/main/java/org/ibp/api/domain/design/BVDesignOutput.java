@@ -23,29 +23,39 @@ public class BVDesignOutput implements Serializable {
 			this.trialInstances = new ArrayList<>();
 			// 1st row is always the header row
 			this.setBvHeaders(entries.get(0));
-			Integer currentTrialInstance = 1;
+			// Instances keep their values by column, with the column indexes shared by all of them, instead of a map for each row.
+			// Exclude the 1st column, which is the trial instance #
+			final Map<String, Integer> columnIndexes = new HashMap<>();
+			for (int index = 1; index < this.bvHeaders.length; index++) {
+				columnIndexes.put(this.bvHeaders[index], index - 1);
+			}
 
-			List<Map<String, String>> trialInstanceRows = new ArrayList<>();
+			int instanceStart = 1;
+			Integer currentTrialInstance = 1;
 			for (int i = 1; i < entries.size(); i++) {
-				final String[] currentRow = entries.get(i);
-				final Integer latestTrialInstance = Integer.valueOf(currentRow[0]);
+				final Integer latestTrialInstance = Integer.valueOf(entries.get(i)[0]);
 				if (latestTrialInstance > currentTrialInstance) {
-					this.trialInstances.add(new BVDesignTrialInstance(currentTrialInstance, trialInstanceRows));
-					trialInstanceRows = new ArrayList<>();
+					this.addTrialInstance(currentTrialInstance, columnIndexes, entries.subList(instanceStart, i));
+					instanceStart = i;
 					currentTrialInstance = latestTrialInstance;
 				}
-				final Map<String, String> rowValues = new HashMap<>();
-				// Exclude the 1st column, which is the trial instance #
-				for (int index = 1; index < this.bvHeaders.length; index++) {
-					rowValues.put(this.bvHeaders[index], currentRow[index]);
-				}
-				trialInstanceRows.add(rowValues);
 			}
 			// add the last trial instance to list
-			this.trialInstances.add(new BVDesignTrialInstance(currentTrialInstance, trialInstanceRows));
+			this.addTrialInstance(currentTrialInstance, columnIndexes, entries.subList(instanceStart, entries.size()));
 		}
 	}
 
+	private void addTrialInstance(final Integer trialInstance, final Map<String, Integer> columnIndexes, final List<String[]> rows) {
+		final String[][] columns = new String[this.bvHeaders.length - 1][rows.size()];
+		for (int row = 0; row < rows.size(); row++) {
+			final String[] values = rows.get(row);
+			for (int column = 0; column < columns.length && column + 1 < values.length; column++) {
+				columns[column][row] = values[column + 1];
+			}
+		}
+		this.trialInstances.add(new BVDesignTrialInstance(trialInstance, columnIndexes, columns, rows.size()));
+	}
+
 	public int getReturnCode() {
 		return this.returnCode;
 	}
@@ -69,5 +79,4 @@ public class BVDesignOutput implements Serializable {
 	public List<BVDesignTrialInstance> getTrialInstances() {
 		return trialInstances;
 	}
-
 }
@@ -1,18 +1,36 @@
 package org.ibp.api.domain.design;
 
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * Plots of one instance of a design, kept by column: the values of each column are in one array, indexed by plot, and the column
+ * names are shared by all the instances of the output.
+ */
 public class BVDesignTrialInstance {
 
 	private Integer instanceNumber;
 
-	private List<Map<String, String>> rows;
+	private final Map<String, Integer> columnIndexes;
 
+	private final String[][] columns;
 
-	public BVDesignTrialInstance(final Integer instanceNumber, final List<Map<String, String>> rows) {
+	private final int size;
+
+	/**
+	 * @param columnIndexes the index in columns of each column name
+	 * @param columns the values of each column, all of them with the same length
+	 */
+	public BVDesignTrialInstance(final Integer instanceNumber, final Map<String, Integer> columnIndexes, final String[][] columns,
+		final int size) {
 		this.instanceNumber = instanceNumber;
-		this.rows = rows;
+		this.columnIndexes = columnIndexes;
+		this.columns = columns;
+		this.size = size;
 	}
 
 	public Integer getInstanceNumber() {
@@ -24,9 +42,65 @@ public class BVDesignTrialInstance {
 		this.instanceNumber = instanceNumber;
 	}
 
+	/**
+	 * @return the number of plots
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * @return the values of the column for every plot, or null if the design has no such column
+	 */
+	public String[] getColumn(final String name) {
+		final Integer index = this.columnIndexes.get(name);
+		return index == null ? null : this.columns[index];
+	}
 
+	/**
+	 * @return read-only views of the plots by column name
+	 */
 	public List<Map<String, String>> getRows() {
-		return rows;
+		return new AbstractList<Map<String, String>>() {
+
+			@Override
+			public Map<String, String> get(final int index) {
+				return new Row(index);
+			}
+
+			@Override
+			public int size() {
+				return BVDesignTrialInstance.this.size;
+			}
+		};
 	}
 
+	private final class Row extends AbstractMap<String, String> {
+
+		private final int index;
+
+		Row(final int index) {
+			this.index = index;
+		}
+
+		@Override
+		public String get(final Object key) {
+			final Integer column = BVDesignTrialInstance.this.columnIndexes.get(key);
+			return column == null ? null : BVDesignTrialInstance.this.columns[column][this.index];
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return BVDesignTrialInstance.this.columnIndexes.containsKey(key);
+		}
+
+		@Override
+		public Set<Entry<String, String>> entrySet() {
+			final Set<Entry<String, String>> entries = new LinkedHashSet<>();
+			for (final String column : BVDesignTrialInstance.this.columnIndexes.keySet()) {
+				entries.add(new SimpleImmutableEntry<>(column, this.get(column)));
+			}
+			return entries;
+		}
+	}
 }
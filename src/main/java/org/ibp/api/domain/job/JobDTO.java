@@ -0,0 +1,118 @@
+package org.ibp.api.domain.job;
+
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.List;
+
+public class JobDTO implements Serializable {
+
+	private static final long serialVersionUID = -3307516094517254874L;
+
+	private String jobId;
+	private JobType type;
+	private String cropName;
+	private JobStatus status;
+	private long total;
+	private long processed;
+	private Date createdDate;
+	private Date startedDate;
+	private Date finishedDate;
+	private boolean hasResultFile;
+	private List<String> errors;
+
+	public String getJobId() {
+		return this.jobId;
+	}
+
+	public void setJobId(final String jobId) {
+		this.jobId = jobId;
+	}
+
+	public JobType getType() {
+		return this.type;
+	}
+
+	public void setType(final JobType type) {
+		this.type = type;
+	}
+
+	public String getCropName() {
+		return this.cropName;
+	}
+
+	public void setCropName(final String cropName) {
+		this.cropName = cropName;
+	}
+
+	public JobStatus getStatus() {
+		return this.status;
+	}
+
+	public void setStatus(final JobStatus status) {
+		this.status = status;
+	}
+
+	public long getTotal() {
+		return this.total;
+	}
+
+	public void setTotal(final long total) {
+		this.total = total;
+	}
+
+	public long getProcessed() {
+		return this.processed;
+	}
+
+	public void setProcessed(final long processed) {
+		this.processed = processed;
+	}
+
+	public Date getCreatedDate() {
+		return this.createdDate;
+	}
+
+	public void setCreatedDate(final Date createdDate) {
+		this.createdDate = createdDate;
+	}
+
+	public Date getStartedDate() {
+		return this.startedDate;
+	}
+
+	public void setStartedDate(final Date startedDate) {
+		this.startedDate = startedDate;
+	}
+
+	public Date getFinishedDate() {
+		return this.finishedDate;
+	}
+
+	public void setFinishedDate(final Date finishedDate) {
+		this.finishedDate = finishedDate;
+	}
+
+	public boolean isHasResultFile() {
+		return this.hasResultFile;
+	}
+
+	public void setHasResultFile(final boolean hasResultFile) {
+		this.hasResultFile = hasResultFile;
+	}
+
+	public List<String> getErrors() {
+		return this.errors;
+	}
+
+	public void setErrors(final List<String> errors) {
+		this.errors = errors;
+	}
+
+	@Override
+	public String toString() {
+		return ReflectionToStringBuilder.toString(this, ToStringStyle.SHORT_PREFIX_STYLE);
+	}
+}
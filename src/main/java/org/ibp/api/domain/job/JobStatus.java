@@ -0,0 +1,10 @@
+package org.ibp.api.domain.job;
+
+public enum JobStatus {
+
+	QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+	public boolean isFinished() {
+		return this == COMPLETED || this == FAILED || this == CANCELLED;
+	}
+}
@@ -0,0 +1,23 @@
+package org.ibp.api.domain.job;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public enum JobType {
+
+	// Authorities of the endpoints that submit each type of job, also needed to see the job
+	DERIVED_VARIABLE_CALCULATION("ADMIN", "STUDIES", "MANAGE_STUDIES"),
+	DATASET_EXPORT("ADMIN", "STUDIES", "MANAGE_STUDIES", "BROWSE_STUDIES"),
+	LABEL_PRINTING("ADMIN", "STUDIES", "MANAGE_STUDIES", "CROP_MANAGEMENT", "MANAGE_INVENTORY", "MANAGE_LOTS", "LOT_LABEL_PRINTING");
+
+	private final List<String> authorities;
+
+	JobType(final String... authorities) {
+		this.authorities = Collections.unmodifiableList(Arrays.asList(authorities));
+	}
+
+	public List<String> getAuthorities() {
+		return this.authorities;
+	}
+}
@@ -1,9 +1,23 @@
 package org.ibp.api.java.dataset;
 
 import java.io.File;
+import java.io.OutputStream;
 import java.util.Set;
 
 public interface DatasetExportService {
 
 	File export(final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile);
+
+	/**
+	 * Exports only the observation units with observations created or updated since the watermark, in milliseconds since the epoch
+	 */
+	File exportChanges(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final long changedSince);
+
+	/**
+	 * Writes the file of each instance as an entry of a zip to the stream, in a single pass and without temporary files
+	 */
+	void exportAsZip(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final OutputStream outputStream);
 }
@@ -7,6 +7,7 @@ import org.ibp.api.rest.dataset.ObservationUnitRow;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -19,5 +20,9 @@ public interface DatasetFileGenerator {
 	File generateMultiInstanceFile(Map<Integer, List<ObservationUnitRow>> observationUnitRowMap, List<MeasurementVariable> columns,
 		String fileNameFullPath) throws IOException;
 
-	File generateTraitAndSelectionVariablesFile(List<String[]> rowValues, String filenamePath) throws IOException;
+	/**
+	 * Writes the file of one instance to the stream, which is left open so that it can be an entry of a zip
+	 */
+	void writeSingleInstance(Integer studyId, DatasetDTO dataSetDto, List<MeasurementVariable> columns,
+		List<ObservationUnitRow> observationUnitRows, StudyInstance studyInstance, OutputStream outputStream) throws IOException;
 }
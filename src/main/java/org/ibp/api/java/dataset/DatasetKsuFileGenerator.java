@@ -0,0 +1,19 @@
+package org.ibp.api.java.dataset;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Generator of the KSU (KDSmart) exports, which add a file with the trait and selection variables of the dataset to the instance files
+ */
+public interface DatasetKsuFileGenerator extends DatasetFileGenerator {
+
+	File generateTraitAndSelectionVariablesFile(List<String[]> rowValues, String filenamePath) throws IOException;
+
+	/**
+	 * Writes the trait and selection variables file to the stream, which is left open so that it can be an entry of a zip
+	 */
+	void writeTraitAndSelectionVariables(List<String[]> rowValues, OutputStream outputStream) throws IOException;
+}
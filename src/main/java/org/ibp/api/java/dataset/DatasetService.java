@@ -172,6 +172,19 @@ public interface DatasetService {
 	 */
 	Map<Integer, List<ObservationUnitRow>> getInstanceObservationUnitRowsMap(int studyId, int datasetId, List<Integer> instanceId);
 
+	/**
+	 * Returns a map where the key is the instance id and the value is the list of the given observation unit rows that belong to the
+	 * instance. Only the given observation units are read from the database
+	 *
+	 * @param studyId            Id of the study
+	 * @param datasetId          Id of the dataset
+	 * @param instanceIds        Ids of the instances
+	 * @param observationUnitIds Ids of the observation units
+	 * @return Map<Integer, List < ObservationUnitRow>>
+	 */
+	Map<Integer, List<ObservationUnitRow>> getInstanceObservationUnitRowsMap(
+		int studyId, int datasetId, List<Integer> instanceIds, Set<Integer> observationUnitIds);
+
 	/**
 	 * Returns the list of observation unit rows that matches the search param
 	 *
@@ -240,6 +253,14 @@ public interface DatasetService {
 	 */
 	void importObservations(Integer studyDbId, List<ObservationDTO> input);
 
+	/**
+	 * Runs the checks of {@link #importObservations(Integer, List)} on a list of observations without saving them
+	 *
+	 * @param studyDbId   Id of the study/environment
+	 * @param input     ObservationsPutRequestInput
+	 */
+	void validateObservations(Integer studyDbId, List<ObservationDTO> input);
+
 	/**
 	 * Count how many instances and observations are filtered given a filter with a not null variable
 	 *
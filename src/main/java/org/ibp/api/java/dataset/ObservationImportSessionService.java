@@ -0,0 +1,29 @@
+package org.ibp.api.java.dataset;
+
+import org.generationcp.middleware.api.brapi.v1.observation.ObservationDTO;
+import org.ibp.api.domain.dataset.ObservationImportSessionDTO;
+
+import java.util.List;
+
+public interface ObservationImportSessionService {
+
+	ObservationImportSessionDTO open(String cropName, Integer studyDbId);
+
+	ObservationImportSessionDTO getSession(String cropName, Integer studyDbId, String sessionId);
+
+	/**
+	 * Validates a batch of observations and stages it in the session. Staging a batch again with the same sequence number replaces it
+	 *
+	 * @return the session, with the batch staged
+	 */
+	ObservationImportSessionDTO stageBatch(String cropName, Integer studyDbId, String sessionId, Integer sequenceNumber,
+		List<ObservationDTO> observations);
+
+	/**
+	 * Saves the staged batches in the order of their sequence numbers, each one in its own transaction. If a batch fails, the batches
+	 * before it stay saved and the commit can be retried for the rest. Committing a committed session saves nothing
+	 *
+	 * @return the observations saved by this call, with their observationDbIds
+	 */
+	List<ObservationDTO> commit(String cropName, Integer studyDbId, String sessionId);
+}
@@ -1,4 +1,3 @@
-
 package org.ibp.api.java.design.runner;
 
 import org.ibp.api.domain.design.BVDesignOutput;
@@ -11,4 +10,11 @@ public interface DesignRunner {
 	public BVDesignOutput runBVDesign(MainDesign design)
 			throws IOException;
 
+	/**
+	 * @return whether latinized resolvable incomplete block and row-column designs can be generated
+	 */
+	default boolean supportsLatinizedDesigns() {
+		return true;
+	}
+
 }
@@ -1,6 +1,8 @@
 
 package org.ibp.api.java.impl.middleware.common;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import liquibase.util.StringUtils;
 import org.generationcp.middleware.ContextHolder;
 import org.ibp.api.java.crop.CropService;
@@ -8,27 +10,68 @@ import org.ibp.api.java.program.ProgramService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
-
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the crop and program of the current request. Both are resolved once per request and kept as request attributes, the installed
+ * crops are kept in memory and reloaded when an unknown crop is requested (e.g. a crop was installed after startup). An unknown crop is
+ * not looked up again for {@code context.resolver.unknown.crop.ttl.seconds}, so that requests for a wrong crop do not reload the crops
+ * every time. The programs that were found for a crop are kept for {@code context.resolver.program.cache.ttl.seconds}, up to
+ * {@code context.resolver.program.cache.size} entries. Programs are created and deleted by the Workbench, so a deleted program is still
+ * accepted until its entry expires.
+ */
 @Component
 public class ContextResolverImpl implements ContextResolver {
 
 	private static final Logger LOG = LoggerFactory.getLogger(ContextResolverImpl.class);
 	public static final String BRAPI = "brapi";
 
+	static final String CROP_NAME_ATTRIBUTE = ContextResolverImpl.class.getName() + ".CROP_NAME";
+	static final String PROGRAM_UUID_ATTRIBUTE = ContextResolverImpl.class.getName() + ".PROGRAM_UUID";
+
+	private static final int UNKNOWN_CROPS_MAX_SIZE = 1000;
+
 	@Autowired
 	private CropService cropService;
 
 	@Autowired
 	private ProgramService programService;
 
+	@Value("${context.resolver.program.cache.size:1000}")
+	private int programCacheSize;
+
+	@Value("${context.resolver.program.cache.ttl.seconds:300}")
+	private int programCacheTtlSeconds;
+
+	@Value("${context.resolver.unknown.crop.ttl.seconds:30}")
+	private int unknownCropTtlSeconds;
+
+	private volatile Set<String> installedCrops = Collections.emptySet();
+
+	private Cache<String, Boolean> unknownCrops;
+
+	private Cache<String, Boolean> programs;
+
+	@PostConstruct
+	void init() {
+		this.unknownCrops = CacheBuilder.newBuilder().maximumSize(UNKNOWN_CROPS_MAX_SIZE)
+			.expireAfterWrite(this.unknownCropTtlSeconds, TimeUnit.SECONDS).build();
+		this.programs = CacheBuilder.newBuilder().maximumSize(this.programCacheSize)
+			.expireAfterWrite(this.programCacheTtlSeconds, TimeUnit.SECONDS).build();
+	}
+
 	@Override
 	public String resolveDatabaseFromUrl() throws ContextResolutionException {
 		final String crop = this.resolveCropNameFromUrl();
@@ -46,6 +89,14 @@ public class ContextResolverImpl implements ContextResolver {
 			throw new ContextResolutionException("Request is null");
 		}
 
+		final String resolvedCropName = (String) request.getAttribute(CROP_NAME_ATTRIBUTE);
+		if (resolvedCropName != null) {
+			if (!StringUtils.isEmpty(resolvedCropName)) {
+				ContextHolder.setCurrentCrop(resolvedCropName);
+			}
+			return resolvedCropName;
+		}
+
 		final String path = request.getRequestURI().substring(request.getContextPath().length());
 		ContextResolverImpl.LOG.debug("Request path: " + path);
 		final String[] parts = path.trim().toLowerCase().split("/");
@@ -74,8 +125,7 @@ public class ContextResolverImpl implements ContextResolver {
 		}
 
 		if (!StringUtils.isEmpty(cropName)) {
-			final List<String> installedCrops = this.cropService.getInstalledCrops();
-			if (!installedCrops.stream().map(crop -> crop.toUpperCase()).collect(Collectors.toList()).contains(cropName.toUpperCase())) {
+			if (!this.isInstalledCrop(cropName)) {
 				throw new ContextResolutionException("Invalid crop " + cropName + " for URL:" + path);
 			}
 			ContextHolder.setCurrentCrop(cropName);
@@ -85,6 +135,7 @@ public class ContextResolverImpl implements ContextResolver {
 			throw new ContextResolutionException("Could not resolve crop for URL:" + path);
 		}
 		ContextResolverImpl.LOG.debug("Crop Name: " + cropName);
+		request.setAttribute(CROP_NAME_ATTRIBUTE, cropName);
 		return cropName;
 	}
 
@@ -95,6 +146,12 @@ public class ContextResolverImpl implements ContextResolver {
 			throw new ContextResolutionException("Request is null");
 		}
 
+		final String resolvedProgramUUID = (String) request.getAttribute(PROGRAM_UUID_ATTRIBUTE);
+		if (resolvedProgramUUID != null) {
+			ContextHolder.setCurrentProgram(StringUtils.isEmpty(resolvedProgramUUID) ? null : resolvedProgramUUID);
+			return resolvedProgramUUID;
+		}
+
 		final String path = request.getRequestURI().substring(request.getContextPath().length());
 		final String[] parts = path.trim().toLowerCase().split("/");
 		final int programsTokenIndex = Arrays.asList(parts).indexOf("programs");
@@ -117,7 +174,7 @@ public class ContextResolverImpl implements ContextResolver {
 			if (StringUtils.isEmpty(crop)) {
 				throw new ContextResolutionException("Could not resolve crop for program: " + programUUID + " for service with path " + path);
 			}
-			if (this.programService.getByUUIDAndCrop(crop,programUUID) == null){
+			if (!this.isProgramOfCrop(crop, programUUID)){
 				throw new ContextResolutionException("Invalid program: " + programUUID + " for crop: " + crop + " for service with path " + path);
 			}
 			ContextHolder.setCurrentProgram(programUUID);
@@ -126,11 +183,47 @@ public class ContextResolverImpl implements ContextResolver {
 			ContextHolder.setCurrentProgram(null);
 		}
 
-
+		request.setAttribute(PROGRAM_UUID_ATTRIBUTE, programUUID);
 		return programUUID;
 
 	}
 
+	private boolean isInstalledCrop(final String cropName) {
+		if (this.installedCrops.contains(cropName)) {
+			return true;
+		}
+		final String key = cropName.toLowerCase();
+		if (this.unknownCrops.getIfPresent(key) != null) {
+			return false;
+		}
+		// The crop may have been installed after the crops were loaded
+		this.loadInstalledCrops();
+		if (this.installedCrops.contains(cropName)) {
+			return true;
+		}
+		this.unknownCrops.put(key, Boolean.TRUE);
+		return false;
+	}
+
+	private synchronized void loadInstalledCrops() {
+		final Set<String> crops = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		crops.addAll(this.cropService.getInstalledCrops());
+		this.installedCrops = crops;
+	}
+
+	private boolean isProgramOfCrop(final String crop, final String programUUID) {
+		final String key = crop.toLowerCase() + ":" + programUUID;
+		if (this.programs.getIfPresent(key) != null) {
+			return true;
+		}
+		// Only programs that were found are kept, so a program created after a failed lookup is found on the next request
+		if (this.programService.getByUUIDAndCrop(crop, programUUID) == null) {
+			return false;
+		}
+		this.programs.put(key, Boolean.TRUE);
+		return true;
+	}
+
 	void setCropService(final CropService cropService) {
 		this.cropService = cropService;
 	}
@@ -138,4 +231,16 @@ public class ContextResolverImpl implements ContextResolver {
 	void setProgramService(final ProgramService programService) {
 		this.programService = programService;
 	}
+
+	void setProgramCacheSize(final int programCacheSize) {
+		this.programCacheSize = programCacheSize;
+	}
+
+	void setProgramCacheTtlSeconds(final int programCacheTtlSeconds) {
+		this.programCacheTtlSeconds = programCacheTtlSeconds;
+	}
+
+	void setUnknownCropTtlSeconds(final int unknownCropTtlSeconds) {
+		this.unknownCropTtlSeconds = unknownCropTtlSeconds;
+	}
 }
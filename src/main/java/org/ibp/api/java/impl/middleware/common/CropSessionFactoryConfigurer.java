@@ -0,0 +1,59 @@
+package org.ibp.api.java.impl.middleware.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Properties;
+
+/**
+ * Sets the JDBC batching of the crop session factories, which are defined by the Middleware. The inserts and updates pending when a crop
+ * session is flushed are sent in batches of {@code crop.session.factory.jdbc.batch.size}, ordered by entity so that consecutive statements
+ * of the same entity share a batch. The workbench session factory is left as it is.
+ */
+@Component
+public class CropSessionFactoryConfigurer implements BeanPostProcessor {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CropSessionFactoryConfigurer.class);
+
+	static final String SESSION_FACTORY_SUFFIX = "_SessionFactory";
+	static final String WORKBENCH_SESSION_FACTORY = "WORKBENCH" + SESSION_FACTORY_SUFFIX;
+	static final String HIBERNATE_PROPERTIES = "hibernateProperties";
+
+	@Value("${crop.session.factory.jdbc.batch.size:50}")
+	private int jdbcBatchSize;
+
+	@Override
+	public Object postProcessBeforeInitialization(final Object bean, final String beanName) throws BeansException {
+		// The factory bean is configured before it builds the session factory
+		if (!beanName.endsWith(SESSION_FACTORY_SUFFIX) || WORKBENCH_SESSION_FACTORY.equals(beanName) || this.jdbcBatchSize <= 0) {
+			return bean;
+		}
+		final BeanWrapper beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(bean);
+		if (!beanWrapper.isReadableProperty(HIBERNATE_PROPERTIES)) {
+			LOG.warn("JDBC batching could not be set on the crop session factory {}", beanName);
+			return bean;
+		}
+		final Properties hibernateProperties = (Properties) beanWrapper.getPropertyValue(HIBERNATE_PROPERTIES);
+		hibernateProperties.setProperty("hibernate.jdbc.batch_size", String.valueOf(this.jdbcBatchSize));
+		hibernateProperties.setProperty("hibernate.order_inserts", "true");
+		hibernateProperties.setProperty("hibernate.order_updates", "true");
+		hibernateProperties.setProperty("hibernate.jdbc.batch_versioned_data", "true");
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, final String beanName) throws BeansException {
+		return bean;
+	}
+
+	void setJdbcBatchSize(final int jdbcBatchSize) {
+		this.jdbcBatchSize = jdbcBatchSize;
+	}
+
+}
@@ -0,0 +1,160 @@
+package org.ibp.api.java.impl.middleware.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.generationcp.commons.pojo.treeview.TreeNode;
+import org.generationcp.middleware.ContextHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the levels of the list trees (germplasm lists, sample lists) of each crop, i.e. the child nodes of a folder with their number of
+ * children, number of entries and owner, as the list manager expands the same folders again and again. Changes to a node only invalidate
+ * the levels that show it: the level where the node is a child, whose counts or names change, and the level of its own children. Changes
+ * made by other applications are only seen after {@code list.tree.cache.ttl.seconds}.
+ */
+@Component
+public class ListTreeCache {
+
+	public static final String GERMPLASM_LISTS = "germplasm";
+	public static final String SAMPLE_LISTS = "sample";
+
+	// Ids of the root folders of the trees, see GermplasmListServiceImpl and SampleListServiceImpl
+	public static final String PROGRAM_LISTS = "LISTS";
+	public static final String CROP_LISTS = "CROPLISTS";
+
+	private static final Logger LOG = LoggerFactory.getLogger(ListTreeCache.class);
+
+	private static final String ROOT = "ROOT";
+
+	@Value("${list.tree.cache.size:1000}")
+	private long size;
+
+	@Value("${list.tree.cache.ttl.seconds:60}")
+	private long ttlSeconds;
+
+	private final Map<String, Cache<String, Level>> crops = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the child nodes of the parent, loaded with the loader if they are not cached. The parent is null for the root level
+	 */
+	public List<TreeNode> getChildrenNodes(final String treeType, final String programUUID, final String parentId,
+		final boolean folderOnly, final Supplier<List<TreeNode>> loader) {
+		final Cache<String, Level> cache = this.getCropCache();
+		if (cache == null) {
+			return loader.get();
+		}
+
+		final String parentNodeId = getNodeId(programUUID, parentId);
+		final String key = treeType + ":" + programUUID + ":" + parentNodeId + ":" + folderOnly;
+		Level level = cache.getIfPresent(key);
+		if (level == null) {
+			level = new Level(treeType, parentNodeId, programUUID, loader.get());
+			cache.put(key, level);
+		}
+		return level.nodes;
+	}
+
+	/**
+	 * Removes the levels that show any of the given nodes of the current crop, either as a child or as the parent. Use
+	 * {@link #CROP_LISTS} or {@link #PROGRAM_LISTS} for the lists at the top of the crop or program folders. Within a transaction they are
+	 * removed again after it commits, as other requests may have cached the levels it changed before they were committed.
+	 */
+	public void invalidateNodes(final String treeType, final String programUUID, final String... nodeIds) {
+		final String cropName = ContextHolder.getCurrentCrop();
+		if (cropName == null) {
+			return;
+		}
+
+		final Set<String> invalidNodeIds = new HashSet<>();
+		for (final String nodeId : nodeIds) {
+			invalidNodeIds.add(getNodeId(programUUID, nodeId));
+		}
+		this.evictNodes(cropName, treeType, invalidNodeIds);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+				@Override
+				public void afterCommit() {
+					ListTreeCache.this.evictNodes(cropName, treeType, invalidNodeIds);
+				}
+			});
+		}
+	}
+
+	private void evictNodes(final String cropName, final String treeType, final Set<String> invalidNodeIds) {
+		final Cache<String, Level> cache = this.crops.get(cropName.toLowerCase());
+		if (cache == null) {
+			return;
+		}
+		cache.asMap().values().removeIf(level -> level.treeType.equals(treeType) && level.shows(invalidNodeIds));
+		LOG.debug("List tree cache invalidated for {} lists {}", treeType, invalidNodeIds);
+	}
+
+	public void invalidate(final String cropName) {
+		this.crops.remove(cropName.toLowerCase());
+		LOG.debug("List tree cache invalidated for crop {}", cropName);
+	}
+
+	private static String getNodeId(final String programUUID, final String nodeId) {
+		if (nodeId == null) {
+			return ROOT + ":" + programUUID;
+		}
+		// Every program has its own program folder, while the crop folder and the lists in it are shared by all of them
+		return PROGRAM_LISTS.equals(nodeId) ? nodeId + ":" + programUUID : nodeId;
+	}
+
+	private Cache<String, Level> getCropCache() {
+		final String cropName = ContextHolder.getCurrentCrop();
+		if (cropName == null) {
+			return null;
+		}
+		return this.crops.computeIfAbsent(cropName.toLowerCase(), crop -> this.newCache());
+	}
+
+	private Cache<String, Level> newCache() {
+		return CacheBuilder.newBuilder().maximumSize(this.size).expireAfterWrite(this.ttlSeconds, TimeUnit.SECONDS).build();
+	}
+
+	void setSize(final long size) {
+		this.size = size;
+	}
+
+	void setTtlSeconds(final long ttlSeconds) {
+		this.ttlSeconds = ttlSeconds;
+	}
+
+	private static final class Level {
+
+		private final String treeType;
+		private final String parentNodeId;
+		private final Set<String> childNodeIds = new HashSet<>();
+		private final List<TreeNode> nodes;
+
+		Level(final String treeType, final String parentNodeId, final String programUUID, final List<TreeNode> nodes) {
+			this.treeType = treeType;
+			this.parentNodeId = parentNodeId;
+			this.nodes = Collections.unmodifiableList(nodes);
+			for (final TreeNode node : nodes) {
+				this.childNodeIds.add(getNodeId(programUUID, node.getKey()));
+			}
+		}
+
+		boolean shows(final Set<String> nodeIds) {
+			return nodeIds.contains(this.parentNodeId) || !Collections.disjoint(this.childNodeIds, nodeIds);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package org.ibp.api.java.impl.middleware.common;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.generationcp.middleware.hibernate.DatasourceUtilities;
+import org.generationcp.middleware.pojos.workbench.CropType;
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Builds the session factory and the connection pool of every installed crop when the application starts, so the first request to each
+ * crop does not pay for them. The crops are warmed up one after the other, as Spring creates singleton beans under a single lock, each
+ * with a validation query. The node only starts serving requests once they are all ready: if a crop fails, or if they are not ready
+ * within {@code session.factory.warmup.timeout.seconds}, the startup fails so that the node is kept out of rotation. The timeout also
+ * applies while a crop is being warmed up, so a crop database that does not answer does not hold the startup. Enabled with
+ * {@code session.factory.warmup.enabled}.
+ */
+@Component
+public class SessionFactoryWarmUp implements ApplicationListener<ContextRefreshedEvent> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SessionFactoryWarmUp.class);
+
+	static final String VALIDATION_QUERY = "SELECT 1";
+
+	@Value("${session.factory.warmup.enabled:false}")
+	private boolean enabled;
+
+	@Value("${session.factory.warmup.timeout.seconds:600}")
+	private long timeoutSeconds;
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	@Override
+	public void onApplicationEvent(final ContextRefreshedEvent event) {
+		// Child contexts publish their own refresh events
+		if (!this.enabled || event.getApplicationContext() != this.applicationContext || !this.started.compareAndSet(false, true)) {
+			return;
+		}
+		this.warmUp();
+	}
+
+	/**
+	 * @return the time taken by each crop database, in milliseconds
+	 * @throws IllegalStateException if a crop database could not be warmed up, or if they were not all warmed up in time
+	 */
+	Map<String, Long> warmUp() {
+		final long start = System.nanoTime();
+		final List<String> cropDatabaseNames = this.getInstalledCropDatabaseNames();
+
+		final Map<String, Long> timings = new LinkedHashMap<>();
+		final List<String> failedCropDatabaseNames = new ArrayList<>();
+		final long deadline = start + TimeUnit.SECONDS.toNanos(this.timeoutSeconds);
+		// The crops are warmed up in another thread, so that a crop that hangs while its pool connects still fails the startup on time
+		final ExecutorService executor = Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("session-factory-warmup-%d").setDaemon(true).build());
+		try {
+			for (final String cropDatabaseName : cropDatabaseNames) {
+				final long remainingNanos = deadline - System.nanoTime();
+				if (remainingNanos <= 0) {
+					throw this.timeoutException(timings.size(), cropDatabaseNames.size());
+				}
+				final Future<Long> future = executor.submit(() -> this.warmUp(cropDatabaseName, remainingNanos));
+				try {
+					final long millis = future.get(remainingNanos, TimeUnit.NANOSECONDS);
+					timings.put(cropDatabaseName, millis);
+					LOG.info("Crop database {} warmed up in {} ms", cropDatabaseName, millis);
+				} catch (final ExecutionException e) {
+					// The next crops are still tried, so that every failure is logged
+					LOG.error("Crop database " + cropDatabaseName + " could not be warmed up", e.getCause());
+					failedCropDatabaseNames.add(cropDatabaseName);
+				} catch (final TimeoutException e) {
+					future.cancel(true);
+					LOG.error("Crop database {} was not warmed up in time", cropDatabaseName);
+					throw this.timeoutException(timings.size(), cropDatabaseNames.size());
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException("Interrupted while warming up crop database " + cropDatabaseName, e);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		if (!failedCropDatabaseNames.isEmpty()) {
+			throw new IllegalStateException("Crop databases could not be warmed up: " + failedCropDatabaseNames);
+		}
+		LOG.info("{} crop databases warmed up in {} ms", timings.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return timings;
+	}
+
+	private IllegalStateException timeoutException(final int warmedUp, final int total) {
+		return new IllegalStateException(
+			String.format("Only %d of %d crop databases were warmed up in %d seconds", warmedUp, total, this.timeoutSeconds));
+	}
+
+	private long warmUp(final String cropDatabaseName, final long remainingNanos) {
+		final long start = System.nanoTime();
+		// Creating the bean builds the Hibernate metadata and the pool, the query opens the first connection
+		final SessionFactory sessionFactory =
+			this.applicationContext.getBean(DatasourceUtilities.computeSessionFactoryName(cropDatabaseName), SessionFactory.class);
+		final Session session = sessionFactory.openSession();
+		try {
+			final SQLQuery query = session.createSQLQuery(VALIDATION_QUERY);
+			// Also bounds the query in the database, as cancelling the thread does not interrupt a blocked JDBC call
+			query.setTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos)));
+			query.uniqueResult();
+		} finally {
+			session.close();
+		}
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> getInstalledCropDatabaseNames() {
+		// There is no request yet, so the workbench is read with its own session instead of the request scoped managers
+		final Session session = this.applicationContext.getBean("WORKBENCH_SessionFactory", SessionFactory.class).openSession();
+		try {
+			final List<String> cropDatabaseNames = new ArrayList<>();
+			for (final CropType cropType : (List<CropType>) session.createCriteria(CropType.class).list()) {
+				cropDatabaseNames.add(cropType.getDbName());
+			}
+			return cropDatabaseNames;
+		} finally {
+			session.close();
+		}
+	}
+
+	void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	void setTimeoutSeconds(final long timeoutSeconds) {
+		this.timeoutSeconds = timeoutSeconds;
+	}
+
+	void setApplicationContext(final ApplicationContext applicationContext) {
+		this.applicationContext = applicationContext;
+	}
+}
@@ -23,24 +23,36 @@ import org.ibp.api.java.dataset.DatasetService;
 import org.ibp.api.java.impl.middleware.dataset.validator.DatasetValidator;
 import org.ibp.api.java.impl.middleware.dataset.validator.InstanceValidator;
 import org.ibp.api.java.impl.middleware.study.validator.StudyValidator;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
 import org.ibp.api.java.inventory.manager.TransactionService;
+import org.ibp.api.java.job.JobProgress;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.Resource;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public abstract class AbstractDatasetExportService {
 
 	static final String XLS = "xls";
+	static final String XLSX = "xlsx";
 	static final String CSV = "csv";
 
 	@Autowired
@@ -73,6 +85,12 @@ public abstract class AbstractDatasetExportService {
 	@Autowired
 	private TransactionService transactionService;
 
+	@Resource
+	private ParallelExecutor parallelExecutor;
+
+	@Resource
+	private ObservationChanges observationChanges;
+
 	private ZipUtil zipUtil = new ZipUtil();
 
 	protected void validate(final int studyId, final int datasetId, final Set<Integer> instanceIds) {
@@ -84,30 +102,36 @@ public abstract class AbstractDatasetExportService {
 	File generate(
 		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId,
 		final DatasetFileGenerator generator, final boolean singleFile, final String fileExtension) throws IOException {
+		return this.generate(studyId, datasetId, instanceIds, collectionOrderId, generator, singleFile, fileExtension, null);
+	}
+
+	/**
+	 * Generates the files with only the observation units that have observations created or updated since the watermark, or with all of
+	 * them if it is null
+	 */
+	File generate(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId,
+		final DatasetFileGenerator generator, final boolean singleFile, final String fileExtension, final Long changedSince)
+		throws IOException {
 
 		final Study study = this.studyDataManager.getStudy(studyId);
 		final DatasetDTO dataSet = this.datasetService.getDataset(datasetId);
 
-		// Get all variables for the dataset
-		final List<MeasurementVariable> columns = this.getColumns(study.getId(), dataSet.getDatasetId());
-		if (dataSet.getDatasetTypeId().equals(DatasetTypeEnum.PLOT_DATA.getId())) {
-			final TransactionsSearchDto transactionsSearchDto = new TransactionsSearchDto();
-			transactionsSearchDto.setTransactionStatus(Arrays.asList(0,1));
-			transactionsSearchDto.setPlantingStudyIds(Arrays.asList(studyId));
-			if (this.transactionService.countSearchTransactions(transactionsSearchDto) > 0) {
-				this.addStockIdColumn(columns);
-			}
-		}
+		final List<MeasurementVariable> columns = this.getExportColumns(study, dataSet);
 
 		final Map<Integer, StudyInstance> selectedDatasetInstancesMap = this.getSelectedDatasetInstancesMap(
 			dataSet.getInstances(),
 			instanceIds);
+		// The changed observation units are read by id, instead of reading the whole dataset
+		final Set<Integer> observationUnitIds =
+			changedSince == null ? null : this.observationChanges.getChangedObservationUnitIds(datasetId, changedSince);
 		final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap =
-			this.getObservationUnitRowMap(study, dataSet, selectedDatasetInstancesMap);
+			this.getObservationUnitRowMap(study, dataSet, selectedDatasetInstancesMap, observationUnitIds);
 		final DatasetCollectionOrderServiceImpl.CollectionOrder collectionOrder =
 			DatasetCollectionOrderServiceImpl.CollectionOrder.findById(collectionOrderId);
 		final int trialDatasetId = this.studyDataManager.getDataSetsByType(study.getId(), DatasetTypeEnum.SUMMARY_DATA.getId()).get(0).getId();
 		this.datasetCollectionOrderService.reorder(collectionOrder, trialDatasetId, selectedDatasetInstancesMap, observationUnitRowMap);
+		JobProgress.current().setTotal(observationUnitRowMap.values().stream().mapToLong(List::size).sum());
 
 		if (singleFile) {
 			return this.generateInSingleFile(study, dataSet, observationUnitRowMap, columns, generator, fileExtension);
@@ -118,6 +142,98 @@ public abstract class AbstractDatasetExportService {
 
 	}
 
+	/**
+	 * Writes the file of each selected instance as an entry of a zip, in a single pass and without temporary files. The rows of the next
+	 * instances are loaded and put in collection order in parallel while the current one is written, at most as many instances ahead as
+	 * there are parallel threads, so only those instances are held in memory instead of the whole study. Entries are written in the
+	 * order of the instances.
+	 */
+	void generateZip(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId,
+		final DatasetFileGenerator generator, final String fileExtension, final OutputStream outputStream) throws IOException {
+
+		final Study study = this.studyDataManager.getStudy(studyId);
+		final DatasetDTO dataSet = this.datasetService.getDataset(datasetId);
+		final List<MeasurementVariable> columns = this.getExportColumns(study, dataSet);
+		final List<StudyInstance> studyInstances =
+			new ArrayList<>(this.getSelectedDatasetInstancesMap(dataSet.getInstances(), instanceIds).values());
+		final DatasetCollectionOrderServiceImpl.CollectionOrder collectionOrder =
+			DatasetCollectionOrderServiceImpl.CollectionOrder.findById(collectionOrderId);
+		final int trialDatasetId = this.studyDataManager.getDataSetsByType(study.getId(), DatasetTypeEnum.SUMMARY_DATA.getId()).get(0).getId();
+		final Map<Integer, DatasetTypeDTO> datasetTypeMap = this.datasetTypeService.getAllDatasetTypesMap();
+		// The total is known before the rows are loaded, so it does not grow as the instances are written
+		JobProgress.current().setTotal(this.countObservationUnits(datasetId, studyInstances));
+
+		final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+		final Deque<Future<List<ObservationUnitRow>>> pendingInstances = new ArrayDeque<>();
+		int submitted = 0;
+		try {
+			for (final StudyInstance studyInstance : studyInstances) {
+				while (submitted < studyInstances.size() && pendingInstances.size() < this.parallelExecutor.getThreads()) {
+					pendingInstances.add(this.submitInstanceRows(study, dataSet, studyInstances.get(submitted++), collectionOrder,
+						trialDatasetId));
+				}
+				final List<ObservationUnitRow> observationUnitRows = this.getInstanceRows(pendingInstances.poll());
+
+				zipOutputStream.putNextEntry(
+					new ZipEntry(this.getInstanceFileName(study, dataSet, studyInstance, datasetTypeMap, fileExtension)));
+				generator.writeSingleInstance(study.getId(), dataSet, columns, observationUnitRows, studyInstance, zipOutputStream);
+				zipOutputStream.closeEntry();
+			}
+			this.writeAdditionalEntries(study, dataSet, generator, zipOutputStream);
+			zipOutputStream.finish();
+		} finally {
+			// Stops loading the next instances when the export fails or is cancelled
+			for (final Future<List<ObservationUnitRow>> pendingInstance : pendingInstances) {
+				pendingInstance.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Writes the entries that do not belong to an instance at the end of the zip
+	 */
+	protected void writeAdditionalEntries(
+		final Study study, final DatasetDTO dataSetDto, final DatasetFileGenerator generator, final ZipOutputStream zipOutputStream)
+		throws IOException {
+		// No additional entries by default
+	}
+
+	private long countObservationUnits(final int datasetId, final List<StudyInstance> studyInstances) {
+		long total = 0;
+		for (final StudyInstance studyInstance : studyInstances) {
+			total += this.datasetService.countAllObservationUnitsForDataset(datasetId, studyInstance.getInstanceId(), false);
+		}
+		return total;
+	}
+
+	private Future<List<ObservationUnitRow>> submitInstanceRows(
+		final Study study, final DatasetDTO dataSet, final StudyInstance studyInstance,
+		final DatasetCollectionOrderServiceImpl.CollectionOrder collectionOrder, final int trialDatasetId) {
+		return this.parallelExecutor.submit(() -> {
+			final Map<Integer, StudyInstance> instanceMap = Collections.singletonMap(studyInstance.getInstanceId(), studyInstance);
+			final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap =
+				this.getObservationUnitRowMap(study, dataSet, instanceMap, null);
+			this.datasetCollectionOrderService.reorder(collectionOrder, trialDatasetId, instanceMap, observationUnitRowMap);
+			return observationUnitRowMap.getOrDefault(studyInstance.getInstanceId(), Collections.emptyList());
+		});
+	}
+
+	private List<ObservationUnitRow> getInstanceRows(final Future<List<ObservationUnitRow>> pendingInstance) throws IOException {
+		try {
+			return pendingInstance.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while loading the rows of an instance");
+		} catch (final ExecutionException e) {
+			// Validation and cancellation errors of the instance are reported as they are
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
 	File generateInSingleFile(
 		final Study study,
 		final DatasetDTO dataSet, final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap,
@@ -163,15 +279,8 @@ public abstract class AbstractDatasetExportService {
 
 		final Map<Integer, DatasetTypeDTO> datasetTypeMap = this.datasetTypeService.getAllDatasetTypesMap();
 		for (final Integer instanceDBID : observationUnitRowMap.keySet()) {
-			// Build the filename with the following format:
-			// study_name + TRIAL_INSTANCE number + location_abbr +  dataset_type + dataset_name
-			final String sanitizedFileName = FileUtils.sanitizeFileName(String
-				.format(
-					"%s_%s_%s_%s." + fileExtension,
-					study.getName() + "-" + selectedDatasetInstancesMap.get(instanceDBID).getInstanceNumber(),
-					selectedDatasetInstancesMap.get(instanceDBID).getLocationAbbreviation(),
-					datasetTypeMap.get(dataSetDto.getDatasetTypeId()).getName(), dataSetDto.getName()));
-			final String fileNameFullPath = temporaryFolder.getAbsolutePath() + File.separator + FileNameGenerator.generateFileName(sanitizedFileName);
+			final String fileNameFullPath = temporaryFolder.getAbsolutePath() + File.separator + this
+				.getInstanceFileName(study, dataSetDto, selectedDatasetInstancesMap.get(instanceDBID), datasetTypeMap, fileExtension);
 			files.add(
 				generator.generateSingleInstanceFile(study.getId(), dataSetDto, columns, observationUnitRowMap.get(instanceDBID),
 					fileNameFullPath, selectedDatasetInstancesMap.get(instanceDBID)));
@@ -179,6 +288,20 @@ public abstract class AbstractDatasetExportService {
 		return files;
 	}
 
+	String getInstanceFileName(
+		final Study study, final DatasetDTO dataSetDto, final StudyInstance studyInstance, final Map<Integer, DatasetTypeDTO> datasetTypeMap,
+		final String fileExtension) {
+		// Build the filename with the following format:
+		// study_name + TRIAL_INSTANCE number + location_abbr +  dataset_type + dataset_name
+		final String sanitizedFileName = FileUtils.sanitizeFileName(String
+			.format(
+				"%s_%s_%s_%s." + fileExtension,
+				study.getName() + "-" + studyInstance.getInstanceNumber(),
+				studyInstance.getLocationAbbreviation(),
+				datasetTypeMap.get(dataSetDto.getDatasetTypeId()).getName(), dataSetDto.getName()));
+		return FileNameGenerator.generateFileName(sanitizedFileName);
+	}
+
 	Map<Integer, StudyInstance> getSelectedDatasetInstancesMap(final List<StudyInstance> studyInstances, final Set<Integer> instanceIds) {
 		final Map<Integer, StudyInstance> studyInstanceMap = new LinkedHashMap<>();
 		for (final StudyInstance studyInstance : studyInstances) {
@@ -202,6 +325,20 @@ public abstract class AbstractDatasetExportService {
 		return columns;
 	}
 
+	private List<MeasurementVariable> getExportColumns(final Study study, final DatasetDTO dataSet) {
+		// Get all variables for the dataset
+		final List<MeasurementVariable> columns = this.getColumns(study.getId(), dataSet.getDatasetId());
+		if (dataSet.getDatasetTypeId().equals(DatasetTypeEnum.PLOT_DATA.getId())) {
+			final TransactionsSearchDto transactionsSearchDto = new TransactionsSearchDto();
+			transactionsSearchDto.setTransactionStatus(Arrays.asList(0,1));
+			transactionsSearchDto.setPlantingStudyIds(Arrays.asList(study.getId()));
+			if (this.transactionService.countSearchTransactions(transactionsSearchDto) > 0) {
+				this.addStockIdColumn(columns);
+			}
+		}
+		return columns;
+	}
+
 	protected void addStockIdColumn(final List<MeasurementVariable> plotDataSetColumns) {
 		final Optional<MeasurementVariable>
 			designationColumn = plotDataSetColumns.stream().filter(measurementVariable ->
@@ -213,8 +350,22 @@ public abstract class AbstractDatasetExportService {
 
 	protected abstract List<MeasurementVariable> getColumns(int studyId, int datasetId);
 
+	/**
+	 * @param observationUnitIds the observation units to read, or null to read all the observation units of the instances
+	 */
 	protected abstract Map<Integer, List<ObservationUnitRow>> getObservationUnitRowMap(
-		Study study, DatasetDTO dataset, Map<Integer, StudyInstance> selectedDatasetInstancesMap);
+		Study study, DatasetDTO dataset, Map<Integer, StudyInstance> selectedDatasetInstancesMap, Set<Integer> observationUnitIds);
+
+	protected Map<Integer, List<ObservationUnitRow>> getInstanceObservationUnitRowsMap(
+		final Study study, final DatasetDTO dataset, final Map<Integer, StudyInstance> selectedDatasetInstancesMap,
+		final Set<Integer> observationUnitIds) {
+		final List<Integer> instanceIds = new ArrayList<>(selectedDatasetInstancesMap.keySet());
+		if (observationUnitIds == null) {
+			return this.studyDatasetService.getInstanceObservationUnitRowsMap(study.getId(), dataset.getDatasetId(), instanceIds);
+		}
+		return this.studyDatasetService.getInstanceObservationUnitRowsMap(study.getId(), dataset.getDatasetId(), instanceIds,
+			observationUnitIds);
+	}
 
 	void setZipUtil(final ZipUtil zipUtil) {
 		this.zipUtil = zipUtil;
@@ -21,6 +21,7 @@ import org.generationcp.middleware.service.api.MethodService;
 import org.generationcp.middleware.service.api.dataset.DatasetTypeService;
 import org.generationcp.middleware.service.impl.study.StudyInstance;
 import org.ibp.api.java.dataset.DatasetFileGenerator;
+import org.ibp.api.java.dataset.DatasetKsuFileGenerator;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 
 import javax.annotation.Resource;
@@ -30,6 +31,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public abstract class BaseDatasetKsuExportService extends AbstractDatasetExportService {
 
@@ -67,21 +71,40 @@ public abstract class BaseDatasetKsuExportService extends AbstractDatasetExportS
 			this.getInstanceFiles(study, dataSetDto, selectedDatasetInstancesMap, observationUnitRowMap, columns, generator, fileExtension,
 				temporaryFolder);
 
-		final DatasetTypeDTO datasetType = this.datasetTypeService.getDatasetTypeById(dataSetDto.getDatasetTypeId());
-		final String sanitizedTraitsAndSelectionFilename = FileUtils.sanitizeFileName(String
-			.format(
-				"%s_%s_%s.trt", study.getName(), datasetType.getName(),
-				dataSetDto.getName()));
 		final String traitsAndSelectionFilename =
-			temporaryFolder.getAbsolutePath() + File.separator + FileNameGenerator.generateFileName(sanitizedTraitsAndSelectionFilename);
+			temporaryFolder.getAbsolutePath() + File.separator + this.getTraitsAndSelectionFilename(study, dataSetDto);
 		final List<MeasurementVariable> traitAndSelectionVariables = this.getTraitAndSelectionVariables(dataSetDto.getDatasetId());
 		files.add(
-			generator.generateTraitAndSelectionVariablesFile(this.convertTraitAndSelectionVariablesData(traitAndSelectionVariables),
+			this.getKsuGenerator().generateTraitAndSelectionVariablesFile(this.convertTraitAndSelectionVariablesData(traitAndSelectionVariables),
 				traitsAndSelectionFilename));
 
 		return this.getReturnFile(study, files);
 	}
 
+	@Override
+	protected void writeAdditionalEntries(
+		final Study study, final DatasetDTO dataSetDto, final DatasetFileGenerator generator, final ZipOutputStream zipOutputStream)
+		throws IOException {
+		final List<MeasurementVariable> traitAndSelectionVariables = this.getTraitAndSelectionVariables(dataSetDto.getDatasetId());
+		zipOutputStream.putNextEntry(new ZipEntry(this.getTraitsAndSelectionFilename(study, dataSetDto)));
+		this.getKsuGenerator().writeTraitAndSelectionVariables(this.convertTraitAndSelectionVariablesData(traitAndSelectionVariables), zipOutputStream);
+		zipOutputStream.closeEntry();
+	}
+
+	/**
+	 * @return the generator of the export, which also writes the trait and selection variables file
+	 */
+	protected abstract DatasetKsuFileGenerator getKsuGenerator();
+
+	private String getTraitsAndSelectionFilename(final Study study, final DatasetDTO dataSetDto) {
+		final DatasetTypeDTO datasetType = this.datasetTypeService.getDatasetTypeById(dataSetDto.getDatasetTypeId());
+		final String sanitizedTraitsAndSelectionFilename = FileUtils.sanitizeFileName(String
+			.format(
+				"%s_%s_%s.trt", study.getName(), datasetType.getName(),
+				dataSetDto.getName()));
+		return FileNameGenerator.generateFileName(sanitizedTraitsAndSelectionFilename);
+	}
+
 	protected List<String[]> convertTraitAndSelectionVariablesData(final List<MeasurementVariable> variables) {
 		final List<String[]> data = new ArrayList<>();
 		data.add(BaseDatasetKsuExportService.TRAIT_FILE_HEADERS);
@@ -182,9 +205,9 @@ public abstract class BaseDatasetKsuExportService extends AbstractDatasetExportS
 
 	@Override
 	public Map<Integer, List<ObservationUnitRow>> getObservationUnitRowMap(
-		final Study study, final DatasetDTO dataset, final Map<Integer, StudyInstance> selectedDatasetInstancesMap) {
-		return this.studyDatasetService.getInstanceObservationUnitRowsMap(study.getId(), dataset.getDatasetId(),
-			new ArrayList<>(selectedDatasetInstancesMap.keySet()));
+		final Study study, final DatasetDTO dataset, final Map<Integer, StudyInstance> selectedDatasetInstancesMap,
+		final Set<Integer> observationUnitIds) {
+		return this.getInstanceObservationUnitRowsMap(study, dataset, selectedDatasetInstancesMap, observationUnitIds);
 	}
 
 }
@@ -1,114 +1,92 @@
 package org.ibp.api.java.impl.middleware.dataset;
 
 import org.generationcp.middleware.domain.fieldbook.FieldmapBlockInfo;
+import org.generationcp.middleware.hibernate.HibernateSessionPerRequestProvider;
+import org.hibernate.SQLQuery;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.Resource;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Puts the rows of an instance in the order its field map block is walked. The walking position of each observation unit is computed by
+ * the crop database from the field map range and column of its plot, and the units are read back in the ORDER BY of that position, so
+ * rows are only looked up by id here. Units outside of the block or without field map coordinates are left out. Sub-observation units
+ * take the coordinates of their plot, and the units of the same plot are ordered by id.
+ */
 @Component
 public class DataCollectionSorter {
 
 	static final String FIELDMAP_RANGE = "FIELDMAP RANGE";
 	static final String FIELDMAP_COLUMN = "FIELDMAP COLUMN";
 
-	List<ObservationUnitRow> orderByRange(
-		final FieldmapBlockInfo blockInfo, final List<ObservationUnitRow> observationUnitRows) {
-
-		final List<ObservationUnitRow> reorderedObservationUnitRows = new LinkedList<>();
-		final int ranges = blockInfo.getRangesInBlock();
-		final int columns = blockInfo.getRowsInBlock() / blockInfo.getNumberOfRowsInPlot();
-
-		// we now need to arrange
-		// we set it to map first then we iterate now
-		final Map<String, List<ObservationUnitRow>> observationUnitRowsGroupMap =
-			this.groupObservationUnitRowsByRangeAndColumn(observationUnitRows);
-
-		boolean leftToRight = true;
-		for (int y = 1; y <= ranges; y++) {
-			if (leftToRight) {
-				for (int x = 1; x <= columns; x++) {
-					final List<ObservationUnitRow> observationUnitRowsGroup = observationUnitRowsGroupMap.get(coordinateKey(x, y));
-					if (observationUnitRowsGroup != null) {
-						reorderedObservationUnitRows.addAll(observationUnitRowsGroup);
-					}
-				}
-			} else {
-				for (int x = columns; x >= 1; x--) {
-					final List<ObservationUnitRow> observationUnitRowsGroup = observationUnitRowsGroupMap.get(coordinateKey(x, y));
-					if (observationUnitRowsGroup != null) {
-						reorderedObservationUnitRows.addAll(observationUnitRowsGroup);
-					}
-				}
-			}
-			leftToRight = !leftToRight;
-		}
-
-		return reorderedObservationUnitRows;
+	// Ranges are walked from the first to the last, going left to right on odd ranges and right to left on even ones
+	static final String RANGE_IN_BLOCK = "fieldmap_range BETWEEN 1 AND :ranges AND fieldmap_column BETWEEN 1 AND :columns";
+	static final String RANGE_WALKING_POSITION =
+		"(fieldmap_range - 1) * :columns + IF(MOD(fieldmap_range, 2) = 1, fieldmap_column, :columns + 1 - fieldmap_column)";
+
+	// Columns are walked from the first to the last, going up on odd columns and down on even ones
+	static final String COLUMN_IN_BLOCK = "fieldmap_range BETWEEN 0 AND :ranges AND fieldmap_column BETWEEN 1 AND :columns";
+	static final String COLUMN_WALKING_POSITION =
+		"(fieldmap_column - 1) * (:ranges + 1) + IF(MOD(fieldmap_column, 2) = 1, fieldmap_range, :ranges - fieldmap_range)";
+
+	// Units of the instance in the dataset of the given unit, with the coordinates of their plot (themselves if they are plots)
+	private static final String FIELDMAP_COORDINATES_QUERY = "SELECT e.nd_experiment_id AS observation_unit_id, "
+		+ "CAST(fieldmapRange.value AS SIGNED) AS fieldmap_range, CAST(fieldmapColumn.value AS SIGNED) AS fieldmap_column "
+		+ "FROM nd_experiment e "
+		+ "INNER JOIN nd_experimentprop fieldmapRange ON fieldmapRange.nd_experiment_id = COALESCE(e.parent_id, e.nd_experiment_id) "
+		+ "INNER JOIN cvterm rangeTerm ON rangeTerm.cvterm_id = fieldmapRange.type_id AND rangeTerm.name = '" + FIELDMAP_RANGE + "' "
+		+ "INNER JOIN nd_experimentprop fieldmapColumn ON fieldmapColumn.nd_experiment_id = COALESCE(e.parent_id, e.nd_experiment_id) "
+		+ "INNER JOIN cvterm columnTerm ON columnTerm.cvterm_id = fieldmapColumn.type_id AND columnTerm.name = '" + FIELDMAP_COLUMN + "' "
+		+ "WHERE e.nd_geolocation_id = :instanceId "
+		+ "AND e.project_id = (SELECT unit.project_id FROM nd_experiment unit WHERE unit.nd_experiment_id = :observationUnitId) "
+		+ "AND fieldmapRange.value REGEXP '^[0-9]+$' AND fieldmapColumn.value REGEXP '^[0-9]+$'";
+
+	@Resource
+	private HibernateSessionPerRequestProvider cropDatabaseSessionProvider;
 
+	List<ObservationUnitRow> orderByRange(
+		final Integer instanceId, final FieldmapBlockInfo blockInfo, final List<ObservationUnitRow> observationUnitRows) {
+		return this.orderByWalkingPosition(instanceId, blockInfo, observationUnitRows, RANGE_IN_BLOCK, RANGE_WALKING_POSITION);
 	}
 
 	List<ObservationUnitRow> orderByColumn(
-		final FieldmapBlockInfo blockInfo, final List<ObservationUnitRow> observationUnitRows) {
-
-		final List<ObservationUnitRow> reorderedObservationUnitRows = new LinkedList<>();
-		final int ranges = blockInfo.getRangesInBlock();
-		final int columns = blockInfo.getRowsInBlock() / blockInfo.getNumberOfRowsInPlot();
+		final Integer instanceId, final FieldmapBlockInfo blockInfo, final List<ObservationUnitRow> observationUnitRows) {
+		return this.orderByWalkingPosition(instanceId, blockInfo, observationUnitRows, COLUMN_IN_BLOCK, COLUMN_WALKING_POSITION);
+	}
 
-		// we now need to arrange
-		// we set it to map first then we iterate now
-		final Map<String, List<ObservationUnitRow>> observationUnitRowsGroupMap =
-			this.groupObservationUnitRowsByRangeAndColumn(observationUnitRows);
+	private List<ObservationUnitRow> orderByWalkingPosition(final Integer instanceId, final FieldmapBlockInfo blockInfo,
+		final List<ObservationUnitRow> observationUnitRows, final String inBlock, final String walkingPosition) {
 
-		boolean downToUp = true;
-		for (int x = 1; x <= columns; x++) {
-			if (downToUp) {
-				for (int y = 0; y <= ranges; y++) {
-					final List<ObservationUnitRow> observationUnitRowsGroup = observationUnitRowsGroupMap.get(coordinateKey(x, y));
-					if (observationUnitRowsGroup != null) {
-						reorderedObservationUnitRows.addAll(observationUnitRowsGroup);
-					}
-				}
-			} else {
-				for (int y = ranges; y >= 0; y--) {
-					final List<ObservationUnitRow> observationUnitRowsGroup = observationUnitRowsGroupMap.get(coordinateKey(x, y));
-					if (observationUnitRowsGroup != null) {
-						reorderedObservationUnitRows.addAll(observationUnitRowsGroup);
-					}
-				}
+		final Map<Integer, ObservationUnitRow> rowsById = new HashMap<>();
+		for (final ObservationUnitRow row : observationUnitRows) {
+			if (row.getObservationUnitId() != null) {
+				rowsById.put(row.getObservationUnitId(), row);
 			}
-			downToUp = !downToUp;
+		}
+		if (rowsById.isEmpty()) {
+			return new ArrayList<>();
 		}
 
-		return reorderedObservationUnitRows;
-
-	}
-
-	Map<String, List<ObservationUnitRow>> groupObservationUnitRowsByRangeAndColumn(
-		final List<ObservationUnitRow> observationUnitRows) {
-
-		final Map<String, List<ObservationUnitRow>> fieldmapExperiments = new HashMap();
-		for (final ObservationUnitRow observationUnitRow : observationUnitRows) {
-			final String range = observationUnitRow.getVariables().get(FIELDMAP_RANGE).getValue();
-			final String column = observationUnitRow.getVariables().get(FIELDMAP_COLUMN).getValue();
-			if (range != null && column != null) {
-				// Group the ObservationUnitRow by column and range combination key
-				final String key = coordinateKey(Integer.valueOf(column), Integer.valueOf(range));
-				if (!fieldmapExperiments.containsKey(key)) {
-					fieldmapExperiments.put(key, new LinkedList<ObservationUnitRow>());
-				}
-				fieldmapExperiments.get(key).add(observationUnitRow);
+		final SQLQuery query = this.cropDatabaseSessionProvider.getSession().createSQLQuery(
+			"SELECT observation_unit_id FROM (" + FIELDMAP_COORDINATES_QUERY + ") unit WHERE " + inBlock
+				+ " ORDER BY " + walkingPosition + ", observation_unit_id");
+		query.setParameter("instanceId", instanceId);
+		query.setParameter("observationUnitId", rowsById.keySet().iterator().next());
+		query.setParameter("ranges", blockInfo.getRangesInBlock());
+		query.setParameter("columns", blockInfo.getRowsInBlock() / blockInfo.getNumberOfRowsInPlot());
+
+		final List<ObservationUnitRow> reorderedObservationUnitRows = new ArrayList<>(rowsById.size());
+		for (final Object observationUnitId : query.list()) {
+			final ObservationUnitRow row = rowsById.get(((Number) observationUnitId).intValue());
+			if (row != null) {
+				reorderedObservationUnitRows.add(row);
 			}
-
 		}
-		return fieldmapExperiments;
-	}
-
-	String coordinateKey(final Integer column, final Integer range) {
-		return column.toString() + ":" + range.toString();
+		return reorderedObservationUnitRows;
 	}
-
 }
@@ -21,6 +21,7 @@ import org.springframework.validation.MapBindingResult;
 import javax.annotation.Resource;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -38,10 +39,39 @@ public class DatasetCSVExportServiceImpl extends AbstractDatasetExportService im
 	@Override
 	public File export(
 		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile) {
+		return this.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile, null);
+	}
+
+	@Override
+	public File exportChanges(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final long changedSince) {
+		return this.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile, changedSince);
+	}
+
+	private File export(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final Long changedSince) {
+
+		this.validate(studyId, datasetId, instanceIds);
+		try {
+			return this.generate(
+				studyId, datasetId, instanceIds, collectionOrderId, this.datasetCSVGenerator, singleFile, CSV, changedSince);
+		} catch (final IOException e) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject("cannot.exportAsCSV.dataset", "");
+			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
+		}
+	}
+
+	@Override
+	public void exportAsZip(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId,
+		final OutputStream outputStream) {
 
 		this.validate(studyId, datasetId, instanceIds);
 		try {
-			return this.generate(studyId, datasetId, instanceIds, collectionOrderId, this.datasetCSVGenerator, singleFile, CSV);
+			this.generateZip(studyId, datasetId, instanceIds, collectionOrderId, this.datasetCSVGenerator, CSV, outputStream);
 		} catch (final IOException e) {
 			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
 			errors.reject("cannot.exportAsCSV.dataset", "");
@@ -58,9 +88,10 @@ public class DatasetCSVExportServiceImpl extends AbstractDatasetExportService im
 
 	@Override
 	public Map<Integer, List<ObservationUnitRow>> getObservationUnitRowMap(
-		final Study study, final DatasetDTO dataset, final Map<Integer, StudyInstance> selectedDatasetInstancesMap) {
-		final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap = this.studyDatasetService.getInstanceObservationUnitRowsMap(study.getId(), dataset.getDatasetId(),
-			new ArrayList<>(selectedDatasetInstancesMap.keySet()));
+		final Study study, final DatasetDTO dataset, final Map<Integer, StudyInstance> selectedDatasetInstancesMap,
+		final Set<Integer> observationUnitIds) {
+		final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap =
+			this.getInstanceObservationUnitRowsMap(study, dataset, selectedDatasetInstancesMap, observationUnitIds);
 		this.transformEntryTypeValues(observationUnitRowMap);
 		this.addLocationIdValues(observationUnitRowMap, selectedDatasetInstancesMap);
 		return observationUnitRowMap;
@@ -1,6 +1,7 @@
 package org.ibp.api.java.impl.middleware.dataset;
 
 import au.com.bytecode.opencsv.CSVWriter;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.generationcp.middleware.domain.dms.DatasetDTO;
 import org.generationcp.middleware.domain.dms.ValueReference;
 import org.generationcp.middleware.domain.etl.MeasurementVariable;
@@ -9,6 +10,7 @@ import org.generationcp.middleware.domain.ontology.VariableType;
 import org.generationcp.middleware.service.impl.study.StudyInstance;
 import org.ibp.api.Util;
 import org.ibp.api.java.dataset.DatasetFileGenerator;
+import org.ibp.api.java.job.JobProgress;
 import org.ibp.api.rest.dataset.ObservationUnitData;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.springframework.stereotype.Component;
@@ -16,6 +18,7 @@ import org.springframework.stereotype.Component;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -36,31 +39,34 @@ public class DatasetCSVGenerator implements DatasetFileGenerator {
 	public File generateSingleInstanceFile(final Integer studyId, final DatasetDTO dataSetDto, final List<MeasurementVariable> columns,
 		final List<ObservationUnitRow> observationUnitRows,
 		final String fileNameFullPath, final StudyInstance studyInstance) throws IOException {
-		try (final CSVWriter csvWriter = new CSVWriter(
-			new OutputStreamWriter(new FileOutputStream(fileNameFullPath), StandardCharsets.UTF_8), ',')) {
+		final File newFile = new File(fileNameFullPath);
+		try (final FileOutputStream fos = new FileOutputStream(newFile)) {
+			this.writeSingleInstance(studyId, dataSetDto, columns, observationUnitRows, studyInstance, fos);
+		}
+		return newFile;
+	}
 
-			final File newFile = new File(fileNameFullPath);
-			// feed in your array (or convert your data to an array)
-			final List<String[]> rowValues = new ArrayList<>();
+	@Override
+	public void writeSingleInstance(final Integer studyId, final DatasetDTO dataSetDto, final List<MeasurementVariable> columns,
+		final List<ObservationUnitRow> observationUnitRows, final StudyInstance studyInstance, final OutputStream outputStream)
+		throws IOException {
+		// Rows are written one by one instead of being copied to a list first. Only the writer is closed, the stream is left open for
+		// the next entries of the zip
+		try (final CSVWriter csvWriter = new CSVWriter(
+			new OutputStreamWriter(new CloseShieldOutputStream(outputStream), StandardCharsets.UTF_8), ',')) {
 
-			rowValues.add(this.getHeaderNames(columns).toArray(new String[] {}));
+			csvWriter.writeNext(this.getHeaderNames(columns).toArray(new String[] {}));
 			if(!observationUnitRows.isEmpty()) {
 				final Map<String, Map<String, String>> studyAndEnvironmentCategoricalValuesMap = this.getStudyAndEnvironmentCategoricalValuesMap(columns);
+				final JobProgress progress = JobProgress.current();
 				for (final ObservationUnitRow row : observationUnitRows) {
-					rowValues.add(this.getColumnValues(row, columns, studyAndEnvironmentCategoricalValuesMap));
+					csvWriter.writeNext(this.getColumnValues(row, columns, studyAndEnvironmentCategoricalValuesMap));
+					progress.increment();
 				}
 			}
-
-			csvWriter.writeAll(rowValues);
-			return newFile;
 		}
 	}
 
-	@Override
-	public File generateTraitAndSelectionVariablesFile(final List<String[]> rowValues, final String filenamePath) throws IOException {
-		throw new UnsupportedOperationException();
-	}
-
 	@Override
 	public File generateMultiInstanceFile(final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap,
 		final List<MeasurementVariable> columns,
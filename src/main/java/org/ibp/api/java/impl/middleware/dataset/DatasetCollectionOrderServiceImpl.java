@@ -42,9 +42,9 @@ public class DatasetCollectionOrderServiceImpl implements DatasetCollectionOrder
 				// we just return the normal observations
 				continue;
 			} else if (collectionOrder == CollectionOrder.SERPENTINE_ALONG_ROWS) {
-				observationUnitRows = this.dataCollectionSorter.orderByRange(fieldmapBlockInfo, observationUnitRows);
+				observationUnitRows = this.dataCollectionSorter.orderByRange(instanceDBID, fieldmapBlockInfo, observationUnitRows);
 			} else if (collectionOrder == CollectionOrder.SERPENTINE_ALONG_COLUMNS) {
-				observationUnitRows = this.dataCollectionSorter.orderByColumn(fieldmapBlockInfo, observationUnitRows);
+				observationUnitRows = this.dataCollectionSorter.orderByColumn(instanceDBID, fieldmapBlockInfo, observationUnitRows);
 			}
 			observationUnitRowMap.put(instanceDBID, observationUnitRows);
 		}
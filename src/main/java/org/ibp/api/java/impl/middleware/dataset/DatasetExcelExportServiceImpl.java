@@ -17,6 +17,8 @@ import org.springframework.validation.MapBindingResult;
 import javax.annotation.Resource;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -31,12 +33,41 @@ public class DatasetExcelExportServiceImpl extends AbstractDatasetExportService
 
 	@Override
 	public File export(final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile) {
+		return this.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile, null);
+	}
+
+	@Override
+	public File exportChanges(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final long changedSince) {
+		return this.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile, changedSince);
+	}
+
+	private File export(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final Long changedSince) {
 
 		this.validate(studyId, datasetId, instanceIds);
 
 		try {
 			//TODO: use the singleFile boolean after implementing singleFile download for XLS option
-			return this.generate(studyId, datasetId, instanceIds, collectionOrderId, this.datasetExcelGenerator, false, XLS);
+			return this.generate(
+				studyId, datasetId, instanceIds, collectionOrderId, this.datasetExcelGenerator, false, XLS, changedSince);
+		} catch (final IOException e) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject("cannot.exportAsXLS.dataset", "");
+			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
+		}
+	}
+
+	@Override
+	public void exportAsZip(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId,
+		final OutputStream outputStream) {
+
+		this.validate(studyId, datasetId, instanceIds);
+		try {
+			this.generateZip(studyId, datasetId, instanceIds, collectionOrderId, this.datasetExcelGenerator, XLS, outputStream);
 		} catch (final IOException e) {
 			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
 			errors.reject("cannot.exportAsXLS.dataset", "");
@@ -50,11 +81,21 @@ public class DatasetExcelExportServiceImpl extends AbstractDatasetExportService
 	}
 
 	@Override
-	public Map<Integer, List<ObservationUnitRow>> getObservationUnitRowMap(final Study study, final DatasetDTO dataset, final Map<Integer, StudyInstance> selectedDatasetInstancesMap) {
+	public Map<Integer, List<ObservationUnitRow>> getObservationUnitRowMap(final Study study, final DatasetDTO dataset,
+		final Map<Integer, StudyInstance> selectedDatasetInstancesMap, final Set<Integer> observationUnitIds) {
 		final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap = new HashMap<>();
 		for(final Integer instanceDBID: selectedDatasetInstancesMap.keySet()) {
+			if (observationUnitIds != null && observationUnitIds.isEmpty()) {
+				observationUnitRowMap.put(instanceDBID, new ArrayList<>());
+				continue;
+			}
 			final ObservationUnitsSearchDTO searchDTO = new ObservationUnitsSearchDTO();
 			searchDTO.setInstanceId(selectedDatasetInstancesMap.get(instanceDBID).getInstanceId());
+			if (observationUnitIds != null) {
+				final ObservationUnitsSearchDTO.Filter filter = searchDTO.new Filter();
+				filter.setFilteredNdExperimentIds(observationUnitIds);
+				searchDTO.setFilter(filter);
+			}
 			final PageRequest pageRequest = new PageRequest(0, Integer.MAX_VALUE);
 			final List<ObservationUnitRow> observationUnitRows = this.studyDatasetService
 				.getObservationUnitRows(study.getId(), dataset.getDatasetId(), searchDTO, pageRequest);
@@ -4,16 +4,18 @@ import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
-import org.apache.poi.hssf.usermodel.HSSFCell;
-import org.apache.poi.hssf.usermodel.HSSFFont;
 import org.apache.poi.hssf.usermodel.HSSFPalette;
-import org.apache.poi.hssf.usermodel.HSSFRow;
-import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.generationcp.middleware.ContextHolder;
 import org.generationcp.middleware.domain.dms.DatasetDTO;
 import org.generationcp.middleware.domain.dms.DatasetTypeDTO;
@@ -33,6 +35,7 @@ import org.generationcp.middleware.service.impl.study.StudyInstance;
 import org.ibp.api.Util;
 import org.ibp.api.java.dataset.DatasetFileGenerator;
 import org.ibp.api.java.dataset.DatasetService;
+import org.ibp.api.java.job.JobProgress;
 import org.ibp.api.rest.dataset.ObservationUnitData;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,8 +48,10 @@ import javax.annotation.Resource;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
@@ -97,24 +102,34 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 		final DatasetDTO dataSetDto, final List<MeasurementVariable> columns,
 		final List<ObservationUnitRow> reorderedObservationUnitRows,
 		final String fileNamePath, final StudyInstance studyInstance) throws IOException {
-		final HSSFWorkbook xlsBook = new HSSFWorkbook();
-
-		final List<MeasurementVariable> orderedColumns = this.orderColumns(columns);
-		this.writeDescriptionSheet(xlsBook, studyId, dataSetDto, studyInstance);
-		final Locale locale = LocaleContextHolder.getLocale();
-		this.writeObservationSheet(
-			orderedColumns, reorderedObservationUnitRows, xlsBook,
-			this.messageSource.getMessage("export.study.sheet.observation", null, locale));
-
 		final File file = new File(fileNamePath);
-
 		try (final FileOutputStream fos = new FileOutputStream(file)) {
-			xlsBook.write(fos);
-
+			this.writeSingleInstance(studyId, dataSetDto, columns, reorderedObservationUnitRows, studyInstance, fos);
 		}
 		return file;
 	}
 
+	@Override
+	public void writeSingleInstance(
+		final Integer studyId, final DatasetDTO dataSetDto, final List<MeasurementVariable> columns,
+		final List<ObservationUnitRow> reorderedObservationUnitRows, final StudyInstance studyInstance,
+		final OutputStream outputStream) throws IOException {
+		final Workbook workbook = this.createWorkbook();
+		try {
+			final WorkbookStyles styles = new WorkbookStyles(workbook);
+			final List<MeasurementVariable> orderedColumns = this.orderColumns(columns);
+			this.writeDescriptionSheet(styles, studyId, dataSetDto, studyInstance);
+			final Locale locale = LocaleContextHolder.getLocale();
+			this.writeObservationSheet(
+				orderedColumns, reorderedObservationUnitRows, styles,
+				this.messageSource.getMessage("export.study.sheet.observation", null, locale));
+
+			workbook.write(outputStream);
+		} finally {
+			this.dispose(workbook);
+		}
+	}
+
 	@Override
 	public File generateMultiInstanceFile(
 		final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap, final List<MeasurementVariable> columns,
@@ -122,9 +137,28 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 		throw new UnsupportedOperationException();
 	}
 
-	@Override
-	public File generateTraitAndSelectionVariablesFile(final List<String[]> rowValues, final String filenamePath) throws IOException {
-		throw new UnsupportedOperationException();
+	/**
+	 * @return the workbook the file is written to, an xls workbook by default
+	 */
+	protected Workbook createWorkbook() {
+		return new HSSFWorkbook();
+	}
+
+	/**
+	 * Releases the resources held by the workbook once it is written or the export has failed.
+	 */
+	protected void dispose(final Workbook workbook) {
+		// Nothing to release for in memory workbooks
+	}
+
+	protected void setFillForegroundColor(
+		final Workbook workbook, final CellStyle cellStyle, final int red, final int green, final int blue) {
+		cellStyle.setFillForegroundColor(this.getColorIndex((HSSFWorkbook) workbook, red, green, blue));
+	}
+
+	protected void setFillBackgroundColor(
+		final Workbook workbook, final CellStyle cellStyle, final int red, final int green, final int blue) {
+		cellStyle.setFillBackgroundColor(this.getColorIndex((HSSFWorkbook) workbook, red, green, blue));
 	}
 
 	List<MeasurementVariable> orderColumns(final List<MeasurementVariable> columns) {
@@ -151,20 +185,22 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 
 	void writeObservationSheet(
 		final List<MeasurementVariable> columns, final List<ObservationUnitRow> reorderedObservationUnitRows,
-		final HSSFWorkbook xlsBook, final String sheetName) {
-		final HSSFSheet xlsSheet = xlsBook.createSheet(sheetName);
-		this.writeObservationHeader(xlsBook, xlsSheet, columns);
+		final WorkbookStyles styles, final String sheetName) {
+		final Sheet xlsSheet = styles.getWorkbook().createSheet(sheetName);
+		this.writeObservationHeader(styles, xlsSheet, columns);
 		int currentRowNum = 1;
+		final JobProgress progress = JobProgress.current();
 		for (final ObservationUnitRow dataRow : reorderedObservationUnitRows) {
 			this.writeObservationRow(currentRowNum++, xlsSheet, dataRow, columns);
+			progress.increment();
 		}
 	}
 
 	private void writeObservationRow(
-		final int currentRowNum, final HSSFSheet xlsSheet, final ObservationUnitRow dataRow,
+		final int currentRowNum, final Sheet xlsSheet, final ObservationUnitRow dataRow,
 		final List<MeasurementVariable> columns) {
 
-		final HSSFRow row = xlsSheet.createRow(currentRowNum);
+		final Row row = xlsSheet.createRow(currentRowNum);
 		int currentColNum = 0;
 
 		for (final MeasurementVariable column : columns) {
@@ -172,7 +208,7 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 
 			if (!Util.isNullOrEmpty(observationUnitData)) {
 				final String dataCell = observationUnitData.getValue();
-				final HSSFCell cell = row.createCell(currentColNum++);
+				final Cell cell = row.createCell(currentColNum++);
 				if (dataCell != null) {
 					if (column.getPossibleValues() != null && !column.getPossibleValues()
 						.isEmpty() && column.getTermId() != TermId.BREEDING_METHOD_VARIATE.getId()
@@ -195,45 +231,34 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 	}
 
 	private void writeObservationHeader(
-		final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet,
+		final WorkbookStyles styles, final Sheet xlsSheet,
 		final List<MeasurementVariable> variables) {
 		if (variables != null && !variables.isEmpty()) {
 			int currentColNum = 0;
-			final HSSFRow row = xlsSheet.createRow(0);
+			final Row row = xlsSheet.createRow(0);
 			for (final MeasurementVariable variable : variables) {
-				final HSSFCell cell = row.createCell(currentColNum++);
-				cell.setCellStyle(this.getObservationHeaderStyle(variable.isFactor(), xlsBook));
+				final Cell cell = row.createCell(currentColNum++);
+				cell.setCellStyle(this.getObservationHeaderStyle(variable.isFactor(), styles));
 				cell.setCellValue(variable.getAlias());
 			}
 		}
 	}
 
-	private CellStyle getObservationHeaderStyle(final boolean isFactor, final HSSFWorkbook xlsBook) {
+	private CellStyle getObservationHeaderStyle(final boolean isFactor, final WorkbookStyles styles) {
 		final CellStyle style;
 		if (isFactor) {
-			style = this.getHeaderStyle(xlsBook, this.getColorIndex(xlsBook, 51, 153, 102));
+			style = styles.getHeaderStyle(51, 153, 102);
 		} else {
-			style = this.getHeaderStyle(xlsBook, this.getColorIndex(xlsBook, 51, 51, 153));
+			style = styles.getHeaderStyle(51, 51, 153);
 		}
 		return style;
 	}
 
-	private CellStyle getHeaderStyle(final HSSFWorkbook xlsBook, final short colorIndex) {
-		final HSSFFont whiteFont = xlsBook.createFont();
-		whiteFont.setColor(HSSFColor.HSSFColorPredefined.WHITE.getIndex());
-
-		final CellStyle cellStyle = xlsBook.createCellStyle();
-		cellStyle.setFillForegroundColor(colorIndex);
-		cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-		cellStyle.setFont(whiteFont);
-
-		return cellStyle;
-	}
-
 	private void writeDescriptionSheet(
-		final HSSFWorkbook xlsBook, final Integer studyId, final DatasetDTO dataSetDto, final StudyInstance studyInstance) {
+		final WorkbookStyles styles, final Integer studyId, final DatasetDTO dataSetDto, final StudyInstance studyInstance) {
 		final Locale locale = LocaleContextHolder.getLocale();
-		final HSSFSheet xlsSheet = xlsBook.createSheet(this.messageSource.getMessage("export.study.sheet.description", null, locale));
+		final Sheet xlsSheet =
+			styles.getWorkbook().createSheet(this.messageSource.getMessage("export.study.sheet.description", null, locale));
 		int currentRowNum = 0;
 
 		final DatasetTypeDTO datasetType = this.datasetTypeService.getDatasetTypeById(dataSetDto.getDatasetTypeId());
@@ -267,94 +292,94 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 			.getMeasurementVariables(dataSetDto.getDatasetId(), Lists
 				.newArrayList(VariableType.OBSERVATION_UNIT.getId(), VariableType.TRAIT.getId(), VariableType.SELECTION_METHOD.getId()));
 
-		currentRowNum = this.writeStudyDetails(currentRowNum, xlsBook, xlsSheet, studyDetails);
+		currentRowNum = this.writeStudyDetails(currentRowNum, styles, xlsSheet, studyDetails);
 		xlsSheet.createRow(currentRowNum++);
 
-		currentRowNum = this.createHeader(currentRowNum, xlsBook, xlsSheet, "export.study.description.column.study.details",
-			this.getColorIndex(xlsBook, 153, 51, 0));
+		currentRowNum = this.createHeader(currentRowNum, xlsSheet, "export.study.description.column.study.details",
+			styles.getHeaderStyle(153, 51, 0));
 		currentRowNum = this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			studyDetailsVariables, STUDY);
 		xlsSheet.createRow(currentRowNum++);
 
-		currentRowNum = this.createHeader(currentRowNum, xlsBook, xlsSheet, "export.study.description.column.experimental.design",
-			this.getColorIndex(xlsBook, 124, 124, 124));
+		currentRowNum = this.createHeader(currentRowNum, xlsSheet, "export.study.description.column.experimental.design",
+			styles.getHeaderStyle(124, 124, 124));
 		currentRowNum = this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			filterByVariableType(environmentVariables, VariableType.EXPERIMENTAL_DESIGN),
 			ENVIRONMENT);
 
 		currentRowNum = this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			filterByVariableType(plotVariables, VariableType.EXPERIMENTAL_DESIGN), PLOT);
 		xlsSheet.createRow(currentRowNum++);
 
-		currentRowNum = this.createHeader(currentRowNum, xlsBook, xlsSheet, "export.study.description.column.environment.details",
-			this.getColorIndex(xlsBook, 124, 124, 124));
+		currentRowNum = this.createHeader(currentRowNum, xlsSheet, "export.study.description.column.environment.details",
+			styles.getHeaderStyle(124, 124, 124));
 
 		final List<MeasurementVariable> environmentDetails =
 			this.getEnvironmentalDetails(environmentDatasetId, environmentVariables, studyInstance);
 
 		currentRowNum = this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			environmentDetails, ENVIRONMENT);
 		xlsSheet.createRow(currentRowNum++);
 
-		currentRowNum = this.createHeader(currentRowNum, xlsBook, xlsSheet, "export.study.description.column.environmental.conditions",
-			this.getColorIndex(xlsBook, 124, 124, 124));
+		currentRowNum = this.createHeader(currentRowNum, xlsSheet, "export.study.description.column.environmental.conditions",
+			styles.getHeaderStyle(124, 124, 124));
 
 		final List<MeasurementVariable> environmentConditions =
 			this.getEnvironmentalConditions(environmentDatasetId, environmentVariables, studyInstance);
 
 		currentRowNum = this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			filterByVariableType(environmentConditions, VariableType.ENVIRONMENT_CONDITION), ENVIRONMENT);
 		xlsSheet.createRow(currentRowNum++);
 
-		currentRowNum = this.createHeader(currentRowNum, xlsBook, xlsSheet, "export.study.description.column.germplasm.descriptors",
-			this.getColorIndex(xlsBook, 51, 153, 102));
+		currentRowNum = this.createHeader(currentRowNum, xlsSheet, "export.study.description.column.germplasm.descriptors",
+			styles.getHeaderStyle(51, 153, 102));
 		currentRowNum = this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			filterByVariableType(plotVariables, VariableType.GERMPLASM_DESCRIPTOR), PLOT);
 		xlsSheet.createRow(currentRowNum++);
 
-		currentRowNum = this.createHeader(currentRowNum, xlsBook, xlsSheet, "export.study.description.column.observation.unit",
-			this.getColorIndex(xlsBook, 51, 153, 102));
+		currentRowNum = this.createHeader(currentRowNum, xlsSheet, "export.study.description.column.observation.unit",
+			styles.getHeaderStyle(51, 153, 102));
 		currentRowNum = this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			filterByVariableType(datasetVariables, VariableType.OBSERVATION_UNIT),
 			datasetType.getName());
 		xlsSheet.createRow(currentRowNum++);
 
-		currentRowNum = this.createHeader(currentRowNum, xlsBook, xlsSheet, "export.study.description.column.traits",
-			this.getColorIndex(xlsBook, 51, 51, 153));
+		currentRowNum = this.createHeader(currentRowNum, xlsSheet, "export.study.description.column.traits",
+			styles.getHeaderStyle(51, 51, 153));
 		currentRowNum = this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			filterByVariableType(datasetVariables, VariableType.TRAIT),
 			datasetType.getName());
 		xlsSheet.createRow(currentRowNum++);
 
-		currentRowNum = this.createHeader(currentRowNum, xlsBook, xlsSheet, "export.study.description.column.selections",
-			this.getColorIndex(xlsBook, 51, 51, 153));
+		currentRowNum = this.createHeader(currentRowNum, xlsSheet, "export.study.description.column.selections",
+			styles.getHeaderStyle(51, 51, 153));
 		this.writeSection(
 			currentRowNum,
-			xlsBook,
+			styles,
 			xlsSheet,
 			filterByVariableType(datasetVariables, VariableType.SELECTION_METHOD),
 			datasetType.getName());
@@ -422,14 +447,14 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 	}
 
 	private int writeStudyDetails(
-		final int currentRowNum, final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet,
+		final int currentRowNum, final WorkbookStyles styles, final Sheet xlsSheet,
 		final StudyDetails studyDetails) {
 		int rowNumIndex = currentRowNum;
-		this.writeStudyDetailRow(xlsBook, xlsSheet, rowNumIndex++, "export.study.description.details.study",
+		this.writeStudyDetailRow(styles, xlsSheet, rowNumIndex++, "export.study.description.details.study",
 			studyDetails.getStudyName() != null ? HtmlUtils.htmlUnescape(studyDetails.getStudyName()) : "");
-		this.writeStudyDetailRow(xlsBook, xlsSheet, rowNumIndex++, "export.study.description.details.title",
+		this.writeStudyDetailRow(styles, xlsSheet, rowNumIndex++, "export.study.description.details.title",
 			studyDetails.getDescription() != null ? HtmlUtils.htmlUnescape(studyDetails.getDescription()) : "");
-		this.writeStudyDetailRow(xlsBook, xlsSheet, rowNumIndex++, "export.study.description.details.objective",
+		this.writeStudyDetailRow(styles, xlsSheet, rowNumIndex++, "export.study.description.details.objective",
 			studyDetails.getObjective() != null ? HtmlUtils.htmlUnescape(studyDetails.getObjective()) : "");
 
 		String startDate = studyDetails.getStartDate();
@@ -443,65 +468,61 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 			endDate = endDate.replace("-", "");
 		}
 
-		this.writeStudyDetailRow(xlsBook, xlsSheet, rowNumIndex++, "export.study.description.details.startdate", startDate);
-		this.writeStudyDetailRow(xlsBook, xlsSheet, rowNumIndex++, "export.study.description.details.enddate", endDate);
-		this.writeStudyDetailRow(xlsBook, xlsSheet, rowNumIndex++, "export.study.description.details.studytype",
+		this.writeStudyDetailRow(styles, xlsSheet, rowNumIndex++, "export.study.description.details.startdate", startDate);
+		this.writeStudyDetailRow(styles, xlsSheet, rowNumIndex++, "export.study.description.details.enddate", endDate);
+		this.writeStudyDetailRow(styles, xlsSheet, rowNumIndex++, "export.study.description.details.studytype",
 			studyDetails.getStudyType().getLabel());
 
 		return rowNumIndex;
 	}
 
 	private void writeSectionHeader(
-		final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet, final int currentRowNum, final String typeLabel, final short color) {
+		final Sheet xlsSheet, final int currentRowNum, final String typeLabel, final CellStyle headerStyle) {
 		final Locale locale = LocaleContextHolder.getLocale();
-		final HSSFRow row = xlsSheet.createRow(currentRowNum);
+		final Row row = xlsSheet.createRow(currentRowNum);
 
-		HSSFCell cell = row.createCell(VARIABLE_NAME_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		Cell cell = row.createCell(VARIABLE_NAME_COLUMN_INDEX, CellType.STRING);
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage(typeLabel, null, locale));
 
 		cell = row.createCell(DESCRIPTION_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage("export.study.description.column.description", null, locale));
 
 		cell = row.createCell(ONTOLOGY_ID_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage("export.study.description.column.ontology.id", null, locale));
 
 		cell = row.createCell(PROPERTY_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage("export.study.description.column.property", null, locale));
 
 		cell = row.createCell(SCALE_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage("export.study.description.column.scale", null, locale));
 
 		cell = row.createCell(METHOD_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage("export.study.description.column.method", null, locale));
 
 		cell = row.createCell(DATATYPE_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage("export.study.description.column.datatype", null, locale));
 
 		cell = row.createCell(VARIABLE_VALUE_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage("export.study.description.column.value", null, locale));
 
 		cell = row.createCell(DATASET_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, color));
+		cell.setCellStyle(headerStyle);
 		cell.setCellValue(this.messageSource.getMessage("export.study.description.column.dataset", null, locale));
 	}
 
 	private int writeSection(
-		final int currentRowNum, final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet,
+		final int currentRowNum, final WorkbookStyles styles, final Sheet xlsSheet,
 		final List<MeasurementVariable> variables, final String datasetColumn) {
 
-		final CellStyle backgroundStyle = xlsBook.createCellStyle();
-		final HSSFFont blackFont = xlsBook.createFont();
-		backgroundStyle.setFillBackgroundColor(this.getColorIndex(xlsBook, 231, 230, 230));
-		blackFont.setColor(HSSFColor.HSSFColorPredefined.BLACK.getIndex());
-		backgroundStyle.setFont(blackFont);
+		final CellStyle backgroundStyle = styles.getSectionStyle();
 		int rowNumIndex = currentRowNum;
 		if (variables != null && !variables.isEmpty()) {
 			for (final MeasurementVariable variable : variables) {
@@ -516,20 +537,21 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 	}
 
 	private int createHeader(
-		final int currentRowNum, final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet, final String sectionLabel, final short headerColor) {
+		final int currentRowNum, final Sheet xlsSheet, final String sectionLabel,
+		final CellStyle headerStyle) {
 
 		int rowNumIndex = currentRowNum;
-		this.writeSectionHeader(xlsBook, xlsSheet, rowNumIndex++, sectionLabel, headerColor);
+		this.writeSectionHeader(xlsSheet, rowNumIndex++, sectionLabel, headerStyle);
 		return rowNumIndex;
 	}
 
 	private void writeSectionRow(
-		final int currentRowNum, final HSSFSheet xlsSheet, final MeasurementVariable measurementVariable,
+		final int currentRowNum, final Sheet xlsSheet, final MeasurementVariable measurementVariable,
 		final String datasetColumn, final String ontologyId, final CellStyle backgroundStyle) {
 		{
-			final HSSFRow row = xlsSheet.createRow(currentRowNum);
+			final Row row = xlsSheet.createRow(currentRowNum);
 
-			HSSFCell cell = row.createCell(VARIABLE_NAME_COLUMN_INDEX, CellType.STRING);
+			Cell cell = row.createCell(VARIABLE_NAME_COLUMN_INDEX, CellType.STRING);
 			cell.setCellValue(measurementVariable.getAlias());
 			cell.setCellStyle(backgroundStyle);
 
@@ -567,7 +589,7 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 		}
 	}
 
-	private void setContentOfVariableValueColumn(final HSSFCell cell, final MeasurementVariable measurementVariable) {
+	private void setContentOfVariableValueColumn(final Cell cell, final MeasurementVariable measurementVariable) {
 
 		if (StringUtils.isBlank(measurementVariable.getValue()) && (measurementVariable.getVariableType() == VariableType.TRAIT
 			|| (measurementVariable.getRole() != null && measurementVariable.getRole().equals(PhenotypicType.VARIATE)))) {
@@ -584,7 +606,7 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 		}
 	}
 
-	private void setVariableValueBasedOnDataType(final HSSFCell cell, final MeasurementVariable measurementVariable) {
+	private void setVariableValueBasedOnDataType(final Cell cell, final MeasurementVariable measurementVariable) {
 
 		if (DataType.NUMERIC_VARIABLE.getId().equals(measurementVariable.getDataTypeId()) && StringUtils
 			.isNotBlank(measurementVariable.getValue()) && NumberUtils.isNumber(measurementVariable.getValue())) {
@@ -661,12 +683,12 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 	}
 
 	private void writeStudyDetailRow(
-		final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet, final int currentRowNum, final String label,
+		final WorkbookStyles styles, final Sheet xlsSheet, final int currentRowNum, final String label,
 		final String value) {
 		final Locale locale = LocaleContextHolder.getLocale();
-		final HSSFRow row = xlsSheet.createRow(currentRowNum);
-		HSSFCell cell = row.createCell(0, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, this.getColorIndex(xlsBook, 153, 51, 0)));
+		final Row row = xlsSheet.createRow(currentRowNum);
+		Cell cell = row.createCell(0, CellType.STRING);
+		cell.setCellStyle(styles.getHeaderStyle(153, 51, 0));
 		cell.setCellValue(this.messageSource.getMessage(label, null, locale));
 		cell = row.createCell(1, CellType.STRING);
 		cell.setCellValue(value);
@@ -710,4 +732,48 @@ public class DatasetExcelGenerator implements DatasetFileGenerator {
 	void setMessageSource(final ResourceBundleMessageSource messageSource) {
 		this.messageSource = messageSource;
 	}
+
+	/**
+	 * Cell styles of a workbook. Excel limits the number of styles of a workbook, and creating them is not cheap, so each one is created
+	 * the first time it is used and then shared by all the cells of the workbook.
+	 */
+	protected class WorkbookStyles {
+
+		private final Workbook workbook;
+		private final Map<Integer, CellStyle> headerStyles = new HashMap<>();
+		private CellStyle sectionStyle;
+
+		public WorkbookStyles(final Workbook workbook) {
+			this.workbook = workbook;
+		}
+
+		public Workbook getWorkbook() {
+			return this.workbook;
+		}
+
+		CellStyle getHeaderStyle(final int red, final int green, final int blue) {
+			return this.headerStyles.computeIfAbsent((red << 16) | (green << 8) | blue, rgb -> {
+				final Font whiteFont = this.workbook.createFont();
+				whiteFont.setColor(IndexedColors.WHITE.getIndex());
+
+				final CellStyle cellStyle = this.workbook.createCellStyle();
+				DatasetExcelGenerator.this.setFillForegroundColor(this.workbook, cellStyle, red, green, blue);
+				cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+				cellStyle.setFont(whiteFont);
+				return cellStyle;
+			});
+		}
+
+		CellStyle getSectionStyle() {
+			if (this.sectionStyle == null) {
+				final Font blackFont = this.workbook.createFont();
+				blackFont.setColor(IndexedColors.BLACK.getIndex());
+
+				this.sectionStyle = this.workbook.createCellStyle();
+				DatasetExcelGenerator.this.setFillBackgroundColor(this.workbook, this.sectionStyle, 231, 230, 230);
+				this.sectionStyle.setFont(blackFont);
+			}
+			return this.sectionStyle;
+		}
+	}
 }
@@ -1,21 +1,23 @@
 package org.ibp.api.java.impl.middleware.dataset;
 
 import au.com.bytecode.opencsv.CSVWriter;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.generationcp.middleware.domain.etl.MeasurementVariable;
-import org.ibp.api.java.dataset.DatasetFileGenerator;
+import org.ibp.api.java.dataset.DatasetKsuFileGenerator;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
 @Component
-public class DatasetKsuCSVGenerator extends DatasetCSVGenerator implements DatasetFileGenerator {
+public class DatasetKsuCSVGenerator extends DatasetCSVGenerator implements DatasetKsuFileGenerator {
 
 	@Override
 	public File generateMultiInstanceFile(final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap, final List<MeasurementVariable> columns,
@@ -31,4 +33,13 @@ public class DatasetKsuCSVGenerator extends DatasetCSVGenerator implements Datas
 			return newFile;
 		}
 	}
+
+	@Override
+	public void writeTraitAndSelectionVariables(final List<String[]> rowValues, final OutputStream outputStream) throws IOException {
+		// Only the writer is closed, the stream is left open for the next entries of the zip
+		try (CSVWriter csvWriter = new CSVWriter(
+			new OutputStreamWriter(new CloseShieldOutputStream(outputStream), StandardCharsets.UTF_8), ',')) {
+			csvWriter.writeAll(rowValues);
+		}
+	}
 }
@@ -2,6 +2,7 @@ package org.ibp.api.java.impl.middleware.dataset;
 
 import org.ibp.api.exception.ResourceNotFoundException;
 import org.ibp.api.java.dataset.DatasetExportService;
+import org.ibp.api.java.dataset.DatasetKsuFileGenerator;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.BindingResult;
@@ -10,6 +11,7 @@ import org.springframework.validation.MapBindingResult;
 import javax.annotation.Resource;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Set;
 
@@ -22,16 +24,50 @@ public class DatasetKsuExcelExportServiceImpl extends BaseDatasetKsuExportServic
 
 	@Override
 	public File export(final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile) {
+		return this.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile, null);
+	}
+
+	@Override
+	public File exportChanges(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final long changedSince) {
+		return this.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile, changedSince);
+	}
+
+	private File export(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final Long changedSince) {
 
 		this.validate(studyId, datasetId, instanceIds);
 
 		try {
 			//TODO: use the singleFile boolean after implementing singleFile download for KSU Excel option
-			return this.generate(studyId, datasetId, instanceIds, collectionOrderId, this.datasetKsuExcelGenerator, false, XLS);
+			return this.generate(
+				studyId, datasetId, instanceIds, collectionOrderId, this.datasetKsuExcelGenerator, false, XLS, changedSince);
 		} catch (final IOException e) {
 			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
 			errors.reject("cannot.exportAsXLS.dataset", "");
 			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
 		}
 	}
+
+	@Override
+	public void exportAsZip(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId,
+		final OutputStream outputStream) {
+
+		this.validate(studyId, datasetId, instanceIds);
+		try {
+			this.generateZip(studyId, datasetId, instanceIds, collectionOrderId, this.datasetKsuExcelGenerator, XLS, outputStream);
+		} catch (final IOException e) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject("cannot.exportAsXLS.dataset", "");
+			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
+		}
+	}
+
+	@Override
+	protected DatasetKsuFileGenerator getKsuGenerator() {
+		return this.datasetKsuExcelGenerator;
+	}
 }
@@ -1,39 +1,38 @@
 package org.ibp.api.java.impl.middleware.dataset;
 
 import au.com.bytecode.opencsv.CSVWriter;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.generationcp.middleware.domain.dms.DatasetDTO;
 import org.generationcp.middleware.domain.etl.MeasurementVariable;
 import org.generationcp.middleware.service.impl.study.StudyInstance;
-import org.ibp.api.java.dataset.DatasetFileGenerator;
+import org.ibp.api.java.dataset.DatasetKsuFileGenerator;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @Component
-public class DatasetKsuExcelGenerator extends DatasetExcelGenerator implements DatasetFileGenerator {
+public class DatasetKsuExcelGenerator extends DatasetExcelGenerator implements DatasetKsuFileGenerator {
 
 	@Override
-	public File generateSingleInstanceFile(
-		final Integer studyId,
-		final DatasetDTO dataSetDto, final List<MeasurementVariable> columns,
-		final List<ObservationUnitRow> reorderedObservationUnitRows,
-		final String fileNamePath, final StudyInstance studyInstance) throws IOException {
-		final HSSFWorkbook xlsBook = new HSSFWorkbook();
-		this.writeObservationSheet(columns, reorderedObservationUnitRows, xlsBook, dataSetDto.getName());
-
-		final File file = new File(fileNamePath);
-
-		try (final FileOutputStream fos = new FileOutputStream(file)) {
-			xlsBook.write(fos);
+	public void writeSingleInstance(
+		final Integer studyId, final DatasetDTO dataSetDto, final List<MeasurementVariable> columns,
+		final List<ObservationUnitRow> reorderedObservationUnitRows, final StudyInstance studyInstance,
+		final OutputStream outputStream) throws IOException {
+		final Workbook workbook = this.createWorkbook();
+		try {
+			this.writeObservationSheet(columns, reorderedObservationUnitRows, new WorkbookStyles(workbook), dataSetDto.getName());
+			workbook.write(outputStream);
+		} finally {
+			this.dispose(workbook);
 		}
-		return file;
 	}
 
 	@Override
@@ -45,4 +44,13 @@ public class DatasetKsuExcelGenerator extends DatasetExcelGenerator implements D
 		}
 	}
 
+	@Override
+	public void writeTraitAndSelectionVariables(final List<String[]> rowValues, final OutputStream outputStream) throws IOException {
+		// Only the writer is closed, the stream is left open for the next entries of the zip
+		try (CSVWriter csvWriter = new CSVWriter(
+			new OutputStreamWriter(new CloseShieldOutputStream(outputStream), StandardCharsets.UTF_8), ',')) {
+			csvWriter.writeAll(rowValues);
+		}
+	}
+
 }
@@ -1,6 +1,8 @@
 package org.ibp.api.java.impl.middleware.dataset;
 
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import org.apache.commons.lang3.StringUtils;
@@ -50,14 +52,15 @@ import org.ibp.api.java.impl.middleware.study.ObservationUnitsMetadata;
 import org.ibp.api.java.impl.middleware.study.validator.StudyEntryValidator;
 import org.ibp.api.java.impl.middleware.study.validator.StudyValidator;
 import org.ibp.api.java.inventory.manager.LotService;
+import org.ibp.api.mapper.DtoMapper;
+import org.ibp.api.mapper.ObservationUnitRowMapper;
 import org.ibp.api.rest.dataset.DatasetDTO;
 import org.ibp.api.rest.dataset.DatasetGeneratorInput;
-import org.ibp.api.rest.dataset.ObservationUnitData;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.ibp.api.rest.dataset.ObservationsPutRequestInput;
-import org.modelmapper.Conditions;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -69,6 +72,7 @@ import org.springframework.validation.MapBindingResult;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -143,6 +147,9 @@ public class DatasetServiceImpl implements DatasetService {
 	@Autowired
 	private LotService lotService;
 
+	@Value("${observation.import.chunk.size:1000}")
+	private int observationImportChunkSize;
+
 	static final String PLOT_DATASET_NAME = "Observations";
 
 	@Override
@@ -267,8 +274,7 @@ public class DatasetServiceImpl implements DatasetService {
 		final List<org.generationcp.middleware.domain.dms.DatasetDTO> datasetDTOS =
 			this.middlewareDatasetService.getDatasets(studyId, datasetTypeIdList);
 
-		final ModelMapper mapper = new ModelMapper();
-		mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final ModelMapper mapper = DtoMapper.getNotNullInstance();
 		final List<DatasetDTO> datasetDTOs = new ArrayList<>();
 		for (final org.generationcp.middleware.domain.dms.DatasetDTO datasetDTO : datasetDTOS) {
 			final DatasetDTO datasetDto = mapper.map(datasetDTO, DatasetDTO.class);
@@ -286,8 +292,7 @@ public class DatasetServiceImpl implements DatasetService {
 		this.datasetValidator.validateDataset(studyId, datasetId);
 		final org.generationcp.middleware.domain.dms.DatasetDTO datasetDTO = this.middlewareDatasetService.getDataset(datasetId);
 
-		final ModelMapper mapper = new ModelMapper();
-		mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final ModelMapper mapper = DtoMapper.getNotNullInstance();
 		final DatasetDTO datasetDto = mapper.map(datasetDTO, DatasetDTO.class);
 		if (datasetDto.getDatasetTypeId().equals(DatasetTypeEnum.PLOT_DATA.getId())) {
 			datasetDto.setName(PLOT_DATASET_NAME);
@@ -316,8 +321,7 @@ public class DatasetServiceImpl implements DatasetService {
 	public List<StudyInstance> getDatasetInstances(final Integer studyId, final Integer datasetId) {
 		this.studyValidator.validate(studyId, false);
 		this.datasetValidator.validateDataset(studyId, datasetId);
-		final ModelMapper mapper = new ModelMapper();
-		mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final ModelMapper mapper = DtoMapper.getNotNullInstance();
 		return this.convertToStudyInstances(mapper, this.middlewareDatasetService.getDatasetInstances(datasetId));
 	}
 
@@ -327,8 +331,6 @@ public class DatasetServiceImpl implements DatasetService {
 		this.validateStudyDatasetAndInstances(studyId, datasetId, instanceIds);
 		final Map<Integer, List<org.generationcp.middleware.service.api.dataset.ObservationUnitRow>> observationUnitRowsMap =
 			this.middlewareDatasetService.getInstanceIdToObservationUnitRowsMap(studyId, datasetId, instanceIds);
-		final ModelMapper observationUnitRowMapper = new ModelMapper();
-		observationUnitRowMapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
 		final Map<Integer, List<ObservationUnitRow>> map = new LinkedHashMap<>();
 		for (final Map.Entry<Integer, List<org.generationcp.middleware.service.api.dataset.ObservationUnitRow>> entry : observationUnitRowsMap
 			.entrySet()) {
@@ -336,12 +338,33 @@ public class DatasetServiceImpl implements DatasetService {
 			final List<org.generationcp.middleware.service.api.dataset.ObservationUnitRow> observationUnitRows =
 				observationUnitRowsMap.get(instanceNumber);
 			final List<ObservationUnitRow> list = new ArrayList<>();
-			this.mapObservationUnitRows(observationUnitRowMapper, observationUnitRows, list);
+			this.mapObservationUnitRows(observationUnitRows, list);
 			map.put(instanceNumber, list);
 		}
 		return map;
 	}
 
+	@Override
+	public Map<Integer, List<ObservationUnitRow>> getInstanceObservationUnitRowsMap(
+		final int studyId, final int datasetId, final List<Integer> instanceIds, final Set<Integer> observationUnitIds) {
+		this.validateStudyDatasetAndInstances(studyId, datasetId, instanceIds);
+		final Map<Integer, List<ObservationUnitRow>> map = new LinkedHashMap<>();
+		for (final Integer instanceId : instanceIds) {
+			final List<ObservationUnitRow> list = new ArrayList<>();
+			// An empty filter would not restrict the search
+			if (!observationUnitIds.isEmpty()) {
+				final ObservationUnitsSearchDTO searchDTO = new ObservationUnitsSearchDTO();
+				searchDTO.setInstanceId(instanceId);
+				final ObservationUnitsSearchDTO.Filter filter = searchDTO.new Filter();
+				filter.setFilteredNdExperimentIds(observationUnitIds);
+				searchDTO.setFilter(filter);
+				this.mapObservationUnitRows(this.middlewareDatasetService.getObservationUnitRows(studyId, datasetId, searchDTO, null), list);
+			}
+			map.put(instanceId, list);
+		}
+		return map;
+	}
+
 	void validateStudyDatasetAndInstances(
 		final int studyId, final int datasetId, final List<Integer> instanceIds) {
 		this.studyValidator.validate(studyId, false);
@@ -378,10 +401,8 @@ public class DatasetServiceImpl implements DatasetService {
 		final List<org.generationcp.middleware.service.api.dataset.ObservationUnitRow> observationUnitRows =
 			this.middlewareDatasetService.getObservationUnitRows(studyId, datasetId, searchDTO, convertedPageable);
 
-		final ModelMapper observationUnitRowMapper = new ModelMapper();
-		observationUnitRowMapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
 		final List<ObservationUnitRow> list = new ArrayList<>();
-		this.mapObservationUnitRows(observationUnitRowMapper, observationUnitRows, list);
+		this.mapObservationUnitRows(observationUnitRows, list);
 
 		return list;
 	}
@@ -433,8 +454,7 @@ public class DatasetServiceImpl implements DatasetService {
 			.generateSubObservationDataset(studyId, datasetGeneratorInput.getDatasetName(), datasetGeneratorInput.getDatasetTypeId(),
 				Arrays.asList(datasetGeneratorInput.getInstanceIds()), datasetGeneratorInput.getSequenceVariableId(),
 				datasetGeneratorInput.getNumberOfSubObservationUnits(), parentId);
-		final ModelMapper mapper = new ModelMapper();
-		mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final ModelMapper mapper = DtoMapper.getNotNullInstance();
 		return mapper.map(datasetDTO, DatasetDTO.class);
 	}
 
@@ -462,7 +482,7 @@ public class DatasetServiceImpl implements DatasetService {
 	@Override
 	public void importObservations(final Integer studyId, final Integer datasetId, final ObservationsPutRequestInput input) {
 
-		BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
 
 		this.studyValidator.validate(studyId, true);
 		this.datasetValidator.validateDataset(studyId, datasetId);
@@ -477,52 +497,23 @@ public class DatasetServiceImpl implements DatasetService {
 			throw new ApiRequestValidationException(errors.getAllErrors());
 		}
 
-		final ObservationUnitsTableBuilder observationUnitsTableBuilder = new ObservationUnitsTableBuilder();
-		final Table<String, String, String> table = observationUnitsTableBuilder.build(input.getData(), datasetMeasurementVariables);
-
-		// Get Map<OBS_UNIT_ID, Observations>
-		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitRow> storedData = this.middlewareDatasetService
-			.getObservationUnitsAsMap(datasetId, datasetMeasurementVariables, new ArrayList<>(table.rowKeySet()));
-
-		if (storedData.isEmpty()) {
-			errors.reject("none.obs.unit.id.matches", null, "");
-			throw new ApiRequestValidationException(errors.getAllErrors());
-		}
-
-		final int rowsNotBelongingToDataset = table.rowKeySet().size() - storedData.size();
-
-		// remove elements that does not belong to the dataset
-		if (rowsNotBelongingToDataset != 0) {
-			final List<String> obsUnitIdsList = new ArrayList<>(table.rowKeySet());
-			obsUnitIdsList.removeAll(storedData.keySet());
-			for (final String obsUnitId : obsUnitIdsList) {
-				table.row(obsUnitId).clear();
-			}
-		}
-		// Convert date values if necessary
-		this.correctKSUDateFormatIfNecessary(table, datasetMeasurementVariables);
-
-		// Check for data issues
-		this.observationsTableValidator.validateObservationsValuesDataTypes(table, datasetMeasurementVariables);
+		this.importObservations(datasetId, input, datasetMeasurementVariables, true, false, true);
+	}
 
-		// Processing warnings
-		if (input.isProcessWarnings()) {
-			errors = this.processObservationsDataWarningsAsErrors(table, storedData, rowsNotBelongingToDataset,
-				observationUnitsTableBuilder.getDuplicatedFoundNumber(), input.isDraftMode());
-		}
-		if (!errors.hasErrors()) {
-			this.middlewareDatasetService.importDataset(datasetId, table, input.isDraftMode(), false);
-		} else {
-			throw new PreconditionFailedException(errors.getAllErrors());
-		}
+	@Override
+	public void importObservations(final Integer studyDbId, final List<ObservationDTO> observations) {
+		this.importObservations(studyDbId, observations, true);
+	}
 
+	@Override
+	public void validateObservations(final Integer studyDbId, final List<ObservationDTO> observations) {
+		this.importObservations(studyDbId, observations, false);
 	}
 
 	// FIXME assuming one dataset for now
-	@Override
-	public void importObservations(final Integer studyDbId, final List<ObservationDTO> observations) {
+	private void importObservations(final Integer studyDbId, final List<ObservationDTO> observations, final boolean save) {
 
-		BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
 
 		final org.generationcp.middleware.domain.dms.DatasetDTO
 			dataset = this.middlewareDatasetService.getDatasetByObsUnitDbId(observations.get(0).getObservationUnitDbId());
@@ -545,46 +536,110 @@ public class DatasetServiceImpl implements DatasetService {
 
 		this.observationsTableValidator.validateList(input.getData());
 
-		final ObservationUnitsTableBuilder observationUnitsTableBuilder = new ObservationUnitsTableBuilder();
-		final Table<String, String, String> table = observationUnitsTableBuilder.build(input.getData(), datasetMeasurementVariables);
+		final Table<String, Integer, Integer> observationDbIds =
+			this.importObservations(datasetId, input, datasetMeasurementVariables, false, true, save);
+		if (!save) {
+			return;
+		}
+		// We need to return the observationDbIds (mapped in a table by observationUnitId and variableId) of the created/updated observations.
+		observations.stream().forEach(
+			o -> o.setObservationDbId(observationDbIds.get(o.getObservationUnitDbId(), o.getObservationVariableDbId())));
+	}
+
+	/**
+	 * Validates the observations and, if requested, saves them in chunks of {@code observation.import.chunk.size} observation units, so
+	 * the Middleware never gets the whole import as a single table. The chunks are saved in the transaction of the import, which is
+	 * still all or nothing.
+	 *
+	 * @return the ids of the saved observations by observation unit and variable id, if requested, empty otherwise
+	 */
+	@SuppressWarnings("unchecked")
+	private Table<String, Integer, Integer> importObservations(final int datasetId, final ObservationsPutRequestInput input,
+		final List<MeasurementVariable> datasetMeasurementVariables, final boolean convertKSUDates, final boolean returnObservationDbIds,
+		final boolean save) {
+
+		final ObservationColumns columns = new ObservationUnitsTableBuilder().buildColumns(input.getData(), datasetMeasurementVariables);
 
 		// Get Map<OBS_UNIT_ID, Observations>
 		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitRow> storedData = this.middlewareDatasetService
-			.getObservationUnitsAsMap(datasetId, datasetMeasurementVariables, new ArrayList<>(table.rowKeySet()));
+			.getObservationUnitsAsMap(datasetId, datasetMeasurementVariables, columns.getObservationUnitIds());
 
 		if (storedData.isEmpty()) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
 			errors.reject("none.obs.unit.id.matches", null, "");
 			throw new ApiRequestValidationException(errors.getAllErrors());
 		}
 
-		final int rowsNotBelongingToDataset = table.rowKeySet().size() - storedData.size();
-
 		// remove elements that does not belong to the dataset
-		if (rowsNotBelongingToDataset != 0) {
-			final List<String> obsUnitIdsList = new ArrayList<>(table.rowKeySet());
-			obsUnitIdsList.removeAll(storedData.keySet());
-			for (final String obsUnitId : obsUnitIdsList) {
-				table.row(obsUnitId).clear();
-			}
+		final int rowsNotBelongingToDataset = columns.retainObservationUnits(storedData.keySet());
+
+		// Convert date values if necessary
+		if (convertKSUDates) {
+			this.correctKSUDateFormatIfNecessary(columns, datasetMeasurementVariables);
 		}
 
-		// Check for data issues
-		this.observationsTableValidator.validateObservationsValuesDataTypes(table, datasetMeasurementVariables);
+		// Check for data issues and for data being overwritten in a single pass
+		final boolean overwritingData = this.validateObservationValues(columns, datasetMeasurementVariables, storedData,
+			input.isProcessWarnings(), input.isDraftMode());
 
 		// Processing warnings
 		if (input.isProcessWarnings()) {
-			errors = this.processObservationsDataWarningsAsErrors(table, storedData, rowsNotBelongingToDataset,
-				observationUnitsTableBuilder.getDuplicatedFoundNumber(), input.isDraftMode());
-		}
-		if (!errors.hasErrors()) {
-			final Table observationDbIdsTable = this.middlewareDatasetService.importDataset(datasetId, table, input.isDraftMode(), true);
-			// We need to return the observationDbIds (mapped in a table by observationUnitId and variableId) of the created/updated observations.
-			observations.stream().forEach(
-				o -> o.setObservationDbId((Integer) observationDbIdsTable.get(o.getObservationUnitDbId(), o.getObservationVariableDbId())));
-		} else {
-			throw new PreconditionFailedException(errors.getAllErrors());
+			final BindingResult errors = this.processObservationsDataWarningsAsErrors(rowsNotBelongingToDataset,
+				columns.getDuplicatedFoundNumber(), overwritingData);
+			if (errors.hasErrors()) {
+				throw new PreconditionFailedException(errors.getAllErrors());
+			}
 		}
 
+		final Table<String, Integer, Integer> observationDbIds = HashBasedTable.create();
+		if (!save) {
+			return observationDbIds;
+		}
+		for (final Table<String, String, String> chunk : columns.toTables(this.observationImportChunkSize)) {
+			final Table chunkObservationDbIds = this.middlewareDatasetService.importDataset(datasetId, chunk, input.isDraftMode(),
+				returnObservationDbIds);
+			if (returnObservationDbIds) {
+				observationDbIds.putAll(chunkObservationDbIds);
+			}
+		}
+		return observationDbIds;
+	}
+
+	/**
+	 * Checks the data types of the values and, if requested, whether they overwrite stored observations, in a single pass over the
+	 * observation units that belong to the dataset. Each distinct value of a variable is validated only once.
+	 *
+	 * @return whether any value overwrites a stored observation
+	 */
+	private boolean validateObservationValues(final ObservationColumns columns, final List<MeasurementVariable> measurementVariables,
+		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitRow> storedData,
+		final boolean detectOverwrites, final boolean draftMode) {
+
+		final Map<String, MeasurementVariable> mappedVariables = Maps.uniqueIndex(measurementVariables, MeasurementVariable::getAlias);
+		boolean overwritingData = false;
+		for (int column = 0; column < columns.getVariableNames().size(); column++) {
+			final String variableName = columns.getVariableNames().get(column);
+			final MeasurementVariable measurementVariable = mappedVariables.get(variableName);
+			this.observationsTableValidator.validateCategoricalVariableHasPossibleValues(measurementVariable);
+
+			final BitSet validatedValues = new BitSet(columns.getDictionarySize(column));
+			for (int ordinal = 0; ordinal < columns.size(); ordinal++) {
+				if (columns.isExcluded(ordinal)) {
+					continue;
+				}
+				final int code = columns.getCode(ordinal, column);
+				final String value = columns.getValue(ordinal, column);
+				if (code >= 0 && !validatedValues.get(code)) {
+					this.observationsTableValidator.validateObservationValue(measurementVariable, value);
+					validatedValues.set(code);
+				}
+				if (detectOverwrites && !overwritingData) {
+					overwritingData = this.isOverwritingObservation(
+						storedData.get(columns.getObservationUnitId(ordinal)).getVariables().get(variableName), value, draftMode);
+				}
+			}
+		}
+		return overwritingData;
 	}
 
 	static ObservationsPutRequestInput transformObservations(
@@ -726,10 +781,8 @@ public class DatasetServiceImpl implements DatasetService {
 		return this.middlewareDatasetService.countFilteredInstancesAndPhenotypes(datasetId, observationUnitsSearchDTO);
 	}
 
-	private BindingResult processObservationsDataWarningsAsErrors(
-		final Table<String, String, String> table,
-		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitRow> storedData,
-		final Integer rowsNotBelongingToDataset, final Integer duplicatedFoundNumber, final Boolean draftMode) {
+	private BindingResult processObservationsDataWarningsAsErrors(final Integer rowsNotBelongingToDataset,
+		final Integer duplicatedFoundNumber, final boolean overwritingData) {
 		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
 		if (duplicatedFoundNumber > 0) {
 			errors.reject("duplicated.obs.unit.id", null, "");
@@ -739,65 +792,28 @@ public class DatasetServiceImpl implements DatasetService {
 			errors.reject("some.obs.unit.id.matches", new String[] {String.valueOf(rowsNotBelongingToDataset)}, "");
 		}
 
-		if (this.isInputOverwritingData(table, storedData, draftMode)) {
+		if (overwritingData) {
 			errors.reject("warning.import.overwrite.data", null, "");
 		}
 
 		return errors;
 	}
 
-	private Boolean isInputOverwritingData(
-		final Table<String, String, String> table,
-		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitRow> storedData, final Boolean draftMode) {
-		boolean overwritingData = false;
-
-		externalLoop:
-		for (final String observationUnitId : table.rowKeySet()) {
-
-			final org.generationcp.middleware.service.api.dataset.ObservationUnitRow storedObservations = storedData.get(observationUnitId);
-
-			for (final String variableName : table.columnKeySet()) {
-
-				final org.generationcp.middleware.service.api.dataset.ObservationUnitData observation =
-					storedObservations.getVariables().get(variableName);
-
-				if (observation == null) {
-					continue;
-				}
-
-				if ((!draftMode && observation.getValue() != null //
-					&& !observation.getValue().equalsIgnoreCase(table.get(observationUnitId, variableName))) //
-					|| (draftMode && observation.getDraftValue() != null //
-					&& !observation.getDraftValue().equalsIgnoreCase(table.get(observationUnitId, variableName)))) {
-
-					overwritingData = true;
-
-					break externalLoop;
-				}
-			}
-
+	private boolean isOverwritingObservation(
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitData observation, final String value,
+		final boolean draftMode) {
+		if (observation == null) {
+			return false;
 		}
-		return overwritingData;
+		return (!draftMode && observation.getValue() != null && !observation.getValue().equalsIgnoreCase(value))
+			|| (draftMode && observation.getDraftValue() != null && !observation.getDraftValue().equalsIgnoreCase(value));
 	}
 
 	private void mapObservationUnitRows(
-		final ModelMapper observationUnitRowMapper,
 		final List<org.generationcp.middleware.service.api.dataset.ObservationUnitRow> observationUnitRows,
 		final List<ObservationUnitRow> list) {
 		for (final org.generationcp.middleware.service.api.dataset.ObservationUnitRow dto : observationUnitRows) {
-			final Map<String, ObservationUnitData> variables = new HashMap<>();
-			final Map<String, ObservationUnitData> environmentVariables = new HashMap<>();
-			for (final String data : dto.getVariables().keySet()) {
-				variables.put(data, observationUnitRowMapper.map(dto.getVariables().get(data), ObservationUnitData.class));
-			}
-			for (final String data : dto.getEnvironmentVariables().keySet()) {
-				environmentVariables
-					.put(data, observationUnitRowMapper.map(dto.getEnvironmentVariables().get(data), ObservationUnitData.class));
-			}
-			final ObservationUnitRow observationUnitRow = observationUnitRowMapper.map(dto, ObservationUnitRow.class);
-			observationUnitRow.setVariables(variables);
-			observationUnitRow.setEnvironmentVariables(environmentVariables);
-			list.add(observationUnitRow);
+			list.add(ObservationUnitRowMapper.map(dto));
 		}
 	}
 
@@ -965,25 +981,26 @@ public class DatasetServiceImpl implements DatasetService {
 		}
 	}
 
-	private void correctKSUDateFormatIfNecessary(final Table<String, String, String> table,
+	private void correctKSUDateFormatIfNecessary(final ObservationColumns columns,
 		final List<MeasurementVariable> measurementVariables) {
 		final List<String> dateVariables = measurementVariables.stream().filter(
 			measurementVariable -> measurementVariable.getDataTypeId() != null
 				&& measurementVariable.getDataTypeId() == TermId.DATE_VARIABLE.getId())
 			.map(measurementVariable -> measurementVariable.getName()).collect(Collectors.toList());
 		if (!CollectionUtils.isEmpty(dateVariables)) {
-			for (final String colVariable : table.columnKeySet()) {
-				if (dateVariables.contains(colVariable)) {
-					for (final String obsUnit : table.rowKeySet()) {
-						String value = table.get(obsUnit, colVariable);
+			for (int column = 0; column < columns.getVariableNames().size(); column++) {
+				if (dateVariables.contains(columns.getVariableNames().get(column))) {
+					// Each distinct date is converted once
+					columns.replaceValues(column, value -> {
 						final Date ksuParsed = Util.tryParseDate(value, Util.DATE_AS_NUMBER_FORMAT_KSU);
-						if (ksuParsed != null) {
-							value = Util.formatDateAsStringValue(ksuParsed, Util.DATE_AS_NUMBER_FORMAT);
-							table.put(obsUnit, colVariable, value);
-						}
-					}
+						return ksuParsed != null ? Util.formatDateAsStringValue(ksuParsed, Util.DATE_AS_NUMBER_FORMAT) : value;
+					});
 				}
 			}
 		}
 	}
+
+	void setObservationImportChunkSize(final int observationImportChunkSize) {
+		this.observationImportChunkSize = observationImportChunkSize;
+	}
 }
@@ -0,0 +1,66 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import org.ibp.api.exception.ResourceNotFoundException;
+import org.ibp.api.java.dataset.DatasetExportService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+
+import javax.annotation.Resource;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Set;
+
+@Service
+@Transactional
+public class DatasetXlsxExportServiceImpl extends DatasetExcelExportServiceImpl implements DatasetExportService {
+
+	@Resource
+	private DatasetXlsxGenerator datasetXlsxGenerator;
+
+	@Override
+	public File export(final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile) {
+		return this.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile, null);
+	}
+
+	@Override
+	public File exportChanges(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final long changedSince) {
+		return this.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile, changedSince);
+	}
+
+	private File export(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId, final boolean singleFile,
+		final Long changedSince) {
+
+		this.validate(studyId, datasetId, instanceIds);
+
+		try {
+			return this.generate(
+				studyId, datasetId, instanceIds, collectionOrderId, this.datasetXlsxGenerator, false, XLSX, changedSince);
+		} catch (final IOException e) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject("cannot.exportAsXLS.dataset", "");
+			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
+		}
+	}
+
+	@Override
+	public void exportAsZip(
+		final int studyId, final int datasetId, final Set<Integer> instanceIds, final int collectionOrderId,
+		final OutputStream outputStream) {
+
+		this.validate(studyId, datasetId, instanceIds);
+		try {
+			this.generateZip(studyId, datasetId, instanceIds, collectionOrderId, this.datasetXlsxGenerator, XLSX, outputStream);
+		} catch (final IOException e) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject("cannot.exportAsXLS.dataset", "");
+			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.DefaultIndexedColorMap;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes the dataset as xlsx with a streaming workbook: only the last {@code export.xlsx.row.access.window.size} rows of each sheet are
+ * kept in memory and the rest are flushed to a temporary file, so the memory used does not depend on the size of the dataset and the
+ * sheets are not limited to the 65,536 rows of the xls format.
+ */
+@Component
+public class DatasetXlsxGenerator extends DatasetExcelGenerator {
+
+	@Value("${export.xlsx.row.access.window.size:100}")
+	private int rowAccessWindowSize;
+
+	@Override
+	protected Workbook createWorkbook() {
+		final SXSSFWorkbook workbook = new SXSSFWorkbook(this.rowAccessWindowSize);
+		workbook.setCompressTempFiles(true);
+		return workbook;
+	}
+
+	@Override
+	protected void dispose(final Workbook workbook) {
+		// Deletes the temporary files that back the flushed rows
+		((SXSSFWorkbook) workbook).dispose();
+	}
+
+	@Override
+	protected void setFillForegroundColor(
+		final Workbook workbook, final CellStyle cellStyle, final int red, final int green, final int blue) {
+		((XSSFCellStyle) cellStyle).setFillForegroundColor(this.getColor(red, green, blue));
+	}
+
+	@Override
+	protected void setFillBackgroundColor(
+		final Workbook workbook, final CellStyle cellStyle, final int red, final int green, final int blue) {
+		((XSSFCellStyle) cellStyle).setFillBackgroundColor(this.getColor(red, green, blue));
+	}
+
+	private XSSFColor getColor(final int red, final int green, final int blue) {
+		return new XSSFColor(new byte[] {(byte) red, (byte) green, (byte) blue}, new DefaultIndexedColorMap());
+	}
+
+	void setRowAccessWindowSize(final int rowAccessWindowSize) {
+		this.rowAccessWindowSize = rowAccessWindowSize;
+	}
+}
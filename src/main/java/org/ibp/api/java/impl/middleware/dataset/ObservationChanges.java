@@ -0,0 +1,97 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import org.generationcp.middleware.hibernate.HibernateSessionPerRequestProvider;
+import org.hibernate.SQLQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import javax.annotation.Resource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the observation units with observations created or updated since a watermark, using the creation and update timestamps of the
+ * phenotypes. Watermarks are taken from the database clock and moved back by {@code observation.changes.watermark.margin.seconds}, so
+ * that the changes of the transactions that were still running when the watermark was taken are returned again by the next request
+ * instead of being missed. Deleted observations leave no phenotype behind and are not reported.
+ */
+@Component
+public class ObservationChanges {
+
+	public static final String WATERMARK_HEADER = "X-Changes-Watermark";
+
+	private static final String CHANGED_SINCE = "COALESCE(ph.updated_date, ph.created_date) >= :since";
+
+	@Value("${observation.changes.watermark.margin.seconds:300}")
+	private long watermarkMarginSeconds;
+
+	@Resource
+	private HibernateSessionPerRequestProvider cropDatabaseSessionProvider;
+
+	/**
+	 * @return the watermark to send back with the changes read after it, as milliseconds since the epoch
+	 */
+	public long newWatermark() {
+		final Timestamp now = (Timestamp) this.cropDatabaseSessionProvider.getSession().createSQLQuery("SELECT NOW()").uniqueResult();
+		return now.getTime() - TimeUnit.SECONDS.toMillis(this.watermarkMarginSeconds);
+	}
+
+	/**
+	 * @return the ids of the observation units of the dataset with observations created or updated since the watermark
+	 */
+	public Set<Integer> getChangedObservationUnitIds(final int datasetId, final long since) {
+		final SQLQuery query = this.cropDatabaseSessionProvider.getSession().createSQLQuery("SELECT DISTINCT e.nd_experiment_id "
+			+ "FROM nd_experiment e INNER JOIN phenotype ph ON ph.nd_experiment_id = e.nd_experiment_id "
+			+ "WHERE e.project_id = :datasetId AND " + CHANGED_SINCE);
+		query.setParameter("datasetId", datasetId);
+		query.setParameter("since", new Timestamp(since));
+
+		final Set<Integer> observationUnitIds = new HashSet<>();
+		for (final Object observationUnitId : query.list()) {
+			observationUnitIds.add(((Number) observationUnitId).intValue());
+		}
+		return observationUnitIds;
+	}
+
+	/**
+	 * @return the db ids of the observation units with observations created or updated since the watermark, at most maxResults of them.
+	 * Only the units of the given studies (BrAPI studies are instances) and the given units are read, if they are not empty
+	 */
+	public List<String> getChangedObservationUnitDbIds(
+		final long since, final Collection<String> studyDbIds, final Collection<String> observationUnitDbIds, final int maxResults) {
+		final StringBuilder sql = new StringBuilder("SELECT DISTINCT e.obs_unit_id "
+			+ "FROM nd_experiment e INNER JOIN phenotype ph ON ph.nd_experiment_id = e.nd_experiment_id "
+			+ "WHERE e.obs_unit_id IS NOT NULL AND " + CHANGED_SINCE);
+		if (!CollectionUtils.isEmpty(studyDbIds)) {
+			sql.append(" AND e.nd_geolocation_id IN (:studyDbIds)");
+		}
+		if (!CollectionUtils.isEmpty(observationUnitDbIds)) {
+			sql.append(" AND e.obs_unit_id IN (:observationUnitDbIds)");
+		}
+		final SQLQuery query = this.cropDatabaseSessionProvider.getSession().createSQLQuery(sql.toString());
+		query.setParameter("since", new Timestamp(since));
+		if (!CollectionUtils.isEmpty(studyDbIds)) {
+			query.setParameterList("studyDbIds", studyDbIds);
+		}
+		if (!CollectionUtils.isEmpty(observationUnitDbIds)) {
+			query.setParameterList("observationUnitDbIds", observationUnitDbIds);
+		}
+		query.setMaxResults(maxResults);
+
+		final List<String> changedObservationUnitDbIds = new ArrayList<>();
+		for (final Object observationUnitDbId : query.list()) {
+			changedObservationUnitDbIds.add((String) observationUnitDbId);
+		}
+		return changedObservationUnitDbIds;
+	}
+
+	void setWatermarkMarginSeconds(final long watermarkMarginSeconds) {
+		this.watermarkMarginSeconds = watermarkMarginSeconds;
+	}
+}
@@ -0,0 +1,207 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * The observations of an import, kept by column: each observation unit gets an ordinal in the order it was first found in the input, and
+ * each variable keeps the codes of its values by ordinal, in an int array, and its distinct values once in a dictionary. Observation
+ * values repeat a lot (empty cells, missing, categories, dates), so this takes a fraction of the memory of a table of strings, and the
+ * checks that only depend on the value can be done once per distinct value. Rows are handed to the Middleware as small tables, in chunks.
+ */
+public class ObservationColumns {
+
+	private static final int NULL_CODE = -1;
+
+	private final List<String> variableNames;
+	private final Column[] columns;
+	private final List<String> observationUnitIds = new ArrayList<>();
+	private final Map<String, Integer> ordinals = new HashMap<>();
+	private final BitSet excluded = new BitSet();
+	private int duplicatedFoundNumber;
+
+	ObservationColumns(final List<String> variableNames) {
+		this.variableNames = Collections.unmodifiableList(new ArrayList<>(variableNames));
+		this.columns = new Column[variableNames.size()];
+		for (int column = 0; column < this.columns.length; column++) {
+			this.columns[column] = new Column();
+		}
+	}
+
+	/**
+	 * Adds the values of an observation unit, unless it was already added, in which case the row is counted as a duplicate and ignored.
+	 *
+	 * @param values the values of the variables, in the order of {@link #getVariableNames()}
+	 */
+	void add(final String observationUnitId, final List<String> values) {
+		if (this.ordinals.containsKey(observationUnitId)) {
+			this.duplicatedFoundNumber++;
+			return;
+		}
+		final int ordinal = this.observationUnitIds.size();
+		this.ordinals.put(observationUnitId, ordinal);
+		this.observationUnitIds.add(observationUnitId);
+		for (int column = 0; column < this.columns.length; column++) {
+			this.columns[column].add(ordinal, values.get(column));
+		}
+	}
+
+	/**
+	 * Excludes the observation units that are not in the given set from the validation and the import.
+	 *
+	 * @return the number of observation units excluded
+	 */
+	public int retainObservationUnits(final Set<String> observationUnitIds) {
+		int excludedNumber = 0;
+		for (int ordinal = 0; ordinal < this.size(); ordinal++) {
+			if (!observationUnitIds.contains(this.observationUnitIds.get(ordinal))) {
+				this.excluded.set(ordinal);
+				excludedNumber++;
+			}
+		}
+		return excludedNumber;
+	}
+
+	/**
+	 * Replaces every distinct non null value of a variable with the result of the function, so each value is converted once.
+	 */
+	public void replaceValues(final int column, final UnaryOperator<String> function) {
+		this.columns[column].replaceValues(function);
+	}
+
+	/**
+	 * @return the observation units as tables of at most chunkSize rows, built as they are iterated, leaving out the excluded ones
+	 */
+	public Iterable<Table<String, String, String>> toTables(final int chunkSize) {
+		Preconditions.checkArgument(chunkSize > 0, "The chunk size should be positive");
+		return () -> new AbstractIterator<Table<String, String, String>>() {
+
+			private int nextOrdinal;
+
+			@Override
+			protected Table<String, String, String> computeNext() {
+				final Table<String, String, String> table =
+					HashBasedTable.create(Math.min(chunkSize, ObservationColumns.this.size()), ObservationColumns.this.columns.length);
+				int rows = 0;
+				for (; this.nextOrdinal < ObservationColumns.this.size() && rows < chunkSize; this.nextOrdinal++) {
+					if (!ObservationColumns.this.isExcluded(this.nextOrdinal)) {
+						ObservationColumns.this.putRow(table, this.nextOrdinal);
+						rows++;
+					}
+				}
+				return rows == 0 ? this.endOfData() : table;
+			}
+		};
+	}
+
+	/**
+	 * @return all the observation units that were not excluded, as a single table
+	 */
+	public Table<String, String, String> toTable() {
+		for (final Table<String, String, String> table : this.toTables(Integer.MAX_VALUE)) {
+			return table;
+		}
+		return HashBasedTable.create();
+	}
+
+	private void putRow(final Table<String, String, String> table, final int ordinal) {
+		final String observationUnitId = this.observationUnitIds.get(ordinal);
+		for (int column = 0; column < this.columns.length; column++) {
+			final String value = this.getValue(ordinal, column);
+			if (value != null) {
+				table.put(observationUnitId, this.variableNames.get(column), value);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of observation units, including the excluded ones
+	 */
+	public int size() {
+		return this.observationUnitIds.size();
+	}
+
+	public boolean isExcluded(final int ordinal) {
+		return this.excluded.get(ordinal);
+	}
+
+	public String getObservationUnitId(final int ordinal) {
+		return this.observationUnitIds.get(ordinal);
+	}
+
+	/**
+	 * @return the ids of the observation units by ordinal, including the excluded ones
+	 */
+	public List<String> getObservationUnitIds() {
+		return Collections.unmodifiableList(this.observationUnitIds);
+	}
+
+	public List<String> getVariableNames() {
+		return this.variableNames;
+	}
+
+	public String getValue(final int ordinal, final int column) {
+		return this.columns[column].getValue(ordinal);
+	}
+
+	/**
+	 * @return the position of the value in the dictionary of the variable, or a negative number if the value is null
+	 */
+	public int getCode(final int ordinal, final int column) {
+		return this.columns[column].codes[ordinal];
+	}
+
+	/**
+	 * @return the number of distinct non null values of the variable
+	 */
+	public int getDictionarySize(final int column) {
+		return this.columns[column].dictionary.size();
+	}
+
+	public int getDuplicatedFoundNumber() {
+		return this.duplicatedFoundNumber;
+	}
+
+	private static class Column {
+
+		private final List<String> dictionary = new ArrayList<>();
+		private final Map<String, Integer> dictionaryCodes = new HashMap<>();
+		private int[] codes = new int[16];
+
+		void add(final int ordinal, final String value) {
+			if (ordinal == this.codes.length) {
+				this.codes = Arrays.copyOf(this.codes, this.codes.length * 2);
+			}
+			this.codes[ordinal] = value == null ? NULL_CODE : this.dictionaryCodes.computeIfAbsent(value, v -> {
+				this.dictionary.add(v);
+				return this.dictionary.size() - 1;
+			});
+		}
+
+		String getValue(final int ordinal) {
+			final int code = this.codes[ordinal];
+			return code == NULL_CODE ? null : this.dictionary.get(code);
+		}
+
+		void replaceValues(final UnaryOperator<String> function) {
+			this.dictionary.replaceAll(function);
+			// Two values may have been converted to the same one, the values added later share the first code
+			this.dictionaryCodes.clear();
+			for (int code = 0; code < this.dictionary.size(); code++) {
+				this.dictionaryCodes.putIfAbsent(this.dictionary.get(code), code);
+			}
+		}
+	}
+}
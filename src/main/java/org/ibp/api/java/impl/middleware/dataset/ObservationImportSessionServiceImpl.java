@@ -0,0 +1,228 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import org.generationcp.middleware.api.brapi.v1.observation.ObservationDTO;
+import org.ibp.api.domain.dataset.ObservationImportSessionDTO;
+import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.exception.ConflictException;
+import org.ibp.api.exception.ResourceNotFoundException;
+import org.ibp.api.java.dataset.DatasetService;
+import org.ibp.api.java.dataset.ObservationImportSessionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Imports the BrAPI observations of a study in batches, so a device can send a large sync in small requests and retry only the batches
+ * that fail. Each batch is validated with the checks of {@link DatasetService#importObservations(Integer, List)} when it is staged, and
+ * the staged batches are saved when the session is committed, in the order of their sequence numbers and each one in its own
+ * transaction. Sessions are only visible to the user that opened them, and expire after {@code observation.import.session.ttl.minutes}
+ * without changes.
+ * <p>
+ * Sessions and their batches are kept in the crop database by {@link ObservationImportStaging}, so any node can serve the requests of a
+ * session and the staged observations do not take heap. Each batch is marked committed in the transaction that saves it, so a commit
+ * that fails or is interrupted can be retried, on any node, and only saves the batches that are left. Each session holds at most
+ * {@code observation.import.session.max.observations} staged observations and each user at most
+ * {@code observation.import.session.max.per.user} open sessions; requests over these limits are rejected.
+ */
+@Service
+public class ObservationImportSessionServiceImpl implements ObservationImportSessionService {
+
+	static final String SESSION_NOT_FOUND = "observation.import.session.not.found";
+	static final String SESSION_COMMITTED = "observation.import.session.committed";
+	static final String SESSION_EMPTY = "observation.import.session.empty";
+	static final String BATCH_INVALID_SEQUENCE_NUMBER = "observation.import.batch.invalid.sequence.number";
+	static final String BATCH_EMPTY = "observation.import.batch.empty";
+	static final String BATCH_TOO_LARGE = "observation.import.batch.too.large";
+	static final String SESSION_TOO_LARGE = "observation.import.session.too.large";
+	static final String SESSIONS_TOO_MANY = "observation.import.sessions.too.many";
+
+	@Value("${observation.import.session.ttl.minutes:1440}")
+	private long ttlMinutes;
+
+	@Value("${observation.import.session.batch.max.size:5000}")
+	private int batchMaxSize;
+
+	@Value("${observation.import.session.max.observations:100000}")
+	private int sessionMaxObservations;
+
+	@Value("${observation.import.session.max.per.user:10}")
+	private int maxSessionsPerUser;
+
+	@Resource
+	private DatasetService datasetService;
+
+	@Resource
+	private ObservationImportStaging observationImportStaging;
+
+	@Override
+	@Transactional
+	public ObservationImportSessionDTO open(final String cropName, final Integer studyDbId) {
+		this.observationImportStaging.deleteExpiredSessions(this.ttlMinutes);
+		final String username = getCurrentUsername();
+		if (this.observationImportStaging.countOpenSessions(username, this.ttlMinutes) >= this.maxSessionsPerUser) {
+			throw this.validationException(SESSIONS_TOO_MANY, new Object[] {this.maxSessionsPerUser});
+		}
+		final String sessionId = UUID.randomUUID().toString();
+		this.observationImportStaging.createSession(sessionId, studyDbId, username);
+		return this.toDTO(this.getStagedSession(studyDbId, sessionId, false));
+	}
+
+	@Override
+	@Transactional
+	public ObservationImportSessionDTO getSession(final String cropName, final Integer studyDbId, final String sessionId) {
+		return this.toDTO(this.getStagedSession(studyDbId, sessionId, false));
+	}
+
+	@Override
+	@Transactional
+	public ObservationImportSessionDTO stageBatch(final String cropName, final Integer studyDbId, final String sessionId,
+		final Integer sequenceNumber, final List<ObservationDTO> observations) {
+
+		// Locks the session, so the batches of a session are staged one at a time whichever node receives them
+		final ObservationImportStaging.StagedSession session = this.getStagedSession(studyDbId, sessionId, true);
+		if (sequenceNumber == null || sequenceNumber < 1) {
+			throw this.validationException(BATCH_INVALID_SEQUENCE_NUMBER, null);
+		}
+		if (observations == null || observations.isEmpty()) {
+			throw this.validationException(BATCH_EMPTY, null);
+		}
+		if (observations.size() > this.batchMaxSize) {
+			throw this.validationException(BATCH_TOO_LARGE, new Object[] {this.batchMaxSize});
+		}
+		this.checkNotCommitted(session);
+
+		int stagedObservations = observations.size();
+		for (final ObservationImportStaging.StagedBatch batch : this.observationImportStaging.getBatches(sessionId)) {
+			// A batch sent again replaces the one with the same sequence number
+			if (!batch.isCommitted() && batch.getSequenceNumber() != sequenceNumber) {
+				stagedObservations += batch.getObservationCount();
+			}
+		}
+		if (stagedObservations > this.sessionMaxObservations) {
+			throw this.validationException(SESSION_TOO_LARGE, new Object[] {this.sessionMaxObservations});
+		}
+		// A batch that fails is not staged, so it can be fixed and sent again with the same sequence number
+		this.datasetService.validateObservations(studyDbId, observations);
+		this.observationImportStaging.stageBatch(sessionId, sequenceNumber, observations);
+		return this.toDTO(this.getStagedSession(studyDbId, sessionId, false));
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public List<ObservationDTO> commit(final String cropName, final Integer studyDbId, final String sessionId) {
+		final ObservationImportStaging.StagedSession session = this.getStagedSession(studyDbId, sessionId, false);
+		final List<ObservationDTO> savedObservations = new ArrayList<>();
+		if (session.isCommitted()) {
+			// Committing again, for instance when the response of the first commit was lost, saves nothing
+			return savedObservations;
+		}
+		final List<ObservationImportStaging.StagedBatch> batches = this.observationImportStaging.getBatches(sessionId);
+		if (batches.isEmpty()) {
+			throw this.validationException(SESSION_EMPTY, null);
+		}
+
+		for (final ObservationImportStaging.StagedBatch batch : batches) {
+			if (!batch.isCommitted()) {
+				// Each batch is saved and marked committed in its own transaction, the batches saved before a failure are kept
+				savedObservations.addAll(this.observationImportStaging.commitBatch(sessionId, studyDbId, batch.getSequenceNumber()));
+			}
+		}
+		this.observationImportStaging.commitSession(sessionId);
+		return savedObservations;
+	}
+
+	private ObservationImportStaging.StagedSession getStagedSession(final Integer studyDbId, final String sessionId, final boolean lock) {
+		// Sessions are kept in the crop database, so the sessions of other crops are not found
+		final ObservationImportStaging.StagedSession session =
+			this.observationImportStaging.getStagedSession(sessionId, this.ttlMinutes, lock);
+		// Sessions of other studies or users are reported as not found
+		if (session == null || !session.getStudyDbId().equals(studyDbId) || !Objects.equals(session.getUsername(), getCurrentUsername())) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject(SESSION_NOT_FOUND, "");
+			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
+		}
+		return session;
+	}
+
+	private void checkNotCommitted(final ObservationImportStaging.StagedSession session) {
+		if (session.isCommitted()) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject(SESSION_COMMITTED, "");
+			throw new ConflictException(errors.getAllErrors());
+		}
+	}
+
+	private ObservationImportSessionDTO toDTO(final ObservationImportStaging.StagedSession session) {
+		final ObservationImportSessionDTO dto = new ObservationImportSessionDTO();
+		dto.setSessionId(session.getSessionId());
+		dto.setStudyDbId(session.getStudyDbId());
+		dto.setCommitted(session.isCommitted());
+		final List<Integer> stagedBatches = new ArrayList<>();
+		final List<Integer> committedBatches = new ArrayList<>();
+		int stagedObservations = 0;
+		int committedObservations = 0;
+		for (final ObservationImportStaging.StagedBatch batch : this.observationImportStaging.getBatches(session.getSessionId())) {
+			if (batch.isCommitted()) {
+				committedBatches.add(batch.getSequenceNumber());
+				committedObservations += batch.getObservationCount();
+			} else {
+				stagedBatches.add(batch.getSequenceNumber());
+				stagedObservations += batch.getObservationCount();
+			}
+		}
+		dto.setStagedBatches(stagedBatches);
+		dto.setCommittedBatches(committedBatches);
+		dto.setStagedObservations(stagedObservations);
+		dto.setCommittedObservations(committedObservations);
+		dto.setCreatedDate(session.getCreatedDate());
+		dto.setLastUpdatedDate(session.getLastUpdatedDate());
+		return dto;
+	}
+
+	private ApiRequestValidationException validationException(final String errorCode, final Object[] arguments) {
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+		errors.reject(errorCode, arguments, "");
+		return new ApiRequestValidationException(errors.getAllErrors());
+	}
+
+	private static String getCurrentUsername() {
+		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication != null ? authentication.getName() : null;
+	}
+
+	void setTtlMinutes(final long ttlMinutes) {
+		this.ttlMinutes = ttlMinutes;
+	}
+
+	void setBatchMaxSize(final int batchMaxSize) {
+		this.batchMaxSize = batchMaxSize;
+	}
+
+	void setSessionMaxObservations(final int sessionMaxObservations) {
+		this.sessionMaxObservations = sessionMaxObservations;
+	}
+
+	void setMaxSessionsPerUser(final int maxSessionsPerUser) {
+		this.maxSessionsPerUser = maxSessionsPerUser;
+	}
+
+	void setDatasetService(final DatasetService datasetService) {
+		this.datasetService = datasetService;
+	}
+
+	void setObservationImportStaging(final ObservationImportStaging observationImportStaging) {
+		this.observationImportStaging = observationImportStaging;
+	}
+}
@@ -0,0 +1,273 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.generationcp.middleware.api.brapi.v1.observation.ObservationDTO;
+import org.generationcp.middleware.hibernate.HibernateSessionPerRequestProvider;
+import org.hibernate.Session;
+import org.ibp.api.exception.ApiRuntimeException;
+import org.ibp.api.java.dataset.DatasetService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Stores the observation import sessions and their staged batches in the crop database (tables created by
+ * {@code sql/observation_import_staging.sql}), so that every node sees the same sessions and the requests of a session can reach any of
+ * them. The requests that change a session lock its row until their transaction ends, so they are serialised across nodes. Expiration
+ * is checked against the database clock.
+ */
+@Component
+@Transactional
+public class ObservationImportStaging {
+
+	private static final TypeReference<List<ObservationDTO>> OBSERVATIONS_TYPE = new TypeReference<List<ObservationDTO>>() {
+	};
+
+	private static final String NOT_EXPIRED = "last_updated_date >= NOW() - INTERVAL :ttlMinutes MINUTE";
+
+	@Resource
+	private HibernateSessionPerRequestProvider cropDatabaseSessionProvider;
+
+	@Resource
+	private DatasetService datasetService;
+
+	// Read-only properties of the DTO are written with the batch, and skipped when it is read back
+	private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	public void createSession(final String sessionId, final Integer studyDbId, final String username) {
+		this.getSession().createSQLQuery("INSERT INTO observation_import_session "
+			+ "(session_id, study_id, username, created_date, last_updated_date) VALUES (:sessionId, :studyDbId, :username, NOW(), NOW())")
+			.setParameter("sessionId", sessionId)
+			.setParameter("studyDbId", studyDbId)
+			.setParameter("username", username)
+			.executeUpdate();
+	}
+
+	/**
+	 * @return the sessions of the user that are neither committed nor expired
+	 */
+	public long countOpenSessions(final String username, final long ttlMinutes) {
+		final Number count = (Number) this.getSession().createSQLQuery("SELECT COUNT(*) FROM observation_import_session "
+			+ "WHERE username <=> :username AND committed = 0 AND " + NOT_EXPIRED)
+			.setParameter("username", username)
+			.setParameter("ttlMinutes", ttlMinutes)
+			.uniqueResult();
+		return count.longValue();
+	}
+
+	/**
+	 * Deletes the expired sessions, with their batches
+	 */
+	public int deleteExpiredSessions(final long ttlMinutes) {
+		return this.getSession().createSQLQuery("DELETE FROM observation_import_session "
+			+ "WHERE last_updated_date < NOW() - INTERVAL :ttlMinutes MINUTE")
+			.setParameter("ttlMinutes", ttlMinutes)
+			.executeUpdate();
+	}
+
+	/**
+	 * @param lock whether to lock the session until the transaction ends, for the requests that change it
+	 * @return the session, or null if it does not exist or has expired
+	 */
+	public StagedSession getStagedSession(final String sessionId, final long ttlMinutes, final boolean lock) {
+		final Object[] row = (Object[]) this.getSession().createSQLQuery("SELECT session_id, study_id, username, created_date, "
+			+ "last_updated_date, committed FROM observation_import_session WHERE session_id = :sessionId AND " + NOT_EXPIRED
+			+ (lock ? " FOR UPDATE" : ""))
+			.setParameter("sessionId", sessionId)
+			.setParameter("ttlMinutes", ttlMinutes)
+			.uniqueResult();
+		if (row == null) {
+			return null;
+		}
+		return new StagedSession((String) row[0], ((Number) row[1]).intValue(), (String) row[2], (Date) row[3], (Date) row[4],
+			isTrue(row[5]));
+	}
+
+	/**
+	 * @return the batches of the session in sequence order, without their observations
+	 */
+	@SuppressWarnings("unchecked")
+	public List<StagedBatch> getBatches(final String sessionId) {
+		final List<Object[]> rows = this.getSession().createSQLQuery("SELECT sequence_number, observation_count, committed "
+			+ "FROM observation_import_batch WHERE session_id = :sessionId ORDER BY sequence_number")
+			.setParameter("sessionId", sessionId)
+			.list();
+		final List<StagedBatch> batches = new ArrayList<>();
+		for (final Object[] row : rows) {
+			batches.add(new StagedBatch(((Number) row[0]).intValue(), ((Number) row[1]).intValue(), isTrue(row[2])));
+		}
+		return batches;
+	}
+
+	/**
+	 * Stages the batch, replacing the one with the same sequence number
+	 */
+	public void stageBatch(final String sessionId, final int sequenceNumber, final List<ObservationDTO> observations) {
+		this.getSession().createSQLQuery("INSERT INTO observation_import_batch "
+			+ "(session_id, sequence_number, observation_count, observations, committed) "
+			+ "VALUES (:sessionId, :sequenceNumber, :observationCount, :observations, 0) "
+			+ "ON DUPLICATE KEY UPDATE observation_count = VALUES(observation_count), observations = VALUES(observations), committed = 0")
+			.setParameter("sessionId", sessionId)
+			.setParameter("sequenceNumber", sequenceNumber)
+			.setParameter("observationCount", observations.size())
+			.setParameter("observations", this.writeObservations(observations))
+			.executeUpdate();
+		this.touch(sessionId);
+	}
+
+	/**
+	 * Saves a staged batch and marks it committed in a transaction of its own, so a batch is saved once even when the commit is retried
+	 * or runs on two nodes at the same time.
+	 *
+	 * @return the saved observations, with their observationDbIds, or an empty list if the batch was already committed
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW)
+	public List<ObservationDTO> commitBatch(final String sessionId, final Integer studyDbId, final int sequenceNumber) {
+		// The session is locked before the batch, in the same order as when staging
+		this.getSession().createSQLQuery("SELECT session_id FROM observation_import_session WHERE session_id = :sessionId FOR UPDATE")
+			.setParameter("sessionId", sessionId)
+			.uniqueResult();
+		final Object[] row = (Object[]) this.getSession().createSQLQuery("SELECT observations, committed FROM observation_import_batch "
+			+ "WHERE session_id = :sessionId AND sequence_number = :sequenceNumber FOR UPDATE")
+			.setParameter("sessionId", sessionId)
+			.setParameter("sequenceNumber", sequenceNumber)
+			.uniqueResult();
+		if (row == null || isTrue(row[1])) {
+			return Collections.emptyList();
+		}
+
+		final List<ObservationDTO> observations = this.readObservations((String) row[0]);
+		this.datasetService.importObservations(studyDbId, observations);
+		this.getSession().createSQLQuery("UPDATE observation_import_batch SET committed = 1 "
+			+ "WHERE session_id = :sessionId AND sequence_number = :sequenceNumber")
+			.setParameter("sessionId", sessionId)
+			.setParameter("sequenceNumber", sequenceNumber)
+			.executeUpdate();
+		this.touch(sessionId);
+		return observations;
+	}
+
+	public void commitSession(final String sessionId) {
+		this.getSession().createSQLQuery("UPDATE observation_import_session SET committed = 1, last_updated_date = NOW() "
+			+ "WHERE session_id = :sessionId")
+			.setParameter("sessionId", sessionId)
+			.executeUpdate();
+	}
+
+	private void touch(final String sessionId) {
+		this.getSession().createSQLQuery("UPDATE observation_import_session SET last_updated_date = NOW() WHERE session_id = :sessionId")
+			.setParameter("sessionId", sessionId)
+			.executeUpdate();
+	}
+
+	private String writeObservations(final List<ObservationDTO> observations) {
+		try {
+			return this.objectMapper.writeValueAsString(observations);
+		} catch (final IOException e) {
+			throw new ApiRuntimeException("The observations of the batch could not be staged", e);
+		}
+	}
+
+	private List<ObservationDTO> readObservations(final String observations) {
+		try {
+			return this.objectMapper.readValue(observations, OBSERVATIONS_TYPE);
+		} catch (final IOException e) {
+			throw new ApiRuntimeException("The staged observations of the batch could not be read", e);
+		}
+	}
+
+	private Session getSession() {
+		return this.cropDatabaseSessionProvider.getSession();
+	}
+
+	private static boolean isTrue(final Object value) {
+		// TINYINT(1) columns are read as Boolean or as numbers depending on the driver settings
+		return value instanceof Boolean ? (Boolean) value : ((Number) value).intValue() != 0;
+	}
+
+	void setCropDatabaseSessionProvider(final HibernateSessionPerRequestProvider cropDatabaseSessionProvider) {
+		this.cropDatabaseSessionProvider = cropDatabaseSessionProvider;
+	}
+
+	void setDatasetService(final DatasetService datasetService) {
+		this.datasetService = datasetService;
+	}
+
+	static class StagedSession {
+
+		private final String sessionId;
+		private final Integer studyDbId;
+		private final String username;
+		private final Date createdDate;
+		private final Date lastUpdatedDate;
+		private final boolean committed;
+
+		StagedSession(final String sessionId, final Integer studyDbId, final String username, final Date createdDate,
+			final Date lastUpdatedDate, final boolean committed) {
+			this.sessionId = sessionId;
+			this.studyDbId = studyDbId;
+			this.username = username;
+			this.createdDate = createdDate;
+			this.lastUpdatedDate = lastUpdatedDate;
+			this.committed = committed;
+		}
+
+		String getSessionId() {
+			return this.sessionId;
+		}
+
+		Integer getStudyDbId() {
+			return this.studyDbId;
+		}
+
+		String getUsername() {
+			return this.username;
+		}
+
+		Date getCreatedDate() {
+			return this.createdDate;
+		}
+
+		Date getLastUpdatedDate() {
+			return this.lastUpdatedDate;
+		}
+
+		boolean isCommitted() {
+			return this.committed;
+		}
+	}
+
+	static class StagedBatch {
+
+		private final int sequenceNumber;
+		private final int observationCount;
+		private final boolean committed;
+
+		StagedBatch(final int sequenceNumber, final int observationCount, final boolean committed) {
+			this.sequenceNumber = sequenceNumber;
+			this.observationCount = observationCount;
+			this.committed = committed;
+		}
+
+		int getSequenceNumber() {
+			return this.sequenceNumber;
+		}
+
+		int getObservationCount() {
+			return this.observationCount;
+		}
+
+		boolean isCommitted() {
+			return this.committed;
+		}
+	}
+}
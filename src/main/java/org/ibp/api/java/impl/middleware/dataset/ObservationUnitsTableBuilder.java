@@ -1,11 +1,12 @@
 package org.ibp.api.java.impl.middleware.dataset;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Table;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.generationcp.middleware.domain.etl.MeasurementVariable;
 import org.ibp.api.exception.ApiRequestValidationException;
@@ -21,6 +22,11 @@ public class ObservationUnitsTableBuilder {
 	private Integer duplicatedFoundNumber;
 
 	public Table<String, String, String> build(final List<List<String>> data, final List<MeasurementVariable> datasetMeasurementVariables) throws ApiRequestValidationException {
+		return this.buildColumns(data, datasetMeasurementVariables).toTable();
+	}
+
+	public ObservationColumns buildColumns(final List<List<String>> data, final List<MeasurementVariable> datasetMeasurementVariables)
+		throws ApiRequestValidationException {
 
 		duplicatedFoundNumber = 0;
 
@@ -31,25 +37,30 @@ public class ObservationUnitsTableBuilder {
 		final List<List<String>> values = data.subList(1, data.size());
 
 		// check that headers contains OBS_UNIT_ID
-		if (!headers.contains(OBS_UNIT_ID)) {
+		final int obsUnitIdIndex = headers.indexOf(OBS_UNIT_ID);
+		if (obsUnitIdIndex < 0) {
 			errors.reject("required.header.obs.unit.id", null , "");
 			throw new ApiRequestValidationException (errors.getAllErrors());
 		}
 
+		final Set<String> aliases = new HashSet<>();
+		for (final MeasurementVariable measurementVariableDto: datasetMeasurementVariables) {
+			aliases.add(measurementVariableDto.getAlias());
+		}
+
 		// filter measurement variables from header
-		List<Integer> importMeasurementVariablesIndex = new ArrayList<>();
-
-		for (final String header: headers) {
-			for (final MeasurementVariable measurementVariableDto: datasetMeasurementVariables) {
-				if (measurementVariableDto.getAlias().equals(header)) {
-					if (importMeasurementVariablesIndex.contains(headers.indexOf(header))) {
-						errors.reject("duplicated.measurement.variables.not.allowed", null , "");
-						throw new ApiRequestValidationException (errors.getAllErrors());
-					} else {
-						importMeasurementVariablesIndex.add(headers.indexOf(header));
-						break;
-					}
+		final List<Integer> importMeasurementVariablesIndex = new ArrayList<>();
+		final List<String> importMeasurementVariables = new ArrayList<>();
+
+		for (int index = 0; index < headers.size(); index++) {
+			final String header = headers.get(index);
+			if (aliases.contains(header)) {
+				if (importMeasurementVariables.contains(header)) {
+					errors.reject("duplicated.measurement.variables.not.allowed", null , "");
+					throw new ApiRequestValidationException (errors.getAllErrors());
 				}
+				importMeasurementVariablesIndex.add(index);
+				importMeasurementVariables.add(header);
 			}
 		}
 
@@ -58,10 +69,9 @@ public class ObservationUnitsTableBuilder {
 			throw new ApiRequestValidationException(errors.getAllErrors());
 		}
 
-		final Integer obsUnitIdIndex = headers.indexOf(OBS_UNIT_ID);
-
-		// Start table building, Table<row, column, value>
-		final Table<String, String, String> table = HashBasedTable.create();
+		// Start columns building, one column of values per imported variable
+		final ObservationColumns columns = new ObservationColumns(importMeasurementVariables);
+		final List<String> rowValues = new ArrayList<>(importMeasurementVariablesIndex.size());
 		for (final List<String> row: values) {
 			final String observationUnitId = row.get(obsUnitIdIndex);
 
@@ -70,15 +80,14 @@ public class ObservationUnitsTableBuilder {
 				throw new ApiRequestValidationException (errors.getAllErrors());
 			}
 
-			if (!table.containsRow(row.get(obsUnitIdIndex))) {
-				for (final Integer index : importMeasurementVariablesIndex) {
-					table.put(observationUnitId, headers.get(index), row.get(index));
-				}
-			} else {
-				duplicatedFoundNumber++;
+			rowValues.clear();
+			for (final Integer index : importMeasurementVariablesIndex) {
+				rowValues.add(row.get(index));
 			}
+			columns.add(observationUnitId, rowValues);
 		}
-		return table;
+		duplicatedFoundNumber = columns.getDuplicatedFoundNumber();
+		return columns;
 	}
 
 	Integer getDuplicatedFoundNumber() {
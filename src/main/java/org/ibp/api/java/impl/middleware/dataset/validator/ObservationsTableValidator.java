@@ -56,20 +56,31 @@ public class ObservationsTableValidator {
 
 		final Map<String, MeasurementVariable> mappedVariables = Maps.uniqueIndex(measurementVariables, MeasurementVariable::getAlias);
 
-		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
-
 		for (final String observationUnitId : inputData.rowKeySet()) {
 			for (final String variableName : inputData.columnKeySet()) {
-				if (!validateCategoricalVariableHasAPossibleValue(mappedVariables.get(variableName))) {
-					errors.reject("warning.import.save.invalidCategoricalValue", new String[] {variableName}, "");
-					throw new ApiRequestValidationException(errors.getAllErrors());
-				} else if (!validateValue(mappedVariables.get(variableName), inputData.get(observationUnitId, variableName), errors)) {
-					throw new ApiRequestValidationException(errors.getAllErrors());
-				}
+				this.validateCategoricalVariableHasPossibleValues(mappedVariables.get(variableName));
+				this.validateObservationValue(mappedVariables.get(variableName), inputData.get(observationUnitId, variableName));
 			}
 		}
 	}
 
+	public void validateCategoricalVariableHasPossibleValues(final MeasurementVariable measurementVariable)
+		throws ApiRequestValidationException {
+		if (!validateCategoricalVariableHasAPossibleValue(measurementVariable)) {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
+			errors.reject("warning.import.save.invalidCategoricalValue", new String[] {measurementVariable.getAlias()}, "");
+			throw new ApiRequestValidationException(errors.getAllErrors());
+		}
+	}
+
+	public void validateObservationValue(final MeasurementVariable measurementVariable, final String value)
+		throws ApiRequestValidationException {
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), ObservationsPutRequestInput.class.getName());
+		if (!validateValue(measurementVariable, value, errors)) {
+			throw new ApiRequestValidationException(errors.getAllErrors());
+		}
+	}
+
 	private static boolean validateValue(final MeasurementVariable var, final String value, final BindingResult errors) {
 		if (StringUtils.isBlank(value)) {
 			return true;
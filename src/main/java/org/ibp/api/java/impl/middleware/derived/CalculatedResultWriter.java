@@ -0,0 +1,122 @@
+package org.ibp.api.java.impl.middleware.derived;
+
+import org.generationcp.middleware.domain.dms.ValueReference;
+import org.generationcp.middleware.domain.etl.MeasurementVariable;
+import org.generationcp.middleware.domain.oms.TermId;
+import org.generationcp.middleware.hibernate.HibernateSessionPerRequestProvider;
+import org.generationcp.middleware.pojos.dms.Phenotype;
+import org.generationcp.middleware.service.api.dataset.ObservationUnitData;
+import org.generationcp.middleware.service.api.dataset.ObservationUnitRow;
+import org.generationcp.middleware.service.api.derived_variables.DerivedVariableService;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.ibp.api.java.job.JobProgress;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Saves the calculated values of a derived variable in chunks. Pending inserts and updates are flushed to the crop database
+ * every {@code derived.variable.save.batch.size} values, so that they are sent in JDBC batches of
+ * {@code crop.session.factory.jdbc.batch.size} (see {@link org.ibp.api.java.impl.middleware.common.CropSessionFactoryConfigurer}).
+ * The phenotypes saved by a chunk are then evicted, so the session does not keep growing with every saved phenotype. The session is not
+ * cleared, as it is shared with the caller's transaction and the entities it holds must stay managed.
+ */
+@Component
+public class CalculatedResultWriter {
+
+	private static final String PHENOTYPE_ENTITY_NAME = Phenotype.class.getName();
+
+	@Value("${derived.variable.save.batch.size:500}")
+	private int batchSize;
+
+	@Resource
+	private DerivedVariableService middlewareDerivedVariableService;
+
+	@Resource
+	private HibernateSessionPerRequestProvider cropDatabaseSessionProvider;
+
+	/**
+	 * @return the ids of the observation units with a saved value
+	 */
+	public Set<Integer> write(final List<DerivedVariableCalculator.CalculatedValue> calculatedValues, final String targetVariableName,
+		final MeasurementVariable targetMeasurementVariable) {
+
+		final Map<String, Integer> categoricalIds = this.getCategoricalIds(targetMeasurementVariable);
+		final Set<Integer> observationUnitIds = new HashSet<>();
+
+		final Session session = this.cropDatabaseSessionProvider.getSession();
+		Set<EntityKey> managedBeforeChunk = Collections.emptySet();
+		int pending = 0;
+		for (final DerivedVariableCalculator.CalculatedValue calculatedValue : calculatedValues) {
+			if (pending == 0) {
+				managedBeforeChunk = this.getManagedEntityKeys(session);
+			}
+			final ObservationUnitRow observation = calculatedValue.getObservationUnitRow();
+			final String value = calculatedValue.getValue();
+			final ObservationUnitData target = observation.getVariables().get(targetVariableName);
+
+			// Check if the calculated value matches any of the possible categorical values and get its categorical id.
+			final Integer categoricalId = categoricalIds.get(value.toUpperCase(Locale.ENGLISH));
+
+			this.middlewareDerivedVariableService.saveCalculatedResult(
+				value, categoricalId, observation.getObservationUnitId(),
+				target.getObservationId(),
+				targetMeasurementVariable);
+			observationUnitIds.add(observation.getObservationUnitId());
+
+			if (++pending == this.batchSize) {
+				this.flush(session, managedBeforeChunk);
+				pending = 0;
+			}
+		}
+		if (pending > 0) {
+			this.flush(session, managedBeforeChunk);
+		}
+		return observationUnitIds;
+	}
+
+	private Map<String, Integer> getCategoricalIds(final MeasurementVariable targetMeasurementVariable) {
+		final Map<String, Integer> categoricalIds = new HashMap<>();
+		if (targetMeasurementVariable.getDataTypeId() == TermId.CATEGORICAL_VARIABLE.getId()) {
+			for (final ValueReference possibleValue : targetMeasurementVariable.getPossibleValues()) {
+				if (possibleValue.getName() == null) {
+					continue;
+				}
+				// Keep the first match, as the lookup by value used to do
+				categoricalIds.putIfAbsent(possibleValue.getName().toUpperCase(Locale.ENGLISH), possibleValue.getId());
+			}
+		}
+		return categoricalIds;
+	}
+
+	private void flush(final Session session, final Set<EntityKey> managedBeforeChunk) {
+		// A cancelled job stops before sending the next chunk, and its transaction is rolled back
+		JobProgress.current().checkCancelled();
+		session.flush();
+		// Only the phenotypes the chunk loaded or created are evicted, the ones already managed may be held by the caller
+		for (final EntityKey entityKey : this.getManagedEntityKeys(session)) {
+			if (PHENOTYPE_ENTITY_NAME.equals(entityKey.getEntityName()) && !managedBeforeChunk.contains(entityKey)) {
+				session.evict(session.get(entityKey.getEntityName(), entityKey.getIdentifier()));
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<EntityKey> getManagedEntityKeys(final Session session) {
+		return new HashSet<>((Set<EntityKey>) session.getStatistics().getEntityKeys());
+	}
+
+	void setBatchSize(final int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+}
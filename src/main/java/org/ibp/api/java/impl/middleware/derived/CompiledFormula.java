@@ -0,0 +1,61 @@
+package org.ibp.api.java.impl.middleware.derived;
+
+import org.generationcp.commons.derivedvariable.DerivedVariableUtils;
+import org.generationcp.middleware.domain.ontology.FormulaDto;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A formula parsed once and evaluated for every observation unit of a calculation.
+ * It holds everything that only depends on the formula definition: the executable expression,
+ * the input parameters and the input variables of aggregate functions.
+ */
+public class CompiledFormula {
+
+	private final FormulaDto formula;
+
+	private final String executableFormula;
+
+	private final Map<String, Object> parameters;
+
+	private final List<String> aggregateInputVariables;
+
+	private CompiledFormula(final FormulaDto formula) {
+		this.formula = formula;
+		this.executableFormula = DerivedVariableUtils.replaceDelimiters(formula.getDefinition());
+		this.parameters = Collections.unmodifiableMap(DerivedVariableUtils.extractParameters(formula.getDefinition()));
+		this.aggregateInputVariables =
+			Collections.unmodifiableList(DerivedVariableUtils.getAggregateFunctionInputVariables(formula.getDefinition(), true));
+	}
+
+	public static CompiledFormula compile(final FormulaDto formula) {
+		return new CompiledFormula(formula);
+	}
+
+	public FormulaDto getFormula() {
+		return this.formula;
+	}
+
+	public String getExecutableFormula() {
+		return this.executableFormula;
+	}
+
+	/**
+	 * @return a new mutable copy of the formula parameters, to be filled with the values of a single row
+	 */
+	public Map<String, Object> createRowParameters() {
+		return new HashMap<>(this.parameters);
+	}
+
+	public List<String> getAggregateInputVariables() {
+		return this.aggregateInputVariables;
+	}
+
+	@Override
+	public String toString() {
+		return this.formula.toString();
+	}
+}
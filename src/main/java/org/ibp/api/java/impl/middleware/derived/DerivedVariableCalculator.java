@@ -0,0 +1,218 @@
+package org.ibp.api.java.impl.middleware.derived;
+
+import org.apache.commons.lang3.StringUtils;
+import org.generationcp.commons.derivedvariable.DerivedVariableProcessor;
+import org.generationcp.commons.derivedvariable.DerivedVariableUtils;
+import org.generationcp.middleware.domain.etl.MeasurementVariable;
+import org.generationcp.middleware.service.api.dataset.ObservationUnitRow;
+import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.exception.ApiRuntimeException;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
+import org.ibp.api.java.job.JobProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+
+import javax.annotation.Resource;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates a compiled formula for all the observation units of a calculation. Every instance is a partition evaluated in the
+ * {@link ParallelExecutor} with its own {@link DerivedVariableProcessor}, as the processor holds the aggregate values of the row being
+ * evaluated. Only in-memory work is done here: calculated values are returned in the original order, and saved by the caller in the
+ * request transaction.
+ */
+@Component
+public class DerivedVariableCalculator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DerivedVariableCalculator.class);
+
+	@Resource
+	private ParallelExecutor parallelExecutor;
+
+	public Calculation calculate(final CompiledFormula formula, final Collection<List<ObservationUnitRow>> instancesObservationUnitRows,
+		final Map<Integer, MeasurementVariable> measurementVariablesMap, final List<String> environmentInputVariables,
+		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation) {
+
+		// The progress is bound to the calling thread, so it is handed to the partitions
+		final JobProgress progress = JobProgress.current();
+		final List<Future<Calculation>> partitions = new ArrayList<>(instancesObservationUnitRows.size());
+		for (final List<ObservationUnitRow> observations : instancesObservationUnitRows) {
+			partitions.add(this.parallelExecutor.submit(() -> this
+				.calculate(formula, observations, measurementVariablesMap, environmentInputVariables, valuesFromSubObservation,
+					this.createProcessor(), progress)));
+		}
+
+		final Calculation calculation = new Calculation();
+		for (final Future<Calculation> partition : partitions) {
+			calculation.add(this.getPartitionCalculation(partition));
+		}
+		return calculation;
+	}
+
+	Calculation calculate(final CompiledFormula formula, final List<ObservationUnitRow> observations,
+		final Map<Integer, MeasurementVariable> measurementVariablesMap, final List<String> environmentInputVariables,
+		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation, final DerivedVariableProcessor processor,
+		final JobProgress progress) {
+
+		final Calculation calculation = new Calculation();
+		for (final ObservationUnitRow observation : observations) {
+			progress.increment();
+
+			// Get input data
+			final Map<String, Object> rowParameters = formula.createRowParameters();
+			final Set<String> rowInputMissingData = new HashSet<>();
+
+			try {
+				// Fill parameters with input variable values from the current level. Environment Detail and Study Condition variable
+				// values from environment level are already included in ObservationUnitRow.
+				rowInputMissingData.addAll(
+					DerivedVariableUtils.extractValues(rowParameters, observation, measurementVariablesMap,
+						formula.getAggregateInputVariables(), environmentInputVariables));
+
+				// Set the aggregate values from subobservation level to the processor
+				this.fillWithSubObservationLevelValues(observation.getObservationUnitId(), valuesFromSubObservation,
+					measurementVariablesMap, rowInputMissingData, rowParameters, formula.getAggregateInputVariables(), processor);
+			} catch (final ParseException e) {
+				LOG.error("Error parsing date value for parameters " + rowParameters, e);
+				throw this.calculationException(DerivedVariableServiceImpl.STUDY_EXECUTE_CALCULATION_PARSING_EXCEPTION);
+			}
+			calculation.inputMissingData.addAll(rowInputMissingData);
+
+			if (!rowInputMissingData.isEmpty() || rowParameters.values().contains("")) {
+				continue;
+			}
+
+			// Evaluate
+			final String value;
+			try {
+				value = processor.evaluateFormula(formula.getExecutableFormula(), rowParameters);
+			} catch (final Exception e) {
+				LOG.error("Error evaluating formula " + formula + " with inputs " + rowParameters, e);
+				throw this.calculationException(DerivedVariableServiceImpl.STUDY_EXECUTE_CALCULATION_ENGINE_EXCEPTION);
+			}
+
+			if (StringUtils.isNotBlank(value)) {
+				calculation.calculatedValues.add(new CalculatedValue(observation, value));
+			}
+		}
+		return calculation;
+	}
+
+	void fillWithSubObservationLevelValues(final int observationUnitId,
+		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation,
+		final Map<Integer, MeasurementVariable> measurementVariablesMap,
+		final Set<String> rowInputMissingData, final Map<String, Object> parameters,
+		final List<String> inputVariables, final DerivedVariableProcessor processor) throws ParseException {
+
+		final Map<String, List<Object>> variableAggregateValuesMap = new HashMap<>();
+		final Map<String, List<Object>> valuesMap = valuesFromSubObservation.get(observationUnitId);
+
+		if (valuesMap != null) {
+			for (final Map.Entry<String, List<Object>> entry : valuesMap.entrySet()) {
+				final Integer variableId = Integer.valueOf(entry.getKey());
+				final MeasurementVariable measurementVariable = measurementVariablesMap.get(variableId);
+				final String termKey = DerivedVariableUtils.wrapTerm(entry.getKey());
+				if (inputVariables.contains(termKey)) {
+					variableAggregateValuesMap
+						.put(termKey, DerivedVariableUtils.parseValueList(entry.getValue(), measurementVariable, rowInputMissingData));
+					// If the input variable is in sub-observation level, remove its key from parameters because
+					// aggregate data from subobservation should be passed through processor.setData() not parameters.
+					parameters.remove(termKey);
+				}
+			}
+			//Add empty list as parameter for variables with no data
+			for (final String inputVariable : inputVariables) {
+				if (parameters.containsKey(inputVariable)) {
+					parameters.remove(inputVariable);
+					variableAggregateValuesMap.put(inputVariable, new ArrayList<>());
+				}
+			}
+			processor.setData(variableAggregateValuesMap);
+		}
+
+	}
+
+	/**
+	 * The processor keeps state between evaluations, so every partition needs its own instance
+	 */
+	DerivedVariableProcessor createProcessor() {
+		return new DerivedVariableProcessor();
+	}
+
+	void setParallelExecutor(final ParallelExecutor parallelExecutor) {
+		this.parallelExecutor = parallelExecutor;
+	}
+
+	private Calculation getPartitionCalculation(final Future<Calculation> partition) {
+		try {
+			return partition.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ApiRuntimeException("Calculation was interrupted", e);
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new ApiRuntimeException("Error in calculation", e.getCause());
+		}
+	}
+
+	private ApiRequestValidationException calculationException(final String errorCode) {
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+		errors.reject(errorCode);
+		return new ApiRequestValidationException(errors.getAllErrors());
+	}
+
+	public static class Calculation {
+
+		private final List<CalculatedValue> calculatedValues = new ArrayList<>();
+
+		private final Set<String> inputMissingData = new HashSet<>();
+
+		void add(final Calculation calculation) {
+			this.calculatedValues.addAll(calculation.calculatedValues);
+			this.inputMissingData.addAll(calculation.inputMissingData);
+		}
+
+		public List<CalculatedValue> getCalculatedValues() {
+			return this.calculatedValues;
+		}
+
+		public Set<String> getInputMissingData() {
+			return this.inputMissingData;
+		}
+	}
+
+
+	public static class CalculatedValue {
+
+		private final ObservationUnitRow observationUnitRow;
+
+		private final String value;
+
+		CalculatedValue(final ObservationUnitRow observationUnitRow, final String value) {
+			this.observationUnitRow = observationUnitRow;
+			this.value = value;
+		}
+
+		public ObservationUnitRow getObservationUnitRow() {
+			return this.observationUnitRow;
+		}
+
+		public String getValue() {
+			return this.value;
+		}
+	}
+}
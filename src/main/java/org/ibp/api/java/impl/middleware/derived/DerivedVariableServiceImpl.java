@@ -3,13 +3,9 @@ package org.ibp.api.java.impl.middleware.derived;
 import com.google.common.base.Optional;
 import org.apache.commons.lang3.StringUtils;
 import org.fest.util.Collections;
-import org.generationcp.commons.derivedvariable.DerivedVariableProcessor;
-import org.generationcp.commons.derivedvariable.DerivedVariableUtils;
 import org.generationcp.middleware.domain.dms.DatasetDTO;
-import org.generationcp.middleware.domain.dms.ValueReference;
 import org.generationcp.middleware.domain.dms.VariableDatasetsDTO;
 import org.generationcp.middleware.domain.etl.MeasurementVariable;
-import org.generationcp.middleware.domain.oms.TermId;
 import org.generationcp.middleware.domain.ontology.FormulaDto;
 import org.generationcp.middleware.domain.ontology.FormulaVariable;
 import org.generationcp.middleware.enumeration.DatasetTypeEnum;
@@ -18,13 +14,11 @@ import org.generationcp.middleware.service.api.dataset.DatasetTypeService;
 import org.generationcp.middleware.service.api.dataset.ObservationUnitData;
 import org.generationcp.middleware.service.api.dataset.ObservationUnitRow;
 import org.generationcp.middleware.service.api.derived_variables.FormulaService;
-import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.exception.OverwriteDataException;
 import org.ibp.api.java.derived.DerivedVariableService;
 import org.ibp.api.java.impl.middleware.dataset.validator.DatasetValidator;
 import org.ibp.api.java.impl.middleware.study.validator.StudyValidator;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.ibp.api.java.job.JobProgress;
 import org.springframework.context.support.ResourceBundleMessageSource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,10 +26,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.MapBindingResult;
 
 import javax.annotation.Resource;
-import java.text.ParseException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -46,7 +37,6 @@ import java.util.stream.Collectors;
 @Transactional
 public class DerivedVariableServiceImpl implements DerivedVariableService {
 
-	private static final Logger LOG = LoggerFactory.getLogger(DerivedVariableServiceImpl.class);
 	public static final String HAS_DATA_OVERWRITE_RESULT_KEY = "hasDataOverwrite";
 	static final String INPUT_MISSING_DATA_RESULT_KEY = "inputMissingData";
 	public static final String STUDY_EXECUTE_CALCULATION_PARSING_EXCEPTION = "study.execute.calculation.parsing.exception";
@@ -70,7 +60,10 @@ public class DerivedVariableServiceImpl implements DerivedVariableService {
 	private DerivedVariableValidator derivedVariableValidator;
 
 	@Resource
-	private DerivedVariableProcessor processor;
+	private DerivedVariableCalculator derivedVariableCalculator;
+
+	@Resource
+	private CalculatedResultWriter calculatedResultWriter;
 
 	@Resource
 	private FormulaService formulaService;
@@ -111,112 +104,46 @@ public class DerivedVariableServiceImpl implements DerivedVariableService {
 			this.middlewareDerivedVariableService.createVariableIdMeasurementVariableMapInStudy(studyId);
 
 		final Optional<FormulaDto> formulaOptional = this.formulaService.getByTargetId(variableId);
-		final FormulaDto formula = formulaOptional.get();
+		final CompiledFormula compiledFormula = CompiledFormula.compile(formulaOptional.get());
+		final FormulaDto formula = compiledFormula.getFormula();
 		final MeasurementVariable targetMeasurementVariable = measurementVariablesMap.get(formula.getTarget().getId());
-		final Map<String, Object> parameters = DerivedVariableUtils.extractParameters(formula.getDefinition());
-		final List<String> aggregateInputVariables = DerivedVariableUtils.getAggregateFunctionInputVariables(formula.getDefinition(), true);
 
 		// Get the list of input variables that should be read from environment level.
 		final List<String> environmentInputVariables = this.getInputVariablesFromSummary(studyId, inputVariableDatasetMap);
 
-		// Calculate
-		final Set<String> inputMissingData = new HashSet<>();
-
 		// Retrieve TRAIT input variables' data from sub-observation level. Aggregate values are grouped by plot observation's experimentId
 		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation =
 			this.middlewareDerivedVariableService
 				.getValuesFromObservations(studyId, this.datasetTypeService.getSubObservationDatasetTypeIds(),
 					inputVariableDatasetMap);
 
-		final Set<Integer> observationUnitIds = new HashSet<>();
-		// Iterate through the observations for each instances
-		for (final List<ObservationUnitRow> observations : instanceIdObservationUnitRowsMap.values()) {
-			for (final ObservationUnitRow observation : observations) {
-
-				// Get input data
-				final Map<String, Object> rowParameters = new HashMap<>(parameters);
-				final Set<String> rowInputMissingData = new HashSet<>();
-
-				try {
-					// Fill parameters with input variable values from the current level. Environment Detail and Study Condition variable
-					// values from environment level are already included in ObservationUnitRow.
-					rowInputMissingData.addAll(
-						DerivedVariableUtils.extractValues(rowParameters, observation, measurementVariablesMap, aggregateInputVariables,
-							environmentInputVariables));
-				} catch (final ParseException e) {
-					LOG.error("Error parsing date value for parameters " + rowParameters, e);
-					errors.reject(STUDY_EXECUTE_CALCULATION_PARSING_EXCEPTION);
-					throw new ApiRequestValidationException(errors.getAllErrors());
-				}
-				inputMissingData.addAll(rowInputMissingData);
-
-				try {
-					// Set the aggregate values from subobservation level to the processor
-					this.fillWithSubObservationLevelValues(observation.getObservationUnitId(), valuesFromSubObservation,
-						measurementVariablesMap,
-						rowInputMissingData, rowParameters, aggregateInputVariables);
-				} catch (final ParseException e) {
-					LOG.error("Error parsing date value for parameters " + rowParameters, e);
-					errors.reject(STUDY_EXECUTE_CALCULATION_PARSING_EXCEPTION);
-					throw new ApiRequestValidationException(errors.getAllErrors());
-				}
-
-				if (!rowInputMissingData.isEmpty() || rowParameters.values().contains("")) {
-					continue;
-				}
-
-				// Evaluate
-				String value;
-				try {
-					final String executableFormula = DerivedVariableUtils.replaceDelimiters(formula.getDefinition());
-					value = this.processor.evaluateFormula(executableFormula, rowParameters);
-				} catch (final Exception e) {
-					LOG.error("Error evaluating formula " + formula + " with inputs " + rowParameters, e);
-					errors.reject(STUDY_EXECUTE_CALCULATION_ENGINE_EXCEPTION);
-					throw new ApiRequestValidationException(errors.getAllErrors());
-				}
-
-				if (StringUtils.isBlank(value)) {
-					continue;
-				}
-
-				// Process calculation result
-				final ObservationUnitData target = observation.getVariables().get(formula.getTarget().getName());
-
-				// Check if the calculated value matches any of the possible categorical values and get its categorical id.
-				Integer categoricalId = null;
-				if (targetMeasurementVariable.getDataTypeId() == TermId.CATEGORICAL_VARIABLE.getId()) {
-					for (final ValueReference possibleValue : targetMeasurementVariable.getPossibleValues()) {
-						if (value.equalsIgnoreCase(possibleValue.getName())) {
-							categoricalId = possibleValue.getId();
-							break;
-						}
-					}
-				}
-
-				this.middlewareDerivedVariableService.saveCalculatedResult(
-					value, categoricalId, observation.getObservationUnitId(),
-					target.getObservationId(),
-					targetMeasurementVariable);
-				observationUnitIds.add(observation.getObservationUnitId());
-
-				if (StringUtils.isNotEmpty(target.getValue()) && !target.getValue().equals(value)) {
-					if (!overwriteExistingData) {
-						// If there is an existing measurement data and the user did not explicitly choose to overwrite it, then throw a runtime exception
-						// to rollback transaction so to prevent saving of calculated value.
-						errors.reject(STUDY_EXECUTE_CALCULATION_HAS_EXISTING_DATA);
-						throw new OverwriteDataException(errors.getAllErrors());
-					} else {
-						// Else, just warn the user that there's data to overwrite.
-						results.put(HAS_DATA_OVERWRITE_RESULT_KEY, true);
-					}
+		JobProgress.current().setTotal(instanceIdObservationUnitRowsMap.values().stream().mapToLong(List::size).sum());
 
+		// Calculate
+		final DerivedVariableCalculator.Calculation calculation = this.derivedVariableCalculator
+			.calculate(compiledFormula, instanceIdObservationUnitRowsMap.values(), measurementVariablesMap, environmentInputVariables,
+				valuesFromSubObservation);
+		final Set<String> inputMissingData = calculation.getInputMissingData();
+
+		// Check for existing data before saving anything. If there is an existing measurement data and the user did not explicitly
+		// choose to overwrite it, then throw a runtime exception to rollback transaction so to prevent saving of calculated values.
+		// Else, just warn the user that there's data to overwrite.
+		final String targetVariableName = formula.getTarget().getName();
+		for (final DerivedVariableCalculator.CalculatedValue calculatedValue : calculation.getCalculatedValues()) {
+			final ObservationUnitData target = calculatedValue.getObservationUnitRow().getVariables().get(targetVariableName);
+			if (StringUtils.isNotEmpty(target.getValue()) && !target.getValue().equals(calculatedValue.getValue())) {
+				if (!overwriteExistingData) {
+					errors.reject(STUDY_EXECUTE_CALCULATION_HAS_EXISTING_DATA);
+					throw new OverwriteDataException(errors.getAllErrors());
 				}
-
+				results.put(HAS_DATA_OVERWRITE_RESULT_KEY, true);
+				break;
 			}
-
 		}
 
+		final Set<Integer> observationUnitIds =
+			this.calculatedResultWriter.write(calculation.getCalculatedValues(), targetVariableName, targetMeasurementVariable);
+
 		// Update the dependent phenotypes as out of sync in batch
 		this.middlewareDatasetService.updateDependentPhenotypesAsOutOfSync(targetMeasurementVariable.getTermId(), observationUnitIds);
 
@@ -233,40 +160,6 @@ public class DerivedVariableServiceImpl implements DerivedVariableService {
 
 	}
 
-	void fillWithSubObservationLevelValues(final int observationUnitId,
-		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation,
-		final Map<Integer, MeasurementVariable> measurementVariablesMap,
-		final Set<String> rowInputMissingData, final Map<String, Object> parameters,
-		final List<String> inputVariables) throws ParseException {
-
-		final Map<String, List<Object>> variableAggregateValuesMap = new HashMap<>();
-		final Map<String, List<Object>> valuesMap = valuesFromSubObservation.get(observationUnitId);
-
-		if (valuesMap != null) {
-			for (final Map.Entry<String, List<Object>> entry : valuesMap.entrySet()) {
-				final Integer variableId = Integer.valueOf(entry.getKey());
-				final MeasurementVariable measurementVariable = measurementVariablesMap.get(variableId);
-				final String termKey = DerivedVariableUtils.wrapTerm(entry.getKey());
-				if (inputVariables.contains(termKey)) {
-					variableAggregateValuesMap
-						.put(termKey, DerivedVariableUtils.parseValueList(entry.getValue(), measurementVariable, rowInputMissingData));
-					// If the input variable is in sub-observation level, remove its key from parameters because
-					// aggregate data from subobservation should be passed through processor.setData() not parameters.
-					parameters.remove(termKey);
-				}
-			}
-			//Add empty list as parameter for variables with no data
-			for (final String inputVariable : inputVariables) {
-				if (parameters.containsKey(inputVariable)) {
-					parameters.remove(inputVariable);
-					variableAggregateValuesMap.put(inputVariable, new ArrayList<>());
-				}
-			}
-			this.processor.setData(variableAggregateValuesMap);
-		}
-
-	}
-
 	@Override
 	public Set<FormulaVariable> getMissingFormulaVariablesInStudy(final int studyId, final int datasetId, final int variableId) {
 		this.studyValidator.validate(studyId, false);
@@ -307,12 +200,12 @@ public class DerivedVariableServiceImpl implements DerivedVariableService {
 			.collect(Collectors.toList());
 	}
 
-	protected void setProcessor(final DerivedVariableProcessor processor) {
-		this.processor = processor;
-	}
-
 	protected void setResourceBundleMessageSource(final ResourceBundleMessageSource resourceBundleMessageSource) {
 		this.resourceBundleMessageSource = resourceBundleMessageSource;
 	}
 
+	protected void setCalculatedResultWriter(final CalculatedResultWriter calculatedResultWriter) {
+		this.calculatedResultWriter = calculatedResultWriter;
+	}
+
 }
@@ -17,10 +17,9 @@ import org.ibp.api.java.impl.middleware.design.validator.ExperimentalDesignTypeV
 import org.ibp.api.java.impl.middleware.design.validator.ExperimentalDesignValidator;
 import org.ibp.api.java.impl.middleware.study.validator.StudyValidator;
 import org.ibp.api.java.study.StudyService;
+import org.ibp.api.mapper.ObservationUnitRowMapper;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.ibp.api.rest.design.ExperimentalDesignInput;
-import org.modelmapper.Conditions;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -95,9 +94,18 @@ public class ExperimentalDesignServiceImpl implements ExperimentalDesignService
 			experimentalDesignTypeService.getMeasurementVariables(studyId, experimentalDesignInput, programUUID);
 
 		final CropType cropType = this.workbenchDataManager.getCropTypeByName(cropName);
+		this.saveExperimentDesign(cropType, studyId, measurementVariables, observationUnitRows);
+	}
+
+	/**
+	 * Saves the design of all the instances with a single middleware call, so that the study and dataset setup is done once and the
+	 * entities it loads stay attached to the session until the transaction ends. Rows are converted to the middleware type one at a time,
+	 * and each generated row is released as soon as it is converted, so the design is not held twice in memory.
+	 */
+	void saveExperimentDesign(final CropType cropType, final int studyId, final List<MeasurementVariable> measurementVariables,
+		final List<ObservationUnitRow> observationUnitRows) {
 		this.experimentDesignMiddlewareService
-			.saveExperimentDesign(cropType, studyId, measurementVariables,
-				this.createInstanceObservationUnitRowsMap(observationUnitRows));
+			.saveExperimentDesign(cropType, studyId, measurementVariables, this.createInstanceObservationUnitRowsMap(observationUnitRows));
 	}
 
 	@Override
@@ -139,31 +147,18 @@ public class ExperimentalDesignServiceImpl implements ExperimentalDesignService
 		return Optional.empty();
 	}
 
+	/**
+	 * Converts the rows to the middleware type, by instance in the order they were generated. Each converted row is replaced by null in
+	 * the given list, so it can be garbage collected before the whole design is converted.
+	 */
 	Map<Integer, List<org.generationcp.middleware.service.api.dataset.ObservationUnitRow>> createInstanceObservationUnitRowsMap(
 		final List<ObservationUnitRow> observationUnitRows) {
-		final ModelMapper observationUnitRowMapper = new ModelMapper();
-		observationUnitRowMapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
-
-		final Map<Integer, List<org.generationcp.middleware.service.api.dataset.ObservationUnitRow>> instanceRowsMap = new HashMap<>();
-		for (final ObservationUnitRow row : observationUnitRows) {
-			final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> variables = new HashMap<>();
-			final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> environmentVariables = new HashMap<>();
-			for (final String data : row.getVariables().keySet()) {
-				variables.put(data, observationUnitRowMapper
-					.map(row.getVariables().get(data), org.generationcp.middleware.service.api.dataset.ObservationUnitData.class));
-			}
-			for (final String data : row.getEnvironmentVariables().keySet()) {
-				environmentVariables.put(data, observationUnitRowMapper.map(row.getEnvironmentVariables().get(data),
-					org.generationcp.middleware.service.api.dataset.ObservationUnitData.class));
-			}
-			final org.generationcp.middleware.service.api.dataset.ObservationUnitRow convertedRow =
-				observationUnitRowMapper.map(row, org.generationcp.middleware.service.api.dataset.ObservationUnitRow.class);
-			convertedRow.setVariables(variables);
-			convertedRow.setEnvironmentVariables(environmentVariables);
-
-			final Integer trialInstance = row.getTrialInstance();
-			instanceRowsMap.putIfAbsent(trialInstance, new ArrayList<>());
-			instanceRowsMap.get(trialInstance).add(convertedRow);
+		final Map<Integer, List<org.generationcp.middleware.service.api.dataset.ObservationUnitRow>> instanceRowsMap = new LinkedHashMap<>();
+		final ListIterator<ObservationUnitRow> rows = observationUnitRows.listIterator();
+		while (rows.hasNext()) {
+			final ObservationUnitRow row = rows.next();
+			instanceRowsMap.computeIfAbsent(row.getTrialInstance(), trialInstance -> new ArrayList<>()).add(ObservationUnitRowMapper.map(row));
+			rows.set(null);
 		}
 		return instanceRowsMap;
 	}
@@ -16,6 +16,7 @@ import org.ibp.api.exception.BVDesignException;
 import org.ibp.api.java.design.runner.DesignRunner;
 import org.ibp.api.java.impl.middleware.design.breedingview.BreedingViewDesignParameter;
 import org.ibp.api.java.impl.middleware.design.util.ExperimentalDesignUtil;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
 import org.ibp.api.rest.dataset.ObservationUnitData;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.slf4j.Logger;
@@ -24,6 +25,8 @@ import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -34,10 +37,12 @@ public class ExperimentalDesignProcessor {
 	private static final List<Integer> EXP_DESIGN_VARIABLE_IDS =
 		Arrays.asList(TermId.PLOT_NO.getId(), TermId.REP_NO.getId(), TermId.BLOCK_NO.getId(), TermId.ROW.getId(), TermId.COL.getId());
 
-
 	@Resource
 	private DesignRunner designRunner;
 
+	@Resource
+	private ParallelExecutor parallelExecutor;
+
 	public List<ObservationUnitRow> generateObservationUnitRows(
 			final Set<Integer> trialInstanceForDesignGeneration, final List<MeasurementVariable> generateDesignVariables,
 			final List<StudyEntryDto> studyEntryDtoList, final MainDesign mainDesign, final String entryNumberIdentifier,
@@ -62,39 +67,71 @@ public class ExperimentalDesignProcessor {
 		final Map<Integer, StudyEntryDto> studyEntryDtoMap =
 				studyEntryDtoList.stream().collect(Collectors.toMap(StudyEntryDto::getEntryNumber,
 				Function.identity()));
-		final List<ObservationUnitRow> rows = new ArrayList<>();
 
+		// Rows of each instance are built in parallel, and returned in the order of the instances
 		final List<Integer> trialInstancesList = new ArrayList<>(trialInstanceForDesignGeneration);
 		Collections.sort(trialInstancesList);
 		final ListIterator<Integer> trialInstanceIterator = trialInstancesList.listIterator();
+		final List<Future<List<ObservationUnitRow>>> instances = new ArrayList<>();
+		int numberOfRows = 0;
 		for (final BVDesignTrialInstance instance : bvOutput.getTrialInstances()) {
 			final Integer trialInstanceNumber = trialInstanceIterator.next();
-			for (final Map<String, String> row : instance.getRows()) {
-				final String entryNoValue = row.get(entryNumberIdentifier);
-				final Integer entryNumber = StringUtil.parseInt(entryNoValue, null);
-				if (entryNumber == null) {
-					throw new BVDesignException("experiment.design.bv.exe.error.output.invalid.error");
-				}
-				final Optional<StudyEntryDto> studyEntryDto =
-					this.findStudyGermplasmDtoByEntryNumberAndChecks(studyEntryDtoMap, entryNumber, designExpectedEntriesMap);
+			instances.add(this.parallelExecutor.submit(() -> this.createObservationUnitRows(instance, trialInstanceNumber,
+				generateDesignVariables, studyEntryDtoMap, entryNumberIdentifier, treatmentFactorValues, designExpectedEntriesMap)));
+			numberOfRows += instance.getSize();
+		}
 
-				if (!studyEntryDto.isPresent()) {
-					throw new BVDesignException("experiment.design.bv.exe.error.output.invalid.error");
-				}
-				final ObservationUnitRow observationUnitRow =
-					this.createObservationUnitRow(generateDesignVariables, studyEntryDto.get(), row,
-						treatmentFactorValues, trialInstanceNumber);
-				rows.add(observationUnitRow);
-			}
+		final List<ObservationUnitRow> rows = new ArrayList<>(numberOfRows);
+		for (final Future<List<ObservationUnitRow>> instanceRows : instances) {
+			rows.addAll(this.getInstanceRows(instanceRows));
 		}
 		return rows;
 	}
 
+	private List<ObservationUnitRow> createObservationUnitRows(final BVDesignTrialInstance instance, final Integer trialInstanceNumber,
+		final List<MeasurementVariable> generateDesignVariables, final Map<Integer, StudyEntryDto> studyEntryDtoMap,
+		final String entryNumberIdentifier, final Map<String, List<String>> treatmentFactorValues,
+		final Map<Integer, Integer> designExpectedEntriesMap) {
+
+		final String[] entryNumbers = instance.getColumn(entryNumberIdentifier);
+		final List<ObservationUnitRow> rows = new ArrayList<>(instance.getSize());
+		for (int row = 0; row < instance.getSize(); row++) {
+			final Integer entryNumber = entryNumbers == null ? null : StringUtil.parseInt(entryNumbers[row], null);
+			if (entryNumber == null) {
+				throw new BVDesignException("experiment.design.bv.exe.error.output.invalid.error");
+			}
+			final Optional<StudyEntryDto> studyEntryDto =
+				this.findStudyGermplasmDtoByEntryNumberAndChecks(studyEntryDtoMap, entryNumber, designExpectedEntriesMap);
 
+			if (!studyEntryDto.isPresent()) {
+				throw new BVDesignException("experiment.design.bv.exe.error.output.invalid.error");
+			}
+			final ObservationUnitRow observationUnitRow =
+				this.createObservationUnitRow(generateDesignVariables, studyEntryDto.get(), instance, row,
+					treatmentFactorValues, trialInstanceNumber);
+			rows.add(observationUnitRow);
+		}
+		return rows;
+	}
+
+	private List<ObservationUnitRow> getInstanceRows(final Future<List<ObservationUnitRow>> instanceRows) {
+		try {
+			return instanceRows.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BVDesignException("experiment.design.generate.generic.error");
+		} catch (final ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			ExperimentalDesignProcessor.LOG.error(e.getMessage(), e);
+			throw new BVDesignException("experiment.design.generate.generic.error");
+		}
+	}
 
 	ObservationUnitRow createObservationUnitRow(
-		final List<MeasurementVariable> measurementVariables, final StudyEntryDto studyEntryDto,
-		final Map<String, String> bvEntryMap, final Map<String, List<String>> treatmentFactorValues, final int trialNo) {
+		final List<MeasurementVariable> measurementVariables, final StudyEntryDto studyEntryDto, final BVDesignTrialInstance instance,
+		final int row, final Map<String, List<String>> treatmentFactorValues, final int trialNo) {
 
 		final ObservationUnitRow observationUnitRow = new ObservationUnitRow();
 		observationUnitRow.setTrialInstance(trialNo);
@@ -118,11 +155,13 @@ public class ExperimentalDesignProcessor {
 			} else {
 
 				if (EXP_DESIGN_VARIABLE_IDS.contains(termId)) {
-					observationUnitData = new ObservationUnitData(measurementVariable.getTermId(), bvEntryMap.get(measurementVariable.getName()));
+					observationUnitData =
+						new ObservationUnitData(measurementVariable.getTermId(), this.getValue(instance, measurementVariable.getName(), row));
 				} else if (!StringUtils.isEmpty(measurementVariable.getTreatmentLabel())) {
 					if (treatmentLevelData == null) {
 						observationUnitData = new ObservationUnitData(measurementVariable.getTermId(),
-							bvEntryMap.get(ExperimentalDesignUtil.cleanBVDesignKey(Integer.toString(measurementVariable.getTermId()))));
+							this.getValue(instance, ExperimentalDesignUtil.cleanBVDesignKey(Integer.toString(measurementVariable.getTermId())),
+								row));
 						treatmentLevelData = observationUnitData;
 					} else {
 						final String level = treatmentLevelData.getValue();
@@ -170,6 +209,10 @@ public class ExperimentalDesignProcessor {
 		return observationUnitRow;
 	}
 
+	private String getValue(final BVDesignTrialInstance instance, final String column, final int row) {
+		final String[] values = instance.getColumn(column);
+		return values == null ? null : values[row];
+	}
 
 	Optional<StudyEntryDto> findStudyGermplasmDtoByEntryNumberAndChecks(
 		final Map<Integer, StudyEntryDto> studyEntryDtoMap,
@@ -0,0 +1,588 @@
+package org.ibp.api.java.impl.middleware.design.runner;
+
+import org.apache.commons.lang3.StringUtils;
+import org.generationcp.middleware.domain.dms.ExperimentDesignType;
+import org.ibp.api.domain.design.BVDesignOutput;
+import org.ibp.api.domain.design.ExperimentDesign;
+import org.ibp.api.domain.design.ListItem;
+import org.ibp.api.domain.design.MainDesign;
+import org.ibp.api.java.design.runner.DesignRunner;
+import org.ibp.api.java.impl.middleware.design.breedingview.BreedingViewDesignParameter;
+import org.ibp.api.java.impl.middleware.design.breedingview.BreedingViewVariableParameter;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the randomized complete block, resolvable incomplete block, row-column, augmented and P-rep designs in process, instead of
+ * running BVDesign for each request. Randomizations come from the seed of the design, so the same seed always generates the same design.
+ * If the seed is not set, a new one is generated and set in the design. The output has the same columns as the BVDesign output, so it is
+ * processed the same way by {@link org.ibp.api.java.impl.middleware.design.generator.ExperimentalDesignProcessor}.
+ * <p>
+ * Latinized resolvable incomplete block and row-column designs are run with BVDesign, so they are only supported when
+ * {@code bv.design.path} is set.
+ */
+@Component
+@ConditionalOnProperty(
+	value = "design.runner",
+	havingValue = "org.ibp.api.java.impl.middleware.design.runner.JavaDesignRunner")
+public class JavaDesignRunner implements DesignRunner {
+
+	public static final String TRIAL = "TRIAL";
+
+	private static final Logger LOG = LoggerFactory.getLogger(JavaDesignRunner.class);
+	private static final long INSTANCE_SEED_MULTIPLIER = 1000003L;
+
+	@Resource
+	private ParallelExecutor parallelExecutor;
+
+	@Value("${upload.directory:}")
+	private String uploadDirectory;
+
+	@Value("${bv.design.runner.timeout:}")
+	private String bvDesignRunnerTimeout;
+
+	@Value("${bv.design.path:}")
+	private String bvDesignPath;
+
+	@Override
+	public BVDesignOutput runBVDesign(final MainDesign design) throws IOException {
+		final ExperimentDesign experimentDesign = design.getDesign();
+
+		if (this.isLatinized(experimentDesign)) {
+			if (!this.supportsLatinizedDesigns()) {
+				// Rejected by ExperimentalDesignTypeValidator, generating it without the latinization would not be the requested design
+				LOG.error("Latinized design {} is not supported without BVDesign", experimentDesign.getName());
+				return new BVDesignOutput(-1);
+			}
+			return this.getBVDesignRunner().runBVDesign(design);
+		}
+
+		final long seed = this.getSeed(experimentDesign);
+		final int numberOfTrials = this.getIntParameter(experimentDesign, BreedingViewDesignParameter.NUMBER_TRIALS, 1);
+		final String designName = experimentDesign.getName();
+
+		final DesignLayout layout;
+		if (ExperimentDesignType.RANDOMIZED_COMPLETE_BLOCK.getBvDesignName().equals(designName)) {
+			layout = new RandomizedCompleteBlockLayout(experimentDesign);
+		} else if (ExperimentDesignType.RESOLVABLE_INCOMPLETE_BLOCK.getBvDesignName().equals(designName)) {
+			layout = new ResolvableIncompleteBlockLayout(experimentDesign);
+		} else if (ExperimentDesignType.ROW_COL.getBvDesignName().equals(designName)) {
+			layout = new RowColumnLayout(experimentDesign);
+		} else if (ExperimentDesignType.AUGMENTED_RANDOMIZED_BLOCK.getBvDesignName().equals(designName)) {
+			layout = new AugmentedLayout(experimentDesign);
+		} else if (ExperimentDesignType.P_REP.getBvDesignName().equals(designName)) {
+			layout = new PRepLayout(experimentDesign);
+		} else {
+			LOG.error("Design {} is not supported", designName);
+			return new BVDesignOutput(-1);
+		}
+
+		// Instances are randomized independently, each one from its own seed, so they are generated in parallel and the result does not
+		// depend on the order they are run in
+		final List<Future<List<int[]>>> instancePlots = new ArrayList<>(numberOfTrials);
+		for (int instance = 1; instance <= numberOfTrials; instance++) {
+			final Random random = new Random(seed * INSTANCE_SEED_MULTIPLIER + instance);
+			instancePlots.add(this.parallelExecutor.submit(() -> layout.generate(random)));
+		}
+
+		final int initialPlotNumber = this.getIntParameter(experimentDesign, BreedingViewDesignParameter.INITIAL_PLOT_NUMBER, 1);
+		final List<String[]> results = new ArrayList<>();
+		results.add(layout.getHeader());
+		for (int instance = 1; instance <= numberOfTrials; instance++) {
+			final String instanceNumber = String.valueOf(instance);
+			int plotNumber = initialPlotNumber;
+			for (final int[] plot : this.getInstancePlots(instancePlots.get(instance - 1))) {
+				final String[] row = new String[plot.length + 2];
+				row[0] = instanceNumber;
+				row[1] = String.valueOf(plotNumber++);
+				for (int i = 0; i < plot.length; i++) {
+					row[i + 2] = String.valueOf(plot[i]);
+				}
+				results.add(row);
+			}
+		}
+
+		final BVDesignOutput output = new BVDesignOutput(0);
+		output.setResults(results);
+		return output;
+	}
+
+	private List<int[]> getInstancePlots(final Future<List<int[]>> instancePlots) throws IOException {
+		try {
+			return instancePlots.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Design generation was interrupted", e);
+		} catch (final ExecutionException e) {
+			throw new IOException("Error generating the design", e.getCause());
+		}
+	}
+
+	@Override
+	public boolean supportsLatinizedDesigns() {
+		return StringUtils.isNotBlank(this.bvDesignPath);
+	}
+
+	private boolean isLatinized(final ExperimentDesign experimentDesign) {
+		return this.getIntParameter(experimentDesign, BreedingViewDesignParameter.NBLATIN, 0) > 0
+			|| this.getIntParameter(experimentDesign, BreedingViewDesignParameter.NRLATIN, 0) > 0
+			|| this.getIntParameter(experimentDesign, BreedingViewDesignParameter.NCLATIN, 0) > 0;
+	}
+
+	private long getSeed(final ExperimentDesign experimentDesign) {
+		final String seedValue = experimentDesign.getParameterValue(BreedingViewDesignParameter.SEED.getParameterName());
+		if (StringUtils.isNumeric(seedValue)) {
+			return Long.parseLong(seedValue);
+		}
+		// Same range as the seeds given to BVDesign, and kept in the design so that it can be generated again
+		final long seed = System.currentTimeMillis() % 1000000000L;
+		experimentDesign.setParameterValue(BreedingViewDesignParameter.SEED.getParameterName(), String.valueOf(seed));
+		return seed;
+	}
+
+	private int getIntParameter(final ExperimentDesign experimentDesign, final BreedingViewDesignParameter parameter,
+		final int defaultValue) {
+		final String value = experimentDesign.getParameterValue(parameter.getParameterName());
+		return StringUtils.isNumeric(value) ? Integer.parseInt(value) : defaultValue;
+	}
+
+	private BVDesignRunner getBVDesignRunner() {
+		final BVDesignRunner bvDesignRunner = new BVDesignRunner();
+		bvDesignRunner.setBvDesignPath(this.bvDesignPath);
+		bvDesignRunner.setBvDesignRunnerTimeout(this.bvDesignRunnerTimeout);
+		bvDesignRunner.setUploadDirectory(this.uploadDirectory);
+		return bvDesignRunner;
+	}
+
+	void setBvDesignPath(final String bvDesignPath) {
+		this.bvDesignPath = bvDesignPath;
+	}
+
+	void setBvDesignRunnerTimeout(final String bvDesignRunnerTimeout) {
+		this.bvDesignRunnerTimeout = bvDesignRunnerTimeout;
+	}
+
+	void setUploadDirectory(final String uploadDirectory) {
+		this.uploadDirectory = uploadDirectory;
+	}
+
+	void setParallelExecutor(final ParallelExecutor parallelExecutor) {
+		this.parallelExecutor = parallelExecutor;
+	}
+
+	/**
+	 * Plots of one instance of a design, in field order. Each plot has the values of the header columns after TRIAL and the plot number.
+	 */
+	private abstract static class DesignLayout {
+
+		private final ExperimentDesign experimentDesign;
+
+		DesignLayout(final ExperimentDesign experimentDesign) {
+			this.experimentDesign = experimentDesign;
+		}
+
+		abstract String[] getHeader();
+
+		abstract List<int[]> generate(Random random);
+
+		String getVariableName(final BreedingViewVariableParameter parameter) {
+			return this.experimentDesign.getParameterValue(parameter.getParameterName());
+		}
+
+		int getInt(final BreedingViewDesignParameter parameter, final int defaultValue) {
+			final String value = this.experimentDesign.getParameterValue(parameter.getParameterName());
+			return StringUtils.isNumeric(value) ? Integer.parseInt(value) : defaultValue;
+		}
+
+		List<String> getList(final BreedingViewDesignParameter parameter) {
+			final List<String> values = new ArrayList<>();
+			for (final ListItem item : this.experimentDesign.getParameterList(parameter.getParameterName())) {
+				values.add(item.getValue());
+			}
+			return values;
+		}
+
+		static int[] shuffled(final int size, final Random random) {
+			final int[] values = new int[size];
+			for (int i = 0; i < size; i++) {
+				values[i] = i;
+			}
+			shuffle(values, random);
+			return values;
+		}
+
+		static void shuffle(final int[] values, final Random random) {
+			for (int i = values.length - 1; i > 0; i--) {
+				final int j = random.nextInt(i + 1);
+				final int value = values[i];
+				values[i] = values[j];
+				values[j] = value;
+			}
+		}
+	}
+
+	/**
+	 * Every combination of the levels of the treatment factors appears once in each replication, in random order.
+	 */
+	private static class RandomizedCompleteBlockLayout extends DesignLayout {
+
+		private final int replications;
+		private final String[] header;
+		private final int[] levels;
+		private final int[] initialLevels;
+		private final int combinations;
+
+		RandomizedCompleteBlockLayout(final ExperimentDesign experimentDesign) {
+			super(experimentDesign);
+			this.replications = this.getInt(BreedingViewDesignParameter.NBLOCKS, 1);
+
+			// The entry factor may be listed more than once, the last one is kept
+			final List<String> factors = this.getList(BreedingViewDesignParameter.TREATMENTFACTORS);
+			final List<String> factorLevels = this.getList(BreedingViewDesignParameter.LEVELS);
+			final List<String> factorInitialLevels = this.getList(BreedingViewDesignParameter.INITIAL_TREATMENT_NUMBER);
+			final Map<String, int[]> factorMap = new LinkedHashMap<>();
+			for (int i = 0; i < factors.size(); i++) {
+				final int initialLevel = i < factorInitialLevels.size() && StringUtils.isNumeric(factorInitialLevels.get(i)) ?
+					Integer.parseInt(factorInitialLevels.get(i)) : 1;
+				factorMap.put(factors.get(i), new int[] {Integer.parseInt(factorLevels.get(i)), initialLevel});
+			}
+
+			this.header = new String[factorMap.size() + 3];
+			this.header[0] = TRIAL;
+			this.header[1] = this.getVariableName(BreedingViewVariableParameter.PLOT);
+			this.header[2] = this.getVariableName(BreedingViewVariableParameter.BLOCK);
+			this.levels = new int[factorMap.size()];
+			this.initialLevels = new int[factorMap.size()];
+			int index = 0;
+			int combinations = 1;
+			for (final Map.Entry<String, int[]> factor : factorMap.entrySet()) {
+				this.header[index + 3] = factor.getKey();
+				this.levels[index] = factor.getValue()[0];
+				this.initialLevels[index] = factor.getValue()[1];
+				combinations *= this.levels[index];
+				index++;
+			}
+			this.combinations = combinations;
+		}
+
+		@Override
+		String[] getHeader() {
+			return this.header;
+		}
+
+		@Override
+		List<int[]> generate(final Random random) {
+			final List<int[]> plots = new ArrayList<>(this.replications * this.combinations);
+			for (int rep = 1; rep <= this.replications; rep++) {
+				for (final int combination : shuffled(this.combinations, random)) {
+					final int[] plot = new int[this.levels.length + 1];
+					plot[0] = rep;
+					int remainder = combination;
+					for (int i = this.levels.length - 1; i >= 0; i--) {
+						plot[i + 1] = this.initialLevels[i] + remainder % this.levels[i];
+						remainder /= this.levels[i];
+					}
+					plots.add(plot);
+				}
+			}
+			return plots;
+		}
+	}
+
+	/**
+	 * Resolvable incomplete blocks built by cyclic shifts of the treatment array (alpha design): the treatments are laid in a
+	 * {@code blocksize} x {@code ntreatments/blocksize} array and block b of replication j takes from row i the treatment in column
+	 * (b + i*j) mod s. When s is prime and there are no more replications than s, two treatments share a block at most once. Treatment
+	 * labels, blocks and plots within blocks are then randomized.
+	 */
+	private static class ResolvableIncompleteBlockLayout extends DesignLayout {
+
+		private final int treatments;
+		private final int replications;
+		private final int blockSize;
+		private final int initialTreatment;
+		private final String[] header;
+
+		ResolvableIncompleteBlockLayout(final ExperimentDesign experimentDesign) {
+			super(experimentDesign);
+			this.treatments = this.getInt(BreedingViewDesignParameter.NTREATMENTS, 0);
+			this.replications = this.getInt(BreedingViewDesignParameter.NREPLICATES, 1);
+			this.blockSize = this.getInt(BreedingViewDesignParameter.BLOCKSIZE, this.treatments);
+			this.initialTreatment = this.getInt(BreedingViewDesignParameter.INITIAL_TREATMENT_NUMBER, 1);
+			this.header = new String[] {
+				TRIAL, this.getVariableName(BreedingViewVariableParameter.PLOT), this.getVariableName(BreedingViewVariableParameter.REP),
+				this.getVariableName(BreedingViewVariableParameter.BLOCK), this.getVariableName(BreedingViewVariableParameter.ENTRY)};
+		}
+
+		@Override
+		String[] getHeader() {
+			return this.header;
+		}
+
+		@Override
+		List<int[]> generate(final Random random) {
+			final int[][][] blocks = alphaBlocks(this.treatments, this.blockSize, this.replications, random);
+			final List<int[]> plots = new ArrayList<>(this.treatments * this.replications);
+			int blockNumber = 1;
+			for (int rep = 0; rep < blocks.length; rep++) {
+				for (final int[] block : blocks[rep]) {
+					for (final int treatment : block) {
+						plots.add(new int[] {rep + 1, blockNumber, this.initialTreatment + treatment});
+					}
+					blockNumber++;
+				}
+			}
+			return plots;
+		}
+	}
+
+	/**
+	 * Resolvable row-column design: every replication is a field of {@code nrows} x {@code ncolumns} plots with each treatment once, and
+	 * both the rows and the columns are incomplete blocks. The treatments are laid in a {@code nrows} x {@code ncolumns} array; in
+	 * replication j, unit i of column c is the treatment of row i of the array in column (c + i*j) mod ncolumns, planted in field row
+	 * (i + c*j) mod nrows. So each field row has one plot in every column, each field column one plot in every row, and the treatments
+	 * sharing a row or a column change from one replication to the next. Treatment labels, rows and columns are then randomized.
+	 */
+	private static class RowColumnLayout extends DesignLayout {
+
+		private final int treatments;
+		private final int replications;
+		private final int rows;
+		private final int columns;
+		private final int initialTreatment;
+		private final String[] header;
+
+		RowColumnLayout(final ExperimentDesign experimentDesign) {
+			super(experimentDesign);
+			this.treatments = this.getInt(BreedingViewDesignParameter.NTREATMENTS, 0);
+			this.replications = this.getInt(BreedingViewDesignParameter.NREPLICATES, 1);
+			this.columns = Math.max(1, this.getInt(BreedingViewDesignParameter.NCOLUMNS, this.treatments));
+			// nrows x ncolumns = ntreatments is checked by ExperimentalDesignTypeValidator, the field is never smaller than the treatments
+			this.rows = Math.max(this.getInt(BreedingViewDesignParameter.NROWS, 1), (this.treatments + this.columns - 1) / this.columns);
+			this.initialTreatment = this.getInt(BreedingViewDesignParameter.INITIAL_TREATMENT_NUMBER, 1);
+			this.header = new String[] {
+				TRIAL, this.getVariableName(BreedingViewVariableParameter.PLOT), this.getVariableName(BreedingViewVariableParameter.REP),
+				this.getVariableName(BreedingViewVariableParameter.ROW), this.getVariableName(BreedingViewVariableParameter.COLUMN),
+				this.getVariableName(BreedingViewVariableParameter.ENTRY)};
+		}
+
+		@Override
+		String[] getHeader() {
+			return this.header;
+		}
+
+		@Override
+		List<int[]> generate(final Random random) {
+			final int[] labels = shuffled(this.treatments, random);
+			final List<int[]> plots = new ArrayList<>(this.treatments * this.replications);
+			for (int rep = 0; rep < this.replications; rep++) {
+				final int[] rowOrder = shuffled(this.rows, random);
+				final int[] columnOrder = shuffled(this.columns, random);
+				final int[][] field = new int[this.rows][this.columns];
+				for (final int[] fieldRow : field) {
+					Arrays.fill(fieldRow, -1);
+				}
+				for (int column = 0; column < this.columns; column++) {
+					for (int unit = 0; unit < this.rows; unit++) {
+						final int treatment = unit * this.columns + (column + unit * rep) % this.columns;
+						if (treatment < this.treatments) {
+							field[rowOrder[(unit + column * rep) % this.rows]][columnOrder[column]] = labels[treatment];
+						}
+					}
+				}
+				for (int row = 0; row < this.rows; row++) {
+					for (int column = 0; column < this.columns; column++) {
+						if (field[row][column] >= 0) {
+							plots.add(new int[] {rep + 1, row + 1, column + 1, this.initialTreatment + field[row][column]});
+						}
+					}
+				}
+			}
+			return plots;
+		}
+	}
+
+	/**
+	 * Every block has all the checks; test entries appear once, spread over the blocks as evenly as possible. Checks are the treatments
+	 * after the test entries.
+	 */
+	private static class AugmentedLayout extends DesignLayout {
+
+		private final int treatments;
+		private final int controls;
+		private final int blocks;
+		private final int initialTreatment;
+		private final String[] header;
+
+		AugmentedLayout(final ExperimentDesign experimentDesign) {
+			super(experimentDesign);
+			this.treatments = this.getInt(BreedingViewDesignParameter.NTREATMENTS, 0);
+			this.controls = this.getInt(BreedingViewDesignParameter.NCONTROLS, 0);
+			this.blocks = Math.max(1, this.getInt(BreedingViewDesignParameter.NBLOCKS, 1));
+			this.initialTreatment = this.getInt(BreedingViewDesignParameter.INITIAL_TREATMENT_NUMBER, 1);
+			this.header = new String[] {
+				TRIAL, this.getVariableName(BreedingViewVariableParameter.PLOT), this.getVariableName(BreedingViewVariableParameter.BLOCK),
+				this.getVariableName(BreedingViewVariableParameter.ENTRY)};
+		}
+
+		@Override
+		String[] getHeader() {
+			return this.header;
+		}
+
+		@Override
+		List<int[]> generate(final Random random) {
+			final int[] tests = shuffled(this.treatments, random);
+			final int[] blockOrder = shuffled(this.blocks, random);
+			final List<int[]> plots = new ArrayList<>(this.treatments + this.controls * this.blocks);
+			int testIndex = 0;
+			for (int block = 0; block < this.blocks; block++) {
+				// Blocks getting one more test entry are chosen at random
+				final int blockTests = this.treatments / this.blocks + (blockOrder[block] < this.treatments % this.blocks ? 1 : 0);
+				final int[] blockTreatments = new int[blockTests + this.controls];
+				for (int i = 0; i < blockTests; i++) {
+					blockTreatments[i] = tests[testIndex++];
+				}
+				for (int i = 0; i < this.controls; i++) {
+					blockTreatments[blockTests + i] = this.treatments + i;
+				}
+				shuffle(blockTreatments, random);
+				for (final int treatment : blockTreatments) {
+					plots.add(new int[] {block + 1, this.initialTreatment + treatment});
+				}
+			}
+			return plots;
+		}
+	}
+
+	/**
+	 * Each entry is planted the number of times given in {@code nrepeats}, copies of the same entry in different blocks. Copies are
+	 * placed in the blocks with the most free plots, so that blocks have the same size give or take one plot.
+	 */
+	private static class PRepLayout extends DesignLayout {
+
+		private final int blocks;
+		private final int[] repeats;
+		private final int totalPlots;
+		private final int initialTreatment;
+		private final String[] header;
+
+		PRepLayout(final ExperimentDesign experimentDesign) {
+			super(experimentDesign);
+			this.blocks = Math.max(1, this.getInt(BreedingViewDesignParameter.NBLOCKS, 1));
+			final List<String> repeatValues = this.getList(BreedingViewDesignParameter.NREPEATS);
+			final int treatments = this.getInt(BreedingViewDesignParameter.NTREATMENTS, repeatValues.size());
+			this.repeats = new int[treatments];
+			int totalPlots = 0;
+			for (int i = 0; i < treatments; i++) {
+				this.repeats[i] = i < repeatValues.size() && StringUtils.isNumeric(repeatValues.get(i)) ?
+					Integer.parseInt(repeatValues.get(i)) : 1;
+				totalPlots += this.repeats[i];
+			}
+			this.totalPlots = totalPlots;
+			this.initialTreatment = this.getInt(BreedingViewDesignParameter.INITIAL_TREATMENT_NUMBER, 1);
+			this.header = new String[] {
+				TRIAL, this.getVariableName(BreedingViewVariableParameter.PLOT), this.getVariableName(BreedingViewVariableParameter.BLOCK),
+				this.getVariableName(BreedingViewVariableParameter.ENTRY)};
+		}
+
+		@Override
+		String[] getHeader() {
+			return this.header;
+		}
+
+		@Override
+		List<int[]> generate(final Random random) {
+			final int[] capacity = new int[this.blocks];
+			for (int block = 0; block < this.blocks; block++) {
+				capacity[block] = this.totalPlots / this.blocks + (block < this.totalPlots % this.blocks ? 1 : 0);
+			}
+			final List<List<Integer>> blockTreatments = new ArrayList<>(this.blocks);
+			for (int block = 0; block < this.blocks; block++) {
+				blockTreatments.add(new ArrayList<>(capacity[block]));
+			}
+
+			// Most replicated entries first, so that their copies can still go to different blocks
+			final Integer[] treatmentOrder = new Integer[this.repeats.length];
+			final int[] randomOrder = shuffled(this.repeats.length, random);
+			for (int i = 0; i < randomOrder.length; i++) {
+				treatmentOrder[i] = randomOrder[i];
+			}
+			Arrays.sort(treatmentOrder, (t1, t2) -> Integer.compare(this.repeats[t2], this.repeats[t1]));
+
+			for (final int treatment : treatmentOrder) {
+				final boolean[] used = new boolean[this.blocks];
+				for (int copy = 0; copy < this.repeats[treatment]; copy++) {
+					final boolean allUsed = copy >= this.blocks;
+					int selected = -1;
+					// Blocks are visited in random order, so ties are broken at random
+					for (final int block : shuffled(this.blocks, random)) {
+						if ((!used[block] || allUsed) && (selected < 0 || capacity[block] > capacity[selected])) {
+							selected = block;
+						}
+					}
+					used[selected] = true;
+					capacity[selected]--;
+					blockTreatments.get(selected).add(treatment);
+				}
+			}
+
+			final List<int[]> plots = new ArrayList<>(this.totalPlots);
+			for (int block = 0; block < this.blocks; block++) {
+				final List<Integer> treatments = blockTreatments.get(block);
+				Collections.shuffle(treatments, random);
+				for (final Integer treatment : treatments) {
+					plots.add(new int[] {block + 1, this.initialTreatment + treatment});
+				}
+			}
+			return plots;
+		}
+	}
+
+	/**
+	 * @return for each replication, its blocks with the (0 based) treatments of each block, in random order
+	 */
+	static int[][][] alphaBlocks(final int treatments, final int blockSize, final int replications, final Random random) {
+		final int size = Math.max(1, Math.min(blockSize, treatments));
+		final int blocksPerReplication = (treatments + size - 1) / size;
+		final int[] labels = DesignLayout.shuffled(treatments, random);
+		final int[][][] blocks = new int[replications][][];
+		for (int rep = 0; rep < replications; rep++) {
+			final int[][] repBlocks = new int[blocksPerReplication][];
+			final int[] blockOrder = DesignLayout.shuffled(blocksPerReplication, random);
+			for (int block = 0; block < blocksPerReplication; block++) {
+				final List<Integer> blockTreatments = new ArrayList<>(size);
+				for (int unit = 0; unit < size; unit++) {
+					final int treatment = unit * blocksPerReplication + (block + unit * rep) % blocksPerReplication;
+					if (treatment < treatments) {
+						blockTreatments.add(labels[treatment]);
+					}
+				}
+				final int[] blockArray = new int[blockTreatments.size()];
+				for (int i = 0; i < blockArray.length; i++) {
+					blockArray[i] = blockTreatments.get(i);
+				}
+				DesignLayout.shuffle(blockArray, random);
+				repBlocks[blockOrder[block]] = blockArray;
+			}
+			blocks[rep] = repBlocks;
+		}
+		return blocks;
+	}
+}
@@ -5,12 +5,14 @@ import org.generationcp.middleware.domain.gms.SystemDefinedEntryType;
 import org.generationcp.middleware.domain.oms.TermId;
 import org.generationcp.middleware.service.api.study.StudyEntryDto;
 import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.java.design.runner.DesignRunner;
 import org.ibp.api.rest.design.ExperimentalDesignInput;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.MapBindingResult;
 
+import javax.annotation.Resource;
 import java.util.*;
 
 @Component
@@ -58,6 +60,10 @@ public class ExperimentalDesignTypeValidator {
 		"germplasm.list.number.of.rows.between.insertion.should.be.greater.than.zero";
 	private static final String GERMPLASM_LIST_SPACING_LESS_THAN_GERMPLASM_ERROR = "germplasm.list.spacing.less.than.germplasm.error";
 	private static final String EXPERIMENT_DESIGN_GENERATE_NO_GERMPLASM = "experiment.design.generate.no.germplasm";
+	private static final String EXPERIMENT_DESIGN_LATINIZED_NOT_AVAILABLE = "experiment.design.latinized.not.available";
+
+	@Resource
+	private DesignRunner designRunner;
 
 	private BindingResult errors;
 
@@ -153,7 +159,9 @@ public class ExperimentalDesignTypeValidator {
 				 */
 
 				// nbLatin should be less than the block level
-				if (nbLatin >= blockLevel) {
+				if (nbLatin > 0 && !this.designRunner.supportsLatinizedDesigns()) {
+					this.errors.reject(EXPERIMENT_DESIGN_LATINIZED_NOT_AVAILABLE);
+				} else if (nbLatin >= blockLevel) {
 					this.errors.reject(EXPERIMENT_DESIGN_NBLATIN_SHOULD_NOT_BE_GREATER_THAN_BLOCK_LEVEL);
 				} else if (experimentalDesignInput.getReplicationsArrangement() != null
 					&& experimentalDesignInput.getReplicationsArrangement() == 3) {
@@ -210,7 +218,9 @@ public class ExperimentalDesignTypeValidator {
 				 * "Error from CycDesigN: output parameters 13, 0, 0, 0." This might be a possible bug.
 				 */
 				// nrlatin and nclatin validation
-				if (nrLatin >= rowsPerReplication) {
+				if ((nrLatin > 0 || ncLatin > 0) && !this.designRunner.supportsLatinizedDesigns()) {
+					this.errors.reject(EXPERIMENT_DESIGN_LATINIZED_NOT_AVAILABLE);
+				} else if (nrLatin >= rowsPerReplication) {
 					this.errors.reject(EXPERIMENT_DESIGN_NRLATIN_SHOULD_BE_LESS_THAN_ROWS_PER_REPLICATION);
 				} else if (ncLatin >= colsPerReplication) {
 					this.errors.reject(EXPERIMENT_DESIGN_NCLATIN_SHOULD_BE_LESS_THAN_COLS_PER_REPLICATION);
@@ -423,4 +433,8 @@ public class ExperimentalDesignTypeValidator {
 	void setErrors(final BindingResult errors) {
 		this.errors = errors;
 	}
+
+	void setDesignRunner(final DesignRunner designRunner) {
+		this.designRunner = designRunner;
+	}
 }
@@ -1,5 +1,7 @@
 package org.ibp.api.java.impl.middleware.germplasm;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.generationcp.commons.constant.AppConstants;
 import org.generationcp.commons.pojo.treeview.TreeNode;
@@ -31,11 +33,15 @@ import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.exception.ApiValidationException;
 import org.ibp.api.exception.ResourceNotFoundException;
 import org.ibp.api.java.germplasm.GermplamListService;
+import org.ibp.api.java.impl.middleware.common.ListTreeCache;
 import org.ibp.api.java.impl.middleware.common.validator.GermplasmValidator;
 import org.ibp.api.java.impl.middleware.common.validator.ProgramValidator;
 import org.ibp.api.java.impl.middleware.common.validator.SearchCompositeDtoValidator;
 import org.ibp.api.java.impl.middleware.security.SecurityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -43,12 +49,14 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.MapBindingResult;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -71,6 +79,9 @@ public class GermplasmListServiceImpl implements GermplamListService {
 	static final String SEED_SOURCE = "seedSource";
 	static final String GROUP_NAME = "groupName";
 
+	// Search results are paged by gid, so that every page is read from the same order
+	static final String GID_SORT = "gid";
+
 	private enum ListNodeType {
 		PARENT("parent"),
 		FOLDER("folder");
@@ -122,6 +133,12 @@ public class GermplasmListServiceImpl implements GermplamListService {
 	@Autowired
 	private GermplasmService germplasmService;
 
+	@Autowired
+	private ListTreeCache listTreeCache;
+
+	@Value("${germplasm.list.entries.batch.size:5000}")
+	private int entriesBatchSize;
+
 	private BindingResult errors;
 
 	@Override
@@ -134,6 +151,11 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		this.validateNodeId(parentId, programUUID, ListNodeType.PARENT);
 		checkNotNull(folderOnly, "list.folder.only");
 
+		return this.listTreeCache.getChildrenNodes(ListTreeCache.GERMPLASM_LISTS, programUUID, parentId, folderOnly,
+			() -> this.loadGermplasmListChildrenNodes(programUUID, parentId, folderOnly));
+	}
+
+	private List<TreeNode> loadGermplasmListChildrenNodes(final String programUUID, final String parentId, final Boolean folderOnly) {
 		final List<TreeNode> treeNodes = new ArrayList<>();
 		if (parentId == null) {
 			final TreeNode cropFolderNode = new TreeNode(GermplasmListServiceImpl.CROP_LISTS, AppConstants.CROP_LISTS.getString(), true, LEAD_CLASS,
@@ -220,7 +242,7 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		this.validateNodeId(parentFolderId, currentProgram, ListNodeType.PARENT);
 
 		// process and assign defaults + more validations
-		this.processEntries(request, currentProgram);
+		final boolean generatedEntries = this.processEntries(request, currentProgram);
 
 		// properties that depend on CROP/PROGRAM folder
 		int status = GermplasmList.Status.LIST.getCode();
@@ -241,10 +263,34 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		final WorkbenchUser loggedInUser = this.securityService.getCurrentlyLoggedInUser();
 
 		// finally save
-		return this.germplasmListService.create(request, status, programUUID, loggedInUser);
+		final List<GermplasmListGeneratorDTO.GermplasmEntryDTO> entries = request.getEntries();
+		if (!generatedEntries || entries.size() <= this.entriesBatchSize) {
+			final GermplasmListGeneratorDTO germplasmList = this.germplasmListService.create(request, status, programUUID, loggedInUser);
+			this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, currentProgram, parentFolderId);
+			return germplasmList;
+		}
+
+		// The list is created with the first batch of entries, and the other batches are added to it by gid. The Middleware numbers
+		// them after the entries already in the list and generates their entry codes, seed sources and group names the same way
+		final List<List<GermplasmListGeneratorDTO.GermplasmEntryDTO>> batches = Lists.partition(entries, this.entriesBatchSize);
+		request.setEntries(new ArrayList<>(batches.get(0)));
+		final GermplasmListGeneratorDTO germplasmList = this.germplasmListService.create(request, status, programUUID, loggedInUser);
+		request.setEntries(entries);
+		for (final List<GermplasmListGeneratorDTO.GermplasmEntryDTO> batch : batches.subList(1, batches.size())) {
+			this.germplasmListService.addGermplasmEntriesToList(germplasmList.getId(),
+				this.toSearchComposite(batch.stream().map(GermplasmListGeneratorDTO.GermplasmEntryDTO::getGid).collect(Collectors.toList())),
+				programUUID);
+		}
+		germplasmList.setEntries(entries);
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, currentProgram, parentFolderId);
+		return germplasmList;
 	}
 
-	private void processEntries(final GermplasmListGeneratorDTO request, final String currentProgram) {
+	/**
+	 * @return whether the entry numbers, entry codes, seed sources and group names of all the entries were generated, rather than sent
+	 * in the request
+	 */
+	private boolean processEntries(final GermplasmListGeneratorDTO request, final String currentProgram) {
 
 		// resolve/validate composite and entries
 
@@ -252,34 +298,29 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		checkArgument(!CollectionUtils.isEmpty(request.getEntries()) || searchComposite != null && searchComposite.isValid(),
 			"error.germplasmlist.save.entries.or.composite");
 
+		// gids returned by the search exist, only the ones sent in the request are validated
+		boolean validateGids = true;
 		if (CollectionUtils.isEmpty(request.getEntries())) {
+			final Collection<Integer> gids;
 			if (!CollectionUtils.isEmpty(searchComposite.getItemIds())) {
-				request.setEntries(searchComposite.getItemIds().stream().map(gid -> {
-					final GermplasmListGeneratorDTO.GermplasmEntryDTO entryDTO = new GermplasmListGeneratorDTO.GermplasmEntryDTO();
-					entryDTO.setGid(gid);
-					return entryDTO;
-				}).collect(Collectors.toList()));
+				gids = searchComposite.getItemIds();
 			} else {
-				final List<GermplasmSearchResponse> list =
-					this.germplasmSearchService.searchGermplasm(searchComposite.getSearchRequest(), null, currentProgram);
-				checkArgument(!list.isEmpty(), "search.composite.empty.result");
-				request.setEntries(list.stream().map(germplasmSearchResponse -> {
-					final GermplasmListGeneratorDTO.GermplasmEntryDTO entryDTO = new GermplasmListGeneratorDTO.GermplasmEntryDTO();
-					entryDTO.setGid(germplasmSearchResponse.getGid());
-					return entryDTO;
-				}).collect(Collectors.toList()));
+				gids = this.searchGids(searchComposite.getSearchRequest(), currentProgram);
+				checkArgument(!gids.isEmpty(), "search.composite.empty.result");
+				validateGids = false;
 			}
+			request.setEntries(gids.stream().map(gid -> {
+				final GermplasmListGeneratorDTO.GermplasmEntryDTO entryDTO = new GermplasmListGeneratorDTO.GermplasmEntryDTO();
+				entryDTO.setGid(gid);
+				return entryDTO;
+			}).collect(Collectors.toList()));
 		}
 
 		// process entries
 
-		final List<Integer> gids = request.getEntries()
-			.stream().map(GermplasmListGeneratorDTO.GermplasmEntryDTO::getGid).collect(Collectors.toList());
-		final Map<Integer, Germplasm> germplasmMap = this.germplasmDataManager.getGermplasms(gids)
-			.stream().collect(Collectors.toMap(Germplasm::getGid, Function.identity()));
-		final Map<Integer, String> crossExpansions =
-			this.pedigreeService.getCrossExpansionsBulk(new HashSet<>(gids), null, this.crossExpansionProperties);
-		final Map<Integer, String> plotCodeValuesByGIDs = this.germplasmService.getPlotCodeValues(new HashSet<>(gids));
+		if (validateGids) {
+			this.validateEntryGids(request.getEntries());
+		}
 
 		int entryNo = 1;
 		boolean hasEntryNo = false;
@@ -291,13 +332,6 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		boolean hasGroupNameEmpty = false;
 
 		for (final GermplasmListGeneratorDTO.GermplasmEntryDTO entry : request.getEntries()) {
-			final Integer gid = entry.getGid();
-			if (gid == null) {
-				throw new ApiValidationException("", "error.germplasmlist.save.gid");
-			} else if (germplasmMap.get(gid) == null) {
-				throw new ApiValidationException("", "error.germplasmlist.save.gid.not.exists", gid);
-			}
-
 			if (entry.getEntryNo() == null) {
 				entry.setEntryNo(entryNo++);
 			} else {
@@ -312,14 +346,12 @@ public class GermplasmListServiceImpl implements GermplamListService {
 			}
 
 			if (isBlank(entry.getSeedSource())) {
-				entry.setSeedSource(plotCodeValuesByGIDs.get(gid));
 				hasSeedSourceEmpty = true;
 			} else {
 				hasSeedSource = true;
 			}
 
 			if (isBlank(entry.getGroupName())) {
-				entry.setGroupName(crossExpansions.get(gid));
 				hasGroupNameEmpty = true;
 			} else {
 				hasGroupName = true;
@@ -338,6 +370,75 @@ public class GermplasmListServiceImpl implements GermplamListService {
 			throw new ApiValidationException("", "error.germplasmlist.save.gaps", GROUP_NAME);
 		}
 
+		// Seed sources and group names are only generated once the entries are valid, and only for the entries that miss them
+		if (hasSeedSourceEmpty || hasGroupNameEmpty) {
+			this.generateSeedSourcesAndGroupNames(request.getEntries(), hasSeedSourceEmpty, hasGroupNameEmpty);
+		}
+		return !hasEntryNo && !hasEntryCode && !hasSeedSource && !hasGroupName;
+	}
+
+	/**
+	 * Pages through the search keeping only the gids, so that large searches (e.g. all the germplasm of a location) do not have every
+	 * search result in memory at the same time. The pages are sorted by gid, so that no gid is skipped or read twice between pages.
+	 */
+	private Collection<Integer> searchGids(final GermplasmSearchRequest searchRequest, final String currentProgram) {
+		// The search may return additional records (e.g. group members) that are also in other pages
+		final Set<Integer> gids = new LinkedHashSet<>();
+		int pageNumber = 0;
+		List<GermplasmSearchResponse> page;
+		do {
+			page = this.germplasmSearchService
+				.searchGermplasm(searchRequest, new PageRequest(pageNumber++, this.entriesBatchSize, Sort.Direction.ASC, GID_SORT),
+					currentProgram);
+			page.forEach(germplasmSearchResponse -> gids.add(germplasmSearchResponse.getGid()));
+		} while (page.size() >= this.entriesBatchSize);
+		return gids;
+	}
+
+	private SearchCompositeDto<GermplasmSearchRequest, Integer> toSearchComposite(final List<Integer> gids) {
+		final SearchCompositeDto<GermplasmSearchRequest, Integer> searchComposite = new SearchCompositeDto<>();
+		searchComposite.setItemIds(new LinkedHashSet<>(gids));
+		return searchComposite;
+	}
+
+	private void validateEntryGids(final List<GermplasmListGeneratorDTO.GermplasmEntryDTO> entries) {
+		for (final List<GermplasmListGeneratorDTO.GermplasmEntryDTO> batch : Iterables.partition(entries, this.entriesBatchSize)) {
+			final List<Integer> gids = new ArrayList<>();
+			for (final GermplasmListGeneratorDTO.GermplasmEntryDTO entry : batch) {
+				if (entry.getGid() == null) {
+					throw new ApiValidationException("", "error.germplasmlist.save.gid");
+				}
+				gids.add(entry.getGid());
+			}
+			final Set<Integer> existingGids =
+				this.germplasmDataManager.getGermplasms(gids).stream().map(Germplasm::getGid).collect(Collectors.toSet());
+			for (final Integer gid : gids) {
+				if (!existingGids.contains(gid)) {
+					throw new ApiValidationException("", "error.germplasmlist.save.gid.not.exists", gid);
+				}
+			}
+		}
+	}
+
+	private void generateSeedSourcesAndGroupNames(final List<GermplasmListGeneratorDTO.GermplasmEntryDTO> entries,
+		final boolean generateSeedSources, final boolean generateGroupNames) {
+		for (final List<GermplasmListGeneratorDTO.GermplasmEntryDTO> batch : Iterables.partition(entries, this.entriesBatchSize)) {
+			final Set<Integer> gids = batch.stream().map(GermplasmListGeneratorDTO.GermplasmEntryDTO::getGid).collect(Collectors.toSet());
+			final Map<Integer, String> plotCodeValuesByGIDs =
+				generateSeedSources ? this.germplasmService.getPlotCodeValues(gids) : Collections.emptyMap();
+			final Map<Integer, String> crossExpansions = generateGroupNames
+				? this.pedigreeService.getCrossExpansionsBulk(gids, null, this.crossExpansionProperties)
+				: Collections.emptyMap();
+
+			for (final GermplasmListGeneratorDTO.GermplasmEntryDTO entry : batch) {
+				if (generateSeedSources) {
+					entry.setSeedSource(plotCodeValuesByGIDs.get(entry.getGid()));
+				}
+				if (generateGroupNames) {
+					entry.setGroupName(crossExpansions.get(entry.getGid()));
+				}
+			}
+		}
 	}
 
 	@Override
@@ -386,8 +487,15 @@ public class GermplasmListServiceImpl implements GermplamListService {
 			this.germplasmValidator.validateGids(this.errors, new ArrayList<>(searchComposite.getItemIds()));
 		}
 
-		this.germplasmListService.addGermplasmEntriesToList(germplasmListId, searchComposite, programUUID);
-}
+		// The entries are added a batch at a time, the search is resolved here so that it is paged by gid
+		final Collection<Integer> gids = CollectionUtils.isEmpty(searchComposite.getItemIds())
+			? this.searchGids(searchComposite.getSearchRequest(), programUUID)
+			: searchComposite.getItemIds();
+		for (final List<Integer> batch : Iterables.partition(gids, this.entriesBatchSize)) {
+			this.germplasmListService.addGermplasmEntriesToList(germplasmListId, this.toSearchComposite(batch), programUUID);
+		}
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, programUUID, String.valueOf(germplasmListId));
+	}
 
 	@Override
 	public Integer createGermplasmListFolder(final String cropName, final String programUUID, final String folderName,
@@ -410,7 +518,9 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		this.validateNotSameFolderNameInParent(folderName, parent, programUUID);
 
 		final WorkbenchUser createdBy = this.securityService.getCurrentlyLoggedInUser();
-		return this.germplasmListService.createGermplasmListFolder(createdBy.getUserid(), folderName, parent, programUUID);
+		final Integer folderId = this.germplasmListService.createGermplasmListFolder(createdBy.getUserid(), folderName, parent, programUUID);
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, programUUID, parentId);
+		return folderId;
 	}
 
 	@Override
@@ -434,7 +544,10 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		this.validateNotSameFolderNameInParent(newFolderName, germplasmList.getParentId(), programUUID);
 
 		final WorkbenchUser createdBy = this.securityService.getCurrentlyLoggedInUser();
-		return this.germplasmListService.updateGermplasmListFolder(createdBy.getUserid(), newFolderName, Integer.valueOf(folderId), programUUID);
+		final Integer updatedFolderId =
+			this.germplasmListService.updateGermplasmListFolder(createdBy.getUserid(), newFolderName, Integer.valueOf(folderId), programUUID);
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, programUUID, folderId);
+		return updatedFolderId;
 	}
 
 	@Override
@@ -495,8 +608,11 @@ public class GermplasmListServiceImpl implements GermplamListService {
 				throw new ApiRequestValidationException(this.errors.getAllErrors());
 			});
 
-		return this.germplasmListService.moveGermplasmListFolder(Integer.parseInt(folderId), parent,
+		final Integer movedFolderId = this.germplasmListService.moveGermplasmListFolder(Integer.parseInt(folderId), parent,
 			(newParentFolderId.equals(CROP_LISTS)) ? null : programUUID);
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, programUUID, folderId, this.getParentNodeId(germplasmListToMove),
+			newParentFolderId);
+		return movedFolderId;
 	}
 
 	@Override
@@ -536,6 +652,7 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		}
 
 		this.germplasmListService.deleteGermplasmListFolder(Integer.parseInt(folderId));
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, programUUID, folderId, this.getParentNodeId(folder));
 	}
 
 	private void validateProgram(final String cropName, final String programUUID) {
@@ -629,6 +746,13 @@ public class GermplasmListServiceImpl implements GermplamListService {
 		return (CROP_LISTS.equals(folderId) || PROGRAM_LISTS.equals(folderId)) ? null : Integer.valueOf(folderId);
 	}
 
+	private String getParentNodeId(final GermplasmList germplasmList) {
+		if (germplasmList.getParentId() != null) {
+			return String.valueOf(germplasmList.getParentId());
+		}
+		return StringUtils.isEmpty(germplasmList.getProgramUUID()) ? CROP_LISTS : PROGRAM_LISTS;
+	}
+
 	public void setGermplasmListManager(final GermplasmListManager germplasmListManager) {
 		this.germplasmListManager = germplasmListManager;
 	}
@@ -640,4 +764,9 @@ public class GermplasmListServiceImpl implements GermplamListService {
 	public void setGermplasmDataManager(final GermplasmDataManager germplasmDataManager) {
 		this.germplasmDataManager = germplasmDataManager;
 	}
+
+	void setEntriesBatchSize(final int entriesBatchSize) {
+		this.entriesBatchSize = entriesBatchSize;
+	}
+
 }
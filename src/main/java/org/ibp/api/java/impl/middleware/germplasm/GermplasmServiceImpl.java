@@ -94,6 +94,9 @@ public class GermplasmServiceImpl implements GermplasmService {
 	@Autowired
 	private CrossExpansionProperties crossExpansionProperties;
 
+	@Autowired
+	private PedigreeCache pedigreeCache;
+
 	@Autowired
 	private InstanceValidator instanceValidator;
 
@@ -133,8 +136,7 @@ public class GermplasmServiceImpl implements GermplasmService {
 		final Map<Integer, GermplasmSearchResponse> responseMap
 			= responseList.stream().collect(Collectors.toMap(GermplasmSearchResponse::getGid, Function.identity()));
 
-		final Map<Integer, String> pedigreeStringMap =
-			this.pedigreeService.getCrossExpansions(new HashSet<>(responseMap.keySet()), null, this.crossExpansionProperties);
+		final Map<Integer, String> pedigreeStringMap = this.getCrossExpansions(new HashSet<>(responseMap.keySet()));
 
 		for (final Map.Entry<Integer, GermplasmSearchResponse> entry : responseMap.entrySet()) {
 			final Integer gid = entry.getKey();
@@ -160,7 +162,29 @@ public class GermplasmServiceImpl implements GermplasmService {
 			return;
 		}
 
-		final Integer level = this.crossExpansionProperties.getCropGenerationLevel(this.pedigreeService.getCropName());
+		final Integer level = this.getGenerationLevel();
+		// Only the parents of the gids that are not cached are generated
+		final Map<Integer, PedigreeCache.Parents> parentsMap =
+			this.pedigreeCache.getParents(responseMap.keySet(), level, gids -> this.generateParents(gids, level));
+
+		for (final Map.Entry<Integer, GermplasmSearchResponse> entry : responseMap.entrySet()) {
+			final PedigreeCache.Parents parents = parentsMap.get(entry.getKey());
+			if (parents == null) {
+				continue;
+			}
+			final GermplasmSearchResponse response = entry.getValue();
+			if (parents.getFemaleParentGID() != null) {
+				response.setFemaleParentGID(parents.getFemaleParentGID());
+				response.setFemaleParentPreferredName(parents.getFemaleParentPreferredName());
+			}
+			if (parents.getMaleParentGID() != null) {
+				response.setMaleParentGID(parents.getMaleParentGID());
+				response.setMaleParentPreferredName(parents.getMaleParentPreferredName());
+			}
+		}
+	}
+
+	private Map<Integer, PedigreeCache.Parents> generateParents(final Set<Integer> gids, final Integer level) {
 		/**
 		 * TODO Investigate sql approach.
 		 *  See {@link org.generationcp.middleware.dao.GermplasmSearchDAO#retrievePedigreeGids(List, GermplasmSearchRequest)}
@@ -169,26 +193,44 @@ public class GermplasmServiceImpl implements GermplasmService {
 		 *  -> 1000 results, 1 level of pedigree => ~1 min
 		 */
 		final com.google.common.collect.Table<Integer, String, Optional<Germplasm>> pedigreeTreeNodeTable =
-			this.pedigreeDataManager.generatePedigreeTable(responseMap.keySet(), level, false);
-
-		for (final Map.Entry<Integer, GermplasmSearchResponse> entry : responseMap.entrySet()) {
-			final Integer gid = entry.getKey();
-			final GermplasmSearchResponse response = entry.getValue();
+			this.pedigreeDataManager.generatePedigreeTable(gids, level, false);
 
+		final Map<Integer, PedigreeCache.Parents> parentsMap = new HashMap<>();
+		for (final Integer gid : gids) {
 			final Optional<Germplasm> femaleParent = pedigreeTreeNodeTable.get(gid, ColumnLabels.FGID.getName());
 			final Optional<Germplasm> maleParent = pedigreeTreeNodeTable.get(gid, ColumnLabels.MGID.getName());
 
+			String femaleParentGID = null;
+			String femaleParentPreferredName = null;
+			String maleParentGID = null;
+			String maleParentPreferredName = null;
 			if (femaleParent.isPresent()) {
 				final Germplasm germplasm = femaleParent.get();
-				response.setFemaleParentGID(germplasm.getGid() != 0 ? String.valueOf(germplasm.getGid()) : Name.UNKNOWN);
-				response.setFemaleParentPreferredName(germplasm.getPreferredName().getNval());
+				femaleParentGID = germplasm.getGid() != 0 ? String.valueOf(germplasm.getGid()) : Name.UNKNOWN;
+				femaleParentPreferredName = germplasm.getPreferredName().getNval();
 			}
 			if (maleParent.isPresent()) {
 				final Germplasm germplasm = maleParent.get();
-				response.setMaleParentGID(germplasm.getGid() != 0 ? String.valueOf(germplasm.getGid()) : Name.UNKNOWN);
-				response.setMaleParentPreferredName(germplasm.getPreferredName().getNval());
+				maleParentGID = germplasm.getGid() != 0 ? String.valueOf(germplasm.getGid()) : Name.UNKNOWN;
+				maleParentPreferredName = germplasm.getPreferredName().getNval();
 			}
+			parentsMap.put(gid,
+				new PedigreeCache.Parents(femaleParentGID, femaleParentPreferredName, maleParentGID, maleParentPreferredName));
 		}
+		return parentsMap;
+	}
+
+	private Map<Integer, String> getCrossExpansions(final Set<Integer> gids) {
+		return this.pedigreeCache.getCrossExpansions(gids, this.getGenerationLevel(),
+			missingGids -> this.pedigreeService.getCrossExpansions(missingGids, null, this.crossExpansionProperties));
+	}
+
+	private String getCrossExpansion(final Integer gid) {
+		return this.getCrossExpansions(Collections.singleton(gid)).get(gid);
+	}
+
+	private Integer getGenerationLevel() {
+		return this.crossExpansionProperties.getCropGenerationLevel(this.pedigreeService.getCropName());
 	}
 
 	@Override
@@ -212,7 +254,7 @@ public class GermplasmServiceImpl implements GermplasmService {
 		final Optional<GermplasmDTO> germplasmDTO = this.germplasmService.getGermplasmDTOByGUID(germplasmDbId);
 		final PedigreeDTO pedigreeDTO = this.germplasmService.getPedigree(Integer.valueOf(germplasmDTO.get().getGid()), notation, includeSiblings);
 		if (pedigreeDTO != null) {
-			pedigreeDTO.setPedigree(this.pedigreeService.getCrossExpansion(Integer.valueOf(germplasmDTO.get().getGid()), this.crossExpansionProperties));
+			pedigreeDTO.setPedigree(this.getCrossExpansion(Integer.valueOf(germplasmDTO.get().getGid())));
 		}
 		return pedigreeDTO;
 	}
@@ -236,7 +278,7 @@ public class GermplasmServiceImpl implements GermplasmService {
 	public GermplasmDTO getGermplasmDTObyGUID(final String germplasmUUID) {
 		this.validateGUID(germplasmUUID);
 		final GermplasmDTO germplasmDTO = this.germplasmService.getGermplasmDTOByGUID(germplasmUUID).get();
-		germplasmDTO.setPedigree(this.pedigreeService.getCrossExpansion(Integer.valueOf(germplasmDTO.getGid()), this.crossExpansionProperties));
+		germplasmDTO.setPedigree(this.getCrossExpansion(Integer.valueOf(germplasmDTO.getGid())));
 		return germplasmDTO;
 	}
 
@@ -292,8 +334,7 @@ public class GermplasmServiceImpl implements GermplasmService {
 	private void populateGermplasmPedigree(final List<GermplasmDTO> germplasmDTOList) {
 		final Set<Integer> gids = germplasmDTOList.stream().map(germplasmDTO -> Integer.valueOf(germplasmDTO.getGid()))
 			.collect(Collectors.toSet());
-		final Map<Integer, String> crossExpansionsMap =
-			this.pedigreeService.getCrossExpansions(gids, null, this.crossExpansionProperties);
+		final Map<Integer, String> crossExpansionsMap = this.getCrossExpansions(gids);
 		for (final GermplasmDTO germplasmDTO : germplasmDTOList) {
 			final Integer gid = Integer.valueOf(germplasmDTO.getGid());
 			germplasmDTO.setPedigree(crossExpansionsMap.get(gid));
@@ -320,7 +361,9 @@ public class GermplasmServiceImpl implements GermplasmService {
 		this.germplasmUpdateDtoValidator.validate(programUUID, germplasmUpdateDTOList);
 
 		final WorkbenchUser user = this.securityService.getCurrentlyLoggedInUser();
-		return this.germplasmService.importGermplasmUpdates(user.getUserid(), germplasmUpdateDTOList);
+		final Set<Integer> updatedGids = this.germplasmService.importGermplasmUpdates(user.getUserid(), germplasmUpdateDTOList);
+		this.pedigreeCache.invalidate();
+		return updatedGids;
 
 	}
 
@@ -364,7 +407,10 @@ public class GermplasmServiceImpl implements GermplasmService {
 		final GermplasmImportRequestDto germplasmImportRequestDto) {
 		final WorkbenchUser user = this.securityService.getCurrentlyLoggedInUser();
 		this.germplasmImportRequestDtoValidator.validateBeforeSaving(programUUID, germplasmImportRequestDto);
-		return this.germplasmService.importGermplasm(user.getUserid(), cropName, germplasmImportRequestDto);
+		final Map<Integer, GermplasmImportResponseDto> importResponse =
+			this.germplasmService.importGermplasm(user.getUserid(), cropName, germplasmImportRequestDto);
+		this.pedigreeCache.invalidate(cropName);
+		return importResponse;
 	}
 
 	@Override
@@ -402,6 +448,7 @@ public class GermplasmServiceImpl implements GermplasmService {
 
 		if (!CollectionUtils.isEmpty(validGermplasmForDeletion)) {
 			this.germplasmService.deleteGermplasm(new ArrayList<>(validGermplasmForDeletion));
+			this.pedigreeCache.invalidate();
 		}
 
 		return new GermplasmDeleteResponse(invalidGidsForDeletion, validGermplasmForDeletion);
@@ -421,6 +468,7 @@ public class GermplasmServiceImpl implements GermplasmService {
 		if (!CollectionUtils.isEmpty(germplasmImportRequestList)) {
 			final WorkbenchUser user = this.securityService.getCurrentlyLoggedInUser();
 			final List<GermplasmDTO> germplasmDTOList = this.germplasmService.createGermplasm(user.getUserid(), cropName, germplasmImportRequestList);
+			this.pedigreeCache.invalidate(cropName);
 			if (!CollectionUtils.isEmpty(germplasmDTOList)) {
 				this.populateGermplasmPedigree(germplasmDTOList);
 				noOfCreatedGermplasm = germplasmDTOList.size();
@@ -463,4 +511,8 @@ public class GermplasmServiceImpl implements GermplasmService {
 		this.crossExpansionProperties = crossExpansionProperties;
 	}
 
+	void setPedigreeCache(final PedigreeCache pedigreeCache) {
+		this.pedigreeCache = pedigreeCache;
+	}
+
 }
@@ -0,0 +1,186 @@
+package org.ibp.api.java.impl.middleware.germplasm;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.generationcp.middleware.ContextHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Keeps the cross expansions (pedigree strings) and the parents of germplasm of each crop, by gid and generation level, as they are slow
+ * to generate and only change when germplasm are imported, updated or deleted. Those changes must invalidate the cache of the crop, which
+ * is done again once their transaction commits. Changes made by other applications are only seen after
+ * {@code pedigree.cache.ttl.minutes}.
+ */
+@Component
+public class PedigreeCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PedigreeCache.class);
+
+	@Value("${pedigree.cache.size:100000}")
+	private long size;
+
+	@Value("${pedigree.cache.ttl.minutes:60}")
+	private long ttlMinutes;
+
+	private final Map<String, CropPedigreeCache> crops = new ConcurrentHashMap<>();
+
+	/**
+	 * @return the cross expansions of the given gids, generating with the loader only the ones that are not cached
+	 */
+	public Map<Integer, String> getCrossExpansions(final Set<Integer> gids, final Integer level,
+		final Function<Set<Integer>, Map<Integer, String>> loader) {
+		final CropPedigreeCache cropCache = this.getCropCache();
+		if (cropCache == null) {
+			return loader.apply(gids);
+		}
+		return this.get(cropCache.crossExpansions, gids, level, loader);
+	}
+
+	/**
+	 * @return the parents of the given gids, generating with the loader only the ones that are not cached
+	 */
+	public Map<Integer, Parents> getParents(final Set<Integer> gids, final Integer level,
+		final Function<Set<Integer>, Map<Integer, Parents>> loader) {
+		final CropPedigreeCache cropCache = this.getCropCache();
+		if (cropCache == null) {
+			return loader.apply(gids);
+		}
+		return this.get(cropCache.parents, gids, level, loader);
+	}
+
+	/**
+	 * Removes the pedigrees of the current crop. Changing a germplasm also changes the pedigree of its descendants, so all of them are
+	 * removed.
+	 */
+	public void invalidate() {
+		final String cropName = ContextHolder.getCurrentCrop();
+		if (cropName != null) {
+			this.invalidate(cropName);
+		}
+	}
+
+	/**
+	 * Removes the pedigrees of the crop. Within a transaction they are removed again after it commits, as other requests may have cached
+	 * the pedigrees of the rows it changed before they were committed.
+	 */
+	public void invalidate(final String cropName) {
+		this.evict(cropName);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+				@Override
+				public void afterCommit() {
+					PedigreeCache.this.evict(cropName);
+				}
+			});
+		}
+	}
+
+	private void evict(final String cropName) {
+		this.crops.remove(cropName.toLowerCase());
+		LOG.debug("Pedigree cache invalidated for crop {}", cropName);
+	}
+
+	private <V> Map<Integer, V> get(final Cache<String, V> cache, final Set<Integer> gids, final Integer level,
+		final Function<Set<Integer>, Map<Integer, V>> loader) {
+		final Map<Integer, V> values = new HashMap<>();
+		final Set<Integer> missingGids = new HashSet<>();
+		for (final Integer gid : gids) {
+			final V value = cache.getIfPresent(this.getKey(gid, level));
+			if (value != null) {
+				values.put(gid, value);
+			} else {
+				missingGids.add(gid);
+			}
+		}
+		if (!missingGids.isEmpty()) {
+			final Map<Integer, V> loaded = loader.apply(missingGids);
+			for (final Map.Entry<Integer, V> entry : loaded.entrySet()) {
+				if (entry.getValue() != null) {
+					cache.put(this.getKey(entry.getKey(), level), entry.getValue());
+					values.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+		return values;
+	}
+
+	private String getKey(final Integer gid, final Integer level) {
+		return gid + ":" + level;
+	}
+
+	private CropPedigreeCache getCropCache() {
+		final String cropName = ContextHolder.getCurrentCrop();
+		if (cropName == null) {
+			return null;
+		}
+		return this.crops.computeIfAbsent(cropName.toLowerCase(), crop -> new CropPedigreeCache(this.size, this.ttlMinutes));
+	}
+
+	void setSize(final long size) {
+		this.size = size;
+	}
+
+	void setTtlMinutes(final long ttlMinutes) {
+		this.ttlMinutes = ttlMinutes;
+	}
+
+	private static final class CropPedigreeCache {
+
+		private final Cache<String, String> crossExpansions;
+		private final Cache<String, Parents> parents;
+
+		CropPedigreeCache(final long size, final long ttlMinutes) {
+			this.crossExpansions = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(ttlMinutes, TimeUnit.MINUTES).build();
+			this.parents = CacheBuilder.newBuilder().maximumSize(size).expireAfterWrite(ttlMinutes, TimeUnit.MINUTES).build();
+		}
+	}
+
+	/**
+	 * Gids and preferred names of the parents of a germplasm, null when the parent is not in the pedigree.
+	 */
+	public static final class Parents {
+
+		private final String femaleParentGID;
+		private final String femaleParentPreferredName;
+		private final String maleParentGID;
+		private final String maleParentPreferredName;
+
+		public Parents(final String femaleParentGID, final String femaleParentPreferredName, final String maleParentGID,
+			final String maleParentPreferredName) {
+			this.femaleParentGID = femaleParentGID;
+			this.femaleParentPreferredName = femaleParentPreferredName;
+			this.maleParentGID = maleParentGID;
+			this.maleParentPreferredName = maleParentPreferredName;
+		}
+
+		public String getFemaleParentGID() {
+			return this.femaleParentGID;
+		}
+
+		public String getFemaleParentPreferredName() {
+			return this.femaleParentPreferredName;
+		}
+
+		public String getMaleParentGID() {
+			return this.maleParentGID;
+		}
+
+		public String getMaleParentPreferredName() {
+			return this.maleParentPreferredName;
+		}
+	}
+}
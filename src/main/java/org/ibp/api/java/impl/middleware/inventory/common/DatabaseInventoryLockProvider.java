@@ -0,0 +1,114 @@
+package org.ibp.api.java.impl.middleware.inventory.common;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.ibp.api.exception.ConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inventory locks shared by all the BMSAPI nodes that use the same workbench database. Writes take the local write lock
+ * and then a MySQL named lock ({@code GET_LOCK}), which is held by a dedicated session until the write is finished. Reads only take the
+ * local read lock: they see the data committed by the other nodes, and only writes need to be serialised so that available balances are
+ * checked against the latest transactions.
+ */
+public class DatabaseInventoryLockProvider implements InventoryLockProvider {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DatabaseInventoryLockProvider.class);
+
+	static final String INVENTORY_LOCK_TIMEOUT = "inventory.lock.timeout";
+
+	private static final String LOCK_NAME_PREFIX = "bmsapi.inventory.";
+
+	private final LocalInventoryLockProvider localLocks = new LocalInventoryLockProvider();
+
+	// Sessions holding each named lock. Only one thread can hold the local write lock of a name, so there is at most one per name.
+	private final Map<String, Session> lockSessions = new ConcurrentHashMap<>();
+
+	private final SessionFactory sessionFactory;
+
+	private final int timeoutSeconds;
+
+	public DatabaseInventoryLockProvider(final SessionFactory sessionFactory, final int timeoutSeconds) {
+		this.sessionFactory = sessionFactory;
+		this.timeoutSeconds = timeoutSeconds;
+	}
+
+	@Override
+	public void lockRead(final String name) {
+		this.localLocks.lockRead(name);
+	}
+
+	@Override
+	public void unlockRead(final String name) {
+		this.localLocks.unlockRead(name);
+	}
+
+	@Override
+	public void lockWrite(final String name) {
+		this.localLocks.lockWrite(name);
+		if (this.localLocks.getWriteHoldCount(name) > 1) {
+			// Nested write, the named lock is already held
+			return;
+		}
+
+		boolean acquired = false;
+		final Session session = this.sessionFactory.openSession();
+		try {
+			final Number result = (Number) session.createSQLQuery("SELECT GET_LOCK(:name, :timeout)")
+				.setParameter("name", this.getLockName(name))
+				.setParameter("timeout", this.timeoutSeconds)
+				.uniqueResult();
+			acquired = result != null && result.intValue() == 1;
+		} finally {
+			if (acquired) {
+				this.lockSessions.put(name.toLowerCase(), session);
+			} else {
+				session.close();
+				this.localLocks.unlockWrite(name);
+			}
+		}
+
+		if (!acquired) {
+			LOG.warn("Inventory lock {} could not be acquired in {} seconds", name, this.timeoutSeconds);
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject(INVENTORY_LOCK_TIMEOUT, "");
+			throw new ConflictException(errors.getAllErrors());
+		}
+	}
+
+	@Override
+	public void unlockWrite(final String name) {
+		try {
+			if (this.localLocks.getWriteHoldCount(name) == 1) {
+				final Session session = this.lockSessions.remove(name.toLowerCase());
+				if (session != null) {
+					this.releaseNamedLock(session, name);
+				}
+			}
+		} finally {
+			this.localLocks.unlockWrite(name);
+		}
+	}
+
+	private void releaseNamedLock(final Session session, final String name) {
+		try {
+			session.createSQLQuery("SELECT RELEASE_LOCK(:name)").setParameter("name", this.getLockName(name)).uniqueResult();
+		} catch (final RuntimeException e) {
+			// Named locks are released anyway when the connection is closed
+			LOG.error("Error releasing the inventory lock " + name, e);
+		} finally {
+			session.close();
+		}
+	}
+
+	private String getLockName(final String name) {
+		return LOCK_NAME_PREFIX + name.toLowerCase();
+	}
+}
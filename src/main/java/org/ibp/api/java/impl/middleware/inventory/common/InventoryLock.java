@@ -1,29 +1,171 @@
 package org.ibp.api.java.impl.middleware.inventory.common;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Serialises the inventory writes of the same lots, and keeps inventory reads from seeing them half done. The lots of a crop are spread
+ * over {@code inventory.lock.stripes} stripes by the hash of their UUID, and a lock is taken per stripe through the configured
+ * {@link InventoryLockProvider}. Writes to lots in different stripes run concurrently. Searches, and writes whose lots are only known once
+ * they are resolved by the middleware, take all the stripes of the crop. Stripes are always taken in the same order, so that two requests
+ * never wait for each other's stripes. The time spent waiting for them is recorded per crop in {@link InventoryLockMetrics}.
+ */
 @Component
 public class InventoryLock {
 
-	private ReadWriteLock lock = new ReentrantReadWriteLock();
+	private static final Logger LOG = LoggerFactory.getLogger(InventoryLock.class);
 
-	public void lockWrite() {
-		this.lock.writeLock().lock();
+	private static final String STRIPE_SEPARATOR = "#";
+
+	@Autowired
+	private InventoryLockProvider lockProvider;
+
+	@Value("${inventory.lock.slow.wait.millis:1000}")
+	private long slowWaitMillis;
+
+	@Value("${inventory.lock.stripes:16}")
+	private int stripes;
+
+	private final Map<String, InventoryLockMetrics> metrics = new ConcurrentHashMap<>();
+
+	/**
+	 * Takes the write lock of all the lots of the crop.
+	 */
+	public void lockWrite(final String cropName) {
+		this.lockWrite(cropName, null);
+	}
+
+	public void unlockWrite(final String cropName) {
+		this.unlockWrite(cropName, null);
+	}
+
+	/**
+	 * Takes the write lock of the given lots, or of all the lots of the crop if none are given.
+	 */
+	public void lockWrite(final String cropName, final Collection<String> lotUUIDs) {
+		final long start = System.nanoTime();
+		final List<String> names = this.getLockNames(cropName, lotUUIDs);
+		int locked = 0;
+		try {
+			for (final String name : names) {
+				this.lockProvider.lockWrite(name);
+				locked++;
+			}
+		} catch (final RuntimeException e) {
+			for (int i = locked - 1; i >= 0; i--) {
+				this.lockProvider.unlockWrite(names.get(i));
+			}
+			throw e;
+		}
+		this.recordWait(cropName, true, System.nanoTime() - start);
+	}
+
+	public void unlockWrite(final String cropName, final Collection<String> lotUUIDs) {
+		final List<String> names = this.getLockNames(cropName, lotUUIDs);
+		for (int i = names.size() - 1; i >= 0; i--) {
+			this.lockProvider.unlockWrite(names.get(i));
+		}
+	}
+
+	/**
+	 * Takes the read lock of all the lots of the crop.
+	 */
+	public void lockRead(final String cropName) {
+		this.lockRead(cropName, null);
+	}
+
+	public void unlockRead(final String cropName) {
+		this.unlockRead(cropName, null);
+	}
+
+	/**
+	 * Takes the read lock of the given lots, or of all the lots of the crop if none are given.
+	 */
+	public void lockRead(final String cropName, final Collection<String> lotUUIDs) {
+		final long start = System.nanoTime();
+		final List<String> names = this.getLockNames(cropName, lotUUIDs);
+		int locked = 0;
+		try {
+			for (final String name : names) {
+				this.lockProvider.lockRead(name);
+				locked++;
+			}
+		} catch (final RuntimeException e) {
+			for (int i = locked - 1; i >= 0; i--) {
+				this.lockProvider.unlockRead(names.get(i));
+			}
+			throw e;
+		}
+		this.recordWait(cropName, false, System.nanoTime() - start);
+	}
+
+	public void unlockRead(final String cropName, final Collection<String> lotUUIDs) {
+		final List<String> names = this.getLockNames(cropName, lotUUIDs);
+		for (int i = names.size() - 1; i >= 0; i--) {
+			this.lockProvider.unlockRead(names.get(i));
+		}
+	}
+
+	/**
+	 * @return the lock wait metrics of each crop, by crop name
+	 */
+	public Map<String, InventoryLockMetrics> getMetrics() {
+		return Collections.unmodifiableMap(new TreeMap<>(this.metrics));
+	}
+
+	/**
+	 * @return the names of the stripe locks covering the lots, in the order they are taken
+	 */
+	List<String> getLockNames(final String cropName, final Collection<String> lotUUIDs) {
+		final TreeSet<Integer> lotStripes = new TreeSet<>();
+		if (lotUUIDs == null || lotUUIDs.isEmpty()) {
+			for (int stripe = 0; stripe < this.stripes; stripe++) {
+				lotStripes.add(stripe);
+			}
+		} else {
+			for (final String lotUUID : lotUUIDs) {
+				lotStripes.add(Math.floorMod(lotUUID.toLowerCase().hashCode(), this.stripes));
+			}
+		}
+		final String crop = cropName.toLowerCase();
+		final List<String> names = new ArrayList<>(lotStripes.size());
+		for (final Integer stripe : lotStripes) {
+			names.add(crop + STRIPE_SEPARATOR + stripe);
+		}
+		return names;
+	}
+
+	private void recordWait(final String cropName, final boolean write, final long waitNanos) {
+		this.metrics.computeIfAbsent(cropName.toLowerCase(), crop -> new InventoryLockMetrics()).record(write, waitNanos);
+		final long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+		if (waitMillis >= this.slowWaitMillis) {
+			LOG.info("Waited {} ms for the inventory {} lock of crop {}", waitMillis, write ? "write" : "read", cropName);
+		}
 	}
 
-	public void unlockWrite() {
-		this.lock.writeLock().unlock();
+	void setLockProvider(final InventoryLockProvider lockProvider) {
+		this.lockProvider = lockProvider;
 	}
 
-	public void lockRead() {
-		this.lock.readLock().lock();
+	void setSlowWaitMillis(final long slowWaitMillis) {
+		this.slowWaitMillis = slowWaitMillis;
 	}
 
-	public void unlockRead() {
-		this.lock.readLock().unlock();
+	void setStripes(final int stripes) {
+		this.stripes = stripes;
 	}
 
 }
@@ -0,0 +1,39 @@
+package org.ibp.api.java.impl.middleware.inventory.common;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class InventoryLockConfiguration {
+
+	static final String LOCAL_PROVIDER = "local";
+	static final String DATABASE_PROVIDER = "database";
+
+	@Value("${inventory.lock.provider:local}")
+	private String provider;
+
+	@Value("${inventory.lock.database.timeout.seconds:60}")
+	private int databaseTimeoutSeconds;
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	/**
+	 * Use {@code inventory.lock.provider=database} when several BMSAPI nodes share the same databases.
+	 */
+	@Bean
+	public InventoryLockProvider inventoryLockProvider() {
+		if (DATABASE_PROVIDER.equalsIgnoreCase(this.provider)) {
+			return new DatabaseInventoryLockProvider(
+				this.applicationContext.getBean("WORKBENCH_SessionFactory", SessionFactory.class), this.databaseTimeoutSeconds);
+		}
+		if (!LOCAL_PROVIDER.equalsIgnoreCase(this.provider)) {
+			throw new IllegalStateException("Unknown inventory.lock.provider " + this.provider);
+		}
+		return new LocalInventoryLockProvider();
+	}
+}
@@ -0,0 +1,54 @@
+package org.ibp.api.java.impl.middleware.inventory.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of inventory locks taken for a crop, and the time spent waiting for them.
+ */
+public class InventoryLockMetrics {
+
+	private final AtomicLong readLocks = new AtomicLong();
+	private final AtomicLong writeLocks = new AtomicLong();
+	private final AtomicLong readWaitNanos = new AtomicLong();
+	private final AtomicLong writeWaitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	void record(final boolean write, final long waitNanos) {
+		if (write) {
+			this.writeLocks.incrementAndGet();
+			this.writeWaitNanos.addAndGet(waitNanos);
+		} else {
+			this.readLocks.incrementAndGet();
+			this.readWaitNanos.addAndGet(waitNanos);
+		}
+		this.maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+	}
+
+	public long getReadLocks() {
+		return this.readLocks.get();
+	}
+
+	public long getWriteLocks() {
+		return this.writeLocks.get();
+	}
+
+	public long getReadWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.readWaitNanos.get());
+	}
+
+	public long getWriteWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.writeWaitNanos.get());
+	}
+
+	public long getMaxWaitMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.maxWaitNanos.get());
+	}
+
+	@Override
+	public String toString() {
+		return "InventoryLockMetrics [readLocks=" + this.getReadLocks() + ", writeLocks=" + this.getWriteLocks() + ", readWaitMillis="
+			+ this.getReadWaitMillis() + ", writeWaitMillis=" + this.getWriteWaitMillis() + ", maxWaitMillis=" + this.getMaxWaitMillis()
+			+ "]";
+	}
+}
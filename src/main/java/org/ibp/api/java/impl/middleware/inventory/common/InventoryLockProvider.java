@@ -0,0 +1,17 @@
+package org.ibp.api.java.impl.middleware.inventory.common;
+
+/**
+ * Provides named inventory read/write locks. {@link InventoryLock} names them after the crop and the lot stripe: lots and transactions of
+ * different crops are stored in different databases, so writes in one crop never wait for reads or writes in another one.
+ */
+public interface InventoryLockProvider {
+
+	void lockRead(String name);
+
+	void unlockRead(String name);
+
+	void lockWrite(String name);
+
+	void unlockWrite(String name);
+
+}
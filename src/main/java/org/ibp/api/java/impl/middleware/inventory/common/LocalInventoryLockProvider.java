@@ -0,0 +1,44 @@
+package org.ibp.api.java.impl.middleware.inventory.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inventory locks of a single BMSAPI node: one {@link ReentrantReadWriteLock} per lock name.
+ */
+public class LocalInventoryLockProvider implements InventoryLockProvider {
+
+	private final Map<String, ReentrantReadWriteLock> locks = new ConcurrentHashMap<>();
+
+	@Override
+	public void lockRead(final String name) {
+		this.getLock(name).readLock().lock();
+	}
+
+	@Override
+	public void unlockRead(final String name) {
+		this.getLock(name).readLock().unlock();
+	}
+
+	@Override
+	public void lockWrite(final String name) {
+		this.getLock(name).writeLock().lock();
+	}
+
+	@Override
+	public void unlockWrite(final String name) {
+		this.getLock(name).writeLock().unlock();
+	}
+
+	/**
+	 * @return the number of nested write locks held by the current thread on the lock
+	 */
+	int getWriteHoldCount(final String name) {
+		return this.getLock(name).getWriteHoldCount();
+	}
+
+	private ReentrantReadWriteLock getLock(final String name) {
+		return this.locks.computeIfAbsent(name.toLowerCase(), key -> new ReentrantReadWriteLock());
+	}
+}
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class LotExcelTemplateExportServiceImpl implements LotTemplateExportService {
@@ -67,10 +68,11 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 	public File generateTemplateFile(final String fileNamePath, final List<LocationDto> locations, final List<VariableDetails> units)
 		throws IOException {
 		final HSSFWorkbook xlsBook = new HSSFWorkbook();
+		final Map<String, CellStyle> cellStyles = new HashMap<>();
 
 		final File file = new File(fileNamePath);
-		this.writeLotsSheet(xlsBook);
-		this.writeCodesSheet(xlsBook, locations, units);
+		this.writeLotsSheet(xlsBook, cellStyles);
+		this.writeCodesSheet(xlsBook, cellStyles, locations, units);
 
 		try (final FileOutputStream fos = new FileOutputStream(file)) {
 			xlsBook.write(fos);
@@ -79,27 +81,29 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 		return file;
 	}
 
-	private void writeLotsSheet(final HSSFWorkbook xlsBook) {
+	private void writeLotsSheet(final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles) {
 		final Locale locale = LocaleContextHolder.getLocale();
 		final HSSFSheet xlsSheet =
 			xlsBook.createSheet(this.messageSource.getMessage("export.inventory.manager.lot.template.sheet.lots", null, locale));
 		int currentRowNum = 0;
 
-		this.writeLotsHeader(xlsBook, xlsSheet, currentRowNum++);
+		this.writeLotsHeader(xlsBook, cellStyles, xlsSheet, currentRowNum++);
 	}
 
-	private void writeCodesSheet(final HSSFWorkbook xlsBook, final List<LocationDto> locations, final List<VariableDetails> units) {
+	private void writeCodesSheet(
+		final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles, final List<LocationDto> locations,
+		final List<VariableDetails> units) {
 		final Locale locale = LocaleContextHolder.getLocale();
 		final HSSFSheet xlsSheet =
 			xlsBook.createSheet(this.messageSource.getMessage("export.inventory.manager.lot.template.sheet.codes", null, locale));
 		int currentRowNum = 0;
 
-		this.writeLocationHeader(xlsBook, xlsSheet, currentRowNum++);
-		currentRowNum = this.writeLocationSection(currentRowNum, xlsBook, xlsSheet, locations);
+		this.writeLocationHeader(xlsBook, cellStyles, xlsSheet, currentRowNum++);
+		currentRowNum = this.writeLocationSection(currentRowNum, xlsBook, cellStyles, xlsSheet, locations);
 		xlsSheet.createRow(currentRowNum++);
 
-		this.writeUnitsHeader(xlsBook, xlsSheet, currentRowNum++);
-		currentRowNum = this.writeUnitsSection(currentRowNum, xlsBook, xlsSheet, units);
+		this.writeUnitsHeader(xlsBook, cellStyles, xlsSheet, currentRowNum++);
+		currentRowNum = this.writeUnitsSection(currentRowNum, xlsBook, cellStyles, xlsSheet, units);
 		xlsSheet.createRow(currentRowNum++);
 		xlsSheet.setColumnWidth(LotExcelTemplateExportServiceImpl.CODES_SHEET_FIRST_COLUMN_INDEX, 34 * 250);
 		xlsSheet.setColumnWidth(LotExcelTemplateExportServiceImpl.CODES_SHEET_SECOND_COLUMN_INDEX, 65 * 250);
@@ -107,45 +111,36 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 	}
 
 	private int writeLocationSection(
-		final int currentRowNum, final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet, final List<LocationDto> locations) {
-		final CellStyle backgroundStyle = xlsBook.createCellStyle();
-		final HSSFFont blackFont = xlsBook.createFont();
-		blackFont.setFontName("calibri");
-		blackFont.setColor(HSSFColor.HSSFColorPredefined.BLACK.getIndex());
-		blackFont.setFontHeightInPoints((short) 11);
-		backgroundStyle.setFont(blackFont);
-
+		final int currentRowNum, final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles, final HSSFSheet xlsSheet,
+		final List<LocationDto> locations) {
 		int rowNumIndex = currentRowNum;
 		int count = locations.size();
 		for (final LocationDto locationDto : locations) {
 			final HSSFRow row = xlsSheet.createRow(rowNumIndex++);
 			row.setHeightInPoints(16);
 			this.writeCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_FIRST_COLUMN_INDEX, locationDto.getAbbreviation(), count, xlsBook,
-				row);
-			this.writeCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_SECOND_COLUMN_INDEX, locationDto.getName(), count, xlsBook, row);
+				cellStyles, row);
+			this.writeCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_SECOND_COLUMN_INDEX, locationDto.getName(), count, xlsBook,
+				cellStyles, row);
 			count--;
 		}
 		return rowNumIndex;
 	}
 
 	private int writeUnitsSection(
-		final int currentRowNum, final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet, final List<VariableDetails> units) {
-		final CellStyle backgroundStyle = xlsBook.createCellStyle();
-		final HSSFFont blackFont = xlsBook.createFont();
-		blackFont.setFontName("calibri");
-		blackFont.setFontHeightInPoints((short) 11);
-		blackFont.setColor(HSSFColor.HSSFColorPredefined.BLACK.getIndex());
-		backgroundStyle.setFont(blackFont);
-
+		final int currentRowNum, final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles, final HSSFSheet xlsSheet,
+		final List<VariableDetails> units) {
 		int rowNumIndex = currentRowNum;
 		int count = units.size();
 
 		for (final VariableDetails variableDetail : units) {
 			final HSSFRow row = xlsSheet.createRow(rowNumIndex++);
 			row.setHeightInPoints(16);
-			this.writeCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_FIRST_COLUMN_INDEX, variableDetail.getName(), count, xlsBook, row);
+			this.writeCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_FIRST_COLUMN_INDEX, variableDetail.getName(), count, xlsBook,
+				cellStyles, row);
 			this.writeCell(
-				LotExcelTemplateExportServiceImpl.CODES_SHEET_SECOND_COLUMN_INDEX, variableDetail.getDescription(), count, xlsBook, row);
+				LotExcelTemplateExportServiceImpl.CODES_SHEET_SECOND_COLUMN_INDEX, variableDetail.getDescription(), count, xlsBook,
+				cellStyles, row);
 			count--;
 		}
 
@@ -153,21 +148,17 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 	}
 
 	private void writeCell(
-		final int codesSheetFirstColumnIndex, final String value, final int count, final HSSFWorkbook xlsBook, final HSSFRow row) {
-		HSSFCell cell = row.createCell(codesSheetFirstColumnIndex, CellType.STRING);
+		final int codesSheetFirstColumnIndex, final String value, final int count, final HSSFWorkbook xlsBook,
+		final Map<String, CellStyle> cellStyles, final HSSFRow row) {
+		final HSSFCell cell = row.createCell(codesSheetFirstColumnIndex, CellType.STRING);
 		cell.setCellStyle(this.getcellStyle(
-			xlsBook,
-			codesSheetFirstColumnIndex == 0 ? IndexedColors.AQUA.getIndex() : IndexedColors.OLIVE_GREEN.getIndex()));
+			xlsBook, cellStyles,
+			codesSheetFirstColumnIndex == 0 ? IndexedColors.AQUA.getIndex() : IndexedColors.OLIVE_GREEN.getIndex(), count == 1));
 		cell.setCellValue(value);
-		cell.getCellStyle().setBorderLeft(BorderStyle.THIN);
-		cell.getCellStyle().setBorderRight(BorderStyle.THIN);
-		if (count == 1) {
-			cell.getCellStyle().setBorderBottom(BorderStyle.THIN);
-		}
 	}
 
 	private void writeLotsHeader(
-		final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet, final int currentRowNum) {
+		final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles, final HSSFSheet xlsSheet, final int currentRowNum) {
 		final Locale locale = LocaleContextHolder.getLocale();
 		final HSSFRow row = xlsSheet.createRow(currentRowNum);
 		row.setHeightInPoints(16);
@@ -177,28 +168,28 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 		this.setCustomColorAtIndex(xlsBook, IndexedColors.YELLOW, 255, 230, 153);
 
 		HSSFCell cell = row.createCell(LotExcelTemplateExportServiceImpl.LOTS_SHEET_GID_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.ORANGE.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.ORANGE.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.lot.template.gid.column", null, locale));
 
 		cell = row.createCell(LotExcelTemplateExportServiceImpl.LOTS_SHEET_STORAGE_LOCATION_ABBR_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.lot.template.storage.location.abbr.column", null, locale));
 
 		cell = row.createCell(LotExcelTemplateExportServiceImpl.LOTS_SHEET_UNITS_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.lot.template.units.column", null, locale));
 
 		cell = row.createCell(LotExcelTemplateExportServiceImpl.LOTS_SHEET_AMOUNT_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.lot.template.amount.column", null, locale));
 
 		cell = row.createCell(LotExcelTemplateExportServiceImpl.LOTS_SHEET_STOCK_ID_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.lot.template.stock.id.column", null, locale));
 
 		cell = row.createCell(LotExcelTemplateExportServiceImpl.LOTS_SHEET_NOTES_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.YELLOW.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.YELLOW.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.lot.template.notes.column", null, locale));
 
 		xlsSheet.setColumnWidth(LotExcelTemplateExportServiceImpl.LOTS_SHEET_GID_COLUMN_INDEX, 8 * 250);
@@ -210,7 +201,7 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 	}
 
 	private void writeLocationHeader(
-		final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet, final int currentRowNum) {
+		final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles, final HSSFSheet xlsSheet, final int currentRowNum) {
 		final Locale locale = LocaleContextHolder.getLocale();
 		final HSSFRow row = xlsSheet.createRow(currentRowNum);
 		row.setHeightInPoints(16);
@@ -219,34 +210,39 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 		this.setCustomColorAtIndex(xlsBook, IndexedColors.OLIVE_GREEN, 235, 241, 222);
 
 		HSSFCell cell = row.createCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_FIRST_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.lot.template.storage.location.abbr.column", null, locale));
 
 		cell = row.createCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_SECOND_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.OLIVE_GREEN.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.OLIVE_GREEN.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.lot.template.storage.location.name.column", null, locale));
 
 	}
 
 	private void writeUnitsHeader(
-		final HSSFWorkbook xlsBook, final HSSFSheet xlsSheet, final int currentRowNum) {
+		final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles, final HSSFSheet xlsSheet, final int currentRowNum) {
 		final Locale locale = LocaleContextHolder.getLocale();
 		final HSSFRow row = xlsSheet.createRow(currentRowNum);
 		row.setHeightInPoints(16);
 
 		HSSFCell cell = row.createCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_FIRST_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.lot.template.units.column", null, locale));
 
 		cell = row.createCell(LotExcelTemplateExportServiceImpl.CODES_SHEET_SECOND_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.OLIVE_GREEN.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, cellStyles, IndexedColors.OLIVE_GREEN.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.lot.template.units.description.column", null, locale));
 
 	}
 
-	private CellStyle getHeaderStyle(final HSSFWorkbook xlsBook, final short colorIndex) {
+	private CellStyle getHeaderStyle(final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles, final short colorIndex) {
+		// Styles are shared by the cells that look the same, as the number of styles of a workbook is limited
+		return cellStyles.computeIfAbsent("header-" + colorIndex, key -> this.createHeaderStyle(xlsBook, colorIndex));
+	}
+
+	private CellStyle createHeaderStyle(final HSSFWorkbook xlsBook, final short colorIndex) {
 		final HSSFFont blackFont = xlsBook.createFont();
 		blackFont.setColor(HSSFColor.HSSFColorPredefined.BLACK.getIndex());
 		blackFont.setFontName("calibri");
@@ -266,7 +262,12 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 		return cellStyle;
 	}
 
-	private CellStyle getcellStyle(final HSSFWorkbook xlsBook, final short colorIndex) {
+	private CellStyle getcellStyle(
+		final HSSFWorkbook xlsBook, final Map<String, CellStyle> cellStyles, final short colorIndex, final boolean lastRow) {
+		return cellStyles.computeIfAbsent("cell-" + colorIndex + "-" + lastRow, key -> this.createCellStyle(xlsBook, colorIndex, lastRow));
+	}
+
+	private CellStyle createCellStyle(final HSSFWorkbook xlsBook, final short colorIndex, final boolean lastRow) {
 		final HSSFFont blackFont = xlsBook.createFont();
 		blackFont.setColor(HSSFColor.HSSFColorPredefined.BLACK.getIndex());
 		blackFont.setFontName("calibri");
@@ -275,6 +276,11 @@ public class LotExcelTemplateExportServiceImpl implements LotTemplateExportServi
 		cellStyle.setFillForegroundColor(colorIndex);
 		cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
 		cellStyle.setFont(blackFont);
+		cellStyle.setBorderLeft(BorderStyle.THIN);
+		cellStyle.setBorderRight(BorderStyle.THIN);
+		if (lastRow) {
+			cellStyle.setBorderBottom(BorderStyle.THIN);
+		}
 		return cellStyle;
 	}
 
@@ -30,6 +30,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class TransactionExportServiceImpl implements TransactionExportService {
@@ -169,87 +170,88 @@ public class TransactionExportServiceImpl implements TransactionExportService {
 		this.setCustomColorAtIndex(xlsBook, IndexedColors.YELLOW, 255, 255, 204);
 		this.setCustomColorAtIndex(xlsBook, IndexedColors.AQUA, 218, 227, 243);
 		this.setCustomColorAtIndex(xlsBook, IndexedColors.OLIVE_GREEN, 235, 241, 222);
+		final Map<Short, CellStyle> headerStyles = new HashMap<>();
 
 		HSSFCell cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_DESIGNATION_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.YELLOW.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.YELLOW.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.designation.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_GID_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.YELLOW.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.YELLOW.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.gid.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_LOT_UUID_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.lot.uuid.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_STORAGE_LOCATION_ABBR_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource
 			.getMessage("export.inventory.manager.transaction.template.sheet.storage.location.abbr.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_STORAGE_LOCATION_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource
 			.getMessage("export.inventory.manager.transaction.template.sheet.storage.location.name.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_STOCK_ID_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.stock.id.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_LOT_AVAILABLE_COLUMN_INDEX, CellType.NUMERIC);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.lot.available.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_TRN_ID_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.trn.id.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_CREATED_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.created.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_USERNAME_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.username.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_STATUS_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.status.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_TYPE_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.type.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_UNITS_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.units.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_AMOUNT_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.amount.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_NOTES_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.AQUA.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.AQUA.getIndex()));
 		cell.setCellValue(this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.notes.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_NEW_AMOUNT_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.OLIVE_GREEN.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.OLIVE_GREEN.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.new.amount.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_NEW_BALANCE_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.OLIVE_GREEN.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.OLIVE_GREEN.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.new.balance.column", null, locale));
 
 		cell = row.createCell(TransactionExportServiceImpl.TRANSACTIONS_SHEET_NEW_NOTES_COLUMN_INDEX, CellType.STRING);
-		cell.setCellStyle(this.getHeaderStyle(xlsBook, IndexedColors.OLIVE_GREEN.getIndex()));
+		cell.setCellStyle(this.getHeaderStyle(xlsBook, headerStyles, IndexedColors.OLIVE_GREEN.getIndex()));
 		cell.setCellValue(
 			this.messageSource.getMessage("export.inventory.manager.transaction.template.sheet.new.notes.column", null, locale));
 
@@ -279,7 +281,12 @@ public class TransactionExportServiceImpl implements TransactionExportService {
 
 	}
 
-	private CellStyle getHeaderStyle(final HSSFWorkbook xlsBook, final short colorIndex) {
+	private CellStyle getHeaderStyle(final HSSFWorkbook xlsBook, final Map<Short, CellStyle> headerStyles, final short colorIndex) {
+		// Styles are shared by the cells of the same color, as the number of styles of a workbook is limited
+		return headerStyles.computeIfAbsent(colorIndex, color -> this.createHeaderStyle(xlsBook, color));
+	}
+
+	private CellStyle createHeaderStyle(final HSSFWorkbook xlsBook, final short colorIndex) {
 		final HSSFFont blackFont = xlsBook.createFont();
 		blackFont.setColor(HSSFColor.HSSFColorPredefined.BLACK.getIndex());
 		blackFont.setFontName("Arial");
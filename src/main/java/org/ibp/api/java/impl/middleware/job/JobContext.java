@@ -0,0 +1,203 @@
+package org.ibp.api.java.impl.middleware.job;
+
+import com.google.common.base.Defaults;
+import org.generationcp.middleware.ContextHolder;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The state a job needs from the request that submitted it. The request itself is recycled by the container once the response is
+ * sent, so a detached copy of its path, parameters and headers is kept instead. The job runs in its own request scope built on that
+ * copy, which gives it its own crop database session, closed when the job finishes.
+ */
+class JobContext {
+
+	private final DetachedRequest request;
+
+	private final Authentication authentication;
+
+	private final Locale locale;
+
+	private final String currentCrop;
+
+	private final String currentProgram;
+
+	private ServletRequestAttributes jobRequestAttributes;
+
+	private JobContext(final DetachedRequest request, final Authentication authentication, final Locale locale,
+		final String currentCrop, final String currentProgram) {
+		this.request = request;
+		this.authentication = authentication;
+		this.locale = locale;
+		this.currentCrop = currentCrop;
+		this.currentProgram = currentProgram;
+	}
+
+	static JobContext capture() {
+		final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		final DetachedRequest request = requestAttributes instanceof ServletRequestAttributes ?
+			new DetachedRequest(((ServletRequestAttributes) requestAttributes).getRequest(), authentication) : null;
+		return new JobContext(request, authentication, LocaleContextHolder.getLocale(), ContextHolder.getCurrentCrop(),
+			ContextHolder.getCurrentProgram());
+	}
+
+	static String getCurrentUsername() {
+		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		return authentication != null ? authentication.getName() : null;
+	}
+
+	static boolean currentUserHasAnyAuthority(final Collection<String> authorities) {
+		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null) {
+			return false;
+		}
+		for (final GrantedAuthority authority : authentication.getAuthorities()) {
+			if (authorities.contains(authority.getAuthority())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	String getUsername() {
+		return this.authentication != null ? this.authentication.getName() : null;
+	}
+
+	void apply() {
+		if (this.request != null) {
+			this.jobRequestAttributes = new ServletRequestAttributes(this.request.createProxy());
+			RequestContextHolder.setRequestAttributes(this.jobRequestAttributes);
+		}
+		final SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+		securityContext.setAuthentication(this.authentication);
+		SecurityContextHolder.setContext(securityContext);
+		LocaleContextHolder.setLocale(this.locale);
+		ContextHolder.setCurrentCrop(this.currentCrop);
+		ContextHolder.setCurrentProgram(this.currentProgram);
+	}
+
+	void clear() {
+		try {
+			if (this.jobRequestAttributes != null) {
+				// Runs the destruction callbacks of the job request scope, closing its sessions
+				this.jobRequestAttributes.requestCompleted();
+			}
+		} finally {
+			this.jobRequestAttributes = null;
+			RequestContextHolder.resetRequestAttributes();
+			SecurityContextHolder.clearContext();
+			LocaleContextHolder.resetLocaleContext();
+			ContextHolder.setCurrentCrop(null);
+			ContextHolder.setCurrentProgram(null);
+		}
+	}
+
+
+	/**
+	 * Copy of the parts of a request used to resolve the crop and program of the job and to hold its request scoped beans
+	 */
+	static class DetachedRequest {
+
+		private final String requestURI;
+		private final String contextPath;
+		private final String method;
+		private final Map<String, String[]> parameters;
+		private final Map<String, List<String>> headers = new HashMap<>();
+		private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+		private final Set<String> roles = new HashSet<>();
+
+		DetachedRequest(final HttpServletRequest request, final Authentication authentication) {
+			this.requestURI = request.getRequestURI();
+			this.contextPath = request.getContextPath();
+			this.method = request.getMethod();
+			this.parameters = new HashMap<>(request.getParameterMap());
+			final Enumeration<String> headerNames = request.getHeaderNames();
+			while (headerNames != null && headerNames.hasMoreElements()) {
+				final String headerName = headerNames.nextElement();
+				this.headers.put(headerName.toLowerCase(Locale.ENGLISH), Collections.list(request.getHeaders(headerName)));
+			}
+			if (authentication != null) {
+				for (final GrantedAuthority authority : authentication.getAuthorities()) {
+					this.roles.add(authority.getAuthority());
+				}
+			}
+		}
+
+		HttpServletRequest createProxy() {
+			return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+				new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> this.invoke(proxy, method, args));
+		}
+
+		private Object invoke(final Object proxy, final Method method, final Object[] args) {
+			switch (method.getName()) {
+				case "getRequestURI":
+					return this.requestURI;
+				case "getContextPath":
+					return this.contextPath;
+				case "getMethod":
+					return this.method;
+				case "getParameter":
+					final String[] values = this.parameters.get(args[0]);
+					return values != null && values.length > 0 ? values[0] : null;
+				case "getParameterValues":
+					return this.parameters.get(args[0]);
+				case "getParameterMap":
+					return Collections.unmodifiableMap(this.parameters);
+				case "getHeader":
+					final List<String> headerValues = this.headers.get(((String) args[0]).toLowerCase(Locale.ENGLISH));
+					return headerValues != null && !headerValues.isEmpty() ? headerValues.get(0) : null;
+				case "getHeaders":
+					final List<String> allHeaderValues = this.headers.get(((String) args[0]).toLowerCase(Locale.ENGLISH));
+					return Collections.enumeration(allHeaderValues != null ? allHeaderValues : Collections.<String>emptyList());
+				case "getHeaderNames":
+					return Collections.enumeration(this.headers.keySet());
+				case "getAttribute":
+					return this.attributes.get(args[0]);
+				case "setAttribute":
+					if (args[1] == null) {
+						this.attributes.remove(args[0]);
+					} else {
+						this.attributes.put((String) args[0], args[1]);
+					}
+					return null;
+				case "removeAttribute":
+					this.attributes.remove(args[0]);
+					return null;
+				case "getAttributeNames":
+					return Collections.enumeration(this.attributes.keySet());
+				case "isUserInRole":
+					return this.roles.contains(args[0]);
+				case "hashCode":
+					return System.identityHashCode(this);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return "Job request " + this.requestURI;
+				default:
+					// No session, body or connection details: the request is already finished
+					return Defaults.defaultValue(method.getReturnType());
+			}
+		}
+	}
+}
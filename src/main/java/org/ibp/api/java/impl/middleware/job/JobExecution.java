@@ -0,0 +1,154 @@
+package org.ibp.api.java.impl.middleware.job;
+
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobStatus;
+import org.ibp.api.domain.job.JobType;
+import org.ibp.api.java.job.Job;
+import org.ibp.api.java.job.JobProgress;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A submitted job and its outcome, kept by {@link JobServiceImpl} until it expires
+ */
+class JobExecution {
+
+	private final String jobId;
+
+	private final JobType type;
+
+	private final String cropName;
+
+	private final String username;
+
+	private final Job job;
+
+	private final JobContext context;
+
+	private final JobProgress progress = new JobProgress();
+
+	private final AtomicReference<JobStatus> status = new AtomicReference<>(JobStatus.QUEUED);
+
+	private final Date createdDate = new Date();
+
+	private volatile Date startedDate;
+
+	private volatile Date finishedDate;
+
+	private volatile Object result;
+
+	private volatile List<String> errors = Collections.emptyList();
+
+	JobExecution(final String jobId, final JobType type, final String cropName, final Job job, final JobContext context) {
+		this.jobId = jobId;
+		this.type = type;
+		this.cropName = cropName;
+		this.username = context.getUsername();
+		this.job = job;
+		this.context = context;
+	}
+
+	/**
+	 * @return false if the job was cancelled while queued
+	 */
+	boolean start() {
+		if (this.status.compareAndSet(JobStatus.QUEUED, JobStatus.RUNNING)) {
+			this.startedDate = new Date();
+			return true;
+		}
+		return false;
+	}
+
+	void complete(final Object result) {
+		this.result = result;
+		this.finish(JobStatus.COMPLETED);
+	}
+
+	void fail(final List<String> errors) {
+		this.errors = errors;
+		this.finish(JobStatus.FAILED);
+	}
+
+	void finish(final JobStatus finalStatus) {
+		this.finishedDate = new Date();
+		this.status.set(finalStatus);
+	}
+
+	/**
+	 * Queued jobs are cancelled right away. Running jobs are stopped by their next progress update.
+	 */
+	void cancel() {
+		this.progress.cancel();
+		if (this.status.compareAndSet(JobStatus.QUEUED, JobStatus.CANCELLED)) {
+			this.finishedDate = new Date();
+		}
+	}
+
+	boolean isExpired(final long expirationTime) {
+		final Date finished = this.finishedDate;
+		return this.status.get().isFinished() && finished != null && finished.getTime() < expirationTime;
+	}
+
+	void deleteResultFile() {
+		final Object jobResult = this.result;
+		if (jobResult instanceof File) {
+			((File) jobResult).delete();
+		}
+	}
+
+	JobDTO toDTO() {
+		final JobDTO jobDTO = new JobDTO();
+		jobDTO.setJobId(this.jobId);
+		jobDTO.setType(this.type);
+		jobDTO.setCropName(this.cropName);
+		jobDTO.setStatus(this.status.get());
+		jobDTO.setTotal(this.progress.getTotal());
+		jobDTO.setProcessed(this.progress.getProcessed());
+		jobDTO.setCreatedDate(this.createdDate);
+		jobDTO.setStartedDate(this.startedDate);
+		jobDTO.setFinishedDate(this.finishedDate);
+		jobDTO.setHasResultFile(this.result instanceof File);
+		jobDTO.setErrors(this.errors.isEmpty() ? null : this.errors);
+		return jobDTO;
+	}
+
+	String getJobId() {
+		return this.jobId;
+	}
+
+	JobType getType() {
+		return this.type;
+	}
+
+	String getCropName() {
+		return this.cropName;
+	}
+
+	String getUsername() {
+		return this.username;
+	}
+
+	Job getJob() {
+		return this.job;
+	}
+
+	JobContext getContext() {
+		return this.context;
+	}
+
+	JobProgress getProgress() {
+		return this.progress;
+	}
+
+	JobStatus getStatus() {
+		return this.status.get();
+	}
+
+	Object getResult() {
+		return this.result;
+	}
+}
@@ -0,0 +1,250 @@
+package org.ibp.api.java.impl.middleware.job;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobStatus;
+import org.ibp.api.domain.job.JobType;
+import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.exception.ConflictException;
+import org.ibp.api.exception.ResourceNotFoundException;
+import org.ibp.api.java.job.Job;
+import org.ibp.api.java.job.JobProgress;
+import org.ibp.api.java.job.JobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+import org.springframework.validation.ObjectError;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs long calculations and exports outside of the request threads. Jobs are queued in a bounded executor, and every crop can only
+ * have a limited number of jobs queued or running at the same time, so one crop cannot take all the workers. Finished jobs and their
+ * result files are kept for {@code job.result.ttl.minutes}. They are only visible to the user that submitted them, while that user still has
+ * one of the authorities needed to submit that type of job.
+ */
+@Service
+public class JobServiceImpl implements JobService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(JobServiceImpl.class);
+
+	static final String JOB_NOT_FOUND = "job.not.found";
+	static final String JOB_QUEUE_FULL = "job.queue.full";
+	static final String JOB_CROP_LIMIT_REACHED = "job.crop.limit.reached";
+	static final String JOB_RESULT_NOT_AVAILABLE = "job.result.not.available";
+	static final String JOB_FAILED = "job.failed";
+
+	@Value("${job.executor.threads:4}")
+	private int threads;
+
+	@Value("${job.executor.queue.size:50}")
+	private int queueSize;
+
+	@Value("${job.crop.max.concurrent:2}")
+	private int cropMaxConcurrent;
+
+	@Value("${job.result.ttl.minutes:60}")
+	private long resultTtlMinutes;
+
+	@Resource
+	private ResourceBundleMessageSource messageSource;
+
+	private final Map<String, JobExecution> jobs = new ConcurrentHashMap<>();
+
+	private final Map<String, Semaphore> cropPermits = new ConcurrentHashMap<>();
+
+	private ThreadPoolExecutor executor;
+
+	@PostConstruct
+	public void init() {
+		this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(this.queueSize), new ThreadFactoryBuilder().setNameFormat("bmsapi-job-%d").setDaemon(true).build());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		for (final JobExecution jobExecution : this.jobs.values()) {
+			jobExecution.cancel();
+		}
+		this.executor.shutdownNow();
+	}
+
+	@Override
+	public JobDTO submit(final String cropName, final JobType type, final Job job) {
+		this.removeExpiredJobs();
+
+		final Semaphore permits = this.getCropPermits(cropName);
+		if (!permits.tryAcquire()) {
+			throw this.conflictException(JOB_CROP_LIMIT_REACHED, new Object[] {this.cropMaxConcurrent});
+		}
+
+		final JobExecution jobExecution = new JobExecution(UUID.randomUUID().toString(), type, cropName, job, JobContext.capture());
+		this.jobs.put(jobExecution.getJobId(), jobExecution);
+		try {
+			this.executor.execute(() -> this.run(jobExecution, permits));
+		} catch (final RejectedExecutionException e) {
+			this.jobs.remove(jobExecution.getJobId());
+			permits.release();
+			throw this.conflictException(JOB_QUEUE_FULL, null);
+		}
+		return jobExecution.toDTO();
+	}
+
+	@Override
+	public JobDTO getJob(final String cropName, final String jobId) {
+		this.removeExpiredJobs();
+		return this.getJobExecution(cropName, jobId).toDTO();
+	}
+
+	@Override
+	public JobDTO cancel(final String cropName, final String jobId) {
+		final JobExecution jobExecution = this.getJobExecution(cropName, jobId);
+		jobExecution.cancel();
+		return jobExecution.toDTO();
+	}
+
+	@Override
+	public Object getResult(final String cropName, final String jobId) {
+		final JobExecution jobExecution = this.getJobExecution(cropName, jobId);
+		if (jobExecution.getStatus() != JobStatus.COMPLETED || jobExecution.getResult() instanceof File) {
+			throw this.resourceNotFoundException(JOB_RESULT_NOT_AVAILABLE);
+		}
+		return jobExecution.getResult();
+	}
+
+	@Override
+	public File getResultFile(final String cropName, final String jobId) {
+		final JobExecution jobExecution = this.getJobExecution(cropName, jobId);
+		if (jobExecution.getStatus() != JobStatus.COMPLETED || !(jobExecution.getResult() instanceof File)) {
+			throw this.resourceNotFoundException(JOB_RESULT_NOT_AVAILABLE);
+		}
+		return (File) jobExecution.getResult();
+	}
+
+	void run(final JobExecution jobExecution, final Semaphore permits) {
+		try {
+			if (!jobExecution.start()) {
+				// Cancelled while queued
+				return;
+			}
+			final JobContext context = jobExecution.getContext();
+			final JobProgress progress = jobExecution.getProgress();
+			context.apply();
+			JobProgress.bind(progress);
+			try {
+				jobExecution.complete(jobExecution.getJob().execute(progress));
+			} catch (final CancellationException e) {
+				LOG.info("Job {} was cancelled", jobExecution.getJobId());
+				jobExecution.finish(JobStatus.CANCELLED);
+			} catch (final Exception e) {
+				LOG.error("Error running job " + jobExecution.getJobId(), e);
+				jobExecution.fail(this.getErrorMessages(e));
+			} finally {
+				JobProgress.unbind();
+				context.clear();
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	List<String> getErrorMessages(final Exception e) {
+		final List<ObjectError> errors;
+		if (e instanceof ApiRequestValidationException) {
+			errors = ((ApiRequestValidationException) e).getErrors();
+		} else if (e instanceof ConflictException) {
+			errors = ((ConflictException) e).getErrors();
+		} else if (e instanceof ResourceNotFoundException) {
+			errors = Collections.singletonList(((ResourceNotFoundException) e).getError());
+		} else {
+			return Collections.singletonList(this.messageSource.getMessage(JOB_FAILED, null, LocaleContextHolder.getLocale()));
+		}
+		final List<String> messages = new ArrayList<>();
+		for (final ObjectError error : errors) {
+			messages.add(this.messageSource.getMessage(error, LocaleContextHolder.getLocale()));
+		}
+		return messages;
+	}
+
+	private JobExecution getJobExecution(final String cropName, final String jobId) {
+		final JobExecution jobExecution = this.jobs.get(jobId);
+		final String username = JobContext.getCurrentUsername();
+		// Jobs of other crops or users, or that the user is no longer allowed to run, are reported as not found
+		if (jobExecution == null || username == null || !jobExecution.getCropName().equalsIgnoreCase(cropName)
+			|| !username.equals(jobExecution.getUsername())
+			|| !JobContext.currentUserHasAnyAuthority(jobExecution.getType().getAuthorities())) {
+			throw this.resourceNotFoundException(JOB_NOT_FOUND);
+		}
+		return jobExecution;
+	}
+
+	private Semaphore getCropPermits(final String cropName) {
+		return this.cropPermits.computeIfAbsent(cropName.toLowerCase(), crop -> new Semaphore(this.cropMaxConcurrent));
+	}
+
+	private void removeExpiredJobs() {
+		final long expirationTime = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(this.resultTtlMinutes);
+		final Iterator<JobExecution> iterator = this.jobs.values().iterator();
+		while (iterator.hasNext()) {
+			final JobExecution jobExecution = iterator.next();
+			if (jobExecution.isExpired(expirationTime)) {
+				iterator.remove();
+				jobExecution.deleteResultFile();
+			}
+		}
+	}
+
+	private ConflictException conflictException(final String errorCode, final Object[] arguments) {
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+		errors.reject(errorCode, arguments, "");
+		return new ConflictException(errors.getAllErrors());
+	}
+
+	private ResourceNotFoundException resourceNotFoundException(final String errorCode) {
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+		errors.reject(errorCode, "");
+		return new ResourceNotFoundException(errors.getAllErrors().get(0));
+	}
+
+	void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
+	void setQueueSize(final int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	void setCropMaxConcurrent(final int cropMaxConcurrent) {
+		this.cropMaxConcurrent = cropMaxConcurrent;
+	}
+
+	void setResultTtlMinutes(final long resultTtlMinutes) {
+		this.resultTtlMinutes = resultTtlMinutes;
+	}
+
+	void setMessageSource(final ResourceBundleMessageSource messageSource) {
+		this.messageSource = messageSource;
+	}
+}
@@ -0,0 +1,92 @@
+package org.ibp.api.java.impl.middleware.job;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.ibp.api.java.job.JobProgress;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs parts of a request or of a job in parallel, shared by every service that splits its work (dataset exports, design generation,
+ * derived variable calculations), so that the number of threads is bounded for the whole application. Each task runs with the crop,
+ * program, user and locale of the thread that submitted it, in its own request scope, so it gets its own crop database session, closed
+ * when the task finishes. Tasks submitted by a task run in the submitting thread, so tasks never wait for tasks queued behind them. At
+ * most {@code parallel.executor.queue.size} tasks wait for a thread; when the queue is full, the task runs in the submitting thread
+ * instead, which slows down the callers that split the most work.
+ */
+@Component
+public class ParallelExecutor {
+
+	private static final ThreadLocal<Boolean> RUNNING_TASK = new ThreadLocal<>();
+
+	@Value("${parallel.executor.threads:4}")
+	private int threads;
+
+	@Value("${parallel.executor.queue.size:1000}")
+	private int queueSize;
+
+	private ThreadPoolExecutor executor;
+
+	@PostConstruct
+	public void init() {
+		this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(this.queueSize),
+			new ThreadFactoryBuilder().setNameFormat("bmsapi-parallel-%d").setDaemon(true).build());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	public <T> Future<T> submit(final Callable<T> task) {
+		if (Boolean.TRUE.equals(RUNNING_TASK.get())) {
+			return this.runInCaller(task);
+		}
+		final JobContext context = JobContext.capture();
+		final JobProgress progress = JobProgress.current();
+		try {
+			return this.executor.submit(() -> {
+				RUNNING_TASK.set(Boolean.TRUE);
+				context.apply();
+				JobProgress.bind(progress);
+				try {
+					return task.call();
+				} finally {
+					JobProgress.unbind();
+					context.clear();
+					RUNNING_TASK.remove();
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			// The queue is full. The caller already has the context of the task, which must not be cleared after it runs
+			return this.runInCaller(task);
+		}
+	}
+
+	private <T> Future<T> runInCaller(final Callable<T> task) {
+		final FutureTask<T> future = new FutureTask<>(task);
+		future.run();
+		return future;
+	}
+
+	public int getThreads() {
+		return this.threads;
+	}
+
+	void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
+	void setQueueSize(final int queueSize) {
+		this.queueSize = queueSize;
+	}
+}
@@ -0,0 +1,128 @@
+package org.ibp.api.java.impl.middleware.ontology;
+
+import org.generationcp.middleware.domain.oms.TermSummary;
+import org.generationcp.middleware.domain.ontology.DataType;
+import org.generationcp.middleware.domain.ontology.Method;
+import org.generationcp.middleware.domain.ontology.Property;
+import org.generationcp.middleware.domain.ontology.Scale;
+import org.generationcp.middleware.domain.ontology.Variable;
+import org.generationcp.middleware.domain.ontology.VariableType;
+import org.ibp.api.domain.ontology.Category;
+import org.ibp.api.domain.ontology.MetadataDetails;
+import org.ibp.api.domain.ontology.MethodDetails;
+import org.ibp.api.domain.ontology.PropertyDetails;
+import org.ibp.api.domain.ontology.ScaleDetails;
+import org.ibp.api.domain.ontology.VariableDetails;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Maps the Middleware variables to {@link VariableDetails} the same way as the mappings of {@link OntologyMapper}. The variables screen
+ * lists every variable of the crop, each with its method, property and scale, so the properties are copied by hand instead of resolving
+ * the nested type maps through ModelMapper for every variable.
+ */
+public class VariableDetailsMapper {
+
+	private VariableDetailsMapper() {
+
+	}
+
+	public static VariableDetails map(final Variable variable) {
+		final VariableDetails variableDetails = new VariableDetails();
+		variableDetails.setId(String.valueOf(variable.getId()));
+		variableDetails.setName(variable.getName());
+		variableDetails.setDescription(variable.getDefinition());
+		variableDetails.setAlias(variable.getAlias());
+		if (variable.getIsFavorite() != null) {
+			variableDetails.setFavourite(variable.getIsFavorite());
+		}
+		variableDetails.setObservations(variable.getObservations());
+		variableDetails.setStudies(variable.getStudies());
+		variableDetails.setExpectedMin(variable.getMinValue());
+		variableDetails.setExpectedMax(variable.getMaxValue());
+		VariableDetailsMapper.mapMetadata(variableDetails.getMetadata(), variable.getDateCreated(), variable.getDateLastModified());
+		variableDetails.getMetadata().setDatasets(variable.getDatasets());
+		variableDetails.setFormula(variable.getFormula());
+		variableDetails.setAllowsFormula(variable.isAllowsFormula());
+		variableDetails.setMethod(VariableDetailsMapper.map(variable.getMethod()));
+		variableDetails.setProperty(VariableDetailsMapper.map(variable.getProperty()));
+		variableDetails.setScale(VariableDetailsMapper.map(variable.getScale()));
+
+		final Set<org.ibp.api.domain.ontology.VariableType> variableTypes = new HashSet<>();
+		if (variable.getVariableTypes() != null) {
+			for (final VariableType variableType : variable.getVariableTypes()) {
+				variableTypes.add(new org.ibp.api.domain.ontology.VariableType(String.valueOf(variableType.getId()), variableType.getName(),
+					variableType.getDescription()));
+			}
+		}
+		variableDetails.setVariableTypes(variableTypes);
+		return variableDetails;
+	}
+
+	private static MethodDetails map(final Method method) {
+		if (method == null) {
+			return null;
+		}
+		final MethodDetails methodDetails = new MethodDetails();
+		methodDetails.setId(String.valueOf(method.getId()));
+		methodDetails.setName(method.getName());
+		methodDetails.setDescription(method.getDefinition());
+		VariableDetailsMapper.mapMetadata(methodDetails.getMetadata(), method.getDateCreated(), method.getDateLastModified());
+		return methodDetails;
+	}
+
+	private static PropertyDetails map(final Property property) {
+		if (property == null) {
+			return null;
+		}
+		final PropertyDetails propertyDetails = new PropertyDetails();
+		propertyDetails.setId(String.valueOf(property.getId()));
+		propertyDetails.setName(property.getName());
+		propertyDetails.setDescription(property.getDefinition());
+		propertyDetails.setCropOntologyId(property.getCropOntologyId());
+		if (property.getClasses() != null) {
+			propertyDetails.setClasses(new HashSet<>(property.getClasses()));
+		}
+		VariableDetailsMapper.mapMetadata(propertyDetails.getMetadata(), property.getDateCreated(), property.getDateLastModified());
+		return propertyDetails;
+	}
+
+	private static ScaleDetails map(final Scale scale) {
+		if (scale == null) {
+			return null;
+		}
+		final ScaleDetails scaleDetails = new ScaleDetails();
+		scaleDetails.setId(String.valueOf(scale.getId()));
+		scaleDetails.setName(scale.getName());
+		scaleDetails.setDescription(scale.getDefinition());
+		scaleDetails.setMinValue(scale.getMinValue());
+		scaleDetails.setMaxValue(scale.getMaxValue());
+		VariableDetailsMapper.mapMetadata(scaleDetails.getMetadata(), scale.getDateCreated(), scale.getDateLastModified());
+
+		final DataType dataType = scale.getDataType();
+		if (dataType != null) {
+			final org.ibp.api.domain.ontology.DataType scaleDataType = new org.ibp.api.domain.ontology.DataType();
+			scaleDataType.setId(String.valueOf(dataType.getId()));
+			scaleDataType.setName(dataType.getName());
+			scaleDetails.setDataType(scaleDataType);
+		}
+		if (scale.getCategories() != null) {
+			final List<Category> categories = new ArrayList<>();
+			for (final TermSummary category : scale.getCategories()) {
+				categories.add(new Category(String.valueOf(category.getId()), category.getName(), category.getDefinition(), true));
+			}
+			scaleDetails.setCategories(categories);
+		}
+		return scaleDetails;
+	}
+
+	private static void mapMetadata(final MetadataDetails metadata, final Date dateCreated, final Date dateLastModified) {
+		metadata.setDateCreated(dateCreated);
+		metadata.setDateLastModified(dateLastModified);
+		metadata.setDeletable(false);
+	}
+}
@@ -109,11 +109,8 @@ public class VariableServiceImpl extends ServiceBaseImpl implements VariableServ
 			List<Variable> variables = this.ontologyVariableDataManager.getWithFilter(middlewareVariableFilter);
 			List<VariableDetails> variableDetailsList = new ArrayList<>();
 
-			ModelMapper mapper = OntologyMapper.getInstance();
-
 			for (Variable variable : variables) {
-				VariableDetails variableSummary = mapper.map(variable, VariableDetails.class);
-				variableDetailsList.add(variableSummary);
+				variableDetailsList.add(VariableDetailsMapper.map(variable));
 			}
 			return variableDetailsList;
 		} catch (MiddlewareException e) {
@@ -139,8 +136,6 @@ public class VariableServiceImpl extends ServiceBaseImpl implements VariableServ
 
 		try {
 
-			ModelMapper mapper = OntologyMapper.getInstance();
-
 			org.generationcp.middleware.manager.ontology.daoElements.VariableFilter middlewareVariableFilter =
 					new org.generationcp.middleware.manager.ontology.daoElements.VariableFilter();
 
@@ -150,8 +145,7 @@ public class VariableServiceImpl extends ServiceBaseImpl implements VariableServ
 			List<VariableDetails> variableDetailsList = new ArrayList<>();
 
 			for (Variable variable : variables) {
-				VariableDetails variableSummary = mapper.map(variable, VariableDetails.class);
-				variableDetailsList.add(variableSummary);
+				variableDetailsList.add(VariableDetailsMapper.map(variable));
 			}
 			return variableDetailsList;
 		} catch (MiddlewareException e) {
@@ -539,10 +533,8 @@ public class VariableServiceImpl extends ServiceBaseImpl implements VariableServ
 		this.mapVariableFilter(variableFilter, middlewareVariableFilter);
 		List<Variable> variables = this.ontologyVariableDataManager.getWithFilter(middlewareVariableFilter);
 		List<VariableDetails> variableDetailsList = new ArrayList<>();
-		ModelMapper mapper = OntologyMapper.getInstance();
 		for (Variable variable : variables) {
-			VariableDetails variableSummary = mapper.map(variable, VariableDetails.class);
-			variableDetailsList.add(variableSummary);
+			variableDetailsList.add(VariableDetailsMapper.map(variable));
 		}
 		return variableDetailsList;
 	}
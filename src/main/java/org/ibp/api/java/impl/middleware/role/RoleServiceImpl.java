@@ -13,9 +13,11 @@ import org.generationcp.middleware.service.api.user.UserService;
 import org.ibp.api.domain.role.RoleDto;
 import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.exception.ConflictException;
+import org.ibp.api.java.impl.middleware.security.ProgramMembersCache;
 import org.ibp.api.java.role.RoleService;
 import org.ibp.api.rest.role.RoleGeneratorInput;
 import org.ibp.api.rest.role.RoleValidator;
+import org.ibp.api.security.xauth.XAuthTokenCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.BindingResult;
@@ -44,6 +46,12 @@ public class RoleServiceImpl implements RoleService {
 	@Autowired
 	private PermissionService permissionService;
 
+	@Autowired
+	private XAuthTokenCache xAuthTokenCache;
+
+	@Autowired
+	private ProgramMembersCache programMembersCache;
+
 	@Override
 	public List<RoleDto> getRoles(final RoleSearchDto roleSearchDto) {
 
@@ -128,6 +136,10 @@ public class RoleServiceImpl implements RoleService {
 		role.setPermissions(this.getPermission(roleGeneratorInput.getPermissions()));
 		role.setRoleType(this.workbenchDataManager.getRoleType(roleGeneratorInput.getRoleType()));
 		this.workbenchDataManager.saveRole(role);
+
+		// The authorities of every user with this role have changed
+		this.xAuthTokenCache.invalidateAll();
+		this.programMembersCache.invalidateAll();
 	}
 
 	private List<Permission> getPermission(final List<Integer> permissions) {
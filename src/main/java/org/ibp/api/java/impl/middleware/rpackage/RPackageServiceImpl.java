@@ -5,6 +5,7 @@ import org.generationcp.middleware.domain.rpackage.RPackageDTO;
 import org.ibp.api.domain.rpackage.RCallDTO;
 import org.ibp.api.exception.ResourceNotFoundException;
 import org.ibp.api.java.rpackage.RPackageService;
+import org.ibp.api.mapper.DtoMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -33,7 +34,7 @@ public class RPackageServiceImpl implements RPackageService {
 			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
 		}
 
-		final ModelMapper mapper = new ModelMapper();
+		final ModelMapper mapper = DtoMapper.getInstance();
 		return this.rPackageMiddlewareService.getRCallsByPackageId(packageId).stream().map(o -> {
 			return mapper.map(o, RCallDTO.class);
 		}).collect(Collectors.toList());
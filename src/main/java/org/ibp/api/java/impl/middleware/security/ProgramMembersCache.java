@@ -0,0 +1,72 @@
+package org.ibp.api.java.impl.middleware.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the ids of the members of each program, so that checking whether a user can access the data of a program is a set lookup
+ * instead of loading all the program members. Membership comes from the roles of the users, so changes to users and roles must
+ * invalidate the cache. Changes made by other applications, e.g. the Workbench, are only seen after
+ * {@code security.program.members.cache.ttl.seconds}.
+ */
+@Component
+public class ProgramMembersCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ProgramMembersCache.class);
+
+	@Value("${security.program.members.cache.size:1000}")
+	private long size;
+
+	@Value("${security.program.members.cache.ttl.seconds:60}")
+	private long ttlSeconds;
+
+	private Cache<String, Set<Integer>> cache;
+
+	@PostConstruct
+	public void init() {
+		this.cache = CacheBuilder.newBuilder().maximumSize(this.size).expireAfterWrite(this.ttlSeconds, TimeUnit.SECONDS).build();
+	}
+
+	/**
+	 * @return the ids of the members of the program, loaded with the loader if they are not cached
+	 */
+	public Set<Integer> getMemberIds(final String cropName, final String programUUID, final Supplier<Set<Integer>> loader) {
+		final String key = this.getKey(cropName, programUUID);
+		Set<Integer> memberIds = this.cache.getIfPresent(key);
+		if (memberIds == null) {
+			memberIds = Collections.unmodifiableSet(loader.get());
+			this.cache.put(key, memberIds);
+		}
+		return memberIds;
+	}
+
+	/**
+	 * Removes the members of all the programs, e.g. after the roles of a user were changed.
+	 */
+	public void invalidateAll() {
+		this.cache.invalidateAll();
+		LOG.debug("Program members cache invalidated");
+	}
+
+	private String getKey(final String cropName, final String programUUID) {
+		return cropName.toLowerCase() + ":" + programUUID;
+	}
+
+	void setSize(final long size) {
+		this.size = size;
+	}
+
+	void setTtlSeconds(final long ttlSeconds) {
+		this.ttlSeconds = ttlSeconds;
+	}
+}
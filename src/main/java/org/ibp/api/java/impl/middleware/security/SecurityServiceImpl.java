@@ -11,18 +11,26 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
 
 @Service
 public class SecurityServiceImpl implements SecurityService {
 
+	private static final String CURRENT_USER_ATTRIBUTE = SecurityServiceImpl.class.getName() + ".currentUser";
+
 	@Autowired
 	private WorkbenchDataManager workbenchDataManager;
 
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private ProgramMembersCache programMembersCache;
+
 	@Override
 	public boolean isAccessible(final GermplasmList germplasmList, final String cropname) {
 
@@ -44,24 +52,54 @@ public class SecurityServiceImpl implements SecurityService {
 	private boolean loggedInUserIsMemberOf(final String programUniqueId, final String cropname) {
 		if (!StringUtils.isBlank(programUniqueId)) {
 			final WorkbenchUser loggedInUser = this.getCurrentlyLoggedInUser();
-			final Project program = this.workbenchDataManager.getProjectByUuidAndCrop(programUniqueId, cropname);
-			final List<WorkbenchUser> allProgramMembers = this.userService.getUsersByProjectId(program.getProjectId());
-			return allProgramMembers.contains(loggedInUser);
+			return this.programMembersCache.getMemberIds(cropname, programUniqueId, () -> {
+				final Project program = this.workbenchDataManager.getProjectByUuidAndCrop(programUniqueId, cropname);
+				final Set<Integer> memberIds = new HashSet<>();
+				for (final WorkbenchUser member : this.userService.getUsersByProjectId(program.getProjectId())) {
+					memberIds.add(member.getUserid());
+				}
+				return memberIds;
+			}).contains(loggedInUser.getUserid());
 		}
 		return false;
 	}
 
+	/**
+	 * The user is kept in the request, so it is only loaded once per request however many services ask for it. It is a Hibernate entity
+	 * of the workbench session of the request, so it is not shared with other requests.
+	 */
 	@Override
 	public WorkbenchUser getCurrentlyLoggedInUser() {
 		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 		if (authentication == null) {
 			throw new IllegalStateException("No authenticated user was found in security context.");
 		}
-		return this.userService.getUserByUsername(authentication.getName());
+
+		final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		if (requestAttributes != null) {
+			final Object user = requestAttributes.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+			if (user instanceof WorkbenchUser && authentication.getName().equalsIgnoreCase(((WorkbenchUser) user).getName())) {
+				return (WorkbenchUser) user;
+			}
+		}
+
+		final WorkbenchUser user = this.userService.getUserByUsername(authentication.getName());
+		if (requestAttributes != null && user != null) {
+			requestAttributes.setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+		}
+		return user;
 	}
 
 	public void setWorkbenchDataManager(final WorkbenchDataManager workbenchDataManager) {
 		this.workbenchDataManager = workbenchDataManager;
 	}
 
+	void setUserService(final UserService userService) {
+		this.userService = userService;
+	}
+
+	void setProgramMembersCache(final ProgramMembersCache programMembersCache) {
+		this.programMembersCache = programMembersCache;
+	}
+
 }
@@ -16,7 +16,7 @@ import org.ibp.api.java.impl.middleware.dataset.validator.ObservationValidator;
 import org.ibp.api.java.impl.middleware.study.validator.StudyValidator;
 import org.ibp.api.java.study.StudyInstanceService;
 import org.ibp.api.java.study.StudyService;
-import org.modelmapper.Conditions;
+import org.ibp.api.mapper.DtoMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -76,8 +76,7 @@ public class StudyInstanceServiceImpl implements StudyInstanceService {
 		final List<org.generationcp.middleware.service.impl.study.StudyInstance> instances =
 			this.middlewareStudyInstanceService
 				.createStudyInstances(cropType, studyId, datasetId, numberOfInstancesToGenerate);
-		final ModelMapper mapper = new ModelMapper();
-		mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final ModelMapper mapper = DtoMapper.getNotNullInstance();
 		final List<StudyInstance> studyInstances = new ArrayList<>();
 		for (final org.generationcp.middleware.service.impl.study.StudyInstance instance : instances) {
 			studyInstances.add(mapper.map(instance, StudyInstance.class));
@@ -92,8 +91,7 @@ public class StudyInstanceServiceImpl implements StudyInstanceService {
 		final List<org.generationcp.middleware.service.impl.study.StudyInstance> studyInstances =
 			this.middlewareStudyInstanceService.getStudyInstances(studyId);
 
-		final ModelMapper mapper = new ModelMapper();
-		mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final ModelMapper mapper = DtoMapper.getNotNullInstance();
 		return studyInstances.stream().map(o -> mapper.map(o, StudyInstance.class)).collect(Collectors.toList());
 	}
 
@@ -111,8 +109,7 @@ public class StudyInstanceServiceImpl implements StudyInstanceService {
 		final Optional<org.generationcp.middleware.service.impl.study.StudyInstance> studyInstance =
 			this.middlewareStudyInstanceService.getStudyInstance(studyId, instanceId);
 
-		final ModelMapper mapper = new ModelMapper();
-		mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final ModelMapper mapper = DtoMapper.getNotNullInstance();
 		return studyInstance.isPresent() ? Optional.of(mapper.map(studyInstance.get(), StudyInstance.class)) : Optional.empty();
 	}
 
@@ -11,8 +11,10 @@ import org.ibp.api.domain.user.UserDetailDto;
 import org.ibp.api.domain.user.UserMapper;
 import org.ibp.api.exception.ApiRuntimeException;
 import org.ibp.api.java.impl.middleware.manager.UserValidator;
+import org.ibp.api.java.impl.middleware.security.ProgramMembersCache;
 import org.ibp.api.java.impl.middleware.security.SecurityService;
 import org.ibp.api.java.user.UserService;
+import org.ibp.api.security.xauth.XAuthTokenCache;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +46,12 @@ public class UserServiceImpl implements UserService {
 	@Autowired
 	private WorkbenchDataManager workbenchDataManager;
 
+	@Autowired
+	private XAuthTokenCache xAuthTokenCache;
+
+	@Autowired
+	private ProgramMembersCache programMembersCache;
+
 	private PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
 	@Override
@@ -66,7 +74,10 @@ public class UserServiceImpl implements UserService {
 		final UserDto userdto = this.translateUserDetailsDtoToUserDto(user);
 		userdto.setPassword(this.passwordEncoder.encode(userdto.getUsername()));
 
-		return this.userService.createUser(userdto);
+		final Integer userId = this.userService.createUser(userdto);
+		// The roles of the new user may make it a member of programs
+		this.programMembersCache.invalidateAll();
+		return userId;
 	}
 
 	@Override
@@ -74,7 +85,14 @@ public class UserServiceImpl implements UserService {
 		this.userValidator.validate(user, false);
 
 		final UserDto userdto = this.translateUserDetailsDtoToUserDto(user);
-		return this.userService.updateUser(userdto);
+		final String previousUsername = this.userService.getUserById(user.getId()).getName();
+		final Integer userId = this.userService.updateUser(userdto);
+
+		// Roles, status or the username itself may have changed, so the tokens of the user have to be validated again
+		this.xAuthTokenCache.invalidateUser(previousUsername);
+		this.xAuthTokenCache.invalidateUser(userdto.getUsername());
+		this.programMembersCache.invalidateAll();
+		return userId;
 	}
 
 	@Override
@@ -161,4 +179,12 @@ public class UserServiceImpl implements UserService {
 		this.userService = userService;
 	}
 
+	public void setXAuthTokenCache(final XAuthTokenCache xAuthTokenCache) {
+		this.xAuthTokenCache = xAuthTokenCache;
+	}
+
+	public void setProgramMembersCache(final ProgramMembersCache programMembersCache) {
+		this.programMembersCache = programMembersCache;
+	}
+
 }
@@ -0,0 +1,14 @@
+package org.ibp.api.java.job;
+
+/**
+ * Work submitted to the {@link JobService}. It runs in a worker thread with the crop, program, user and request scope of the
+ * request that submitted it.
+ */
+@FunctionalInterface
+public interface Job {
+
+	/**
+	 * @return the job result: a {@link java.io.File} to be downloaded, or an object to be returned as json
+	 */
+	Object execute(JobProgress progress) throws Exception;
+}
@@ -0,0 +1,85 @@
+package org.ibp.api.java.job;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress counters of a running job. The job work is bound to the worker thread, so the row loops of the services can feed it
+ * with {@link #current()} without knowing whether they run as a job or in a regular request. Cancellation is cooperative: once a
+ * job is cancelled, the next {@link #increment()} or {@link #checkCancelled()} throws a {@link CancellationException}, which also
+ * rolls back the job transaction.
+ */
+public class JobProgress {
+
+	private static final JobProgress NONE = new JobProgress() {
+
+		@Override
+		public void setTotal(final long total) {
+			// Not running as a job
+		}
+
+		@Override
+		public void increment(final long count) {
+			// Not running as a job
+		}
+	};
+
+	private static final ThreadLocal<JobProgress> CURRENT = new ThreadLocal<>();
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong processed = new AtomicLong();
+
+	private volatile boolean cancelled;
+
+	/**
+	 * @return the progress of the job running in this thread, or a progress that ignores the counters when not running as a job
+	 */
+	public static JobProgress current() {
+		final JobProgress progress = CURRENT.get();
+		return progress != null ? progress : NONE;
+	}
+
+	public static void bind(final JobProgress progress) {
+		CURRENT.set(progress);
+	}
+
+	public static void unbind() {
+		CURRENT.remove();
+	}
+
+	public void setTotal(final long total) {
+		this.total.set(total);
+	}
+
+	public void increment() {
+		this.increment(1);
+	}
+
+	public void increment(final long count) {
+		this.checkCancelled();
+		this.processed.addAndGet(count);
+	}
+
+	public void checkCancelled() {
+		if (this.cancelled) {
+			throw new CancellationException("Job was cancelled");
+		}
+	}
+
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	public long getTotal() {
+		return this.total.get();
+	}
+
+	public long getProcessed() {
+		return this.processed.get();
+	}
+}
@@ -0,0 +1,19 @@
+package org.ibp.api.java.job;
+
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobType;
+
+import java.io.File;
+
+public interface JobService {
+
+	JobDTO submit(String cropName, JobType type, Job job);
+
+	JobDTO getJob(String cropName, String jobId);
+
+	JobDTO cancel(String cropName, String jobId);
+
+	Object getResult(String cropName, String jobId);
+
+	File getResultFile(String cropName, String jobId);
+}
@@ -0,0 +1,73 @@
+package org.ibp.api.mapper;
+
+import org.generationcp.middleware.api.brapi.v1.germplasm.GermplasmDTO;
+import org.generationcp.middleware.service.api.study.TrialObservationTable;
+import org.ibp.api.brapi.v1.germplasm.Germplasm;
+import org.ibp.api.brapi.v1.study.StudyObservationTable;
+import org.ibp.api.domain.study.StudyInstance;
+import org.ibp.api.rest.dataset.DatasetDTO;
+import org.modelmapper.Conditions;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.PropertyMap;
+
+/**
+ * Shared mappers for the DTOs that are mapped with the default ModelMapper matching strategy. ModelMapper introspects each pair of types
+ * the first time it is mapped and keeps the resulting TypeMap, so creating a mapper per request repeats that introspection on every call;
+ * these instances are configured once and the TypeMaps of the most used pairs are created when the class is loaded.
+ */
+public class DtoMapper {
+
+	private DtoMapper() {
+
+	}
+
+	private static class DtoMapperInstanceHolder {
+
+		private static final ModelMapper instance = DtoMapper.addTypeMaps(new ModelMapper());
+
+		private static final ModelMapper notNullInstance = DtoMapper.addNotNullTypeMaps(DtoMapper.applyNotNullConfiguration(new ModelMapper()));
+
+		private DtoMapperInstanceHolder() {
+
+		}
+
+	}
+
+	/**
+	 * @return the mapper with the default configuration
+	 */
+	public static ModelMapper getInstance() {
+		return DtoMapperInstanceHolder.instance;
+	}
+
+	/**
+	 * @return the mapper that skips the null properties of the source
+	 */
+	public static ModelMapper getNotNullInstance() {
+		return DtoMapperInstanceHolder.notNullInstance;
+	}
+
+	private static ModelMapper applyNotNullConfiguration(final ModelMapper mapper) {
+		mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		return mapper;
+	}
+
+	private static ModelMapper addTypeMaps(final ModelMapper mapper) {
+		mapper.createTypeMap(GermplasmDTO.class, Germplasm.class);
+		mapper.createTypeMap(TrialObservationTable.class, StudyObservationTable.class);
+		mapper.addMappings(new PropertyMap<TrialObservationTable, org.ibp.api.brapi.v1.trial.TrialObservationTable>() {
+
+			@Override
+			protected void configure() {
+				this.map(this.source.getStudyDbId(), this.destination.getTrialDbId());
+			}
+		});
+		return mapper;
+	}
+
+	private static ModelMapper addNotNullTypeMaps(final ModelMapper mapper) {
+		mapper.createTypeMap(org.generationcp.middleware.domain.dms.DatasetDTO.class, DatasetDTO.class);
+		mapper.createTypeMap(org.generationcp.middleware.service.impl.study.StudyInstance.class, StudyInstance.class);
+		return mapper;
+	}
+}
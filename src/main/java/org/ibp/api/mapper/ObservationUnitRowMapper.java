@@ -0,0 +1,157 @@
+package org.ibp.api.mapper;
+
+import org.ibp.api.rest.dataset.ObservationUnitData;
+import org.ibp.api.rest.dataset.ObservationUnitRow;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Copies the observation unit rows between the API and the Middleware DTOs. Datasets and designs move hundreds of thousands of rows, each
+ * with a map of observations, so the properties are copied by hand instead of through ModelMapper. Null properties of the source are left
+ * unset, as the mappers that used to do this skipped them.
+ */
+public class ObservationUnitRowMapper {
+
+	private ObservationUnitRowMapper() {
+
+	}
+
+	public static ObservationUnitRow map(final org.generationcp.middleware.service.api.dataset.ObservationUnitRow source) {
+		final ObservationUnitRow row = new ObservationUnitRow();
+		if (source.getObservationUnitId() != null) {
+			row.setObservationUnitId(source.getObservationUnitId());
+		}
+		if (source.getGid() != null) {
+			row.setGid(source.getGid());
+		}
+		if (source.getDesignation() != null) {
+			row.setDesignation(source.getDesignation());
+		}
+		if (source.getEntryNumber() != null) {
+			row.setEntryNumber(source.getEntryNumber());
+		}
+		if (source.getTrialInstance() != null) {
+			row.setTrialInstance(source.getTrialInstance());
+		}
+		if (source.getAction() != null) {
+			row.setAction(source.getAction());
+		}
+		if (source.getSamplesCount() != null) {
+			row.setSamplesCount(source.getSamplesCount());
+		}
+		if (source.getStockId() != null) {
+			row.setStockId(source.getStockId());
+		}
+		row.setVariables(ObservationUnitRowMapper.mapData(source.getVariables()));
+		row.setEnvironmentVariables(ObservationUnitRowMapper.mapData(source.getEnvironmentVariables()));
+		return row;
+	}
+
+	public static org.generationcp.middleware.service.api.dataset.ObservationUnitRow map(final ObservationUnitRow source) {
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitRow row =
+			new org.generationcp.middleware.service.api.dataset.ObservationUnitRow();
+		if (source.getObservationUnitId() != null) {
+			row.setObservationUnitId(source.getObservationUnitId());
+		}
+		if (source.getGid() != null) {
+			row.setGid(source.getGid());
+		}
+		if (source.getDesignation() != null) {
+			row.setDesignation(source.getDesignation());
+		}
+		if (source.getEntryNumber() != null) {
+			row.setEntryNumber(source.getEntryNumber());
+		}
+		if (source.getTrialInstance() != null) {
+			row.setTrialInstance(source.getTrialInstance());
+		}
+		if (source.getAction() != null) {
+			row.setAction(source.getAction());
+		}
+		if (source.getSamplesCount() != null) {
+			row.setSamplesCount(source.getSamplesCount());
+		}
+		if (source.getStockId() != null) {
+			row.setStockId(source.getStockId());
+		}
+		row.setVariables(ObservationUnitRowMapper.mapMiddlewareData(source.getVariables()));
+		row.setEnvironmentVariables(ObservationUnitRowMapper.mapMiddlewareData(source.getEnvironmentVariables()));
+		return row;
+	}
+
+	public static ObservationUnitData map(final org.generationcp.middleware.service.api.dataset.ObservationUnitData source) {
+		final ObservationUnitData data = new ObservationUnitData();
+		if (source.getObservationId() != null) {
+			data.setObservationId(source.getObservationId());
+		}
+		if (source.getCategoricalValueId() != null) {
+			data.setCategoricalValueId(source.getCategoricalValueId());
+		}
+		if (source.getValue() != null) {
+			data.setValue(source.getValue());
+		}
+		if (source.getStatus() != null) {
+			data.setStatus(source.getStatus());
+		}
+		if (source.getVariableId() != null) {
+			data.setVariableId(source.getVariableId());
+		}
+		if (source.getDraftCategoricalValueId() != null) {
+			data.setDraftCategoricalValueId(source.getDraftCategoricalValueId());
+		}
+		if (source.getDraftValue() != null) {
+			data.setDraftValue(source.getDraftValue());
+		}
+		return data;
+	}
+
+	public static org.generationcp.middleware.service.api.dataset.ObservationUnitData map(final ObservationUnitData source) {
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitData data =
+			new org.generationcp.middleware.service.api.dataset.ObservationUnitData();
+		if (source.getObservationId() != null) {
+			data.setObservationId(source.getObservationId());
+		}
+		if (source.getCategoricalValueId() != null) {
+			data.setCategoricalValueId(source.getCategoricalValueId());
+		}
+		if (source.getValue() != null) {
+			data.setValue(source.getValue());
+		}
+		if (source.getStatus() != null) {
+			data.setStatus(source.getStatus());
+		}
+		if (source.getVariableId() != null) {
+			data.setVariableId(source.getVariableId());
+		}
+		if (source.getDraftCategoricalValueId() != null) {
+			data.setDraftCategoricalValueId(source.getDraftCategoricalValueId());
+		}
+		if (source.getDraftValue() != null) {
+			data.setDraftValue(source.getDraftValue());
+		}
+		return data;
+	}
+
+	private static Map<String, ObservationUnitData> mapData(
+		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> source) {
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		if (source != null) {
+			for (final Map.Entry<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> entry : source.entrySet()) {
+				variables.put(entry.getKey(), entry.getValue() == null ? null : ObservationUnitRowMapper.map(entry.getValue()));
+			}
+		}
+		return variables;
+	}
+
+	private static Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> mapMiddlewareData(
+		final Map<String, ObservationUnitData> source) {
+		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> variables = new HashMap<>();
+		if (source != null) {
+			for (final Map.Entry<String, ObservationUnitData> entry : source.entrySet()) {
+				variables.put(entry.getKey(), entry.getValue() == null ? null : ObservationUnitRowMapper.map(entry.getValue()));
+			}
+		}
+		return variables;
+	}
+}
@@ -2,8 +2,13 @@
 package org.ibp.api.rest.common;
 
 import org.ibp.api.brapi.v1.common.BrapiPagedResult;
+import org.ibp.api.domain.common.KeysetPagedResult;
 import org.ibp.api.domain.common.PagedResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
 /**
  * Contains the general pattern for executing paginated searches.
  *
@@ -58,4 +63,42 @@ public class PaginatedSearch {
 		pagedResult.addPageResults(searchSpec.getResults(pagedResult));
 		return pagedResult;
 	}
+
+	/**
+	 * Fetches the page that follows the given token, without counting the results and without an offset, so deep pages cost the same as
+	 * the first one. The token is the one returned with the previous page, or null for the first page.
+	 */
+	public <T> KeysetPagedResult<T> executeKeysetSearch(final String pageToken, final Integer pageSize, final SearchSpec<T> searchSpec) {
+
+		Integer pgeSize = pageSize;
+		if (pgeSize == null) {
+			pgeSize = new Integer(PagedResult.DEFAULT_PAGE_SIZE);
+		}
+		if (pgeSize < 1 || pgeSize > PagedResult.MAX_PAGE_SIZE) {
+			throw new IllegalArgumentException("Page size must between 1 and " + PagedResult.MAX_PAGE_SIZE + ".");
+		}
+
+		final String lastKey = pageToken == null ? null : PaginatedSearch.decodePageToken(pageToken);
+
+		// One more result is fetched to know if there is a next page
+		final List<T> results = searchSpec.getResultsAfter(lastKey, pgeSize + 1);
+		if (results.size() <= pgeSize) {
+			return new KeysetPagedResult<>(pgeSize, results, null);
+		}
+		final List<T> pageResults = results.subList(0, pgeSize);
+		final String nextPageToken = PaginatedSearch.encodePageToken(searchSpec.getKey(pageResults.get(pgeSize - 1)));
+		return new KeysetPagedResult<>(pgeSize, pageResults, nextPageToken);
+	}
+
+	static String encodePageToken(final String key) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static String decodePageToken(final String pageToken) {
+		try {
+			return new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+		} catch (final IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid page token " + pageToken + ".", e);
+		}
+	}
 }
@@ -0,0 +1,89 @@
+package org.ibp.api.rest.common;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.generationcp.middleware.ContextHolder;
+import org.ibp.api.domain.common.PagedResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the counts of saved search requests (see {@code SearchRequestService}), so that fetching the pages of the same search one after
+ * the other only counts the results once. Counts are kept for {@code search.count.cache.ttl.seconds}, so only searches over data that
+ * does not change while it is paged should use it, e.g. BrAPI search results.
+ */
+@Component
+public class SearchCountCache {
+
+	@Value("${search.count.cache.size:1000}")
+	private long size;
+
+	@Value("${search.count.cache.ttl.seconds:300}")
+	private long ttlSeconds;
+
+	private Cache<String, Long> counts;
+
+	@PostConstruct
+	public void init() {
+		this.counts = CacheBuilder.newBuilder().maximumSize(this.size).expireAfterWrite(this.ttlSeconds, TimeUnit.SECONDS).build();
+	}
+
+	/**
+	 * @return a search spec that counts the results of the given search request only once
+	 */
+	public <T> SearchSpec<T> cached(final String searchRequestId, final SearchSpec<T> searchSpec) {
+		// Search request ids are only unique within a crop database
+		final String key = ContextHolder.getCurrentCrop() + ":" + searchRequestId;
+
+		return new SearchSpec<T>() {
+
+			@Override
+			public long getCount() {
+				return SearchCountCache.this.getCount(key + ":count", searchSpec::getCount);
+			}
+
+			@Override
+			public long getFilteredCount() {
+				return SearchCountCache.this.getCount(key + ":filtered", searchSpec::getFilteredCount);
+			}
+
+			@Override
+			public List<T> getResults(final PagedResult<T> pagedResult) {
+				return searchSpec.getResults(pagedResult);
+			}
+
+			@Override
+			public List<T> getResultsAfter(final String lastKey, final int maxResults) {
+				return searchSpec.getResultsAfter(lastKey, maxResults);
+			}
+
+			@Override
+			public String getKey(final T result) {
+				return searchSpec.getKey(result);
+			}
+		};
+	}
+
+	private long getCount(final String key, final LongSupplier countQuery) {
+		final Long cachedCount = this.counts.getIfPresent(key);
+		if (cachedCount != null) {
+			return cachedCount;
+		}
+		final long count = countQuery.getAsLong();
+		this.counts.put(key, count);
+		return count;
+	}
+
+	void setSize(final long size) {
+		this.size = size;
+	}
+
+	void setTtlSeconds(final long ttlSeconds) {
+		this.ttlSeconds = ttlSeconds;
+	}
+}
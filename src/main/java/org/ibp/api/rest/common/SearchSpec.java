@@ -21,4 +21,20 @@ public interface SearchSpec<T> {
 	}
 
 	List<T> getResults(PagedResult<T> pagedResult);
+
+	/**
+	 * Keyset mode, see {@link PaginatedSearch#executeKeysetSearch}. Returns up to maxResults results that follow the result with the given
+	 * key in the order of the search, or the first results if the key is null. Searches that support it also implement
+	 * {@link #getKey(Object)}, and must be sorted by that key.
+	 */
+	default List<T> getResultsAfter(final String lastKey, final int maxResults) {
+		throw new UnsupportedOperationException("Keyset pagination is not supported by this search");
+	}
+
+	/**
+	 * @return the unique key of the result in the order of the search, e.g. its id
+	 */
+	default String getKey(final T result) {
+		throw new UnsupportedOperationException("Keyset pagination is not supported by this search");
+	}
 }
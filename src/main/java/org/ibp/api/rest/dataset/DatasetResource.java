@@ -21,10 +21,14 @@ import org.generationcp.middleware.service.api.dataset.ObservationUnitsSearchDTO
 import org.generationcp.middleware.service.api.study.MeasurementVariableDto;
 import org.ibp.api.domain.common.PagedResult;
 import org.ibp.api.domain.dataset.DatasetVariable;
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobType;
 import org.ibp.api.domain.study.StudyInstance;
 import org.ibp.api.java.dataset.DatasetExportService;
 import org.ibp.api.java.dataset.DatasetService;
+import org.ibp.api.java.impl.middleware.dataset.ObservationChanges;
 import org.ibp.api.java.impl.middleware.study.ObservationUnitsMetadata;
+import org.ibp.api.java.job.JobService;
 import org.ibp.api.rest.common.PaginatedSearch;
 import org.ibp.api.rest.common.SearchSpec;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -44,7 +48,9 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import springfox.documentation.annotations.ApiIgnore;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +63,7 @@ public class DatasetResource {
 
 	public static final String CSV = "csv";
 	public static final String XLS = "xls";
+	public static final String XLSX = "xlsx";
 	public static final String KSU_CSV = "ksu_csv";
 	public static final String KSU_XLS = "ksu_xls";
 
@@ -69,12 +76,21 @@ public class DatasetResource {
 	@Autowired
 	private DatasetExportService datasetExcelExportServiceImpl;
 
+	@Autowired
+	private DatasetExportService datasetXlsxExportServiceImpl;
+
 	@Autowired
 	private DatasetExportService datasetKsuCSVExportServiceImpl;
 
 	@Autowired
 	private DatasetExportService datasetKsuExcelExportServiceImpl;
 
+	@Autowired
+	private JobService jobService;
+
+	@Autowired
+	private ObservationChanges observationChanges;
+
 	@ApiOperation(value = "Get Dataset Columns", notes = "Retrieves ALL MeasurementVariables (columns) associated to the dataset, "
 		+ "that will be shown in the Observation Table")
 	@PreAuthorize("hasAnyAuthority('ADMIN','STUDIES', 'MANAGE_STUDIES', 'BROWSE_STUDIES')" + PermissionsEnum.HAS_MANAGE_STUDIES_VIEW)
@@ -311,7 +327,9 @@ public class DatasetResource {
 		return new ResponseEntity<>(this.studyDatasetService.getDatasetInstances(studyId, datasetId), HttpStatus.OK);
 	}
 
-	@ApiOperation(value = "Exports the dataset to a specified file type", notes = "Exports the dataset to a specified file type")
+	@ApiOperation(value = "Exports the dataset to a specified file type", notes = "Exports the dataset to a specified file type. "
+		+ "When changedSince is sent, only the observation units with observations created or updated since that watermark are exported, "
+		+ "and the watermark to send in the next export is returned in the " + ObservationChanges.WATERMARK_HEADER + " header")
 	@PreAuthorize("hasAnyAuthority('ADMIN', 'STUDIES', 'MANAGE_STUDIES', 'BROWSE_STUDIES')")
 	@RequestMapping(value = "/{crop}/programs/{programUUID}/studies/{studyId}/datasets/{datasetId}/{fileType}", method = RequestMethod.GET)
 	public ResponseEntity<FileSystemResource> exportDataset(
@@ -319,23 +337,89 @@ public class DatasetResource {
 		@PathVariable final Integer studyId, @PathVariable final Integer datasetId, @PathVariable final String fileType,
 		@RequestParam(value = "instanceIds") final Set<Integer> instanceIds,
 		@RequestParam(value = "collectionOrderId") final Integer collectionOrderId,
-		@RequestParam(value = "singleFile") final boolean singleFile) {
+		@RequestParam(value = "singleFile") final boolean singleFile,
+		@ApiParam(value = "Watermark returned by a previous export, in milliseconds since the epoch")
+		@RequestParam(value = "changedSince", required = false) final Long changedSince) {
 
 		final DatasetExportService exportMethod = this.getExportFileStrategy(fileType);
 		if (exportMethod != null) {
-			final File file = exportMethod.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile);
-			return this.getFileSystemResourceResponseEntity(file);
+			final HttpHeaders headers = new HttpHeaders();
+			final File file;
+			if (changedSince == null) {
+				file = exportMethod.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile);
+			} else {
+				// Taken before reading the changes, so the observations saved while exporting are part of the next export
+				headers.add(ObservationChanges.WATERMARK_HEADER, String.valueOf(this.observationChanges.newWatermark()));
+				file = exportMethod.exportChanges(studyId, datasetId, instanceIds, collectionOrderId, singleFile, changedSince);
+			}
+			return this.getFileSystemResourceResponseEntity(file, headers);
 		}
 
 		return new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED);
 	}
 
+	@ApiOperation(value = "Submit the export of the dataset to a specified file type",
+		notes = "Submit the export of the dataset as a job. The file can be downloaded from the job once it is completed.")
+	@PreAuthorize("hasAnyAuthority('ADMIN', 'STUDIES', 'MANAGE_STUDIES', 'BROWSE_STUDIES')")
+	@RequestMapping(value = "/{crop}/programs/{programUUID}/studies/{studyId}/datasets/{datasetId}/{fileType}/jobs", method = RequestMethod.POST)
+	@ResponseBody
+	public ResponseEntity<JobDTO> submitExportDataset(
+		@PathVariable final String crop, @PathVariable final String programUUID,
+		@PathVariable final Integer studyId, @PathVariable final Integer datasetId, @PathVariable final String fileType,
+		@RequestParam(value = "instanceIds") final Set<Integer> instanceIds,
+		@RequestParam(value = "collectionOrderId") final Integer collectionOrderId,
+		@RequestParam(value = "singleFile") final boolean singleFile) {
+
+		final DatasetExportService exportMethod = this.getExportFileStrategy(fileType);
+		if (exportMethod == null) {
+			return new ResponseEntity<>(HttpStatus.NOT_IMPLEMENTED);
+		}
+		final JobDTO job = this.jobService.submit(crop, JobType.DATASET_EXPORT,
+			progress -> exportMethod.export(studyId, datasetId, instanceIds, collectionOrderId, singleFile));
+		return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+	}
+
+	@ApiOperation(value = "Streams the export of the dataset to a specified file type as a zip",
+		notes = "Writes the file of each instance as an entry of a zip straight to the response, without creating the files first")
+	@PreAuthorize("hasAnyAuthority('ADMIN', 'STUDIES', 'MANAGE_STUDIES', 'BROWSE_STUDIES')")
+	@RequestMapping(value = "/{crop}/programs/{programUUID}/studies/{studyId}/datasets/{datasetId}/{fileType}/zip", method = RequestMethod.GET)
+	public void streamExportDataset(
+		final HttpServletResponse response,
+		@PathVariable final String crop, @PathVariable final String programUUID,
+		@PathVariable final Integer studyId, @PathVariable final Integer datasetId, @PathVariable final String fileType,
+		@RequestParam(value = "instanceIds") final Set<Integer> instanceIds,
+		@RequestParam(value = "collectionOrderId") final Integer collectionOrderId) throws IOException {
+
+		final DatasetExportService exportMethod = this.getExportFileStrategy(fileType);
+		if (exportMethod == null) {
+			response.setStatus(HttpStatus.NOT_IMPLEMENTED.value());
+			return;
+		}
+
+		final DatasetDTO dataset = this.studyDatasetService.getDataset(crop, studyId, datasetId);
+		final String filename = FileUtils.sanitizeFileName(String.format("%s.zip", dataset.getName()));
+		response.setHeader(HttpHeaders.CONTENT_TYPE, FileUtils.detectMimeType(filename));
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"; filename*=utf-8''%s",
+			filename, FileUtils.encodeFilenameForDownload(filename)));
+		try {
+			exportMethod.exportAsZip(studyId, datasetId, instanceIds, collectionOrderId, response.getOutputStream());
+		} catch (final RuntimeException e) {
+			// Validation errors are thrown before the zip is written, so the error response can replace the zip headers
+			if (!response.isCommitted()) {
+				response.reset();
+			}
+			throw e;
+		}
+	}
+
 	private DatasetExportService getExportFileStrategy(final String fileType) {
 		final String trimmedFileType = fileType.trim();
 		if (DatasetResource.CSV.equalsIgnoreCase(trimmedFileType)) {
 			return this.datasetCSVExportServiceImpl;
 		} else if (DatasetResource.XLS.equalsIgnoreCase(trimmedFileType)) {
 			return this.datasetExcelExportServiceImpl;
+		} else if (DatasetResource.XLSX.equalsIgnoreCase(trimmedFileType)) {
+			return this.datasetXlsxExportServiceImpl;
 		} else if (DatasetResource.KSU_CSV.equalsIgnoreCase(trimmedFileType)) {
 			return this.datasetKsuCSVExportServiceImpl;
 		} else if (DatasetResource.KSU_XLS.equalsIgnoreCase(trimmedFileType)) {
@@ -344,9 +428,8 @@ public class DatasetResource {
 		return null;
 	}
 
-	private ResponseEntity<FileSystemResource> getFileSystemResourceResponseEntity(final File file) {
+	private ResponseEntity<FileSystemResource> getFileSystemResourceResponseEntity(final File file, final HttpHeaders headers) {
 		final String outFileName = FileNameGenerator.generateFileName(file.getName());
-		final HttpHeaders headers = new HttpHeaders();
 		headers
 			.add(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=%s", FileUtils.sanitizeFileName(outFileName)));
 		headers.add(HttpHeaders.CONTENT_TYPE, String.format("%s;charset=utf-8", FileUtils.detectMimeType(outFileName)));
@@ -5,9 +5,12 @@ import io.swagger.annotations.ApiOperation;
 import org.generationcp.middleware.domain.dms.VariableDatasetsDTO;
 import org.generationcp.middleware.domain.ontology.FormulaVariable;
 import org.generationcp.middleware.pojos.workbench.PermissionsEnum;
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobType;
 import org.ibp.api.exception.OverwriteDataException;
 import org.ibp.api.java.derived.DerivedVariableService;
 import org.ibp.api.java.impl.middleware.derived.DerivedVariableServiceImpl;
+import org.ibp.api.java.job.JobService;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -33,6 +36,9 @@ public class DerivedVariableResource {
 	@Resource
 	private DerivedVariableService derivedVariableService;
 
+	@Resource
+	private JobService jobService;
+
 	@ApiOperation(value = "Execute Derived Variable", notes = "Execute the formula of a derived variable for each observation of specified instances.")
 	@PreAuthorize("hasAnyAuthority('ADMIN', 'STUDIES', 'MANAGE_STUDIES')")
 	@RequestMapping(value = "/{crop}/programs/{programUUID}/studies/{studyId}/datasets/{datasetId}/derived-variables/calculation", method = RequestMethod.POST)
@@ -42,18 +48,35 @@ public class DerivedVariableResource {
 		@PathVariable final Integer studyId,
 		@PathVariable final Integer datasetId, @RequestBody final CalculateVariableRequest request) {
 
+		return new ResponseEntity<>(this.execute(studyId, datasetId, request), HttpStatus.OK);
+	}
+
+	@ApiOperation(value = "Submit Derived Variable Execution",
+		notes = "Submit the execution of a derived variable as a job. The calculation result is available from the job once it is completed.")
+	@PreAuthorize("hasAnyAuthority('ADMIN', 'STUDIES', 'MANAGE_STUDIES')")
+	@RequestMapping(value = "/{crop}/programs/{programUUID}/studies/{studyId}/datasets/{datasetId}/derived-variables/calculation/jobs", method = RequestMethod.POST)
+	@ResponseBody
+	public ResponseEntity<JobDTO> submitCalculation(
+		@PathVariable final String crop,
+		@PathVariable final String programUUID,
+		@PathVariable final Integer studyId,
+		@PathVariable final Integer datasetId, @RequestBody final CalculateVariableRequest request) {
+
+		final JobDTO job = this.jobService
+			.submit(crop, JobType.DERIVED_VARIABLE_CALCULATION, progress -> this.execute(studyId, datasetId, request));
+		return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+	}
+
+	private Map<String, Object> execute(final Integer studyId, final Integer datasetId, final CalculateVariableRequest request) {
 		try {
-			final Map<String, Object> result =
-				this.derivedVariableService
-					.execute(studyId, datasetId, request.getVariableId(), request.getGeoLocationIds(), request.getInputVariableDatasetMap(),
-						request.isOverwriteExistingData());
-			return new ResponseEntity<>(result, HttpStatus.OK);
+			return this.derivedVariableService
+				.execute(studyId, datasetId, request.getVariableId(), request.getGeoLocationIds(), request.getInputVariableDatasetMap(),
+					request.isOverwriteExistingData());
 		} catch (final OverwriteDataException e2) {
 			final Map<String, Object> result = new HashMap<>();
 			result.put(DerivedVariableServiceImpl.HAS_DATA_OVERWRITE_RESULT_KEY, true);
-			return new ResponseEntity<>(result, HttpStatus.OK);
+			return result;
 		}
-
 	}
 
 	@ApiOperation(value = "Get Missing Formula Variables", notes =
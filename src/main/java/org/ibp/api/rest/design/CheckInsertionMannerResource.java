@@ -5,6 +5,7 @@ import io.swagger.annotations.ApiOperation;
 import org.generationcp.middleware.domain.dms.InsertionMannerItem;
 import org.generationcp.middleware.pojos.workbench.PermissionsEnum;
 import org.ibp.api.domain.ontology.TermSummary;
+import org.ibp.api.mapper.DtoMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,7 +27,7 @@ public class CheckInsertionMannerResource {
 	@ResponseBody
 	public ResponseEntity<List<TermSummary>> retrieveCheckInsertionManners(@PathVariable final String crop, @RequestParam(required = false) final String programUUID) {
 		final List<TermSummary> terms = new ArrayList<>();
-		final ModelMapper map = new ModelMapper();
+		final ModelMapper map = DtoMapper.getInstance();
 		for (final InsertionMannerItem item : InsertionMannerItem.values()) {
 			terms.add(map.map(item, TermSummary.class));
 		}
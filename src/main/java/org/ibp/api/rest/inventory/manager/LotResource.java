@@ -67,6 +67,7 @@ import springfox.documentation.annotations.ApiIgnore;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -167,11 +168,11 @@ public class LotResource {
 
 				@Override
 				public List<ExtendedLotDto> getResults(final PagedResult<ExtendedLotDto> pagedResult) {
+					LotResource.this.inventoryLock.lockRead(cropName);
 					try {
-						LotResource.this.inventoryLock.lockRead();
 						return LotResource.this.lotService.searchLots(searchDTO, pageable);
 					} finally {
-						LotResource.this.inventoryLock.unlockRead();
+						LotResource.this.inventoryLock.unlockRead(cropName);
 					}
 				}
 			});
@@ -251,11 +252,12 @@ public class LotResource {
 			this.extendedLotListValidator.validateLotUUIDsDuplicated(extendedLotDtos, lotUIDs);
 		}
 
+		final Set<String> lotUUIDs = extendedLotDtos.stream().map(ExtendedLotDto::getLotUUID).collect(Collectors.toSet());
+		this.inventoryLock.lockWrite(cropName, lotUUIDs);
 		try {
-			this.inventoryLock.lockWrite();
 			this.lotService.updateLots(programUUID, extendedLotDtos, lotRequest);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName, lotUUIDs);
 		}
 		return new ResponseEntity<>(HttpStatus.NO_CONTENT);
 
@@ -315,11 +317,11 @@ public class LotResource {
 			final List<ExtendedLotDto> extendedLotDtos = this.lotService.searchLots(searchDTO, null);
 			this.extendedLotListValidator.validateAllProvidedLotUUIDsExist(extendedLotDtos, searchCompositeDto.getItemIds());
 		}
+		this.inventoryLock.lockRead(cropName);
 		try {
-			this.inventoryLock.lockRead();
 			return new ResponseEntity<>(this.lotService.getLotsSearchMetadata(searchDTO), HttpStatus.OK);
 		} finally {
-			this.inventoryLock.unlockRead();
+			this.inventoryLock.unlockRead(cropName);
 		}
 	}
 
@@ -340,11 +342,13 @@ public class LotResource {
 			final List<ExtendedLotDto> extendedLotDtos = this.lotService.searchLots(searchDTO, null);
 			this.extendedLotListValidator.validateAllProvidedLotUUIDsExist(extendedLotDtos, searchCompositeDto.getItemIds());
 		}
+		// Lots of a search are only known once it is resolved, so all of them are locked
+		final Set<String> lotUUIDs = searchCompositeDto.getItemIds();
+		this.inventoryLock.lockWrite(cropName, lotUUIDs);
 		try {
-			this.inventoryLock.lockWrite();
 			this.lotService.closeLots(searchDTO);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName, lotUUIDs);
 		}
 		return new ResponseEntity<>(HttpStatus.OK);
 	}
@@ -361,8 +365,8 @@ public class LotResource {
 		final LotsSearchDto searchDTO = new LotsSearchDto();
 		searchDTO.setLotUUIDs(Arrays.asList(lotUUID));
 
+		this.inventoryLock.lockRead(cropName, searchDTO.getLotUUIDs());
 		try {
-			this.inventoryLock.lockRead();
 			final List<ExtendedLotDto> extendedLotDtos = this.lotService.searchLots(searchDTO, null);
 
 			if (!extendedLotDtos.isEmpty()) {
@@ -370,7 +374,7 @@ public class LotResource {
 			}
 			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 		} finally {
-			this.inventoryLock.unlockRead();
+			this.inventoryLock.unlockRead(cropName, searchDTO.getLotUUIDs());
 		}
 	}
 
@@ -385,9 +389,9 @@ public class LotResource {
 			+ "SearchComposite is a list of UUIDs or a search id (internal usage) ")
 		@RequestBody final LotMergeRequestDto lotMergeRequestDto) {
 
+		final Set<String> lotUUIDs = this.getMergedLotUUIDs(lotMergeRequestDto);
+		this.inventoryLock.lockWrite(cropName, lotUUIDs);
 		try {
-			this.inventoryLock.lockWrite();
-
 			this.lotMergeValidator.validateRequest(lotMergeRequestDto);
 
 			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), LotService.class.getName());
@@ -401,7 +405,7 @@ public class LotResource {
 
 			this.lotService.mergeLots(lotMergeRequestDto.getLotUUIDToKeep(), searchDTO);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName, lotUUIDs);
 		}
 		return new ResponseEntity<>(HttpStatus.OK);
 	}
@@ -420,11 +424,13 @@ public class LotResource {
 
 		this.lotSplitValidator.validateRequest(lotSplitRequestDto);
 
+		// The new lot is not visible to other requests until it is committed, only the split lot is locked
+		final Set<String> lotUUIDs = Collections.singleton(lotSplitRequestDto.getSplitLotUUID());
+		this.inventoryLock.lockWrite(cropName, lotUUIDs);
 		try {
-			this.inventoryLock.lockWrite();
 			this.lotService.splitLot(programUUID, lotSplitRequestDto);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName, lotUUIDs);
 		}
 		return new ResponseEntity<>(HttpStatus.OK);
 	}
@@ -479,11 +485,11 @@ public class LotResource {
 
 				@Override
 				public List<ExtendedLotDto> getResults(final PagedResult<ExtendedLotDto> pagedResult) {
+					LotResource.this.inventoryLock.lockRead(cropName);
 					try {
-						LotResource.this.inventoryLock.lockRead();
 						return LotResource.this.lotService.searchLots(searchDTO, pageable);
 					} finally {
-						LotResource.this.inventoryLock.unlockRead();
+						LotResource.this.inventoryLock.unlockRead(cropName);
 					}
 				}
 			});
@@ -497,4 +503,18 @@ public class LotResource {
 
 	}
 
+	/**
+	 * @return the lots of the merge request, or null if they are given by a search and are only known once it is resolved
+	 */
+	private Set<String> getMergedLotUUIDs(final LotMergeRequestDto lotMergeRequestDto) {
+		final SearchCompositeDto<Integer, String> searchComposite = lotMergeRequestDto.getSearchComposite();
+		if (searchComposite == null || searchComposite.getItemIds() == null || searchComposite.getItemIds().isEmpty()
+			|| lotMergeRequestDto.getLotUUIDToKeep() == null) {
+			return null;
+		}
+		final Set<String> lotUUIDs = new HashSet<>(searchComposite.getItemIds());
+		lotUUIDs.add(lotMergeRequestDto.getLotUUIDToKeep());
+		return lotUUIDs;
+	}
+
 }
@@ -149,11 +149,11 @@ public class TransactionResource {
 
 				@Override
 				public List<TransactionDto> getResults(final PagedResult<TransactionDto> pagedResult) {
+					TransactionResource.this.inventoryLock.lockRead(cropName);
 					try {
-						TransactionResource.this.inventoryLock.lockRead();
 						return TransactionResource.this.transactionService.searchTransactions(searchDTO, pageable);
 					} finally {
-						TransactionResource.this.inventoryLock.unlockRead();
+						TransactionResource.this.inventoryLock.unlockRead(cropName);
 					}
 				}
 			});
@@ -175,12 +175,12 @@ public class TransactionResource {
 			@PathVariable final String cropName,
 			@ApiParam("Inventory to be reserved per unit")
 			@RequestBody final LotWithdrawalInputDto lotWithdrawalInputDto) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.saveWithdrawals(lotWithdrawalInputDto, TransactionStatus.PENDING);
 			return new ResponseEntity<>(HttpStatus.CREATED);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -192,12 +192,12 @@ public class TransactionResource {
 			@PathVariable final String cropName,
 			@ApiParam("Inventory to be reserved per unit")
 			@RequestBody final LotWithdrawalInputDto lotWithdrawalInputDto) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.saveWithdrawals(lotWithdrawalInputDto, TransactionStatus.CONFIRMED);
 			return new ResponseEntity<>(HttpStatus.CREATED);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -209,12 +209,12 @@ public class TransactionResource {
 		@PathVariable final String cropName, //
 		@ApiParam("List of transactions to be confirmed, use a searchId or a list of transaction ids")
 		@RequestBody final SearchCompositeDto<Integer, Integer> searchCompositeDto) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.confirmPendingTransactions(searchCompositeDto);
 			return new ResponseEntity<>(HttpStatus.OK);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -272,13 +272,13 @@ public class TransactionResource {
 		@PathVariable final String cropName,
 		@ApiParam("New amount or New Available Balance and Notes to be updated per transaction")
 		@RequestBody final List<TransactionUpdateRequestDto> transactionUpdateInputDtos) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.updatePendingTransactions(transactionUpdateInputDtos);
 
 			return new ResponseEntity<>(HttpStatus.OK);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -292,12 +292,12 @@ public class TransactionResource {
 		@RequestParam(required = false) final String programUUID,
 		@ApiParam("Deposit amount per unit")
 		@RequestBody final LotDepositRequestDto lotDepositRequestDto) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.saveDeposits(lotDepositRequestDto, TransactionStatus.PENDING);
 			return new ResponseEntity<>(HttpStatus.CREATED);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -309,12 +309,12 @@ public class TransactionResource {
 		@PathVariable final String cropName,
 		@ApiParam("Deposit amount per Lot")
 		@RequestBody final List<LotDepositDto> lotDepositDtos) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.saveDeposits(lotDepositDtos, TransactionStatus.PENDING);
 			return new ResponseEntity<>(HttpStatus.CREATED);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -329,13 +329,13 @@ public class TransactionResource {
 		@RequestParam(required = false) final String programUUID,
 		@ApiParam("Deposit amount per unit")
 		@RequestBody final LotDepositRequestDto lotDepositRequestDto) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.saveDeposits(lotDepositRequestDto, TransactionStatus.CONFIRMED);
 
 			return new ResponseEntity<>(HttpStatus.CREATED);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -349,13 +349,13 @@ public class TransactionResource {
 		@PathVariable final String cropName,
 		@ApiParam("Deposit amount per Lot")
 		@RequestBody final List<LotDepositDto> lotDepositDtos) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.saveDeposits(lotDepositDtos, TransactionStatus.CONFIRMED);
 
 			return new ResponseEntity<>(HttpStatus.CREATED);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -367,12 +367,12 @@ public class TransactionResource {
 		@PathVariable final String cropName, //
 		@ApiParam("List of transactions to be cancelled, use a searchId or a list of transaction ids")
 		@RequestBody final SearchCompositeDto<Integer, Integer> searchCompositeDto) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.cancelPendingTransactions(searchCompositeDto);
 			return new ResponseEntity<>(HttpStatus.OK);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -386,12 +386,12 @@ public class TransactionResource {
 		@RequestParam(required = false) final String programUUID,
 		@ApiParam("New balance for lots and transaction notes")
 		@RequestBody final LotAdjustmentRequestDto lotAdjustmentRequestDto) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.inventoryLock.lockWrite();
 			this.transactionService.saveLotBalanceAdjustment(lotAdjustmentRequestDto);
 			return new ResponseEntity<>(HttpStatus.CREATED);
 		} finally {
-			this.inventoryLock.unlockWrite();
+			this.inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -453,11 +453,11 @@ public class TransactionResource {
 
 				@Override
 				public List<TransactionDto> getResults(final PagedResult<TransactionDto> pagedResult) {
+					TransactionResource.this.inventoryLock.lockRead(cropName);
 					try {
-						TransactionResource.this.inventoryLock.lockRead();
 						return TransactionResource.this.transactionService.searchTransactions(searchDTO, pageable);
 					} finally {
-						TransactionResource.this.inventoryLock.unlockRead();
+						TransactionResource.this.inventoryLock.unlockRead(cropName);
 					}
 				}
 			});
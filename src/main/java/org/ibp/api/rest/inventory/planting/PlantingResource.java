@@ -77,12 +77,12 @@ public class PlantingResource {
 		@PathVariable final Integer datasetId,
 		@ApiParam("Planting Instructions")
 		@RequestBody final PlantingRequestDto plantingRequestDto) {
+		inventoryLock.lockWrite(cropName);
 		try {
-			inventoryLock.lockWrite();
 			plantingService.generatePlanting(studyId, datasetId, plantingRequestDto, TransactionStatus.PENDING);
 			return new ResponseEntity<>(HttpStatus.OK);
 		} finally {
-			inventoryLock.unlockWrite();
+			inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -97,12 +97,12 @@ public class PlantingResource {
 		@PathVariable final Integer datasetId,
 		@ApiParam("Planting Instructions")
 		@RequestBody final PlantingRequestDto plantingRequestDto) {
+		inventoryLock.lockWrite(cropName);
 		try {
-			inventoryLock.lockWrite();
 			plantingService.generatePlanting(studyId, datasetId, plantingRequestDto, TransactionStatus.CONFIRMED);
 			return new ResponseEntity<>(HttpStatus.OK);
 		} finally {
-			inventoryLock.unlockWrite();
+			inventoryLock.unlockWrite(cropName);
 		}
 	}
 }
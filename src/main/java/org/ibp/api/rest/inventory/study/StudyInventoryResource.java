@@ -61,8 +61,8 @@ public class StudyInventoryResource {
 
 		BaseValidator.checkNotNull(studyTransactionsRequest, "param.null", new String[] {"studyTransactionsRequest"});
 		PagedResult<StudyTransactionsDto> pagedResult;
+		inventoryLock.lockRead(cropName);
 		try {
-			inventoryLock.lockRead();
 			pagedResult =
 				new PaginatedSearch().execute(pageable.getPageNumber(), pageable.getPageSize(), new SearchSpec<StudyTransactionsDto>() {
 
@@ -82,7 +82,7 @@ public class StudyInventoryResource {
 					}
 				});
 		} finally {
-			inventoryLock.unlockRead();
+			inventoryLock.unlockRead(cropName);
 		}
 
 		final HttpHeaders headers = new HttpHeaders();
@@ -102,13 +102,12 @@ public class StudyInventoryResource {
 		@PathVariable final Integer studyId,
 		@ApiParam("List of transactions to be cancelled, use a searchId or a list of transaction ids")
 		@RequestBody final SearchCompositeDto<Integer, Integer> searchCompositeDto) {
+		this.inventoryLock.lockWrite(cropName);
 		try {
-			this.
-				inventoryLock.lockWrite();
 			this.studyTransactionsService.cancelPendingTransactions(studyId, searchCompositeDto);
 			return new ResponseEntity<>(HttpStatus.OK);
 		} finally {
-			inventoryLock.unlockWrite();
+			inventoryLock.unlockWrite(cropName);
 		}
 	}
 
@@ -0,0 +1,76 @@
+package org.ibp.api.rest.job;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.generationcp.commons.util.FileNameGenerator;
+import org.generationcp.commons.util.FileUtils;
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.java.job.JobService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.annotation.Resource;
+import java.io.File;
+
+/**
+ * Status, cancellation and results of the jobs submitted by the current user. Jobs are submitted by the "jobs" variants of the
+ * derived variable calculation, dataset export and label printing services.
+ */
+@Api(value = "Job Services")
+@Controller
+@RequestMapping("/crops")
+public class JobResource {
+
+	// Any of the authorities of the endpoints that submit jobs, the service also checks the ones of the type of each job
+	private static final String HAS_JOB_PERMISSIONS = "hasAnyAuthority('ADMIN', 'STUDIES', 'MANAGE_STUDIES', 'BROWSE_STUDIES', "
+		+ "'CROP_MANAGEMENT', 'MANAGE_INVENTORY', 'MANAGE_LOTS', 'LOT_LABEL_PRINTING')";
+
+	@Resource
+	private JobService jobService;
+
+	@ApiOperation(value = "Get job", notes = "Get the status and progress of a job")
+	@RequestMapping(value = "/{cropName}/jobs/{jobId}", method = RequestMethod.GET)
+	@PreAuthorize(HAS_JOB_PERMISSIONS)
+	@ResponseBody
+	public ResponseEntity<JobDTO> getJob(@PathVariable final String cropName, @PathVariable final String jobId) {
+		return new ResponseEntity<>(this.jobService.getJob(cropName, jobId), HttpStatus.OK);
+	}
+
+	@ApiOperation(value = "Cancel job", notes = "Cancel a queued or running job. A running job stops at its next progress update")
+	@RequestMapping(value = "/{cropName}/jobs/{jobId}", method = RequestMethod.DELETE)
+	@PreAuthorize(HAS_JOB_PERMISSIONS)
+	@ResponseBody
+	public ResponseEntity<JobDTO> cancelJob(@PathVariable final String cropName, @PathVariable final String jobId) {
+		return new ResponseEntity<>(this.jobService.cancel(cropName, jobId), HttpStatus.OK);
+	}
+
+	@ApiOperation(value = "Get job result", notes = "Get the result of a completed job that does not produce a file")
+	@RequestMapping(value = "/{cropName}/jobs/{jobId}/result", method = RequestMethod.GET)
+	@PreAuthorize(HAS_JOB_PERMISSIONS)
+	@ResponseBody
+	public ResponseEntity<Object> getJobResult(@PathVariable final String cropName, @PathVariable final String jobId) {
+		return new ResponseEntity<>(this.jobService.getResult(cropName, jobId), HttpStatus.OK);
+	}
+
+	@ApiOperation(value = "Download job file", notes = "Download the file produced by a completed export job")
+	@RequestMapping(value = "/{cropName}/jobs/{jobId}/file", method = RequestMethod.GET)
+	@PreAuthorize(HAS_JOB_PERMISSIONS)
+	public ResponseEntity<FileSystemResource> getJobFile(@PathVariable final String cropName, @PathVariable final String jobId) {
+		final File file = this.jobService.getResultFile(cropName, jobId);
+		final String outFileName = FileNameGenerator.generateFileName(file.getName());
+		final HttpHeaders headers = new HttpHeaders();
+		headers
+			.add(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=%s", FileUtils.sanitizeFileName(outFileName)));
+		headers.add(HttpHeaders.CONTENT_TYPE, String.format("%s;charset=utf-8", FileUtils.detectMimeType(outFileName)));
+		return new ResponseEntity<>(new FileSystemResource(file), headers, HttpStatus.OK);
+	}
+
+}
@@ -5,8 +5,11 @@ import io.swagger.annotations.ApiOperation;
 import org.generationcp.commons.util.FileUtils;
 import org.generationcp.middleware.domain.labelprinting.LabelPrintingType;
 import org.generationcp.middleware.pojos.workbench.PermissionsEnum;
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobType;
 import org.ibp.api.exception.NotSupportedException;
 import org.ibp.api.exception.ResourceNotFoundException;
+import org.ibp.api.java.job.JobService;
 import org.ibp.api.rest.common.FileType;
 import org.ibp.api.rest.labelprinting.domain.LabelType;
 import org.ibp.api.rest.labelprinting.domain.LabelsData;
@@ -19,6 +22,7 @@ import org.ibp.api.rest.labelprinting.filegenerator.CSVLabelsFileGenerator;
 import org.ibp.api.rest.labelprinting.filegenerator.ExcelLabelsFileGenerator;
 import org.ibp.api.rest.labelprinting.filegenerator.LabelsFileGenerator;
 import org.ibp.api.rest.labelprinting.filegenerator.PDFLabelsFileGenerator;
+import org.ibp.api.rest.labelprinting.filegenerator.StreamingLabelsFileGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.http.HttpHeaders;
@@ -35,6 +39,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
@@ -65,6 +70,9 @@ public class LabelPrintingResource {
 	@Autowired
 	private HttpServletRequest request;
 
+	@Autowired
+	private JobService jobService;
+
 
 	@RequestMapping(value = "/crops/{cropname}/programs/{programUUID}/labelPrinting/{labelPrintingType}/labels/summary", method = RequestMethod.POST)
 	@ApiOperation(value = "Get Summary of Labels Needed according to the specified printing label type",
@@ -117,31 +125,34 @@ public class LabelPrintingResource {
 	}
 
 	@RequestMapping(value = "/crops/{cropname}/programs/{programUUID}/labelPrinting/{labelPrintingType}/labels/{fileExtension}", method = RequestMethod.POST)
-	@ApiOperation(value = "Export the labels to a specified file type")
+	@ApiOperation(value = "Export the labels to a specified file type",
+		notes = "The pdf is written to the response as the labels are read, without going through a temporary file. "
+			+ "A label with an empty barcode field can only be detected while writing, in which case the download is cut short.")
 	@ResponseBody
 	public ResponseEntity<FileSystemResource> getLabelsFile(
 		@PathVariable final String cropname, @PathVariable final String programUUID,
 		@PathVariable final String labelPrintingType,
 		@PathVariable final String fileExtension,
-		@RequestBody final LabelsGeneratorInput labelsGeneratorInput ) {
+		@RequestBody final LabelsGeneratorInput labelsGeneratorInput,
+		final HttpServletResponse response) {
 
 		final LabelPrintingStrategy labelPrintingStrategy = this.getLabelPrintingStrategy(labelPrintingType);
 		final LabelsFileGenerator labelsFileGenerator = this.getLabelsFileGenerator(fileExtension, labelPrintingStrategy);
 
-		labelPrintingStrategy.validateLabelsGeneratorInputData(labelsGeneratorInput);
-
-		labelsGeneratorInput.setAllAvailablefields(labelPrintingStrategy.getAllAvailableFields(labelsGeneratorInput));
+		final LabelsData labelsData = this.getLabelsData(labelPrintingStrategy, labelsGeneratorInput);
 
-		final LabelsData labelsData = labelPrintingStrategy.getLabelsData(labelsGeneratorInput);
+		if (labelsFileGenerator instanceof StreamingLabelsFileGenerator) {
+			this.writeLabels((StreamingLabelsFileGenerator) labelsFileGenerator, FileType.getEnum(fileExtension), labelsGeneratorInput,
+				labelsData, response);
+			// The body is already written to the response
+			return new ResponseEntity<>(HttpStatus.OK);
+		}
 
-		labelPrintingStrategy.validateBarcode(labelsGeneratorInput, labelsData);
 		final File file;
 		try {
 			file = labelsFileGenerator.generate(labelsGeneratorInput, labelsData);
 		} catch (final IOException e) {
-			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
-			errors.reject("cannot.export.labelPrinting", "");
-			throw new ResourceNotFoundException(errors.getAllErrors().get(0));
+			throw this.cannotExportLabelsException();
 		}
 		final HttpHeaders headers = new HttpHeaders();
 		headers
@@ -151,6 +162,62 @@ public class LabelPrintingResource {
 		return new ResponseEntity<>(fileSystemResource, headers, HttpStatus.OK);
 	}
 
+	@RequestMapping(value = "/crops/{cropname}/programs/{programUUID}/labelPrinting/{labelPrintingType}/labels/{fileExtension}/jobs", method = RequestMethod.POST)
+	@ApiOperation(value = "Submit the export of the labels to a specified file type",
+		notes = "Submit the export of the labels as a job. The file can be downloaded from the job once it is completed.")
+	@ResponseBody
+	public ResponseEntity<JobDTO> submitLabelsFile(
+		@PathVariable final String cropname, @PathVariable final String programUUID,
+		@PathVariable final String labelPrintingType,
+		@PathVariable final String fileExtension,
+		@RequestBody final LabelsGeneratorInput labelsGeneratorInput) {
+
+		// Permissions and file type are checked before submitting, as they depend on the current request
+		final LabelPrintingStrategy labelPrintingStrategy = this.getLabelPrintingStrategy(labelPrintingType);
+		final LabelsFileGenerator labelsFileGenerator = this.getLabelsFileGenerator(fileExtension, labelPrintingStrategy);
+
+		final JobDTO job = this.jobService.submit(cropname, JobType.LABEL_PRINTING, progress -> {
+			final LabelsData labelsData = this.getLabelsData(labelPrintingStrategy, labelsGeneratorInput);
+			progress.setTotal(labelsData.getSize());
+			try {
+				return labelsFileGenerator.generate(labelsGeneratorInput, labelsData);
+			} catch (final IOException e) {
+				throw this.cannotExportLabelsException();
+			}
+		});
+		return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+	}
+
+	private void writeLabels(final StreamingLabelsFileGenerator labelsFileGenerator, final FileType fileType,
+		final LabelsGeneratorInput labelsGeneratorInput, final LabelsData labelsData, final HttpServletResponse response) {
+		final String fileName =
+			FileUtils.sanitizeFileName(String.format("%s.%s", labelsGeneratorInput.getFileName(), fileType.getExtension()));
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=%s", fileName));
+		response.setContentType(FileUtils.detectMimeType(fileName));
+		try {
+			labelsFileGenerator.generate(labelsGeneratorInput, labelsData, response.getOutputStream());
+			response.flushBuffer();
+		} catch (final IOException e) {
+			throw this.cannotExportLabelsException();
+		}
+	}
+
+	private LabelsData getLabelsData(final LabelPrintingStrategy labelPrintingStrategy, final LabelsGeneratorInput labelsGeneratorInput) {
+		labelPrintingStrategy.validateLabelsGeneratorInputData(labelsGeneratorInput);
+
+		labelsGeneratorInput.setAllAvailablefields(labelPrintingStrategy.getAllAvailableFields(labelsGeneratorInput));
+
+		final LabelsData labelsData = labelPrintingStrategy.getLabelsData(labelsGeneratorInput);
+
+		return labelPrintingStrategy.validateBarcode(labelsGeneratorInput, labelsData);
+	}
+
+	private ResourceNotFoundException cannotExportLabelsException() {
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+		errors.reject("cannot.export.labelPrinting", "");
+		return new ResourceNotFoundException(errors.getAllErrors().get(0));
+	}
+
 	public LabelPrintingStrategy getLabelPrintingStrategy(final String labelPrintingType) {
 		final LabelPrintingType labelPrintingTypeEnum = LabelPrintingType.getEnumByCode(labelPrintingType);
 
@@ -1,5 +1,6 @@
 package org.ibp.api.rest.labelprinting;
 
+import com.google.common.collect.Iterables;
 import org.apache.commons.lang3.StringUtils;
 import org.generationcp.commons.util.FileUtils;
 import org.generationcp.middleware.service.api.PedigreeService;
@@ -15,6 +16,7 @@ import org.ibp.api.rest.labelprinting.domain.LabelsNeededSummary;
 import org.ibp.api.rest.labelprinting.domain.LabelsNeededSummaryResponse;
 import org.ibp.api.rest.labelprinting.domain.OriginResourceMetadata;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.CollectionUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.MapBindingResult;
 
@@ -29,6 +31,9 @@ public abstract class LabelPrintingStrategy {
 
 	private static final int FILENAME_MAX_LENGTH = 100;
 
+	// Number of rows read at a time from the source of the labels
+	static final int LABELS_PAGE_SIZE = 1000;
+
 	@Autowired
 	private PedigreeService pedigreeService;
 
@@ -180,18 +185,24 @@ public abstract class LabelPrintingStrategy {
 		return pedigree;
 	}
 
-	void validateBarcode(final LabelsGeneratorInput labelsGeneratorInput, final LabelsData labelsData) {
-		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
-		if(!labelsGeneratorInput.isAutomaticBarcode()){
-			for (final Map<Integer, String> data:labelsData.getData()){
-				List<Integer> barcodeIds =
-					labelsGeneratorInput.getBarcodeFields().stream().filter(labelId -> StringUtils.isEmpty(data.get(labelId))).collect(
-						Collectors.toList());
-					if(!barcodeIds.isEmpty()){
-						errors.reject("label.fields.barcodes.selected.empty.value","");
-						throw new ApiRequestValidationException(errors.getAllErrors());
-					}
-			}
+	/**
+	 * Checks the selected barcode fields of every label. The labels can be read page by page, so the check is done while they are
+	 * read by the file generator instead of reading them once more beforehand.
+	 * @return the labels data whose rows are checked as they are read
+	 */
+	LabelsData validateBarcode(final LabelsGeneratorInput labelsGeneratorInput, final LabelsData labelsData) {
+		if (labelsGeneratorInput.isAutomaticBarcode() || CollectionUtils.isEmpty(labelsGeneratorInput.getBarcodeFields())) {
+			return labelsData;
 		}
+		final Iterable<Map<Integer, String>> data = Iterables.transform(labelsData.getData(), row -> {
+			final boolean emptyBarcode = labelsGeneratorInput.getBarcodeFields().stream().anyMatch(labelId -> StringUtils.isEmpty(row.get(labelId)));
+			if (emptyBarcode) {
+				final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+				errors.reject("label.fields.barcodes.selected.empty.value", "");
+				throw new ApiRequestValidationException(errors.getAllErrors());
+			}
+			return row;
+		});
+		return new LabelsData(labelsData.getDefaultBarcodeKey(), data, labelsData.getSize());
 	}
 }
@@ -0,0 +1,54 @@
+package org.ibp.api.rest.labelprinting;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Reads the source of the labels one page at a time, so that only the current page is kept in memory while the labels are written.
+ * Every iteration reads the pages again. The loader must return the pages in a stable order.
+ */
+class PagedIterable<T> implements Iterable<T> {
+
+	private final int pageSize;
+
+	private final IntFunction<List<T>> pageLoader;
+
+	/**
+	 * @param pageLoader returns the page with the given number (zero based) of at most pageSize elements
+	 */
+	PagedIterable(final int pageSize, final IntFunction<List<T>> pageLoader) {
+		this.pageSize = pageSize;
+		this.pageLoader = pageLoader;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+
+			private int pageNumber = 0;
+			private Iterator<T> page = Collections.emptyIterator();
+			private boolean lastPage = false;
+
+			@Override
+			public boolean hasNext() {
+				while (!this.page.hasNext() && !this.lastPage) {
+					final List<T> elements = PagedIterable.this.pageLoader.apply(this.pageNumber++);
+					this.lastPage = elements.size() < PagedIterable.this.pageSize;
+					this.page = elements.iterator();
+				}
+				return this.page.hasNext();
+			}
+
+			@Override
+			public T next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return this.page.next();
+			}
+		};
+	}
+}
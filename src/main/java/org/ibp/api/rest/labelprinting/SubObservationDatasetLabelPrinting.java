@@ -1,5 +1,7 @@
 package org.ibp.api.rest.labelprinting;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.lang3.StringUtils;
 import org.generationcp.commons.util.FileNameGenerator;
@@ -19,6 +21,8 @@ import org.generationcp.middleware.service.api.dataset.DatasetService;
 import org.generationcp.middleware.service.api.dataset.DatasetTypeService;
 import org.generationcp.middleware.service.api.dataset.ObservationUnitData;
 import org.generationcp.middleware.service.api.dataset.ObservationUnitRow;
+import org.generationcp.middleware.service.api.dataset.ObservationUnitsSearchDTO;
+import org.generationcp.middleware.service.impl.study.StudyInstance;
 import org.ibp.api.domain.common.LabelPrintingStaticField;
 import org.ibp.api.java.impl.middleware.dataset.validator.DatasetValidator;
 import org.ibp.api.java.impl.middleware.inventory.study.StudyTransactionsService;
@@ -35,13 +39,15 @@ import org.ibp.api.rest.labelprinting.domain.OriginResourceMetadata;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -92,9 +98,7 @@ public class SubObservationDatasetLabelPrinting extends LabelPrintingStrategy {
 	private static final String PARENT_OBS_UNIT_ID = "PARENT_OBS_UNIT_ID";
 	private static final String LOCATION_ID = "LOCATION_ID";
 	private static final String GID = "GID";
-	private static final String TRIAL_INSTANCE = "TRIAL_INSTANCE";
 	private static final String PLOT_NO = "PLOT_NO";
-	private static final String ENTRY_NO = "ENTRY_NO";
 
 	public static List<FileType> SUPPORTED_FILE_TYPES = Arrays.asList(FileType.CSV, FileType.PDF, FileType.XLS);
 
@@ -306,18 +310,13 @@ public class SubObservationDatasetLabelPrinting extends LabelPrintingStrategy {
 
 		final Map<String, String> gidPedigreeMap = new HashMap<>();
 
-		final List<ObservationUnitRow> observationUnitRows =
-			this.middlewareDatasetService.getAllObservationUnitRows(labelsGeneratorInput.getStudyId(), labelsGeneratorInput.getDatasetId());
+		final Map<Integer, String> studyVariableValues = this.getStudyVariableValues(labelsGeneratorInput.getStudyId());
 
-		Collections.sort(
-			observationUnitRows,
-			Comparator.comparing((ObservationUnitRow o) -> Integer.valueOf(o.getVariables().get(TRIAL_INSTANCE).getValue()))
-				.thenComparing(o -> Integer.valueOf(o.getVariables().get(PLOT_NO).getValue()))
-				.thenComparing(o -> Integer.valueOf(o.getVariables().get(ENTRY_NO).getValue())));
+		final Iterable<ObservationUnitRow> observationUnitRows =
+			this.getObservationUnitRows(labelsGeneratorInput.getStudyId(), labelsGeneratorInput.getDatasetId());
 
-		final List<Map<Integer, String>> results = new LinkedList<>();
-
-		for (final ObservationUnitRow observationUnitRow : observationUnitRows) {
+		// Data to be exported, built while the rows are read
+		final Iterable<Map<Integer, String>> results = Iterables.transform(observationUnitRows, observationUnitRow -> {
 			final Map<Integer, String> row = new HashMap<>();
 			for (final Integer requiredField : allRequiredKeys) {
 				final Field field = termIdFieldMap.get(requiredField);
@@ -352,6 +351,11 @@ public class SubObservationDatasetLabelPrinting extends LabelPrintingStrategy {
 						continue;
 					}
 
+					if (studyVariableValues.containsKey(requiredField)) {
+						row.put(requiredField, studyVariableValues.get(requiredField));
+						continue;
+					}
+
 				} else {
 					final String ObsUnitId = observationUnitRow.getVariables().get(PARENT_OBS_UNIT_ID).getValue();
 					StudyTransactionsDto studyTransactionsDto = null;
@@ -458,10 +462,44 @@ public class SubObservationDatasetLabelPrinting extends LabelPrintingStrategy {
 					}
 				}
 			}
-			results.add(row);
-		}
+			return row;
+		});
+
+		final long count =
+			this.middlewareDatasetService.countAllObservationUnitsForDataset(labelsGeneratorInput.getDatasetId(), null, false);
+		return new LabelsData(subObsDatasetUnitIdFieldKey, results, count);
+	}
+
+	/**
+	 * @return the rows of the dataset ordered by TRIAL_INSTANCE and PLOT_NO, read one page of an instance at a time. PLOT_NO is shared by
+	 * the sub-observation units of a plot, so the rows of a plot are ordered by OBS_UNIT_ID to keep the pages stable.
+	 */
+	private Iterable<ObservationUnitRow> getObservationUnitRows(final int studyId, final int datasetId) {
+		final List<StudyInstance> studyInstances = new ArrayList<>(this.middlewareDatasetService.getDatasetInstances(datasetId));
+		studyInstances.sort(Comparator.comparing(StudyInstance::getInstanceNumber));
+
+		return Iterables.concat(Lists.transform(studyInstances,
+			studyInstance -> this.getObservationUnitRows(studyId, datasetId, studyInstance.getInstanceId())));
+	}
+
+	private Iterable<ObservationUnitRow> getObservationUnitRows(final int studyId, final int datasetId, final Integer instanceId) {
+		final Sort sort = new Sort(Sort.Direction.ASC, PLOT_NO).and(new Sort(Sort.Direction.ASC, OBS_UNIT_ID));
+		return new PagedIterable<>(LABELS_PAGE_SIZE, page -> {
+			final ObservationUnitsSearchDTO searchDTO = new ObservationUnitsSearchDTO();
+			searchDTO.setInstanceId(instanceId);
+			return this.middlewareDatasetService
+				.getObservationUnitRows(studyId, datasetId, searchDTO, new PageRequest(page, LABELS_PAGE_SIZE, sort));
+		});
+	}
 
-		return new LabelsData(subObsDatasetUnitIdFieldKey, results);
+	/**
+	 * The values of the study details, which are the same for every row
+	 */
+	private Map<Integer, String> getStudyVariableValues(final int studyId) {
+		final Map<Integer, String> studyVariableValues = new HashMap<>();
+		this.middlewareDatasetService.getObservationSetVariables(studyId, Arrays.asList(VariableType.STUDY_DETAIL.getId()))
+			.forEach(variable -> studyVariableValues.put(variable.getTermId(), variable.getValue()));
+		return studyVariableValues;
 	}
 
 	@Override
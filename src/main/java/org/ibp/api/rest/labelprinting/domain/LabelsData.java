@@ -11,11 +11,22 @@ public class LabelsData {
 
 	private Integer defaultBarcodeKey;
 
-	private List<Map<Integer, String>> data;
+	/**
+	 * The rows of the labels. They can be read page by page from the database while the labels are written, so they should only be
+	 * iterated and not collected.
+	 */
+	private Iterable<Map<Integer, String>> data;
+
+	private long size;
 
 	public LabelsData(final Integer defaultBarcodeKey, final List<Map<Integer, String>> data) {
+		this(defaultBarcodeKey, data, data.size());
+	}
+
+	public LabelsData(final Integer defaultBarcodeKey, final Iterable<Map<Integer, String>> data, final long size) {
 		this.defaultBarcodeKey = defaultBarcodeKey;
 		this.data = data;
+		this.size = size;
 	}
 
 	public Integer getDefaultBarcodeKey() {
@@ -26,14 +37,22 @@ public class LabelsData {
 		this.defaultBarcodeKey = defaultBarcodeKey;
 	}
 
-	public List<Map<Integer, String>> getData() {
+	public Iterable<Map<Integer, String>> getData() {
 		return data;
 	}
 
-	public void setData(final List<Map<Integer, String>> data) {
+	public void setData(final Iterable<Map<Integer, String>> data) {
 		this.data = data;
 	}
 
+	public long getSize() {
+		return size;
+	}
+
+	public void setSize(final long size) {
+		this.size = size;
+	}
+
 	@Override
 	public int hashCode() {
 		return Pojomatic.hashCode(this);
@@ -5,6 +5,7 @@ import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 import liquibase.util.StringUtils;
 import org.generationcp.commons.util.FileUtils;
+import org.ibp.api.java.job.JobProgress;
 import org.ibp.api.rest.labelprinting.domain.Field;
 import org.ibp.api.rest.labelprinting.domain.LabelsData;
 import org.ibp.api.rest.labelprinting.domain.LabelsGeneratorInput;
@@ -15,7 +16,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -41,16 +41,17 @@ public class CSVLabelsFileGenerator implements LabelsFileGenerator {
 			final Map<Integer, Field> keyFieldMap = Maps.uniqueIndex(labelsGeneratorInput.getAllAvailablefields(), Field::getId);
 
 			final File newFile = new File(fileNameFullPath);
-			// feed in your array (or convert your data to an array)
-			final List<String[]> rowValues = new ArrayList<>();
 
 			if (labelsGeneratorInput.isIncludeHeadings()) {
-				rowValues.add(this.getHeaderNames(labelsGeneratorInput, keyFieldMap).toArray(new String[] {}));
+				csvWriter.writeNext(this.getHeaderNames(labelsGeneratorInput, keyFieldMap).toArray(new String[] {}));
 			}
 
-			labelsData.getData().forEach(
-					labels -> rowValues.add(this.getColumnValues(labels, labelsGeneratorInput, labelsData.getDefaultBarcodeKey())));
-			csvWriter.writeAll(rowValues);
+			// Rows are written as they are read, so that the labels are not kept in memory
+			final JobProgress progress = JobProgress.current();
+			labelsData.getData().forEach(labels -> {
+				csvWriter.writeNext(this.getColumnValues(labels, labelsGeneratorInput, labelsData.getDefaultBarcodeKey()));
+				progress.increment();
+			});
 			return newFile;
 		}
 	}
@@ -9,6 +9,7 @@ import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.generationcp.commons.util.FileUtils;
+import org.ibp.api.java.job.JobProgress;
 import org.ibp.api.rest.common.FileType;
 import org.ibp.api.rest.labelprinting.domain.Field;
 import org.ibp.api.rest.labelprinting.domain.LabelsData;
@@ -62,7 +63,9 @@ public class ExcelLabelsFileGenerator implements LabelsFileGenerator {
 
 		// values
 
+		final JobProgress progress = JobProgress.current();
 		for (final Map<Integer, String> dataRow : labelsData.getData()) {
+			progress.increment();
 			final HSSFRow row = sheet.createRow(rowIndex);
 
 			int colIndex = 0;
@@ -4,7 +4,6 @@ import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.oned.Code128Writer;
 import com.lowagie.text.BadElementException;
@@ -21,8 +20,10 @@ import com.lowagie.text.pdf.BaseFont;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.generationcp.commons.util.FileUtils;
+import org.ibp.api.java.job.JobProgress;
 import org.ibp.api.rest.common.FileType;
 import org.ibp.api.rest.labelprinting.domain.Field;
 import org.ibp.api.rest.labelprinting.domain.LabelsData;
@@ -38,12 +39,13 @@ import java.awt.*;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Component
-public class PDFLabelsFileGenerator implements LabelsFileGenerator {
+public class PDFLabelsFileGenerator implements StreamingLabelsFileGenerator {
 
 	private static final Logger LOG = LoggerFactory.getLogger(PDFLabelsFileGenerator.class);
 	private static final String UNSUPPORTED_CHARSET_IMG = "unsupported-char-set.png";
@@ -54,6 +56,9 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 	public static final String FIELDNAME_VALUE_SEPARATOR = " : ";
 	public static final String BARCODE_SEPARATOR = " | ";
 	public static final int BARCODE_LABEL_LIMIT = 79;
+	static final int BARCODE_IMAGE_CACHE_SIZE = 1000;
+
+	private static volatile BaseFont unicodeFont;
 
 	@Autowired
 	private LabelPaperFactory labelPaperFactory;
@@ -64,18 +69,38 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 		final String sanitizedFileName = FileUtils.sanitizeFileName(String.format("%s." + FileType.PDF.getExtension(), labelsGeneratorInput.getFileName()));
 
 		final String fileNameFullPath = temporaryFolder.getAbsolutePath() + File.separator + sanitizedFileName;
+
+		final File file = new File(fileNameFullPath);
+		try (final FileOutputStream fileOutputStream = new FileOutputStream(fileNameFullPath)) {
+			this.generate(labelsGeneratorInput, labelsData, fileOutputStream);
+		} catch (final IOException e) {
+			LOG.error(e.getMessage());
+		}
+
+		return file;
+	}
+
+	/**
+	 * Writes the labels pdf to the given stream. Pages are handed to the stream as soon as they are complete,
+	 * so the document is never held in memory nor written to disk
+	 * @param labelsGeneratorInput labels configuration
+	 * @param labelsData labels to print
+	 * @param outputStream destination of the pdf, it is not closed
+	 */
+	@Override
+	public void generate(final LabelsGeneratorInput labelsGeneratorInput, final LabelsData labelsData, final OutputStream outputStream)
+		throws IOException {
 		final Map<Integer, Field> keyFieldMap = Maps.uniqueIndex(labelsGeneratorInput.getAllAvailablefields(), Field::getId);
 
 		final int pageSizeId = Integer.parseInt(labelsGeneratorInput.getSizeOfLabelSheet());
 		final int numberOfLabelPerRow = LabelsGeneratorInput.LABEL_PER_ROW;
 		final int numberOfRowsPerPageOfLabel = Integer.parseInt(labelsGeneratorInput.getNumberOfRowsPerPageOfLabel());
 		final int totalPerPage = numberOfLabelPerRow * numberOfRowsPerPageOfLabel;
-		final FileOutputStream fileOutputStream = new FileOutputStream(fileNameFullPath);
 
-		final File file = new File(fileNameFullPath);
 		try {
 			final LabelPaper paper = this.labelPaperFactory.generateLabelPaper(numberOfLabelPerRow, numberOfRowsPerPageOfLabel, pageSizeId);
-			final Document document = this.getDocument(fileOutputStream, paper, pageSizeId);
+			// Closing the document closes its stream, the caller's stream is shielded so that it can keep writing to it
+			final Document document = this.getDocument(new CloseShieldOutputStream(outputStream), paper, pageSizeId);
 
 			int i = 0;
 			final int fixTableRowSize = numberOfLabelPerRow;
@@ -85,10 +110,17 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 			table.setWidths(widthColumns);
 			table.setWidthPercentage(100);
 
-			final List<File> filesToBeDeleted = new ArrayList<>();
+			final Map<String, Image> barcodeImages = this.createBarcodeImageCache();
 			final float cellHeight = paper.getCellHeight();
-			final List<Map<Integer, String>> data = labelsData.getData();
-			for(final Map<Integer, String> labels: data) {
+
+			final BaseFont unicode = getUnicodeFont();
+			final Font fontNormal = new Font(unicode, paper.getFontSize());
+			fontNormal.setStyle(Font.NORMAL);
+			final Font fontNormalData = new Font(unicode, 5.0f);
+
+			final JobProgress progress = JobProgress.current();
+			for (final Map<Integer, String> labels : labelsData.getData()) {
+				progress.increment();
 				i++;
 				String barcodeLabelForCode = "";
 				String barcodeLabel = "";
@@ -115,7 +147,7 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 				innerImageTableInfo.setWidthPercentage(82);
 				final PdfPCell cellImage = new PdfPCell();
 				if (labelsGeneratorInput.isBarcodeRequired()) {
-					final Image mainImage = this.getBarcodeImage(filesToBeDeleted, barcodeLabelForCode);
+					final Image mainImage = this.getBarcodeImage(barcodeImages, barcodeLabelForCode);
 					cellImage.addElement(mainImage);
 				} else {
 					cellImage.addElement(new Paragraph(" "));
@@ -126,13 +158,6 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 
 				innerImageTableInfo.addCell(cellImage);
 
-				final float fontSize = paper.getFontSize();
-
-				final BaseFont unicode = BaseFont.createFont(ARIAL_UNI, BaseFont.IDENTITY_H, BaseFont
-					.EMBEDDED);
-				final com.lowagie.text.Font fontNormal = new com.lowagie.text.Font(unicode, fontSize);
-				fontNormal.setStyle(com.lowagie.text.Font.NORMAL);
-
 				cell.addElement(innerImageTableInfo);
 				cell.addElement(new Paragraph());
 				for (int row = 0; row < 5; row++) {
@@ -141,9 +166,6 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 						innerDataTableInfo.setWidths(new float[] {1});
 						innerDataTableInfo.setWidthPercentage(85);
 
-						final com.lowagie.text.Font fontNormalData = new com.lowagie.text.Font(unicode, 5.0f);
-						fontNormal.setStyle(Font.NORMAL);
-
 						final PdfPCell cellInnerData = new PdfPCell(new Phrase(barcodeLabel, fontNormalData));
 
 						cellInnerData.setBorder(Rectangle.NO_BORDER);
@@ -222,15 +244,9 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 			this.addLastRow(numberOfLabelPerRow, numberOfRowsPerPageOfLabel, paper, document, i, fixTableRowSize,
 				table, widthColumns);
 			document.close();
-			for (final File fileTobeDeleted : filesToBeDeleted) {
-				fileTobeDeleted.delete();
-			}
-			fileOutputStream.close();
-		} catch (final Exception e) {
-			LOG.error(e.getMessage());
+		} catch (final DocumentException e) {
+			throw new IOException(e.getMessage(), e);
 		}
-
-		return file;
 	}
 
 	String getBarcodeLabel(final Map<Integer, String> labels, final List<Integer> barcodeFields, final Map<Integer, Field> keyFieldMap, final boolean includeLabel) {
@@ -313,7 +329,7 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 		}
 	}
 
-	Document getDocument(final FileOutputStream fileOutputStream, final LabelPaper paper, final int pageSizeId) throws
+	Document getDocument(final OutputStream outputStream, final LabelPaper paper, final int pageSizeId) throws
 		DocumentException {
 
 		Rectangle pageSize = PageSize.LETTER;
@@ -327,7 +343,7 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 		// float marginLeft, float marginRight, float marginTop, float marginBottom
 		document.setMargins(paper.getMarginLeft(), paper.getMarginRight(), paper.getMarginTop(), paper.getMarginBottom());
 
-		PdfWriter.getInstance(document, fileOutputStream);
+		PdfWriter.getInstance(document, outputStream);
 
 		// step 3
 		document.open();
@@ -343,27 +359,71 @@ public class PDFLabelsFileGenerator implements LabelsFileGenerator {
 		return widthColumns;
 	}
 
-	com.lowagie.text.Image getBarcodeImage(final java.util.List<File> filesToBeDeleted, final String barcodeLabelForCode)
-		throws BadElementException, IOException {
-		FileOutputStream fout = null;
+	/**
+	 * The embedded unicode font is loaded once per JVM and shared by every generated document
+	 * @return arial unicode base font
+	 */
+	static BaseFont getUnicodeFont() throws DocumentException, IOException {
+		if (unicodeFont == null) {
+			synchronized (PDFLabelsFileGenerator.class) {
+				if (unicodeFont == null) {
+					unicodeFont = BaseFont.createFont(ARIAL_UNI, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+				}
+			}
+		}
+		return unicodeFont;
+	}
 
-		com.lowagie.text.Image mainImage = com.lowagie.text.Image.getInstance(PDFLabelsFileGenerator.class.getClassLoader().getResource(UNSUPPORTED_CHARSET_IMG));
+	/**
+	 * Bounded LRU cache of barcode images for a single document. Reusing the same image instance
+	 * also makes iText write the image only once in the pdf
+	 * @return barcode image cache keyed by barcode label
+	 */
+	Map<String, Image> createBarcodeImageCache() {
+		return new LinkedHashMap<String, Image>(16, 0.75f, true) {
 
-		final BitMatrix bitMatrix = this.encodeBarcode(barcodeLabelForCode);
-		if (bitMatrix != null) {
-			final String imageLocation = System.getProperty("user.home") + "/" + Math.random() + ".png";
-			final File imageFile = new File(imageLocation);
-			fout = new FileOutputStream(imageFile);
-			MatrixToImageWriter.writeToStream(bitMatrix, "png", fout);
-			filesToBeDeleted.add(imageFile);
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Image> eldest) {
+				return this.size() > BARCODE_IMAGE_CACHE_SIZE;
+			}
+		};
+	}
 
-			mainImage = com.lowagie.text.Image.getInstance(imageLocation);
+	Image getBarcodeImage(final Map<String, Image> barcodeImages, final String barcodeLabelForCode)
+		throws BadElementException, IOException {
+		final String key = StringUtils.defaultString(barcodeLabelForCode);
+		Image mainImage = barcodeImages.get(key);
+		if (mainImage == null) {
+			final BitMatrix bitMatrix = this.encodeBarcode(barcodeLabelForCode);
+			if (bitMatrix != null) {
+				mainImage = this.toImage(bitMatrix);
+			} else {
+				mainImage = Image.getInstance(PDFLabelsFileGenerator.class.getClassLoader().getResource(UNSUPPORTED_CHARSET_IMG));
+			}
+			barcodeImages.put(key, mainImage);
 		}
+		return mainImage;
+	}
 
-		if (fout != null) {
-			fout.flush();
-			fout.close();
+	/**
+	 * Rasterise the barcode straight into a 1-bit grayscale image, without going through a png file
+	 * @param bitMatrix encoded barcode
+	 * @return barcode image
+	 */
+	Image toImage(final BitMatrix bitMatrix) throws BadElementException {
+		final int width = bitMatrix.getWidth();
+		final int height = bitMatrix.getHeight();
+		final int bytesPerRow = (width + 7) / 8;
+		final byte[] data = new byte[bytesPerRow * height];
+		for (int y = 0; y < height; y++) {
+			final int rowOffset = y * bytesPerRow;
+			for (int x = 0; x < width; x++) {
+				// In 1-bit gray 0 is black and 1 is white, set bits are the spaces between bars
+				if (!bitMatrix.get(x, y)) {
+					data[rowOffset + (x >> 3)] |= (byte) (0x80 >>> (x & 7));
+				}
+			}
 		}
-		return mainImage;
+		return Image.getInstance(width, height, 1, 1, data);
 	}
 }
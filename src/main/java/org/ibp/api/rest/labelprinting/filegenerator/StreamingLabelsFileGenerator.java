@@ -0,0 +1,20 @@
+package org.ibp.api.rest.labelprinting.filegenerator;
+
+import org.ibp.api.rest.labelprinting.domain.LabelsData;
+import org.ibp.api.rest.labelprinting.domain.LabelsGeneratorInput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Generator that can write the labels straight to a stream while they are read, without going through a temporary file.
+ */
+public interface StreamingLabelsFileGenerator extends LabelsFileGenerator {
+
+	/**
+	 * @param outputStream destination of the labels file, it is not closed
+	 */
+	void generate(final LabelsGeneratorInput labelsGeneratorInput, final LabelsData labelsData, final OutputStream outputStream)
+		throws IOException;
+
+}
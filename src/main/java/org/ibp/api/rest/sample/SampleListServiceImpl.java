@@ -5,6 +5,7 @@ import org.generationcp.commons.constant.AppConstants;
 import org.generationcp.commons.pojo.treeview.TreeNode;
 import org.generationcp.commons.util.DateUtil;
 import org.generationcp.commons.util.TreeViewUtil;
+import org.generationcp.middleware.ContextHolder;
 import org.generationcp.middleware.api.program.ProgramDTO;
 import org.generationcp.middleware.domain.sample.SampleDTO;
 import org.generationcp.middleware.domain.sample.SampleDetailsDTO;
@@ -16,6 +17,7 @@ import org.generationcp.middleware.service.impl.study.SamplePlateInfo;
 import org.ibp.api.Util;
 import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.exception.ResourceNotFoundException;
+import org.ibp.api.java.impl.middleware.common.ListTreeCache;
 import org.ibp.api.java.impl.middleware.common.validator.BaseValidator;
 import org.ibp.api.java.impl.middleware.common.validator.ProgramValidator;
 import org.ibp.api.java.impl.middleware.security.SecurityService;
@@ -59,6 +61,9 @@ public class SampleListServiceImpl implements SampleListService {
 	@Autowired
 	private ProgramValidator programValidator;
 
+	@Autowired
+	private ListTreeCache listTreeCache;
+
 	@Override
 	public Map<String, Object> createSampleList(final SampleListDto sampleListDto) {
 
@@ -69,6 +74,7 @@ public class SampleListServiceImpl implements SampleListService {
 
 		final Integer newSampleId = this.sampleListServiceMW.createSampleList(sampleListDtoMW).getId();
 		mapResponse.put(ID, String.valueOf(newSampleId));
+		this.invalidateListTreeNodes(sampleListDto.getProgramUUID(), sampleListDto.getParentId());
 
 		return mapResponse;
 	}
@@ -93,6 +99,7 @@ public class SampleListServiceImpl implements SampleListService {
 		final WorkbenchUser createdBy = this.securityService.getCurrentlyLoggedInUser();
 		final Integer result = this.sampleListServiceMW.createSampleListFolder(folderName, parentId, createdBy.getName(), programUUID);
 		mapResponse.put("id", String.valueOf(result));
+		this.invalidateListTreeNodes(programUUID, parentId);
 		return mapResponse;
 	}
 
@@ -112,6 +119,7 @@ public class SampleListServiceImpl implements SampleListService {
 		final HashMap<String, Object> mapResponse = new HashMap<>();
 		final SampleList result = this.sampleListServiceMW.updateSampleListFolderName(folderId, newFolderName);
 		mapResponse.put("id", String.valueOf(result.getId()));
+		this.invalidateListTreeNodes(ContextHolder.getCurrentProgram(), folderId);
 		return mapResponse;
 	}
 
@@ -133,9 +141,11 @@ public class SampleListServiceImpl implements SampleListService {
 		this.sampleListValidator.validateFolderIdAndProgram(folderId);
 		this.sampleListValidator.validateFolderId(newParentId);
 
+		final Integer previousParentId = this.getParentId(folderId);
 		final HashMap<String, Object> mapResponse = new HashMap<>();
 		final SampleList result = this.sampleListServiceMW.moveSampleList(folderId, newParentId, isCropList, programUUID);
 		mapResponse.put(PARENT_ID, String.valueOf(result.getHierarchy().getId()));
+		this.invalidateListTreeNodes(programUUID, folderId, previousParentId, newParentId);
 		return mapResponse;
 	}
 
@@ -147,7 +157,9 @@ public class SampleListServiceImpl implements SampleListService {
 	@Override
 	public void deleteSampleListFolder(final Integer folderId) {
 		this.sampleListValidator.validateFolderIdAndProgram(folderId);
+		final Integer parentId = this.getParentId(folderId);
 		this.sampleListServiceMW.deleteSampleListFolder(folderId);
+		this.invalidateListTreeNodes(ContextHolder.getCurrentProgram(), folderId, parentId);
 	}
 
 	@Override
@@ -183,6 +195,11 @@ public class SampleListServiceImpl implements SampleListService {
 		this.validateParentId(parentId, programUUID, errors);
 		BaseValidator.checkNotNull(folderOnly, "list.folder.only");
 
+		return this.listTreeCache.getChildrenNodes(ListTreeCache.SAMPLE_LISTS, programUUID, parentId, folderOnly,
+			() -> this.loadSampleListChildrenNodes(programUUID, parentId, folderOnly));
+	}
+
+	private List<TreeNode> loadSampleListChildrenNodes(final String programUUID, final String parentId, final Boolean folderOnly) {
 		final List<TreeNode> treeNodes = new ArrayList<>();
 		if (parentId == null) {
 			final TreeNode cropFolderNode = new TreeNode(SampleListServiceImpl.CROP_LISTS, AppConstants.CROP_LISTS.getString(), true, LEAD_CLASS,
@@ -277,6 +294,27 @@ public class SampleListServiceImpl implements SampleListService {
 		return map;
 	}
 
+	private Integer getParentId(final Integer sampleListId) {
+		final SampleList sampleList = this.sampleListServiceMW.getSampleList(sampleListId);
+		return sampleList != null && sampleList.getHierarchy() != null ? sampleList.getHierarchy().getId() : null;
+	}
+
+	/**
+	 * Invalidates the list tree levels that show the given sample lists. The lists at the top of the tree are in a root folder that is
+	 * not a node of the tree (zero for the requests), so the crop and program folders are always invalidated as well.
+	 */
+	private void invalidateListTreeNodes(final String programUUID, final Integer... sampleListIds) {
+		final List<String> nodeIds = new ArrayList<>();
+		nodeIds.add(CROP_LISTS);
+		nodeIds.add(PROGRAM_LISTS);
+		for (final Integer sampleListId : sampleListIds) {
+			if (sampleListId != null && sampleListId != 0) {
+				nodeIds.add(String.valueOf(sampleListId));
+			}
+		}
+		this.listTreeCache.invalidateNodes(ListTreeCache.SAMPLE_LISTS, programUUID, nodeIds.toArray(new String[0]));
+	}
+
 	private void validateParentId(final String parentId, final String programUUID, final BindingResult errors) {
 		if (parentId != null && !PROGRAM_LISTS.equals(parentId) && !CROP_LISTS.equals(parentId) && !Util.isPositiveInteger(parentId)) {
 			errors.reject("list.parent.id.invalid", "");
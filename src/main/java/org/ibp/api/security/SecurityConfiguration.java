@@ -1,7 +1,9 @@
 package org.ibp.api.security;
 
 import org.generationcp.middleware.pojos.workbench.Role;
+import org.ibp.api.java.impl.middleware.common.ContextResolver;
 import org.ibp.api.security.xauth.TokenProvider;
+import org.ibp.api.security.xauth.XAuthTokenCache;
 import org.ibp.api.security.xauth.XAuthTokenConfigurer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -35,6 +37,12 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 	@Autowired
 	private TokenProvider tokenProvider;
 
+	@Autowired
+	private ContextResolver contextResolver;
+
+	@Autowired
+	private XAuthTokenCache tokenCache;
+
 	/**
 	 * Workbench uses BCrypt password encryption.
 	 */
@@ -84,6 +92,6 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 	}
 
 	private XAuthTokenConfigurer securityConfigurerAdapter() {
-		return new XAuthTokenConfigurer(this.userDetailsService, this.tokenProvider);
+		return new XAuthTokenConfigurer(this.userDetailsService, this.tokenProvider, this.contextResolver, this.tokenCache);
 	}
 }
@@ -50,6 +50,11 @@ public class TokenProvider {
 		return parts[0];
 	}
 
+	public long getExpiresFromToken(final String authToken) {
+		final String[] parts = authToken.split(":");
+		return Long.parseLong(parts[1]);
+	}
+
 	public boolean validateToken(final String authToken, final UserDetails userDetails) {
 		final String[] parts = authToken.split(":");
 		final long expires = Long.parseLong(parts[1]);
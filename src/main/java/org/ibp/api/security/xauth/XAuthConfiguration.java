@@ -30,4 +30,11 @@ public class XAuthConfiguration implements EnvironmentAware {
 		final int validityInSeconds = this.propertyResolver.getProperty("tokenValidityInSeconds", Integer.class, 21600);
 		return new TokenProvider(secret, validityInSeconds);
 	}
+
+	@Bean
+	public XAuthTokenCache xAuthTokenCache() {
+		final long maxSize = this.propertyResolver.getProperty("cache.maxSize", Long.class, 10000L);
+		final long ttlInSeconds = this.propertyResolver.getProperty("cache.ttlInSeconds", Long.class, 300L);
+		return new XAuthTokenCache(maxSize, ttlInSeconds);
+	}
 }
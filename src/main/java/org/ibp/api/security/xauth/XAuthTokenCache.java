@@ -0,0 +1,142 @@
+package org.ibp.api.security.xauth;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the {@link UserDetails} of tokens that were already validated, so that requests polling with the same token do not load the user
+ * and its permissions from the workbench database every time. Authorities depend on the crop and program of the request, so entries are
+ * keyed by token, crop and program. Entries are evicted after {@code authentication.xauth.cache.ttlInSeconds}, or when the token itself
+ * expires, and must be invalidated when users, roles or permissions change. The cache only saves loading the user: the signature of the
+ * token is still checked against the cached user on every request.
+ */
+// **Important note for developers** : This class is central to the authentication framework of BMSAPI. Please do not alter it without a
+// good understanding of Spring Security in general and BMS X-Auth-Token based authentication workflow in particular, otherwise there will
+// be MAJOR breakages in the functioning of BMS components. Consult your friendly senior developer first if you are unsure.
+public class XAuthTokenCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(XAuthTokenCache.class);
+
+	private final Cache<Key, Entry> cache;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	public XAuthTokenCache(final long maxSize, final long ttlInSeconds) {
+		this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS).build();
+	}
+
+	/**
+	 * @return the validated user details of the token for the given crop and program, or null if they have to be loaded again
+	 */
+	public UserDetails get(final String token, final String cropName, final String programUUID) {
+		final Key key = new Key(token, cropName, programUUID);
+		final Entry entry = this.cache.getIfPresent(key);
+		if (entry == null) {
+			this.misses.incrementAndGet();
+			return null;
+		}
+		if (entry.tokenExpires < System.currentTimeMillis()) {
+			this.cache.invalidate(key);
+			this.misses.incrementAndGet();
+			return null;
+		}
+		this.hits.incrementAndGet();
+		return entry.userDetails;
+	}
+
+	public void put(final String token, final String cropName, final String programUUID, final UserDetails userDetails,
+		final long tokenExpires) {
+		this.cache.put(new Key(token, cropName, programUUID), new Entry(userDetails, tokenExpires));
+	}
+
+	/**
+	 * Removes the entry of the token for the given crop and program, e.g. when its signature no longer matches the cached user.
+	 */
+	public void invalidate(final String token, final String cropName, final String programUUID) {
+		this.cache.invalidate(new Key(token, cropName, programUUID));
+	}
+
+	/**
+	 * Removes the entries of all the tokens of the given user, e.g. after its roles were changed.
+	 */
+	public void invalidateUser(final String username) {
+		final Iterator<Entry> iterator = this.cache.asMap().values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().userDetails.getUsername().equalsIgnoreCase(username)) {
+				iterator.remove();
+			}
+		}
+		LOG.debug("Token cache invalidated for user {}. Hits: {}, misses: {}", username, this.hits.get(), this.misses.get());
+	}
+
+	/**
+	 * Removes all the entries, e.g. after the permissions of a role were changed.
+	 */
+	public void invalidateAll() {
+		this.cache.invalidateAll();
+		LOG.debug("Token cache invalidated. Hits: {}, misses: {}", this.hits.get(), this.misses.get());
+	}
+
+	public long getHitCount() {
+		return this.hits.get();
+	}
+
+	public long getMissCount() {
+		return this.misses.get();
+	}
+
+	public long size() {
+		return this.cache.size();
+	}
+
+	private static final class Key {
+
+		private final String token;
+		private final String cropName;
+		private final String programUUID;
+
+		Key(final String token, final String cropName, final String programUUID) {
+			this.token = token;
+			this.cropName = cropName == null ? "" : cropName.toLowerCase();
+			this.programUUID = programUUID == null ? "" : programUUID.toLowerCase();
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			final Key key = (Key) o;
+			return this.token.equals(key.token) && this.cropName.equals(key.cropName) && this.programUUID.equals(key.programUUID);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.token, this.cropName, this.programUUID);
+		}
+	}
+
+	private static final class Entry {
+
+		private final UserDetails userDetails;
+		private final long tokenExpires;
+
+		Entry(final UserDetails userDetails, final long tokenExpires) {
+			this.userDetails = userDetails;
+			this.tokenExpires = tokenExpires;
+		}
+	}
+}
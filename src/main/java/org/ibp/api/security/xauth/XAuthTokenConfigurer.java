@@ -1,6 +1,7 @@
 
 package org.ibp.api.security.xauth;
 
+import org.ibp.api.java.impl.middleware.common.ContextResolver;
 import org.springframework.security.config.annotation.SecurityConfigurerAdapter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,14 +17,21 @@ public class XAuthTokenConfigurer extends SecurityConfigurerAdapter<DefaultSecur
 
 	private final UserDetailsService detailsService;
 
-	public XAuthTokenConfigurer(final UserDetailsService detailsService, final TokenProvider tokenProvider) {
+	private final ContextResolver contextResolver;
+
+	private final XAuthTokenCache tokenCache;
+
+	public XAuthTokenConfigurer(final UserDetailsService detailsService, final TokenProvider tokenProvider,
+		final ContextResolver contextResolver, final XAuthTokenCache tokenCache) {
 		this.detailsService = detailsService;
 		this.tokenProvider = tokenProvider;
+		this.contextResolver = contextResolver;
+		this.tokenCache = tokenCache;
 	}
 
 	@Override
 	public void configure(final HttpSecurity http) throws Exception {
-		final XAuthTokenFilter customFilter = new XAuthTokenFilter(this.detailsService, this.tokenProvider);
+		final XAuthTokenFilter customFilter = new XAuthTokenFilter(this.detailsService, this.tokenProvider, this.contextResolver, this.tokenCache);
 		http.addFilterBefore(customFilter, UsernamePasswordAuthenticationFilter.class);
 	}
 }
@@ -4,6 +4,7 @@ package org.ibp.api.security.xauth;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.ibp.api.domain.common.ErrorResponse;
 import org.ibp.api.java.impl.middleware.common.ContextResolutionException;
+import org.ibp.api.java.impl.middleware.common.ContextResolver;
 import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -21,7 +22,9 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
- * Filters incoming requests and installs a Spring Security principal if a header corresponding to a valid user is found.
+ * Filters incoming requests and installs a Spring Security principal if a header corresponding to a valid user is found. The users of
+ * validated tokens are kept in the {@link XAuthTokenCache} for the crop and program of the request, and the token is validated again
+ * against the cached user on every request.
  */
 // **Important note for developers** : This class is central to the authentication framework of BMSAPI. Please do not alter it without a
 // good understanding of Spring Security in general and BMS X-Auth-Token based authentication workflow in particular, otherwise there will
@@ -38,9 +41,16 @@ public class XAuthTokenFilter extends GenericFilterBean {
 
 	private final TokenProvider tokenProvider;
 
-	public XAuthTokenFilter(final UserDetailsService detailsService, final TokenProvider tokenProvider) {
+	private final ContextResolver contextResolver;
+
+	private final XAuthTokenCache tokenCache;
+
+	public XAuthTokenFilter(final UserDetailsService detailsService, final TokenProvider tokenProvider,
+		final ContextResolver contextResolver, final XAuthTokenCache tokenCache) {
 		this.detailsService = detailsService;
 		this.tokenProvider = tokenProvider;
+		this.contextResolver = contextResolver;
+		this.tokenCache = tokenCache;
 	}
 
 	@Override
@@ -64,9 +74,26 @@ public class XAuthTokenFilter extends GenericFilterBean {
 			}
 
 			if (StringUtils.hasText(authToken)) {
-				final String username = this.tokenProvider.getUserNameFromToken(authToken);
-				final UserDetails details = this.detailsService.loadUserByUsername(username);
-				if (this.tokenProvider.validateToken(authToken, details)) {
+				// Resolving the context also validates the crop and program and sets them for the request, even if the token is cached
+				final String cropName = this.contextResolver.resolveCropNameFromUrl();
+				final String programUUID = this.contextResolver.resolveProgramUuidFromRequest();
+
+				UserDetails details = this.tokenCache.get(authToken, cropName, programUUID);
+				// The signature is checked on every request, so a token signed with an outdated password or secret is never taken from
+				// the cache
+				if (details != null && !this.tokenProvider.validateToken(authToken, details)) {
+					this.tokenCache.invalidate(authToken, cropName, programUUID);
+					details = null;
+				}
+				if (details == null) {
+					final String username = this.tokenProvider.getUserNameFromToken(authToken);
+					final UserDetails loadedDetails = this.detailsService.loadUserByUsername(username);
+					if (this.tokenProvider.validateToken(authToken, loadedDetails)) {
+						this.tokenCache.put(authToken, cropName, programUUID, loadedDetails, this.tokenProvider.getExpiresFromToken(authToken));
+						details = loadedDetails;
+					}
+				}
+				if (details != null) {
 					final UsernamePasswordAuthenticationToken token =
 						new UsernamePasswordAuthenticationToken(details, details.getPassword(), details.getAuthorities());
 					SecurityContextHolder.getContext().setAuthentication(token);
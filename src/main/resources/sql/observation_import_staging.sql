@@ -0,0 +1,25 @@
+-- Staging tables of the BrAPI observation import sessions, see ObservationImportStaging. Created in each crop database.
+
+create table if not exists observation_import_session (
+	session_id varchar(36) not null,
+	study_id int not null,
+	username varchar(255),
+	created_date timestamp not null default current_timestamp,
+	last_updated_date timestamp not null default current_timestamp,
+	committed tinyint(1) not null default 0,
+	primary key (session_id),
+	key observation_import_session_username (username, committed),
+	key observation_import_session_last_updated (last_updated_date)
+) engine = InnoDB;
+
+create table if not exists observation_import_batch (
+	session_id varchar(36) not null,
+	sequence_number int not null,
+	observation_count int not null,
+	-- The observations of the batch as JSON, read back when the batch is committed
+	observations longtext not null,
+	committed tinyint(1) not null default 0,
+	primary key (session_id, sequence_number),
+	constraint fk_observation_import_batch_session foreign key (session_id) references observation_import_session (session_id)
+		on delete cascade
+) engine = InnoDB;
@@ -28,6 +28,7 @@ import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -36,6 +37,7 @@ import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.hasValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
 public class StudyResourceBrapiTest extends ApiUnitTestBase {
@@ -281,6 +283,37 @@ public class StudyResourceBrapiTest extends ApiUnitTestBase {
 
 	}
 
+	@Test
+	public void testGetStudyObservationsAsTableCSVMultipleRows() throws Exception {
+
+		final int trialDbId = current().nextInt();
+		final int studyDbId = current().nextInt();
+
+		final List<List<String>> data = new ArrayList<>();
+		final StringBuilder expected = new StringBuilder("ENTRY_NO,PLOT_NO,Height|20001\n");
+		for (int i = 1; i <= 100; i++) {
+			data.add(ImmutableList.of(String.valueOf(i), String.valueOf(i + 100), "1,5"));
+			expected.append(i).append(',').append(i + 100).append(",\"1,5\"\n");
+		}
+
+		final TrialObservationTable observationTable =
+			new TrialObservationTable().setStudyDbId(studyDbId).setObservationVariableDbIds(Collections.singletonList(20001))
+				.setObservationVariableNames(Collections.singletonList("Height")).setData(data);
+		observationTable.setHeaderRow(ImmutableList.of("ENTRY_NO", "PLOT_NO"));
+
+		Mockito.when(this.studyServiceMW.getTrialObservationTable(trialDbId, studyDbId)).thenReturn(observationTable);
+		Mockito.when(this.studyDataManager.getProjectIdByStudyDbId(studyDbId)).thenReturn(trialDbId);
+
+		final UriComponents uriComponents = UriComponentsBuilder.newInstance().path("/maize/brapi/v1/studies/{studyDbId}/table/csv")
+			.buildAndExpand(ImmutableMap.<String, Object>builder().put("studyDbId", studyDbId).build());
+
+		this.mockMvc.perform(MockMvcRequestBuilders.get(uriComponents.toUriString()).contentType(this.csvContentType))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.header()
+				.string("Content-Disposition", startsWith("attachment; filename=\"studyObservations.csv\"")))
+			.andExpect(MockMvcResultMatchers.content().string(expected.toString()));
+	}
+
 	@Test
 	public void testGetStudyObservationsAsTableTSV() throws Exception {
 
@@ -28,6 +28,7 @@ import java.util.Map;
 
 import static org.apache.commons.lang.math.RandomUtils.nextInt;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -101,9 +102,12 @@ public class ObservationUnitResourceBrapiTest extends ApiUnitTestBase {
 		phenotypeSearchDTO.setProgramDbId("04136e3f-55f9-4a80-9c24-5066a253ce6f");
 		phenotypeSearchDTO.setTrialDbId("25008");
 		phenotypeSearchDTO.setTrialName("Trial Name");
+		phenotypeSearchDTO.setObservationUnitDbId(RandomStringUtils.randomAlphanumeric(36));
 		final int searchResultsDbid = nextInt();
 		doReturn(new ObservationUnitsSearchRequestDto()).when(this.searchRequestService).getSearchRequest(searchResultsDbid, ObservationUnitsSearchRequestDto.class);
-		when(this.studyService.searchPhenotypes(Mockito.eq(BrapiPagedResult.DEFAULT_PAGE_SIZE), Mockito.eq(BrapiPagedResult.DEFAULT_PAGE_NUMBER), any(
+		when(this.studyService.countPhenotypes(any(PhenotypeSearchRequestDTO.class))).thenReturn(1L);
+		// Used both to collect the ids of the search and to read the page by its ids
+		when(this.studyService.searchPhenotypes(Mockito.anyInt(), Mockito.eq(BrapiPagedResult.DEFAULT_PAGE_NUMBER), any(
 			PhenotypeSearchRequestDTO.class))).thenReturn(Arrays.asList(phenotypeSearchDTO));
 		this.mockMvc.perform(
 			MockMvcRequestBuilders.get("/{crop}/brapi/v2/search/observationunits/{searchResultsDbid}", this.cropName, searchResultsDbid)
@@ -114,4 +118,82 @@ public class ObservationUnitResourceBrapiTest extends ApiUnitTestBase {
 			.andExpect(MockMvcResultMatchers.jsonPath("$.result.data[0].trialDbId", is("25008")))
 			.andExpect(MockMvcResultMatchers.jsonPath("$.result.data[0].trialName", is("Trial Name")));
 	}
+
+	@Test
+	public void testSearchObservationUnitsPagesPostedSearch() throws Exception {
+		final PhenotypeSearchDTO first = new PhenotypeSearchDTO();
+		first.setObservationUnitDbId(RandomStringUtils.randomAlphanumeric(36));
+		final PhenotypeSearchDTO second = new PhenotypeSearchDTO();
+		second.setObservationUnitDbId(RandomStringUtils.randomAlphanumeric(36));
+		final int searchResultsDbid = nextInt();
+		doReturn(searchResultsDbid).when(this.searchRequestService)
+			.saveSearchRequest(any(ObservationUnitsSearchRequestDto.class), Mockito.eq(ObservationUnitsSearchRequestDto.class));
+		when(this.studyService.countPhenotypes(any(PhenotypeSearchRequestDTO.class))).thenReturn(2L);
+		when(this.studyService.searchPhenotypes(Mockito.eq(5000), Mockito.eq(0), any(PhenotypeSearchRequestDTO.class)))
+			.thenReturn(Arrays.asList(first, second));
+		final ArgumentCaptor<PhenotypeSearchRequestDTO> pageRequest = ArgumentCaptor.forClass(PhenotypeSearchRequestDTO.class);
+		when(this.studyService.searchPhenotypes(Mockito.eq(1), Mockito.eq(0), pageRequest.capture()))
+			.thenReturn(Arrays.asList(second));
+
+		this.mockMvc.perform(
+			MockMvcRequestBuilders.post("/{crop}/brapi/v2/search/observationunits", this.cropName)
+				.content(this.convertObjectToByte(new ObservationUnitsSearchRequestDto()))
+				.contentType(this.contentType)).andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.result.searchResultDbId", is(String.valueOf(searchResultsDbid))));
+		// Nothing is searched until a page is requested
+		Mockito.verify(this.studyService, Mockito.never()).countPhenotypes(any(PhenotypeSearchRequestDTO.class));
+
+		for (int i = 0; i < 2; i++) {
+			this.mockMvc.perform(
+				MockMvcRequestBuilders.get("/{crop}/brapi/v2/search/observationunits/{searchResultsDbid}", this.cropName, searchResultsDbid)
+					.param("page", "1").param("pageSize", "1")
+					.contentType(this.contentType)).andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.metadata.pagination.totalCount", is(2)))
+				.andExpect(MockMvcResultMatchers.jsonPath("$.result.data", hasSize(1)));
+		}
+
+		// The ids are collected once, and each page is read by the ids of the page, without loading the search request again
+		Mockito.verify(this.studyService, Mockito.times(1)).countPhenotypes(any(PhenotypeSearchRequestDTO.class));
+		Mockito.verify(this.studyService, Mockito.times(1)).searchPhenotypes(Mockito.eq(5000), Mockito.eq(0), any(PhenotypeSearchRequestDTO.class));
+		Mockito.verify(this.studyService, Mockito.times(2)).searchPhenotypes(Mockito.eq(1), Mockito.eq(0), any(PhenotypeSearchRequestDTO.class));
+		assertThat(pageRequest.getValue().getObservationUnitDbIds(), is(Arrays.asList(second.getObservationUnitDbId())));
+		Mockito.verify(this.searchRequestService, Mockito.never()).getSearchRequest(Mockito.anyInt(), Mockito.any());
+	}
+
+	@Test
+	public void testSearchObservationUnitsWithPageTokens() throws Exception {
+		final PhenotypeSearchDTO first = new PhenotypeSearchDTO();
+		first.setObservationUnitDbId(RandomStringUtils.randomAlphanumeric(36));
+		final PhenotypeSearchDTO second = new PhenotypeSearchDTO();
+		second.setObservationUnitDbId(RandomStringUtils.randomAlphanumeric(36));
+		final int searchResultsDbid = nextInt();
+		doReturn(new ObservationUnitsSearchRequestDto()).when(this.searchRequestService)
+			.getSearchRequest(searchResultsDbid, ObservationUnitsSearchRequestDto.class);
+		when(this.studyService.countPhenotypes(any(PhenotypeSearchRequestDTO.class))).thenReturn(2L);
+		when(this.studyService.searchPhenotypes(Mockito.eq(5000), Mockito.eq(0), any(PhenotypeSearchRequestDTO.class)))
+			.thenReturn(Arrays.asList(first, second));
+		// One more unit is read to know whether there is a next page
+		when(this.studyService.searchPhenotypes(Mockito.eq(2), Mockito.eq(0), any(PhenotypeSearchRequestDTO.class)))
+			.thenReturn(Arrays.asList(first, second));
+		when(this.studyService.searchPhenotypes(Mockito.eq(1), Mockito.eq(0), any(PhenotypeSearchRequestDTO.class)))
+			.thenReturn(Arrays.asList(second));
+
+		final String nextPageToken = this.mockMvc.perform(
+			MockMvcRequestBuilders.get("/{crop}/brapi/v2/search/observationunits/{searchResultsDbid}", this.cropName, searchResultsDbid)
+				.param("pageToken", "").param("pageSize", "1")
+				.contentType(this.contentType)).andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.metadata.pagination.totalCount", is(2)))
+			.andExpect(MockMvcResultMatchers.jsonPath("$.result.data", hasSize(1)))
+			.andReturn().getResponse().getHeader(ObservationUnitResourceBrapi.NEXT_PAGE_TOKEN_HEADER);
+
+		this.mockMvc.perform(
+			MockMvcRequestBuilders.get("/{crop}/brapi/v2/search/observationunits/{searchResultsDbid}", this.cropName, searchResultsDbid)
+				.param("pageToken", nextPageToken).param("pageSize", "1")
+				.contentType(this.contentType)).andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.result.data", hasSize(1)))
+			.andExpect(MockMvcResultMatchers.header().doesNotExist(ObservationUnitResourceBrapi.NEXT_PAGE_TOKEN_HEADER));
+
+		// The pages are not counted again, the count is the number of collected ids
+		Mockito.verify(this.studyService, Mockito.times(1)).countPhenotypes(any(PhenotypeSearchRequestDTO.class));
+	}
 }
@@ -0,0 +1,232 @@
+package org.ibp.api.brapi.v2.observationunits;
+
+import org.generationcp.middleware.ContextHolder;
+import org.generationcp.middleware.domain.search_request.brapi.v2.ObservationUnitsSearchRequestDto;
+import org.generationcp.middleware.service.api.phenotype.PhenotypeSearchDTO;
+import org.generationcp.middleware.service.api.phenotype.PhenotypeSearchRequestDTO;
+import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.java.impl.middleware.dataset.ObservationChanges;
+import org.ibp.api.java.study.StudyService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ObservationUnitSearchResultsTest {
+
+	private static final String SEARCH_REQUEST_ID = "1";
+
+	@Mock
+	private ObservationChanges observationChanges;
+
+	@Mock
+	private StudyService studyService;
+
+	private ObservationUnitSearchResults searchResults;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+		ContextHolder.setCurrentCrop("maize");
+
+		this.searchResults = new ObservationUnitSearchResults();
+		this.searchResults.setObservationChanges(this.observationChanges);
+		this.searchResults.setStudyService(this.studyService);
+		this.searchResults.setTtlMinutes(30);
+		this.searchResults.setMaxCachedIds(100);
+		this.searchResults.setMaxSearchIds(10);
+		this.searchResults.setChunkSize(2);
+		this.searchResults.setSize(10);
+		this.searchResults.setMaxChangedIds(10);
+		this.searchResults.init();
+	}
+
+	@Test
+	public void testGetSearch() {
+		final ObservationUnitsSearchRequestDto searchRequestDto = new ObservationUnitsSearchRequestDto();
+		searchRequestDto.setStudyDbIds(Arrays.asList("10"));
+		this.searchResults.put(SEARCH_REQUEST_ID, searchRequestDto);
+		Mockito.when(this.studyService.countPhenotypes(ArgumentMatchers.any())).thenReturn(3L);
+		Mockito.when(this.studyService.searchPhenotypes(ArgumentMatchers.eq(2), ArgumentMatchers.eq(0), ArgumentMatchers.any()))
+			.thenReturn(Arrays.asList(this.unit("1"), this.unit("2")));
+		Mockito.when(this.studyService.searchPhenotypes(ArgumentMatchers.eq(2), ArgumentMatchers.eq(1), ArgumentMatchers.any()))
+			.thenReturn(Arrays.asList(this.unit("3")));
+
+		final ObservationUnitSearchResults.Search search = this.searchResults.getSearch(SEARCH_REQUEST_ID, this::failToLoad);
+
+		Assert.assertTrue(search.isCollected());
+		Assert.assertEquals(Arrays.asList("1", "2", "3"), search.getObservationUnitDbIds());
+		Assert.assertEquals(Arrays.asList("10"), search.newPhenotypeSearchRequest().getStudyDbIds());
+		// Collected once, then kept
+		Assert.assertSame(search, this.searchResults.getSearch(SEARCH_REQUEST_ID, this::failToLoad));
+		Mockito.verify(this.studyService, Mockito.times(1)).countPhenotypes(ArgumentMatchers.any());
+		Mockito.verify(this.studyService, Mockito.times(2))
+			.searchPhenotypes(ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(), ArgumentMatchers.any());
+	}
+
+	@Test
+	public void testGetSearchNotKept() {
+		final List<ObservationUnitsSearchRequestDto> loaded = new ArrayList<>();
+		final ObservationUnitsSearchRequestDto searchRequestDto = new ObservationUnitsSearchRequestDto();
+		Mockito.when(this.studyService.countPhenotypes(ArgumentMatchers.any())).thenReturn(1L);
+		Mockito.when(this.studyService.searchPhenotypes(ArgumentMatchers.eq(2), ArgumentMatchers.eq(0), ArgumentMatchers.any()))
+			.thenReturn(Arrays.asList(this.unit("1")));
+
+		final ObservationUnitSearchResults.Search search = this.searchResults.getSearch(SEARCH_REQUEST_ID, () -> {
+			loaded.add(searchRequestDto);
+			return searchRequestDto;
+		});
+
+		Assert.assertEquals(Arrays.asList("1"), search.getObservationUnitDbIds());
+		Assert.assertSame(search, this.searchResults.getSearch(SEARCH_REQUEST_ID, this::failToLoad));
+		Assert.assertEquals(1, loaded.size());
+		Assert.assertNull(this.searchResults.getSearch("2", () -> null));
+	}
+
+	@Test
+	public void testGetSearchWithTooManyUnits() {
+		this.searchResults.setMaxSearchIds(2);
+		this.searchResults.put(SEARCH_REQUEST_ID, new ObservationUnitsSearchRequestDto());
+		Mockito.when(this.studyService.countPhenotypes(ArgumentMatchers.any())).thenReturn(3L);
+
+		final ObservationUnitSearchResults.Search search = this.searchResults.getSearch(SEARCH_REQUEST_ID, this::failToLoad);
+
+		// Its pages are read with the live search
+		Assert.assertFalse(search.isCollected());
+		Assert.assertTrue(search.getObservationUnitDbIds().isEmpty());
+		Mockito.verify(this.studyService, Mockito.never())
+			.searchPhenotypes(ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(), ArgumentMatchers.any());
+	}
+
+	@Test
+	public void testGetSearchFromOtherCrop() {
+		this.searchResults.put(SEARCH_REQUEST_ID, new ObservationUnitsSearchRequestDto());
+
+		ContextHolder.setCurrentCrop("wheat");
+		Assert.assertNull(this.searchResults.getSearch(SEARCH_REQUEST_ID, () -> null));
+	}
+
+	@Test
+	public void testGetPage() {
+		final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO = new PhenotypeSearchRequestDTO();
+		phenotypeSearchRequestDTO.setStudyDbIds(Arrays.asList("10"));
+		final ObservationUnitSearchResults.Search search =
+			new ObservationUnitSearchResults.Search(phenotypeSearchRequestDTO, Arrays.asList("1", "2", "3"));
+		final ArgumentCaptor<PhenotypeSearchRequestDTO> captor = ArgumentCaptor.forClass(PhenotypeSearchRequestDTO.class);
+		Mockito.when(this.studyService.searchPhenotypes(ArgumentMatchers.eq(2), ArgumentMatchers.eq(0), captor.capture()))
+			.thenReturn(Arrays.asList(this.unit("2"), this.unit("1")));
+
+		final List<PhenotypeSearchDTO> page = this.searchResults.getPage(search, 0, 2);
+
+		// Only the units of the page are read, in the order they were matched, with the other filters
+		Assert.assertEquals("1", page.get(0).getObservationUnitDbId());
+		Assert.assertEquals("2", page.get(1).getObservationUnitDbId());
+		Assert.assertEquals(Arrays.asList("1", "2"), captor.getValue().getObservationUnitDbIds());
+		Assert.assertEquals(Arrays.asList("10"), captor.getValue().getStudyDbIds());
+		Assert.assertTrue(this.searchResults.getPage(search, 2, 2).isEmpty());
+	}
+
+	@Test
+	public void testGetPageAfter() {
+		final ObservationUnitSearchResults.Search search =
+			new ObservationUnitSearchResults.Search(new PhenotypeSearchRequestDTO(), Arrays.asList("1", "2", "3"));
+		final ArgumentCaptor<PhenotypeSearchRequestDTO> captor = ArgumentCaptor.forClass(PhenotypeSearchRequestDTO.class);
+		Mockito.when(this.studyService.searchPhenotypes(ArgumentMatchers.anyInt(), ArgumentMatchers.eq(0), captor.capture()))
+			.thenReturn(new ArrayList<>());
+
+		this.searchResults.getPageAfter(search, null, 2);
+		Assert.assertEquals(Arrays.asList("1", "2"), captor.getValue().getObservationUnitDbIds());
+
+		this.searchResults.getPageAfter(search, "2", 2);
+		Assert.assertEquals(Arrays.asList("3"), captor.getValue().getObservationUnitDbIds());
+
+		// Nothing is read after the last unit
+		Assert.assertTrue(this.searchResults.getPageAfter(search, "3", 2).isEmpty());
+		Mockito.verify(this.studyService, Mockito.times(2))
+			.searchPhenotypes(ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(), ArgumentMatchers.any());
+	}
+
+	@Test(expected = ApiRequestValidationException.class)
+	public void testGetPageAfterUnknownUnit() {
+		final ObservationUnitSearchResults.Search search =
+			new ObservationUnitSearchResults.Search(new PhenotypeSearchRequestDTO(), Arrays.asList("1", "2", "3"));
+
+		this.searchResults.getPageAfter(search, "4", 2);
+	}
+
+	@Test
+	public void testNewPhenotypeSearchRequestIsACopy() {
+		final PhenotypeSearchRequestDTO phenotypeSearchRequestDTO = new PhenotypeSearchRequestDTO();
+		phenotypeSearchRequestDTO.setStudyDbIds(new ArrayList<>(Arrays.asList("10")));
+		final ObservationUnitSearchResults.Search search = new ObservationUnitSearchResults.Search(phenotypeSearchRequestDTO, null);
+
+		final PhenotypeSearchRequestDTO copy = search.newPhenotypeSearchRequest();
+		copy.getStudyDbIds().add("11");
+		copy.setObservationUnitDbIds(Arrays.asList("1"));
+		phenotypeSearchRequestDTO.getStudyDbIds().add("12");
+
+		Assert.assertNotSame(copy, search.newPhenotypeSearchRequest());
+		Assert.assertEquals(Arrays.asList("10"), search.newPhenotypeSearchRequest().getStudyDbIds());
+		Assert.assertTrue(CollectionUtils.isEmpty(search.newPhenotypeSearchRequest().getObservationUnitDbIds()));
+	}
+
+	@Test
+	public void testGetChanges() {
+		final ObservationUnitsSearchRequestDto searchRequestDto = new ObservationUnitsSearchRequestDto();
+		searchRequestDto.setStudyDbIds(Arrays.asList("10"));
+		Mockito.when(this.observationChanges.newWatermark()).thenReturn(2000L);
+		Mockito.when(this.observationChanges.getChangedObservationUnitDbIds(ArgumentMatchers.eq(1000L),
+			ArgumentMatchers.eq(Arrays.asList("10")), ArgumentMatchers.any(), ArgumentMatchers.eq(11)))
+			.thenReturn(Arrays.asList("2", "3", "5"));
+
+		final ObservationUnitSearchResults.Changes changes = this.searchResults.getChanges(SEARCH_REQUEST_ID, () -> searchRequestDto, 1000L);
+
+		// The search is restricted to the changed units, the other filters are kept
+		Assert.assertEquals(Arrays.asList("2", "3", "5"), changes.newPhenotypeSearchRequest().getObservationUnitDbIds());
+		Assert.assertEquals(Arrays.asList("10"), changes.newPhenotypeSearchRequest().getStudyDbIds());
+		Assert.assertEquals(2000L, changes.getWatermark());
+		Assert.assertFalse(changes.isEmpty());
+
+		// The following pages use the same changes, and the search without watermark is not affected
+		Assert.assertSame(changes, this.searchResults.getChanges(SEARCH_REQUEST_ID, this::failToLoad, 1000L));
+		Mockito.verify(this.observationChanges).newWatermark();
+		Assert.assertNull(this.searchResults.getSearch(SEARCH_REQUEST_ID, () -> null));
+	}
+
+	@Test
+	public void testGetChangesWithoutChanges() {
+		Mockito.when(this.observationChanges.getChangedObservationUnitDbIds(ArgumentMatchers.eq(1000L), ArgumentMatchers.any(),
+			ArgumentMatchers.any(), ArgumentMatchers.anyInt())).thenReturn(new ArrayList<>());
+
+		Assert.assertTrue(this.searchResults.getChanges(SEARCH_REQUEST_ID, ObservationUnitsSearchRequestDto::new, 1000L).isEmpty());
+		Assert.assertNull(this.searchResults.getChanges("2", () -> null, 1000L));
+	}
+
+	@Test(expected = ApiRequestValidationException.class)
+	public void testGetChangesTooManyChanges() {
+		this.searchResults.setMaxChangedIds(2);
+		Mockito.when(this.observationChanges.getChangedObservationUnitDbIds(ArgumentMatchers.eq(1000L), ArgumentMatchers.any(),
+			ArgumentMatchers.any(), ArgumentMatchers.eq(3))).thenReturn(Arrays.asList("1", "2", "3"));
+
+		this.searchResults.getChanges(SEARCH_REQUEST_ID, ObservationUnitsSearchRequestDto::new, 1000L);
+	}
+
+	private PhenotypeSearchDTO unit(final String observationUnitDbId) {
+		final PhenotypeSearchDTO phenotypeSearchDTO = new PhenotypeSearchDTO();
+		phenotypeSearchDTO.setObservationUnitDbId(observationUnitDbId);
+		return phenotypeSearchDTO;
+	}
+
+	private ObservationUnitsSearchRequestDto failToLoad() {
+		throw new AssertionError("The search request should not be loaded");
+	}
+}
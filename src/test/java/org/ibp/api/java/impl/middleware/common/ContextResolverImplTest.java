@@ -16,6 +16,7 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 public class ContextResolverImplTest {
@@ -36,6 +37,10 @@ public class ContextResolverImplTest {
 		this.contextResolverImpl = new ContextResolverImpl();
 		this.contextResolverImpl.setCropService(this.cropService);
 		this.contextResolverImpl.setProgramService(this.programService);
+		this.contextResolverImpl.setProgramCacheSize(10);
+		this.contextResolverImpl.setProgramCacheTtlSeconds(300);
+		this.contextResolverImpl.setUnknownCropTtlSeconds(30);
+		this.contextResolverImpl.init();
 
 		Mockito.doReturn(Collections.singletonList("Maize")).when(this.cropService).getInstalledCrops();
 		Mockito.doReturn(new ProgramDTO()).when(this.programService).getByUUIDAndCrop(MAIZE, PROGRAM_UUID);
@@ -295,4 +300,159 @@ public class ContextResolverImplTest {
 		Assert.assertTrue(StringUtils.isEmpty(programUUID));
 	}
 
+	@Test
+	public void testResolveCropNameFromUrl_InstalledCropsAreLoadedOnce() {
+		for (final String uri : new String[] {"/crops/maize/variables", "/crops/MAIZE/locations", "/maize/brapi/v1/locations"}) {
+			final MockHttpServletRequest request = new MockHttpServletRequest();
+			request.setRequestURI(uri);
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+			Assert.assertTrue(MAIZE.equalsIgnoreCase(this.contextResolverImpl.resolveCropNameFromUrl()));
+		}
+		Mockito.verify(this.cropService, Mockito.times(1)).getInstalledCrops();
+	}
+
+	@Test
+	public void testResolveCropNameFromUrl_InstalledCropsAreReloadedForUnknownCrop() {
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRequestURI("/crops/maize/variables");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		this.contextResolverImpl.resolveCropNameFromUrl();
+
+		// Crop installed after the crops were loaded
+		Mockito.doReturn(Arrays.asList("Maize", "Rice")).when(this.cropService).getInstalledCrops();
+		final MockHttpServletRequest riceRequest = new MockHttpServletRequest();
+		riceRequest.setRequestURI("/crops/rice/variables");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(riceRequest));
+
+		Assert.assertEquals("rice", this.contextResolverImpl.resolveCropNameFromUrl());
+		Mockito.verify(this.cropService, Mockito.times(2)).getInstalledCrops();
+	}
+
+	@Test
+	public void testResolveCropNameFromUrl_UnknownCropIsNotReloadedUntilItExpires() {
+		for (int i = 0; i < 3; i++) {
+			final MockHttpServletRequest request = new MockHttpServletRequest();
+			request.setRequestURI("/crops/wheat/variables");
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+			try {
+				this.contextResolverImpl.resolveCropNameFromUrl();
+				Assert.fail("Should throw ContextResolutionException");
+			} catch (final ContextResolutionException e) {
+				// expected
+			}
+		}
+		Mockito.verify(this.cropService, Mockito.times(1)).getInstalledCrops();
+
+		// Without ttl the unknown crop is looked up again, and found once installed
+		this.contextResolverImpl.setUnknownCropTtlSeconds(0);
+		this.contextResolverImpl.init();
+		Mockito.doReturn(Arrays.asList("Maize", "Wheat")).when(this.cropService).getInstalledCrops();
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRequestURI("/crops/wheat/variables");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		Assert.assertEquals("wheat", this.contextResolverImpl.resolveCropNameFromUrl());
+		Mockito.verify(this.cropService, Mockito.times(2)).getInstalledCrops();
+	}
+
+	@Test
+	public void testResolveProgramUuidFromRequest_ResolvedOncePerRequest() {
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRequestURI("/crops/maize/programs/abc-123/studies/101");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+		Assert.assertEquals(MAIZE, this.contextResolverImpl.resolveCropNameFromUrl());
+		Assert.assertEquals(PROGRAM_UUID, this.contextResolverImpl.resolveProgramUuidFromRequest());
+		ContextHolder.setCurrentCrop(null);
+		ContextHolder.setCurrentProgram(null);
+		Assert.assertEquals(MAIZE, this.contextResolverImpl.resolveCropNameFromUrl());
+		Assert.assertEquals(PROGRAM_UUID, this.contextResolverImpl.resolveProgramUuidFromRequest());
+
+		// The context is still set for the request
+		Assert.assertEquals(MAIZE, ContextHolder.getCurrentCrop());
+		Assert.assertEquals(PROGRAM_UUID, ContextHolder.getCurrentProgram());
+		Mockito.verify(this.cropService, Mockito.times(1)).getInstalledCrops();
+		Mockito.verify(this.programService, Mockito.times(1)).getByUUIDAndCrop(MAIZE, PROGRAM_UUID);
+	}
+
+	@Test
+	public void testResolveProgramUuidFromRequest_ProgramsAreCached() {
+		for (int i = 0; i < 3; i++) {
+			final MockHttpServletRequest request = new MockHttpServletRequest();
+			request.setRequestURI("/crops/maize/programs/abc-123/studies/101");
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+			Assert.assertEquals(PROGRAM_UUID, this.contextResolverImpl.resolveProgramUuidFromRequest());
+		}
+		Mockito.verify(this.programService, Mockito.times(1)).getByUUIDAndCrop(MAIZE, PROGRAM_UUID);
+	}
+
+	@Test
+	public void testResolveProgramUuidFromRequest_LeastRecentlyUsedProgramIsEvicted() {
+		this.contextResolverImpl.setProgramCacheSize(1);
+		this.contextResolverImpl.init();
+		final String otherProgramUUID = "def-456";
+		Mockito.doReturn(new ProgramDTO()).when(this.programService).getByUUIDAndCrop(MAIZE, otherProgramUUID);
+
+		for (final String programUUID : new String[] {PROGRAM_UUID, otherProgramUUID, PROGRAM_UUID}) {
+			final MockHttpServletRequest request = new MockHttpServletRequest();
+			request.setRequestURI("/crops/maize/programs/" + programUUID + "/studies/101");
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+			Assert.assertEquals(programUUID, this.contextResolverImpl.resolveProgramUuidFromRequest());
+		}
+		Mockito.verify(this.programService, Mockito.times(2)).getByUUIDAndCrop(MAIZE, PROGRAM_UUID);
+		Mockito.verify(this.programService, Mockito.times(1)).getByUUIDAndCrop(MAIZE, otherProgramUUID);
+	}
+
+	@Test
+	public void testResolveProgramUuidFromRequest_ProgramIsLookedUpAgainAfterItExpires() {
+		this.contextResolverImpl.setProgramCacheTtlSeconds(0);
+		this.contextResolverImpl.init();
+
+		for (int i = 0; i < 2; i++) {
+			final MockHttpServletRequest request = new MockHttpServletRequest();
+			request.setRequestURI("/crops/maize/programs/abc-123/studies/101");
+			RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+			Assert.assertEquals(PROGRAM_UUID, this.contextResolverImpl.resolveProgramUuidFromRequest());
+		}
+		Mockito.verify(this.programService, Mockito.times(2)).getByUUIDAndCrop(MAIZE, PROGRAM_UUID);
+
+		// Program deleted by the Workbench
+		Mockito.doReturn(null).when(this.programService).getByUUIDAndCrop(MAIZE, PROGRAM_UUID);
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRequestURI("/crops/maize/programs/abc-123/studies/101");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		try {
+			this.contextResolverImpl.resolveProgramUuidFromRequest();
+			Assert.fail("Should throw ContextResolutionException");
+		} catch (final ContextResolutionException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testResolveProgramUuidFromRequest_InvalidProgramIsNotCached() {
+		Mockito.doReturn(null).when(this.programService).getByUUIDAndCrop(MAIZE, PROGRAM_UUID);
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setRequestURI("/crops/maize/programs/abc-123/studies/101");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+		try {
+			this.contextResolverImpl.resolveProgramUuidFromRequest();
+			Assert.fail("Should throw ContextResolutionException");
+		} catch (final ContextResolutionException e) {
+			// expected
+		}
+
+		// Program created afterwards
+		Mockito.doReturn(new ProgramDTO()).when(this.programService).getByUUIDAndCrop(MAIZE, PROGRAM_UUID);
+		final MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+		nextRequest.setRequestURI("/crops/maize/programs/abc-123/studies/101");
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(nextRequest));
+
+		Assert.assertEquals(PROGRAM_UUID, this.contextResolverImpl.resolveProgramUuidFromRequest());
+	}
+
 }
@@ -0,0 +1,46 @@
+package org.ibp.api.java.impl.middleware.common;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.orm.hibernate4.LocalSessionFactoryBean;
+
+public class CropSessionFactoryConfigurerTest {
+
+	private final CropSessionFactoryConfigurer cropSessionFactoryConfigurer = new CropSessionFactoryConfigurer();
+
+	@Before
+	public void setUp() {
+		this.cropSessionFactoryConfigurer.setJdbcBatchSize(50);
+	}
+
+	@Test
+	public void testPostProcessSetsTheBatchingOfCropSessionFactories() {
+		final LocalSessionFactoryBean sessionFactoryBean = new LocalSessionFactoryBean();
+
+		this.cropSessionFactoryConfigurer.postProcessBeforeInitialization(sessionFactoryBean, "IBDBV2_MAIZE_MERGED_SessionFactory");
+
+		Assert.assertEquals("50", sessionFactoryBean.getHibernateProperties().getProperty("hibernate.jdbc.batch_size"));
+		Assert.assertEquals("true", sessionFactoryBean.getHibernateProperties().getProperty("hibernate.order_inserts"));
+		Assert.assertEquals("true", sessionFactoryBean.getHibernateProperties().getProperty("hibernate.order_updates"));
+	}
+
+	@Test
+	public void testPostProcessLeavesTheWorkbenchAndOtherBeans() {
+		final LocalSessionFactoryBean workbenchSessionFactoryBean = new LocalSessionFactoryBean();
+		final LocalSessionFactoryBean otherSessionFactoryBean = new LocalSessionFactoryBean();
+
+		this.cropSessionFactoryConfigurer.postProcessBeforeInitialization(workbenchSessionFactoryBean, "WORKBENCH_SessionFactory");
+		this.cropSessionFactoryConfigurer.postProcessBeforeInitialization(otherSessionFactoryBean, "sessionFactory");
+
+		Assert.assertTrue(workbenchSessionFactoryBean.getHibernateProperties().isEmpty());
+		Assert.assertTrue(otherSessionFactoryBean.getHibernateProperties().isEmpty());
+	}
+
+	@Test
+	public void testPostProcessIgnoresBeansWithoutHibernateProperties() {
+		final Object bean = new Object();
+
+		Assert.assertSame(bean, this.cropSessionFactoryConfigurer.postProcessBeforeInitialization(bean, "IBDBV2_MAIZE_MERGED_SessionFactory"));
+	}
+}
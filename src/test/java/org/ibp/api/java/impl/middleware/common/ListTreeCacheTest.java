@@ -0,0 +1,150 @@
+package org.ibp.api.java.impl.middleware.common;
+
+import org.generationcp.commons.pojo.treeview.TreeNode;
+import org.generationcp.middleware.ContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class ListTreeCacheTest {
+
+	private static final String PROGRAM_UUID = "program-1";
+	private static final String OTHER_PROGRAM_UUID = "program-2";
+
+	private final ListTreeCache listTreeCache = new ListTreeCache();
+
+	private final List<String> loadedParents = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		ContextHolder.setCurrentCrop("maize");
+		this.listTreeCache.setSize(100);
+		this.listTreeCache.setTtlSeconds(60);
+	}
+
+	@After
+	public void tearDown() {
+		ContextHolder.setCurrentCrop(null);
+	}
+
+	@Test
+	public void testGetChildrenNodesLoadsEachLevelOnce() {
+		this.getChildrenNodes(PROGRAM_UUID, "1", "2", "3");
+		final List<TreeNode> nodes = this.getChildrenNodes(PROGRAM_UUID, "1", "2", "3");
+
+		Assert.assertEquals(2, nodes.size());
+		Assert.assertEquals(Arrays.asList("1"), this.loadedParents);
+
+		this.listTreeCache.getChildrenNodes(ListTreeCache.GERMPLASM_LISTS, PROGRAM_UUID, "1", true, this.loader("1"));
+		this.listTreeCache.getChildrenNodes(ListTreeCache.SAMPLE_LISTS, PROGRAM_UUID, "1", false, this.loader("1"));
+		Assert.assertEquals(3, this.loadedParents.size());
+	}
+
+	@Test
+	public void testInvalidateNodesOnlyRemovesTheLevelsThatShowThem() {
+		this.getChildrenNodes(PROGRAM_UUID, ListTreeCache.PROGRAM_LISTS, "1", "2");
+		this.getChildrenNodes(PROGRAM_UUID, "1", "3");
+		this.getChildrenNodes(PROGRAM_UUID, "2", "4");
+		this.getChildrenNodes(PROGRAM_UUID, "3", "5");
+
+		// A list added to folder 1 changes the children of 1 and the number of children of 1 in the program folder
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, PROGRAM_UUID, "1");
+		this.loadedParents.clear();
+		this.getChildrenNodes(PROGRAM_UUID, ListTreeCache.PROGRAM_LISTS, "1", "2");
+		this.getChildrenNodes(PROGRAM_UUID, "1", "3");
+		this.getChildrenNodes(PROGRAM_UUID, "2", "4");
+		this.getChildrenNodes(PROGRAM_UUID, "3", "5");
+
+		Assert.assertEquals(Arrays.asList(ListTreeCache.PROGRAM_LISTS, "1"), this.loadedParents);
+	}
+
+	@Test
+	public void testInvalidateNodesAgainAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+			this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, PROGRAM_UUID, "2");
+
+			// Cached by another request before the changes are committed
+			this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+			this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+			Assert.assertEquals(2, this.loadedParents.size());
+
+			// Committed after the crop of the request is cleared
+			ContextHolder.setCurrentCrop(null);
+			for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCommit();
+			}
+			ContextHolder.setCurrentCrop("maize");
+			this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+			Assert.assertEquals(3, this.loadedParents.size());
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testInvalidateProgramListsOnlyRemovesTheLevelsOfTheProgram() {
+		this.getChildrenNodes(PROGRAM_UUID, null, ListTreeCache.CROP_LISTS, ListTreeCache.PROGRAM_LISTS);
+		this.getChildrenNodes(OTHER_PROGRAM_UUID, null, ListTreeCache.CROP_LISTS, ListTreeCache.PROGRAM_LISTS);
+
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, PROGRAM_UUID, ListTreeCache.PROGRAM_LISTS);
+		this.loadedParents.clear();
+		this.getChildrenNodes(PROGRAM_UUID, null, ListTreeCache.CROP_LISTS, ListTreeCache.PROGRAM_LISTS);
+		this.getChildrenNodes(OTHER_PROGRAM_UUID, null, ListTreeCache.CROP_LISTS, ListTreeCache.PROGRAM_LISTS);
+		Assert.assertEquals(1, this.loadedParents.size());
+
+		// The crop folder is shown by every program
+		this.listTreeCache.invalidateNodes(ListTreeCache.GERMPLASM_LISTS, PROGRAM_UUID, ListTreeCache.CROP_LISTS);
+		this.loadedParents.clear();
+		this.getChildrenNodes(PROGRAM_UUID, null, ListTreeCache.CROP_LISTS, ListTreeCache.PROGRAM_LISTS);
+		this.getChildrenNodes(OTHER_PROGRAM_UUID, null, ListTreeCache.CROP_LISTS, ListTreeCache.PROGRAM_LISTS);
+		Assert.assertEquals(2, this.loadedParents.size());
+	}
+
+	@Test
+	public void testCropsAreCachedSeparately() {
+		this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+		ContextHolder.setCurrentCrop("wheat");
+		this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+		Assert.assertEquals(2, this.loadedParents.size());
+
+		this.listTreeCache.invalidate("wheat");
+		this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+		ContextHolder.setCurrentCrop("maize");
+		this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+		Assert.assertEquals(3, this.loadedParents.size());
+	}
+
+	@Test
+	public void testNothingIsCachedWithoutCrop() {
+		ContextHolder.setCurrentCrop(null);
+		this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+		this.getChildrenNodes(PROGRAM_UUID, "1", "2");
+		Assert.assertEquals(2, this.loadedParents.size());
+	}
+
+	private List<TreeNode> getChildrenNodes(final String programUUID, final String parentId, final String... childIds) {
+		return this.listTreeCache.getChildrenNodes(ListTreeCache.GERMPLASM_LISTS, programUUID, parentId, false,
+			this.loader(parentId, childIds));
+	}
+
+	private Supplier<List<TreeNode>> loader(final String parentId, final String... childIds) {
+		return () -> {
+			this.loadedParents.add(parentId);
+			final List<TreeNode> nodes = new ArrayList<>();
+			for (final String childId : childIds) {
+				nodes.add(new TreeNode(childId, "List " + childId, true, null, null, null));
+			}
+			return nodes;
+		};
+	}
+}
@@ -0,0 +1,187 @@
+package org.ibp.api.java.impl.middleware.common;
+
+import org.generationcp.middleware.hibernate.DatasourceUtilities;
+import org.generationcp.middleware.pojos.workbench.CropType;
+import org.hibernate.Criteria;
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SessionFactoryWarmUpTest {
+
+	@Mock
+	private ApplicationContext applicationContext;
+
+	@Mock
+	private SessionFactory workbenchSessionFactory;
+
+	@Mock
+	private Session workbenchSession;
+
+	@Mock
+	private Criteria criteria;
+
+	private SessionFactoryWarmUp warmUp;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+		Mockito.when(this.applicationContext.getBean("WORKBENCH_SessionFactory", SessionFactory.class))
+			.thenReturn(this.workbenchSessionFactory);
+		Mockito.when(this.workbenchSessionFactory.openSession()).thenReturn(this.workbenchSession);
+		Mockito.when(this.workbenchSession.createCriteria(CropType.class)).thenReturn(this.criteria);
+		Mockito.when(this.criteria.list())
+			.thenReturn(Arrays.asList(this.cropType("ibdbv2_maize_merged"), this.cropType("ibdbv2_wheat_merged")));
+
+		this.warmUp = new SessionFactoryWarmUp();
+		this.warmUp.setApplicationContext(this.applicationContext);
+		this.warmUp.setEnabled(true);
+		this.warmUp.setTimeoutSeconds(60);
+	}
+
+	@Test
+	public void testWarmUp() {
+		final Session maizeSession = this.mockCropSession("ibdbv2_maize_merged");
+		final Session wheatSession = this.mockCropSession("ibdbv2_wheat_merged");
+
+		final Map<String, Long> timings = this.warmUp.warmUp();
+
+		Assert.assertEquals(Arrays.asList("ibdbv2_maize_merged", "ibdbv2_wheat_merged"), Arrays.asList(timings.keySet().toArray()));
+		Mockito.verify(maizeSession).createSQLQuery(SessionFactoryWarmUp.VALIDATION_QUERY);
+		Mockito.verify(maizeSession).close();
+		Mockito.verify(wheatSession).createSQLQuery(SessionFactoryWarmUp.VALIDATION_QUERY);
+		Mockito.verify(wheatSession).close();
+		Mockito.verify(this.workbenchSession).close();
+	}
+
+	@Test
+	public void testWarmUpFailsWhenACropFails() {
+		Mockito.when(this.applicationContext.getBean(DatasourceUtilities.computeSessionFactoryName("ibdbv2_maize_merged"),
+			SessionFactory.class)).thenThrow(new IllegalStateException("Database not available"));
+		final Session wheatSession = this.mockCropSession("ibdbv2_wheat_merged");
+
+		try {
+			this.warmUp.warmUp();
+			Assert.fail("The warm up should fail when a crop fails");
+		} catch (final IllegalStateException e) {
+			Assert.assertTrue(e.getMessage().contains("ibdbv2_maize_merged"));
+			Assert.assertFalse(e.getMessage().contains("ibdbv2_wheat_merged"));
+		}
+		// The other crops are still warmed up, so that all the failures are logged
+		Mockito.verify(wheatSession).close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWarmUpFailsWhenTheCropsAreNotReadyInTime() {
+		this.warmUp.setTimeoutSeconds(0);
+
+		this.warmUp.warmUp();
+	}
+
+	@Test
+	public void testWarmUpFailsWhenACropHangs() {
+		final CountDownLatch released = new CountDownLatch(1);
+		Mockito.when(this.applicationContext.getBean(DatasourceUtilities.computeSessionFactoryName("ibdbv2_maize_merged"),
+			SessionFactory.class)).thenAnswer(invocation -> {
+			released.await();
+			return null;
+		});
+		final Session wheatSession = this.mockCropSession("ibdbv2_wheat_merged");
+		this.warmUp.setTimeoutSeconds(1);
+
+		final long start = System.nanoTime();
+		try {
+			this.warmUp.warmUp();
+			Assert.fail("The warm up should fail when a crop is not ready in time");
+		} catch (final IllegalStateException e) {
+			Assert.assertEquals("Only 0 of 2 crop databases were warmed up in 1 seconds", e.getMessage());
+		} finally {
+			released.countDown();
+		}
+		// The hanging crop does not hold the startup beyond the timeout
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 10);
+		Mockito.verifyZeroInteractions(wheatSession);
+	}
+
+	@Test
+	public void testWarmUpSetsTheQueryTimeout() {
+		final SessionFactory sessionFactory = Mockito.mock(SessionFactory.class);
+		final Session session = Mockito.mock(Session.class);
+		final SQLQuery query = Mockito.mock(SQLQuery.class);
+		for (final String cropDatabaseName : Arrays.asList("ibdbv2_maize_merged", "ibdbv2_wheat_merged")) {
+			Mockito.when(this.applicationContext
+				.getBean(DatasourceUtilities.computeSessionFactoryName(cropDatabaseName), SessionFactory.class)).thenReturn(sessionFactory);
+		}
+		Mockito.when(sessionFactory.openSession()).thenReturn(session);
+		Mockito.when(session.createSQLQuery(SessionFactoryWarmUp.VALIDATION_QUERY)).thenReturn(query);
+
+		this.warmUp.warmUp();
+
+		final ArgumentCaptor<Integer> timeout = ArgumentCaptor.forClass(Integer.class);
+		Mockito.verify(query, Mockito.times(2)).setTimeout(timeout.capture());
+		for (final Integer seconds : timeout.getAllValues()) {
+			Assert.assertTrue(seconds > 0 && seconds <= 60);
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testOnApplicationEventFailsTheStartupWhenACropFails() {
+		Mockito.when(this.applicationContext.getBean(DatasourceUtilities.computeSessionFactoryName("ibdbv2_maize_merged"),
+			SessionFactory.class)).thenThrow(new IllegalStateException("Database not available"));
+		this.mockCropSession("ibdbv2_wheat_merged");
+
+		this.warmUp.onApplicationEvent(new ContextRefreshedEvent(this.applicationContext));
+	}
+
+	@Test
+	public void testOnApplicationEventRunsOnce() {
+		this.mockCropSession("ibdbv2_maize_merged");
+		this.mockCropSession("ibdbv2_wheat_merged");
+		final ContextRefreshedEvent event = new ContextRefreshedEvent(this.applicationContext);
+
+		this.warmUp.onApplicationEvent(event);
+		this.warmUp.onApplicationEvent(event);
+		this.warmUp.onApplicationEvent(new ContextRefreshedEvent(Mockito.mock(ApplicationContext.class)));
+
+		Mockito.verify(this.criteria).list();
+	}
+
+	@Test
+	public void testOnApplicationEventDisabled() {
+		this.warmUp.setEnabled(false);
+
+		this.warmUp.onApplicationEvent(new ContextRefreshedEvent(this.applicationContext));
+
+		Mockito.verifyZeroInteractions(this.workbenchSessionFactory);
+	}
+
+	private Session mockCropSession(final String cropDatabaseName) {
+		final SessionFactory sessionFactory = Mockito.mock(SessionFactory.class);
+		final Session session = Mockito.mock(Session.class);
+		Mockito.when(this.applicationContext.getBean(DatasourceUtilities.computeSessionFactoryName(cropDatabaseName), SessionFactory.class))
+			.thenReturn(sessionFactory);
+		Mockito.when(sessionFactory.openSession()).thenReturn(session);
+		Mockito.when(session.createSQLQuery(SessionFactoryWarmUp.VALIDATION_QUERY)).thenReturn(Mockito.mock(SQLQuery.class));
+		return session;
+	}
+
+	private CropType cropType(final String databaseName) {
+		final CropType cropType = new CropType();
+		cropType.setDbName(databaseName);
+		return cropType;
+	}
+}
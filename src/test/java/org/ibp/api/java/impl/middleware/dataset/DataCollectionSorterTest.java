@@ -1,120 +1,138 @@
 package org.ibp.api.java.impl.middleware.dataset;
 
 import org.generationcp.middleware.domain.fieldbook.FieldmapBlockInfo;
-import org.ibp.api.rest.dataset.ObservationUnitData;
+import org.generationcp.middleware.hibernate.HibernateSessionPerRequestProvider;
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
 
 @RunWith(MockitoJUnitRunner.class)
 public class DataCollectionSorterTest {
 
-	private final DataCollectionSorter dataCollectionSorter = new DataCollectionSorter();
+	private static final Integer INSTANCE_ID = 7;
 
-	@Test
-	public void testOrderByColumn() {
+	@Mock
+	private HibernateSessionPerRequestProvider cropDatabaseSessionProvider;
 
-		final List<ObservationUnitRow> observationUnitRows = this.createObservationUnitRows();
-		final FieldmapBlockInfo fieldmapBlockInfo = new FieldmapBlockInfo(0, 0, 0, 0, false);
-		fieldmapBlockInfo.setRangesInBlock(5);
-		fieldmapBlockInfo.setRowsInBlock(2);
-		fieldmapBlockInfo.setNumberOfRowsInPlot(1);
+	@Mock
+	private Session session;
 
-		final List<ObservationUnitRow> result =
-			dataCollectionSorter.orderByColumn(fieldmapBlockInfo, observationUnitRows);
+	@Mock
+	private SQLQuery query;
 
-		final Map<String, List<ObservationUnitRow>> groupResult =
-			dataCollectionSorter.groupObservationUnitRowsByRangeAndColumn(result);
+	@InjectMocks
+	private DataCollectionSorter dataCollectionSorter;
 
-		assertEquals("[1:1, 1:2, 2:1, 1:3, 2:2, 1:4, 2:3, 1:5, 2:4, 2:5]", groupResult.keySet().toString());
+	private final FieldmapBlockInfo fieldmapBlockInfo = new FieldmapBlockInfo(0, 0, 0, 0, false);
 
+	@Before
+	public void setUp() {
+		Mockito.lenient().when(this.cropDatabaseSessionProvider.getSession()).thenReturn(this.session);
+		Mockito.lenient().when(this.session.createSQLQuery(anyString())).thenReturn(this.query);
+		this.fieldmapBlockInfo.setRangesInBlock(5);
+		this.fieldmapBlockInfo.setRowsInBlock(4);
+		this.fieldmapBlockInfo.setNumberOfRowsInPlot(2);
 	}
 
 	@Test
-	public void testOrderByRange() {
-
-		final List<ObservationUnitRow> observationUnitRows = this.createObservationUnitRows();
-		final FieldmapBlockInfo fieldmapBlockInfo = new FieldmapBlockInfo(0, 0, 0, 0, false);
-		fieldmapBlockInfo.setRangesInBlock(5);
-		fieldmapBlockInfo.setRowsInBlock(2);
-		fieldmapBlockInfo.setNumberOfRowsInPlot(1);
+	public void testOrderByRangeReadsTheWalkingOrderFromTheDatabase() {
+		final List<ObservationUnitRow> observationUnitRows = this.createObservationUnitRows(1, 2, 3, 4);
+		// Unit 2 is outside of the block
+		Mockito.when(this.query.list()).thenReturn(Arrays.<Object>asList(3, 1, 4));
 
 		final List<ObservationUnitRow> result =
-			dataCollectionSorter.orderByRange(fieldmapBlockInfo, observationUnitRows);
+			this.dataCollectionSorter.orderByRange(INSTANCE_ID, this.fieldmapBlockInfo, observationUnitRows);
 
-		final Map<String, List<ObservationUnitRow>> groupResult =
-			dataCollectionSorter.groupObservationUnitRowsByRangeAndColumn(result);
+		assertEquals(Arrays.asList(3, 1, 4), this.getObservationUnitIds(result));
+		final String sql = this.getSql();
+		assertTrue(sql.contains("WHERE " + DataCollectionSorter.RANGE_IN_BLOCK));
+		assertTrue(sql.endsWith("ORDER BY " + DataCollectionSorter.RANGE_WALKING_POSITION + ", observation_unit_id"));
+		this.verifyParameters();
+	}
+
+	@Test
+	public void testOrderByColumnReadsTheWalkingOrderFromTheDatabase() {
+		final List<ObservationUnitRow> observationUnitRows = this.createObservationUnitRows(1, 2, 3);
+		Mockito.when(this.query.list()).thenReturn(Arrays.<Object>asList(2, 3, 1));
 
-		assertEquals("[1:1, 2:1, 1:2, 2:2, 1:3, 2:3, 1:4, 2:4, 1:5, 2:5]", groupResult.keySet().toString());
+		final List<ObservationUnitRow> result =
+			this.dataCollectionSorter.orderByColumn(INSTANCE_ID, this.fieldmapBlockInfo, observationUnitRows);
 
+		assertEquals(Arrays.asList(2, 3, 1), this.getObservationUnitIds(result));
+		final String sql = this.getSql();
+		assertTrue(sql.contains("WHERE " + DataCollectionSorter.COLUMN_IN_BLOCK));
+		assertTrue(sql.endsWith("ORDER BY " + DataCollectionSorter.COLUMN_WALKING_POSITION + ", observation_unit_id"));
+		this.verifyParameters();
 	}
 
 	@Test
-	public void testGroupObservationUnitRowsByRangeAndColumn() {
-
-		final List<ObservationUnitRow> observationUnitRows = this.createObservationUnitRows();
-		final Map<String, List<ObservationUnitRow>> result =
-			dataCollectionSorter.groupObservationUnitRowsByRangeAndColumn(observationUnitRows);
+	public void testOrderByRangeLeavesOutUnitsThatAreNotGiven() {
+		final List<ObservationUnitRow> observationUnitRows = this.createObservationUnitRows(1, 2);
+		// Units of the dataset that were not read for the export
+		Mockito.when(this.query.list()).thenReturn(Arrays.<Object>asList(5, 2, 6, 1));
 
-		assertEquals(10, result.size());
-		assertEquals("[1:1, 1:2, 2:1, 1:3, 2:2, 1:4, 2:3, 1:5, 2:4, 2:5]", result.keySet().toString());
+		final List<ObservationUnitRow> result =
+			this.dataCollectionSorter.orderByRange(INSTANCE_ID, this.fieldmapBlockInfo, observationUnitRows);
 
-		for (final List<ObservationUnitRow> entryItem : result.values()) {
-			assertEquals(2, entryItem.size());
-		}
+		assertEquals(Arrays.asList(2, 1), this.getObservationUnitIds(result));
 	}
 
-	private List<ObservationUnitRow> createObservationUnitRows() {
-
-		final List<ObservationUnitRow> observationUnitRows = new LinkedList<>();
-		observationUnitRows.addAll(createObservationUnitRowsGroup(1, 5, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(2, 5, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(1, 4, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(2, 4, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(1, 3, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(2, 3, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(1, 2, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(2, 2, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(1, 1, 2));
-		observationUnitRows.addAll(createObservationUnitRowsGroup(2, 1, 2));
+	@Test
+	public void testOrderByRangeWithoutObservationUnits() {
+		final List<ObservationUnitRow> observationUnitRows = new ArrayList<>();
+		observationUnitRows.add(new ObservationUnitRow());
 
-		return observationUnitRows;
+		final List<ObservationUnitRow> result =
+			this.dataCollectionSorter.orderByRange(INSTANCE_ID, this.fieldmapBlockInfo, observationUnitRows);
 
+		assertTrue(result.isEmpty());
+		Mockito.verify(this.session, Mockito.never()).createSQLQuery(anyString());
 	}
 
-	private List<ObservationUnitRow> createObservationUnitRowsGroup(final int column, final int range, final int noOfItems) {
+	private String getSql() {
+		final ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+		Mockito.verify(this.session).createSQLQuery(sqlCaptor.capture());
+		return sqlCaptor.getValue();
+	}
 
-		final List<ObservationUnitRow> observationUnitRows = new LinkedList<>();
+	private void verifyParameters() {
+		Mockito.verify(this.query).setParameter("instanceId", INSTANCE_ID);
+		Mockito.verify(this.query).setParameter("ranges", 5);
+		// Rows in the block divided by the rows of each plot
+		Mockito.verify(this.query).setParameter("columns", 2);
+	}
 
-		for (int i = 1; i <= noOfItems; i++) {
-			final ObservationUnitData fieldMapRangeObservationData = new ObservationUnitData();
-			fieldMapRangeObservationData.setValue(String.valueOf(range));
-			final ObservationUnitData fieldMapColumnObservationData = new ObservationUnitData();
-			fieldMapColumnObservationData.setValue(String.valueOf(column));
+	private List<Integer> getObservationUnitIds(final List<ObservationUnitRow> observationUnitRows) {
+		final List<Integer> observationUnitIds = new ArrayList<>();
+		for (final ObservationUnitRow observationUnitRow : observationUnitRows) {
+			observationUnitIds.add(observationUnitRow.getObservationUnitId());
+		}
+		return observationUnitIds;
+	}
 
+	private List<ObservationUnitRow> createObservationUnitRows(final Integer... observationUnitIds) {
+		final List<ObservationUnitRow> observationUnitRows = new ArrayList<>();
+		for (final Integer observationUnitId : observationUnitIds) {
 			final ObservationUnitRow observationUnitRow = new ObservationUnitRow();
-			final Map<String, ObservationUnitData> variables = new HashMap<>();
-			variables.put(DataCollectionSorter.FIELDMAP_RANGE, fieldMapRangeObservationData);
-			variables.put(DataCollectionSorter.FIELDMAP_COLUMN, fieldMapColumnObservationData);
-			observationUnitRow.setVariables(variables);
+			observationUnitRow.setObservationUnitId(observationUnitId);
 			observationUnitRows.add(observationUnitRow);
 		}
 		return observationUnitRows;
 	}
-
-	@Test
-	public void testCoordinateKey() {
-
-		assertEquals("1:2", dataCollectionSorter.coordinateKey(1, 2));
-
-	}
-
 }
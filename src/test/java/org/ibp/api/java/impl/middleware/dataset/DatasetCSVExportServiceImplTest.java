@@ -1,5 +1,6 @@
 package org.ibp.api.java.impl.middleware.dataset;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.generationcp.commons.util.ZipUtil;
 import org.generationcp.middleware.ContextHolder;
@@ -21,6 +22,8 @@ import org.ibp.api.java.dataset.DatasetCollectionOrderService;
 import org.ibp.api.java.dataset.DatasetService;
 import org.ibp.api.java.impl.middleware.dataset.validator.DatasetValidator;
 import org.ibp.api.java.impl.middleware.dataset.validator.InstanceValidator;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
+import org.ibp.api.java.job.JobProgress;
 import org.ibp.api.java.impl.middleware.study.validator.StudyValidator;
 import org.ibp.api.rest.dataset.ObservationUnitData;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
@@ -28,14 +31,19 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -44,6 +52,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.anyInt;
@@ -97,6 +109,12 @@ public class DatasetCSVExportServiceImplTest {
 	@Mock
 	private OntologyDataManager ontologyDataManager;
 
+	@Mock
+	private ParallelExecutor parallelExecutor;
+
+	@Mock
+	private ObservationChanges observationChanges;
+
 	@InjectMocks
 	private DatasetCSVExportServiceImpl datasetExportService;
 
@@ -165,6 +183,87 @@ public class DatasetCSVExportServiceImplTest {
 		assertSame(result, zipFile);
 	}
 
+	@Test
+	public void testExportChanges() throws IOException {
+		final Set<Integer> instanceIds = new HashSet<>(Arrays.asList(this.instanceId1, this.instanceId2));
+		final Set<Integer> changedObservationUnitIds = new HashSet<>(Arrays.asList(2, 3));
+		final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap = new HashMap<>();
+		observationUnitRowMap.put(this.instanceId1, Arrays.asList(this.createObservationUnitRow(2)));
+		observationUnitRowMap.put(this.instanceId2, Arrays.asList(this.createObservationUnitRow(3)));
+		when(this.observationChanges.getChangedObservationUnitIds(this.dataSetDTO.getDatasetId(), 1000L))
+			.thenReturn(changedObservationUnitIds);
+		when(this.studyDatasetService.getInstanceObservationUnitRowsMap(eq(this.study.getId()), eq(this.dataSetDTO.getDatasetId()),
+			any(ArrayList.class), eq(changedObservationUnitIds))).thenReturn(observationUnitRowMap);
+		final File file = new File("");
+		final ArgumentCaptor<Map<Integer, List<ObservationUnitRow>>> captor = ArgumentCaptor.forClass(Map.class);
+		when(this.datasetCSVGenerator.generateMultiInstanceFile(captor.capture(), ArgumentMatchers.anyList(), anyString())).thenReturn(file);
+
+		final File result = this.datasetExportService.exportChanges(this.study.getId(), this.dataSetDTO.getDatasetId(), instanceIds,
+			DatasetCollectionOrderServiceImpl.CollectionOrder.PLOT_ORDER.getId(), true, 1000L);
+
+		assertSame(file, result);
+		verify(this.instanceValidator).validate(this.dataSetDTO.getDatasetId(), instanceIds);
+		// Only the changed observation units are read, the whole dataset is not
+		verify(this.studyDatasetService, Mockito.never())
+			.getInstanceObservationUnitRowsMap(anyInt(), anyInt(), ArgumentMatchers.anyList());
+		final Map<Integer, List<ObservationUnitRow>> exported = captor.getValue();
+		Assert.assertEquals(Integer.valueOf(2), exported.get(this.instanceId1).get(0).getObservationUnitId());
+		Assert.assertEquals(Integer.valueOf(3), exported.get(this.instanceId2).get(0).getObservationUnitId());
+	}
+
+	@Test
+	public void testExportAsZip() throws IOException {
+		final Set<Integer> instanceIds = new HashSet<>(Arrays.asList(this.instanceId1, this.instanceId2));
+		when(this.parallelExecutor.getThreads()).thenReturn(2);
+		when(this.parallelExecutor.submit(any(Callable.class)))
+			.thenAnswer(invocation -> CompletableFuture.completedFuture(((Callable<?>) invocation.getArgument(0)).call()));
+		for (final Integer instanceId : instanceIds) {
+			final Map<Integer, List<ObservationUnitRow>> observationUnitRowMap =
+				this.createObservationUnitRowMap(TermId.ENTRY_TYPE.name(), TEST_ENTRY_DESCRIPTION);
+			observationUnitRowMap.put(instanceId, observationUnitRowMap.remove(5));
+			when(this.studyDatasetService
+				.getInstanceObservationUnitRowsMap(this.study.getId(), this.dataSetDTO.getDatasetId(), Arrays.asList(instanceId)))
+				.thenReturn(observationUnitRowMap);
+		}
+		Mockito.doAnswer(invocation -> {
+			final StudyInstance studyInstance = invocation.getArgument(4);
+			((OutputStream) invocation.getArgument(5)).write(String.valueOf(studyInstance.getInstanceId()).getBytes(StandardCharsets.UTF_8));
+			return null;
+		}).when(this.datasetCSVGenerator).writeSingleInstance(eq(this.study.getId()), eq(this.dataSetDTO),
+			ArgumentMatchers.anyList(), ArgumentMatchers.anyList(), any(StudyInstance.class), any(OutputStream.class));
+
+		when(this.datasetService.countAllObservationUnitsForDataset(eq(this.dataSetDTO.getDatasetId()), anyInt(), eq(false)))
+			.thenReturn(3);
+		final JobProgress progress = new JobProgress();
+		JobProgress.bind(progress);
+
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			this.datasetExportService.exportAsZip(this.study.getId(), this.dataSetDTO.getDatasetId(), instanceIds,
+				DatasetCollectionOrderServiceImpl.CollectionOrder.PLOT_ORDER.getId(), outputStream);
+		} finally {
+			JobProgress.unbind();
+		}
+
+		// The total is counted once for the selected instances, before their rows are loaded
+		Assert.assertEquals(6, progress.getTotal());
+
+		verify(this.studyValidator).validate(this.study.getId(), false);
+		verify(this.instanceValidator).validate(this.dataSetDTO.getDatasetId(), instanceIds);
+		verify(this.datasetCollectionOrderService, times(2))
+			.reorder(eq(DatasetCollectionOrderServiceImpl.CollectionOrder.PLOT_ORDER), eq(this.trialDataSet.getId()), any(Map.class),
+				any(Map.class));
+		// One entry per instance, in the order of the instances of the dataset
+		try (final ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+			for (final StudyInstance studyInstance : this.dataSetDTO.getInstances()) {
+				final ZipEntry entry = zipInputStream.getNextEntry();
+				Assert.assertTrue(entry.getName().startsWith(this.study.getName() + "-" + studyInstance.getInstanceNumber()));
+				Assert.assertEquals(String.valueOf(studyInstance.getInstanceId()), IOUtils.toString(zipInputStream, StandardCharsets.UTF_8));
+			}
+			Assert.assertNull(zipInputStream.getNextEntry());
+		}
+	}
+
 	@Test
 	public void testGenerateCSVFilesMoreThanOneInstance() throws IOException {
 
@@ -279,7 +378,7 @@ public class DatasetCSVExportServiceImplTest {
 
 	@Test
 	public void testGetObservationUnitRowMap() {
-		this.datasetExportService.getObservationUnitRowMap(this.study, this.dataSetDTO, new HashMap<>());
+		this.datasetExportService.getObservationUnitRowMap(this.study, this.dataSetDTO, new HashMap<>(), null);
 		Mockito.verify(this.studyDatasetService)
 			.getInstanceObservationUnitRowsMap(this.study.getId(), this.dataSetDTO.getDatasetId(), new ArrayList<>());
 	}
@@ -326,6 +425,12 @@ public class DatasetCSVExportServiceImplTest {
 		return  observationUnitRowMap;
 	}
 
+	private ObservationUnitRow createObservationUnitRow(final Integer observationUnitId) {
+		final ObservationUnitRow row = this.createObservationUnitRowMap(TermId.ENTRY_TYPE.name(), TEST_ENTRY_DESCRIPTION).get(5).get(0);
+		row.setObservationUnitId(observationUnitId);
+		return row;
+	}
+
 	private List<StudyInstance> createStudyInstances() {
 		final StudyInstance studyInstance1 = this.createStudyInstance(this.instanceId1);
 		final StudyInstance studyInstance2 = this.createStudyInstance(this.instanceId2);
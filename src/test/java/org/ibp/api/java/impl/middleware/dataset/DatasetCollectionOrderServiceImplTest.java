@@ -42,8 +42,10 @@ public class DatasetCollectionOrderServiceImplTest {
 
 		Mockito.verify(this.fieldMapService, Mockito.times(2)).getBlockId(anyInt(), anyInt());
 		Mockito.verify(this.fieldMapService, Mockito.never()).getBlockInformation(anyInt());
-		Mockito.verify(this.dataCollectionSorter, Mockito.never()).orderByRange(any(FieldmapBlockInfo.class), any(ArrayList.class));
-		Mockito.verify(this.dataCollectionSorter, Mockito.never()).orderByColumn(any(FieldmapBlockInfo.class), any(ArrayList.class));
+		Mockito.verify(this.dataCollectionSorter, Mockito.never())
+			.orderByRange(anyInt(), any(FieldmapBlockInfo.class), any(ArrayList.class));
+		Mockito.verify(this.dataCollectionSorter, Mockito.never())
+			.orderByColumn(anyInt(), any(FieldmapBlockInfo.class), any(ArrayList.class));
 	}
 
 	@Test
@@ -60,8 +62,9 @@ public class DatasetCollectionOrderServiceImplTest {
 
 		Mockito.verify(this.fieldMapService, Mockito.times(2)).getBlockId(anyInt(), anyInt());
 		Mockito.verify(this.fieldMapService, Mockito.times(2)).getBlockInformation(anyInt());
-		Mockito.verify(this.dataCollectionSorter, Mockito.times(2)).orderByRange(eq(fieldmapBlockInfo), any(ArrayList.class));
-		Mockito.verify(this.dataCollectionSorter, Mockito.never()).orderByColumn(eq(fieldmapBlockInfo), any(ArrayList.class));
+		Mockito.verify(this.dataCollectionSorter, Mockito.times(2)).orderByRange(anyInt(), eq(fieldmapBlockInfo), any(ArrayList.class));
+		Mockito.verify(this.dataCollectionSorter, Mockito.never())
+			.orderByColumn(anyInt(), eq(fieldmapBlockInfo), any(ArrayList.class));
 	}
 
 	@Test
@@ -78,8 +81,9 @@ public class DatasetCollectionOrderServiceImplTest {
 
 		Mockito.verify(this.fieldMapService, Mockito.times(2)).getBlockId(anyInt(), anyInt());
 		Mockito.verify(this.fieldMapService, Mockito.times(2)).getBlockInformation(anyInt());
-		Mockito.verify(this.dataCollectionSorter, Mockito.never()).orderByRange(eq(fieldmapBlockInfo), any(ArrayList.class));
-		Mockito.verify(this.dataCollectionSorter, Mockito.times(2)).orderByColumn(eq(fieldmapBlockInfo), any(ArrayList.class));
+		Mockito.verify(this.dataCollectionSorter, Mockito.never())
+			.orderByRange(anyInt(), eq(fieldmapBlockInfo), any(ArrayList.class));
+		Mockito.verify(this.dataCollectionSorter, Mockito.times(2)).orderByColumn(anyInt(), eq(fieldmapBlockInfo), any(ArrayList.class));
 	}
 
 	private Map<Integer, StudyInstance> createStudyInstanceMap() {
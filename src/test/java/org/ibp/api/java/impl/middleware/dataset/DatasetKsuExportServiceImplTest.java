@@ -23,7 +23,7 @@ import org.generationcp.middleware.service.api.MethodService;
 import org.generationcp.middleware.service.api.dataset.DatasetTypeService;
 import org.generationcp.middleware.service.impl.study.StudyInstance;
 import org.ibp.api.java.dataset.DatasetCollectionOrderService;
-import org.ibp.api.java.dataset.DatasetFileGenerator;
+import org.ibp.api.java.dataset.DatasetKsuFileGenerator;
 import org.ibp.api.java.dataset.DatasetService;
 import org.ibp.api.java.impl.middleware.dataset.validator.DatasetValidator;
 import org.ibp.api.java.impl.middleware.dataset.validator.InstanceValidator;
@@ -130,7 +130,7 @@ public class DatasetKsuExportServiceImplTest {
 
 	private void testGenerateDatasetKSUExportService(
 		final AbstractDatasetExportService datasetKSUExportService, final String fileExtension, final
-		DatasetFileGenerator generator) throws IOException {
+		DatasetKsuFileGenerator generator) throws IOException {
 		final Study study = new Study();
 		final DataSet trialDataSet = new DataSet();
 		final DatasetDTO dataSetDTO = new DatasetDTO();
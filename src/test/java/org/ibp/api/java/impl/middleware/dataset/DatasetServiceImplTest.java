@@ -2,6 +2,7 @@ package org.ibp.api.java.impl.middleware.dataset;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.RandomStringUtils;
 import org.generationcp.middleware.api.brapi.v1.observation.ObservationDTO;
@@ -40,6 +41,7 @@ import org.ibp.api.rest.dataset.ObservationsPutRequestInput;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -137,6 +139,7 @@ public class DatasetServiceImplTest {
 	@Before
 	public void setup() {
 		MockitoAnnotations.initMocks(this);
+		this.studyDatasetService.setObservationImportChunkSize(1000);
 	}
 
 	@Test
@@ -268,6 +271,33 @@ public class DatasetServiceImplTest {
 		Assert.assertNotNull(results.get(1).get(0).getEnvironmentVariables());
 	}
 
+	@Test
+	public void testGetInstanceObservationUnitRowsMapOfObservationUnits() {
+		final List<ObservationUnitRow> observationUnitRows = this.mockObservationUnitRowList();
+		final ArgumentCaptor<ObservationUnitsSearchDTO> captor = ArgumentCaptor.forClass(ObservationUnitsSearchDTO.class);
+		Mockito.doReturn(observationUnitRows).when(this.middlewareDatasetService)
+			.getObservationUnitRows(ArgumentMatchers.eq(1), ArgumentMatchers.eq(1), captor.capture(), ArgumentMatchers.isNull());
+
+		final Map<Integer, List<org.ibp.api.rest.dataset.ObservationUnitRow>> results =
+			this.studyDatasetService.getInstanceObservationUnitRowsMap(1, 1, Arrays.asList(1), Sets.newHashSet(2, 3));
+
+		Assert.assertEquals(this.mapObservationUnitRows(observationUnitRows), results.get(1));
+		Assert.assertEquals(Integer.valueOf(1), captor.getValue().getInstanceId());
+		Assert.assertEquals(Sets.newHashSet(2, 3), captor.getValue().getFilter().getFilteredNdExperimentIds());
+		Mockito.verify(this.middlewareDatasetService, Mockito.never())
+			.getInstanceIdToObservationUnitRowsMap(ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyList());
+	}
+
+	@Test
+	public void testGetInstanceObservationUnitRowsMapWithoutObservationUnits() {
+		final Map<Integer, List<org.ibp.api.rest.dataset.ObservationUnitRow>> results =
+			this.studyDatasetService.getInstanceObservationUnitRowsMap(1, 1, Arrays.asList(1), new HashSet<>());
+
+		Assert.assertTrue(results.get(1).isEmpty());
+		Mockito.verify(this.middlewareDatasetService, Mockito.never()).getObservationUnitRows(ArgumentMatchers.anyInt(),
+			ArgumentMatchers.anyInt(), ArgumentMatchers.any(), ArgumentMatchers.any());
+	}
+
 	@Test
 	public void testValidateStudyDatasetAndInstances() {
 		this.studyDatasetService.validateStudyDatasetAndInstances(1, 1, Arrays.asList(1));
@@ -694,6 +724,47 @@ public class DatasetServiceImplTest {
 
 	}
 
+	@Test
+	public void testImportDataset_SavesObservationsInChunks() {
+		final Integer studyId = 1;
+		final Integer datasetId = 3;
+		final ObservationsPutRequestInput observationsPutRequestInput = new ObservationsPutRequestInput();
+		final List<List<String>> data = new ArrayList<>();
+		data.add(Arrays.asList("OBS_UNIT_ID", "A"));
+		data.add(Arrays.asList("1", "1"));
+		data.add(Arrays.asList("2", "2"));
+		data.add(Arrays.asList("3", "1"));
+		data.add(Arrays.asList("4", "1"));
+		observationsPutRequestInput.setData(data);
+		final List<MeasurementVariable> measurementVariables = new ArrayList<>();
+		final MeasurementVariable measurementVariable = new MeasurementVariable();
+		measurementVariable.setAlias("A");
+		measurementVariable.setDataType("Numeric");
+		measurementVariables.add(measurementVariable);
+		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitRow> storedData = new HashMap<>();
+		for (final String observationUnitId : Arrays.asList("1", "2", "4")) {
+			final org.generationcp.middleware.service.api.dataset.ObservationUnitRow observationUnitRow = new ObservationUnitRow();
+			observationUnitRow.setVariables(new HashMap<>());
+			storedData.put(observationUnitId, observationUnitRow);
+		}
+		Mockito.when(this.middlewareDatasetService.getDatasetMeasurementVariables(datasetId)).thenReturn(measurementVariables);
+		Mockito.when(
+			this.middlewareDatasetService.getObservationUnitsAsMap(datasetId, measurementVariables, Arrays.asList("1", "2", "3", "4")))
+			.thenReturn(storedData);
+		this.studyDatasetService.setObservationImportChunkSize(2);
+
+		this.studyDatasetService.importObservations(studyId, datasetId, observationsPutRequestInput);
+
+		final ArgumentCaptor<Table> tableCaptor = ArgumentCaptor.forClass(Table.class);
+		Mockito.verify(this.middlewareDatasetService, times(2))
+			.importDataset(eq(datasetId), tableCaptor.capture(), eq(true), eq(false));
+		final List<Table> chunks = tableCaptor.getAllValues();
+		Assert.assertEquals(Sets.newHashSet("1", "2"), chunks.get(0).rowKeySet());
+		Assert.assertEquals(Sets.newHashSet("4"), chunks.get(1).rowKeySet());
+		Assert.assertEquals("2", chunks.get(0).get("2", "A"));
+		Assert.assertEquals("1", chunks.get(1).get("4", "A"));
+	}
+
 	private List<org.ibp.api.rest.dataset.ObservationUnitRow> mapObservationUnitRows(
 		final List<ObservationUnitRow> observationDtoTestData) {
 		final ModelMapper observationUnitRowMapper = new ModelMapper();
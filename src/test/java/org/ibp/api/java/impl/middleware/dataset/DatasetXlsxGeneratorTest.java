@@ -0,0 +1,149 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.generationcp.middleware.domain.etl.MeasurementVariable;
+import org.generationcp.middleware.domain.ontology.VariableType;
+import org.ibp.api.rest.dataset.ObservationUnitData;
+import org.ibp.api.rest.dataset.ObservationUnitRow;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DatasetXlsxGeneratorTest {
+
+	private static final String VARIABLE_NAME = "PLOT_NO";
+	private static final String VARIABLE_ALIAS = "PLOT";
+	private static final String TRAIT_NAME = "GY_kg";
+
+	// More rows than an xls sheet can hold
+	private static final int NUMBER_OF_ROWS = 70000;
+	private static final int ROW_ACCESS_WINDOW_SIZE = 100;
+
+	private DatasetXlsxGenerator datasetXlsxGenerator;
+
+	private List<MeasurementVariable> columns;
+
+	@Before
+	public void setUp() {
+		this.datasetXlsxGenerator = new DatasetXlsxGenerator();
+		this.datasetXlsxGenerator.setRowAccessWindowSize(ROW_ACCESS_WINDOW_SIZE);
+
+		final MeasurementVariable plotNo = new MeasurementVariable();
+		plotNo.setName(VARIABLE_NAME);
+		plotNo.setAlias(VARIABLE_ALIAS);
+		plotNo.setVariableType(VariableType.EXPERIMENTAL_DESIGN);
+		final MeasurementVariable trait = new MeasurementVariable();
+		trait.setName(TRAIT_NAME);
+		trait.setAlias(TRAIT_NAME);
+		trait.setVariableType(VariableType.TRAIT);
+		this.columns = Arrays.asList(plotNo, trait);
+	}
+
+	@Test
+	public void testWriteObservationSheetBeyondXlsRowLimit() throws IOException {
+		final List<ObservationUnitRow> rows = new ArrayList<>();
+		for (int i = 1; i <= NUMBER_OF_ROWS; i++) {
+			rows.add(this.createObservationUnitRow(i));
+		}
+
+		final File file = File.createTempFile("dataset", ".xlsx");
+		file.deleteOnExit();
+		final Workbook workbook = this.datasetXlsxGenerator.createWorkbook();
+		try {
+			this.datasetXlsxGenerator
+				.writeObservationSheet(this.columns, rows, this.datasetXlsxGenerator.new WorkbookStyles(workbook), "Observation");
+			try (final FileOutputStream fos = new FileOutputStream(file)) {
+				workbook.write(fos);
+			}
+		} finally {
+			this.datasetXlsxGenerator.dispose(workbook);
+		}
+
+		try (final FileInputStream inputStream = new FileInputStream(file); final Workbook result = new XSSFWorkbook(inputStream)) {
+			final Sheet observationSheet = result.getSheet("Observation");
+			Assert.assertEquals(NUMBER_OF_ROWS, observationSheet.getLastRowNum());
+			Assert.assertEquals(VARIABLE_ALIAS, observationSheet.getRow(0).getCell(0).getStringCellValue());
+			Assert.assertEquals(TRAIT_NAME, observationSheet.getRow(0).getCell(1).getStringCellValue());
+			Assert.assertEquals("1", observationSheet.getRow(1).getCell(0).getStringCellValue());
+			Assert.assertEquals(String.valueOf(NUMBER_OF_ROWS), observationSheet.getRow(NUMBER_OF_ROWS).getCell(0).getStringCellValue());
+			Assert.assertEquals(String.valueOf(NUMBER_OF_ROWS * 2),
+				observationSheet.getRow(NUMBER_OF_ROWS).getCell(1).getStringCellValue());
+			// Header styles are shared, not created for each cell
+			Assert.assertTrue(result.getNumCellStyles() < 10);
+		}
+	}
+
+	@Test
+	public void testWriteObservationSheetKeepsOnlyTheWindowInMemory() {
+		final int numberOfRows = ROW_ACCESS_WINDOW_SIZE * 10;
+		final List<ObservationUnitRow> rows = new ArrayList<>();
+		for (int i = 1; i <= numberOfRows; i++) {
+			rows.add(this.createObservationUnitRow(i));
+		}
+
+		final Workbook workbook = this.datasetXlsxGenerator.createWorkbook();
+		try {
+			this.datasetXlsxGenerator
+				.writeObservationSheet(this.columns, rows, this.datasetXlsxGenerator.new WorkbookStyles(workbook), "Observation");
+
+			// Flushed rows are no longer reachable from the sheet, so the heap held by the sheet is bounded by the window
+			final SXSSFSheet observationSheet = (SXSSFSheet) workbook.getSheet("Observation");
+			int rowsInMemory = 0;
+			for (int i = 0; i <= numberOfRows; i++) {
+				if (observationSheet.getRow(i) != null) {
+					rowsInMemory++;
+				}
+			}
+			Assert.assertEquals(ROW_ACCESS_WINDOW_SIZE, rowsInMemory);
+			Assert.assertNull(observationSheet.getRow(0));
+			Assert.assertNotNull(observationSheet.getRow(numberOfRows));
+			Assert.assertEquals(numberOfRows - ROW_ACCESS_WINDOW_SIZE, observationSheet.getLastFlushedRowNum());
+		} finally {
+			this.datasetXlsxGenerator.dispose(workbook);
+		}
+	}
+
+	@Test
+	public void testWriteSingleInstanceDisposesWorkbookOnFailure() throws IOException {
+		final DatasetXlsxGenerator generator = Mockito.spy(this.datasetXlsxGenerator);
+		Mockito.doThrow(new IllegalStateException()).when(generator).orderColumns(ArgumentMatchers.anyList());
+
+		try {
+			generator.writeSingleInstance(1, null, this.columns, new ArrayList<>(), null, new ByteArrayOutputStream());
+			Assert.fail("Expected the export to fail");
+		} catch (final IllegalStateException e) {
+			// The temporary files of the flushed rows are still deleted
+			Mockito.verify(generator).dispose(ArgumentMatchers.any(SXSSFWorkbook.class));
+		}
+	}
+
+	private ObservationUnitRow createObservationUnitRow(final int plotNumber) {
+		final ObservationUnitRow row = new ObservationUnitRow();
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		final ObservationUnitData plotNo = new ObservationUnitData();
+		plotNo.setValue(String.valueOf(plotNumber));
+		variables.put(VARIABLE_NAME, plotNo);
+		final ObservationUnitData trait = new ObservationUnitData();
+		trait.setValue(String.valueOf(plotNumber * 2));
+		variables.put(TRAIT_NAME, trait);
+		row.setVariables(variables);
+		return row;
+	}
+}
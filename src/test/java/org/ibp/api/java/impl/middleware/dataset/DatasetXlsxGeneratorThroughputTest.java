@@ -0,0 +1,118 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.generationcp.middleware.domain.etl.MeasurementVariable;
+import org.generationcp.middleware.domain.ontology.VariableType;
+import org.ibp.api.rest.dataset.ObservationUnitData;
+import org.ibp.api.rest.dataset.ObservationUnitRow;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the time and the peak heap used to write the observation sheet of a 200,000 rows dataset as xlsx with the streaming
+ * {@link DatasetXlsxGenerator}, against the in-memory xls workbook of {@link DatasetExcelGenerator}, which can only hold the first
+ * 65,535 rows. It is meant to be run manually when touching the Excel exports, ideally once per generator in its own JVM.
+ */
+@Ignore("Throughput measurement, run manually")
+public class DatasetXlsxGeneratorThroughputTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DatasetXlsxGeneratorThroughputTest.class);
+
+	private static final int NUMBER_OF_ROWS = 200000;
+	private static final int XLS_MAX_ROWS = 65535;
+	private static final int NUMBER_OF_TRAITS = 20;
+
+	@Test
+	public void testXlsxExportThroughput() throws IOException {
+		final DatasetXlsxGenerator generator = new DatasetXlsxGenerator();
+		generator.setRowAccessWindowSize(100);
+		this.measure("xlsx (SXSSF)", generator, NUMBER_OF_ROWS);
+	}
+
+	@Test
+	public void testXlsExportThroughput() throws IOException {
+		this.measure("xls (HSSF)", new DatasetExcelGenerator(), XLS_MAX_ROWS);
+	}
+
+	private void measure(final String name, final DatasetExcelGenerator generator, final int numberOfRows) throws IOException {
+		final List<MeasurementVariable> columns = this.createColumns();
+		final List<ObservationUnitRow> rows = new ArrayList<>();
+		for (int i = 1; i <= numberOfRows; i++) {
+			rows.add(this.createObservationUnitRow(i));
+		}
+
+		final File file = File.createTempFile("dataset", ".xls");
+		file.deleteOnExit();
+		System.gc();
+		this.resetPeakUsage();
+		final long baseline = this.getPeakHeapUsage();
+
+		final long start = System.nanoTime();
+		final Workbook workbook = generator.createWorkbook();
+		try {
+			generator.writeObservationSheet(columns, rows, generator.new WorkbookStyles(workbook), "Observation");
+			try (final FileOutputStream fos = new FileOutputStream(file)) {
+				workbook.write(fos);
+			}
+		} finally {
+			generator.dispose(workbook);
+		}
+		final long elapsed = System.nanoTime() - start;
+
+		LOG.info("{}: {} rows written in {} ms, peak heap {} MB over the rows held by the test, file {} KB", name, numberOfRows,
+			elapsed / 1_000_000, (this.getPeakHeapUsage() - baseline) / (1024 * 1024), file.length() / 1024);
+	}
+
+	private void resetPeakUsage() {
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			pool.resetPeakUsage();
+		}
+	}
+
+	private long getPeakHeapUsage() {
+		long peak = 0;
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+
+	private List<MeasurementVariable> createColumns() {
+		final List<MeasurementVariable> columns = new ArrayList<>();
+		for (int i = 0; i < NUMBER_OF_TRAITS; i++) {
+			final MeasurementVariable trait = new MeasurementVariable();
+			trait.setName("TRAIT_" + i);
+			trait.setAlias("TRAIT_" + i);
+			trait.setVariableType(VariableType.TRAIT);
+			columns.add(trait);
+		}
+		return columns;
+	}
+
+	private ObservationUnitRow createObservationUnitRow(final int plotNumber) {
+		final ObservationUnitRow row = new ObservationUnitRow();
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		for (int i = 0; i < NUMBER_OF_TRAITS; i++) {
+			final ObservationUnitData data = new ObservationUnitData();
+			data.setValue(String.valueOf(plotNumber + i));
+			variables.put("TRAIT_" + i, data);
+		}
+		row.setVariables(variables);
+		return row;
+	}
+}
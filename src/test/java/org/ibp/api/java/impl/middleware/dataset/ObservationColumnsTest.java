@@ -0,0 +1,76 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ObservationColumnsTest {
+
+	private ObservationColumns columns;
+
+	@Before
+	public void setUp() {
+		this.columns = new ObservationColumns(Arrays.asList("A", "B"));
+		this.columns.add("Obs1", Arrays.asList("1", "missing"));
+		this.columns.add("Obs2", Arrays.asList("2", "missing"));
+		this.columns.add("Obs1", Arrays.asList("3", "3"));
+		this.columns.add("Obs3", Arrays.asList("1", null));
+	}
+
+	@Test
+	public void testAdd() {
+		Assert.assertEquals(3, this.columns.size());
+		Assert.assertEquals(Arrays.asList("Obs1", "Obs2", "Obs3"), this.columns.getObservationUnitIds());
+		Assert.assertEquals(1, this.columns.getDuplicatedFoundNumber());
+		Assert.assertEquals("1", this.columns.getValue(0, 0));
+		Assert.assertEquals("2", this.columns.getValue(1, 0));
+		Assert.assertNull(this.columns.getValue(2, 1));
+	}
+
+	@Test
+	public void testValuesAreDictionaryEncoded() {
+		Assert.assertEquals(2, this.columns.getDictionarySize(0));
+		Assert.assertEquals(1, this.columns.getDictionarySize(1));
+		Assert.assertEquals(this.columns.getCode(0, 0), this.columns.getCode(2, 0));
+		Assert.assertEquals(this.columns.getCode(0, 1), this.columns.getCode(1, 1));
+		Assert.assertTrue(this.columns.getCode(2, 1) < 0);
+	}
+
+	@Test
+	public void testReplaceValues() {
+		this.columns.replaceValues(0, value -> "1".equals(value) ? "2" : value);
+
+		Assert.assertEquals("2", this.columns.getValue(0, 0));
+		Assert.assertEquals("2", this.columns.getValue(1, 0));
+		Assert.assertEquals("2", this.columns.getValue(2, 0));
+		Assert.assertEquals("missing", this.columns.getValue(0, 1));
+	}
+
+	@Test
+	public void testToTablesLeavesOutExcludedObservationUnits() {
+		Assert.assertEquals(1, this.columns.retainObservationUnits(Sets.newHashSet("Obs1", "Obs3")));
+
+		final List<Table<String, String, String>> tables = Lists.newArrayList(this.columns.toTables(1));
+
+		Assert.assertEquals(2, tables.size());
+		Assert.assertEquals(Sets.newHashSet("Obs1"), tables.get(0).rowKeySet());
+		Assert.assertEquals("missing", tables.get(0).get("Obs1", "B"));
+		Assert.assertEquals(Sets.newHashSet("Obs3"), tables.get(1).rowKeySet());
+		Assert.assertFalse(tables.get(1).contains("Obs3", "B"));
+	}
+
+	@Test
+	public void testToTable() {
+		final Table<String, String, String> table = this.columns.toTable();
+
+		Assert.assertEquals(Sets.newHashSet("Obs1", "Obs2", "Obs3"), table.rowKeySet());
+		Assert.assertEquals("1", table.get("Obs1", "A"));
+		Assert.assertEquals("2", table.get("Obs2", "A"));
+	}
+}
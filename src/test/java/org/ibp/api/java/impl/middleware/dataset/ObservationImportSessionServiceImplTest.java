@@ -0,0 +1,373 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import org.generationcp.middleware.api.brapi.v1.observation.ObservationDTO;
+import org.ibp.api.domain.dataset.ObservationImportSessionDTO;
+import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.exception.ConflictException;
+import org.ibp.api.exception.ResourceNotFoundException;
+import org.ibp.api.java.dataset.DatasetService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class ObservationImportSessionServiceImplTest {
+
+	private static final String MAIZE = "maize";
+	private static final Integer STUDY_DB_ID = 10;
+
+	@Mock
+	private DatasetService datasetService;
+
+	private InMemoryObservationImportStaging staging;
+
+	private ObservationImportSessionServiceImpl sessionService;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+		this.staging = new InMemoryObservationImportStaging();
+		this.staging.setDatasetService(this.datasetService);
+		this.sessionService = new ObservationImportSessionServiceImpl();
+		this.sessionService.setDatasetService(this.datasetService);
+		this.sessionService.setObservationImportStaging(this.staging);
+		this.sessionService.setTtlMinutes(60);
+		this.sessionService.setBatchMaxSize(2);
+		this.sessionService.setSessionMaxObservations(3);
+		this.sessionService.setMaxSessionsPerUser(2);
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("user1", "password"));
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void testStageBatchAndCommitInSequenceOrder() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		final List<ObservationDTO> batch2 = Arrays.asList(this.createObservation("2"));
+		final List<ObservationDTO> batch1 = Arrays.asList(this.createObservation("1"), this.createObservation("1"));
+
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 2, batch2);
+		final ObservationImportSessionDTO session = this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, batch1);
+		Assert.assertEquals(Arrays.asList(1, 2), session.getStagedBatches());
+		Assert.assertEquals(3, session.getStagedObservations());
+		Mockito.verify(this.datasetService).validateObservations(STUDY_DB_ID, batch1);
+		Mockito.verify(this.datasetService).validateObservations(STUDY_DB_ID, batch2);
+
+		final List<ObservationDTO> saved = this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId);
+
+		Assert.assertEquals(3, saved.size());
+		final InOrder inOrder = Mockito.inOrder(this.datasetService);
+		inOrder.verify(this.datasetService).importObservations(STUDY_DB_ID, batch1);
+		inOrder.verify(this.datasetService).importObservations(STUDY_DB_ID, batch2);
+		final ObservationImportSessionDTO committed = this.sessionService.getSession(MAIZE, STUDY_DB_ID, sessionId);
+		Assert.assertTrue(committed.isCommitted());
+		Assert.assertEquals(Arrays.asList(1, 2), committed.getCommittedBatches());
+		Assert.assertEquals(3, committed.getCommittedObservations());
+		Assert.assertTrue(committed.getStagedBatches().isEmpty());
+	}
+
+	@Test
+	public void testInvalidBatchIsNotStagedAndCanBeSentAgain() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		final List<ObservationDTO> invalidBatch = Arrays.asList(this.createObservation("1"));
+		Mockito.doThrow(this.validationException()).when(this.datasetService).validateObservations(STUDY_DB_ID, invalidBatch);
+
+		try {
+			this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, invalidBatch);
+			Assert.fail("The batch should not be valid");
+		} catch (final ApiRequestValidationException e) {
+			Assert.assertTrue(this.sessionService.getSession(MAIZE, STUDY_DB_ID, sessionId).getStagedBatches().isEmpty());
+		}
+
+		final ObservationImportSessionDTO session =
+			this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, Arrays.asList(this.createObservation("1")));
+		Assert.assertEquals(Collections.singletonList(1), session.getStagedBatches());
+	}
+
+	@Test
+	public void testCommitCanBeRetriedAfterAFailedBatch() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		final List<ObservationDTO> batch1 = Arrays.asList(this.createObservation("1"));
+		final List<ObservationDTO> batch2 = Arrays.asList(this.createObservation("2"));
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, batch1);
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 2, batch2);
+		Mockito.doThrow(new IllegalStateException("Lock wait timeout")).doNothing().when(this.datasetService)
+			.importObservations(STUDY_DB_ID, batch2);
+
+		try {
+			this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId);
+			Assert.fail("The second batch should fail");
+		} catch (final IllegalStateException e) {
+			final ObservationImportSessionDTO session = this.sessionService.getSession(MAIZE, STUDY_DB_ID, sessionId);
+			Assert.assertFalse(session.isCommitted());
+			Assert.assertEquals(Collections.singletonList(1), session.getCommittedBatches());
+			Assert.assertEquals(Collections.singletonList(2), session.getStagedBatches());
+		}
+
+		final List<ObservationDTO> saved = this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId);
+
+		Assert.assertEquals(batch2, saved);
+		Mockito.verify(this.datasetService, Mockito.times(1)).importObservations(STUDY_DB_ID, batch1);
+	}
+
+	@Test(expected = ConflictException.class)
+	public void testStageBatchFailsWhenSessionIsCommitted() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, Arrays.asList(this.createObservation("1")));
+		this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId);
+
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 2, Arrays.asList(this.createObservation("2")));
+	}
+
+	@Test
+	public void testStageBatchFailsWhenBatchIsTooLarge() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		try {
+			this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1,
+				Arrays.asList(this.createObservation("1"), this.createObservation("2"), this.createObservation("3")));
+			Assert.fail("The batch should be too large");
+		} catch (final ApiRequestValidationException e) {
+			Assert.assertEquals(ObservationImportSessionServiceImpl.BATCH_TOO_LARGE, e.getErrors().get(0).getCode());
+		}
+		Mockito.verifyZeroInteractions(this.datasetService);
+	}
+
+	@Test
+	public void testStageBatchFailsWhenSessionIsFull() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		this.sessionService
+			.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, Arrays.asList(this.createObservation("1"), this.createObservation("1")));
+		final List<ObservationDTO> batch2 = Arrays.asList(this.createObservation("2"), this.createObservation("2"));
+
+		this.assertRejected(ObservationImportSessionServiceImpl.SESSION_TOO_LARGE,
+			() -> this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 2, batch2));
+		Mockito.verify(this.datasetService, Mockito.never()).validateObservations(STUDY_DB_ID, batch2);
+
+		// A batch sent again only counts the difference with the one it replaces
+		final ObservationImportSessionDTO session = this.sessionService
+			.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, Arrays.asList(this.createObservation("3"), this.createObservation("3")));
+		Assert.assertEquals(2, session.getStagedObservations());
+	}
+
+	@Test
+	public void testOpenFailsWhenUserHasTooManySessions() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		this.sessionService.open(MAIZE, STUDY_DB_ID);
+
+		this.assertRejected(ObservationImportSessionServiceImpl.SESSIONS_TOO_MANY, () -> this.sessionService.open(MAIZE, STUDY_DB_ID));
+
+		// Committed sessions are not open anymore
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, Arrays.asList(this.createObservation("1")));
+		this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId);
+		Assert.assertNotNull(this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId());
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("user2", "password"));
+		Assert.assertNotNull(this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId());
+	}
+
+	@Test
+	public void testCommitIsIdempotent() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		final List<ObservationDTO> batch1 = Arrays.asList(this.createObservation("1"));
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, batch1);
+		this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId);
+
+		// The response of the first commit was lost and the device commits again, on this node or another one
+		Assert.assertTrue(this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId).isEmpty());
+		Mockito.verify(this.datasetService, Mockito.times(1)).importObservations(STUDY_DB_ID, batch1);
+	}
+
+	@Test
+	public void testCommitSkipsTheBatchesCommittedByAnotherRequest() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		final List<ObservationDTO> batch1 = Arrays.asList(this.createObservation("1"));
+		final List<ObservationDTO> batch2 = Arrays.asList(this.createObservation("2"));
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 1, batch1);
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId, 2, batch2);
+		// A commit running at the same time on another node already saved the first batch
+		this.staging.commitBatch(sessionId, STUDY_DB_ID, 1);
+
+		final List<ObservationDTO> saved = this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId);
+
+		Assert.assertEquals(batch2, saved);
+		Mockito.verify(this.datasetService, Mockito.times(1)).importObservations(STUDY_DB_ID, batch1);
+		Assert.assertEquals(Arrays.asList(1, 2), this.sessionService.getSession(MAIZE, STUDY_DB_ID, sessionId).getCommittedBatches());
+	}
+
+	@Test
+	public void testOpenDeletesTheExpiredSessions() {
+		final String sessionId1 = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		this.sessionService
+			.stageBatch(MAIZE, STUDY_DB_ID, sessionId1, 1, Arrays.asList(this.createObservation("1"), this.createObservation("1")));
+		this.sessionService.stageBatch(MAIZE, STUDY_DB_ID, sessionId1, 2, Arrays.asList(this.createObservation("2")));
+
+		this.staging.expire(sessionId1);
+		final String sessionId2 = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+
+		this.assertSessionNotFound(MAIZE, STUDY_DB_ID, sessionId1);
+		Assert.assertEquals(Collections.singleton(sessionId2), this.staging.sessions.keySet());
+		Assert.assertFalse(this.staging.batches.containsKey(sessionId1));
+	}
+
+	@Test(expected = ApiRequestValidationException.class)
+	public void testCommitFailsWhenNothingIsStaged() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+		this.sessionService.commit(MAIZE, STUDY_DB_ID, sessionId);
+	}
+
+	@Test
+	public void testSessionsAreOnlyVisibleToTheirUserAndStudy() {
+		final String sessionId = this.sessionService.open(MAIZE, STUDY_DB_ID).getSessionId();
+
+		this.assertSessionNotFound(MAIZE, 11, sessionId);
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("user2", "password"));
+		this.assertSessionNotFound(MAIZE, STUDY_DB_ID, sessionId);
+	}
+
+	private void assertSessionNotFound(final String cropName, final Integer studyDbId, final String sessionId) {
+		try {
+			this.sessionService.getSession(cropName, studyDbId, sessionId);
+			Assert.fail("The session should not be found");
+		} catch (final ResourceNotFoundException e) {
+			Assert.assertEquals(ObservationImportSessionServiceImpl.SESSION_NOT_FOUND, e.getError().getCode());
+		}
+	}
+
+	private void assertRejected(final String errorCode, final Runnable request) {
+		try {
+			request.run();
+			Assert.fail("The request should be rejected");
+		} catch (final ApiRequestValidationException e) {
+			Assert.assertEquals(errorCode, e.getErrors().get(0).getCode());
+		}
+	}
+
+	private ApiRequestValidationException validationException() {
+		final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+		errors.reject("warning.import.save.invalid.cell.numeric.value", "");
+		return new ApiRequestValidationException(errors.getAllErrors());
+	}
+
+	private ObservationDTO createObservation(final String value) {
+		final ObservationDTO observation = new ObservationDTO();
+		observation.setObservationUnitDbId("obs-unit-" + value);
+		observation.setObservationVariableDbId(1);
+		observation.setValue(value);
+		return observation;
+	}
+
+	/**
+	 * Keeps the staging tables in memory, with the expiration and the committed flags of the database
+	 */
+	private static class InMemoryObservationImportStaging extends ObservationImportStaging {
+
+		private final Map<String, StagedSession> sessions = new LinkedHashMap<>();
+		private final Map<String, TreeMap<Integer, List<ObservationDTO>>> batches = new HashMap<>();
+		private final Set<String> committedBatches = new HashSet<>();
+		private DatasetService datasetService;
+
+		@Override
+		public void createSession(final String sessionId, final Integer studyDbId, final String username) {
+			this.sessions.put(sessionId, new StagedSession(sessionId, studyDbId, username, new Date(), new Date(), false));
+			this.batches.put(sessionId, new TreeMap<>());
+		}
+
+		@Override
+		public long countOpenSessions(final String username, final long ttlMinutes) {
+			return this.sessions.values().stream()
+				.filter(session -> Objects.equals(session.getUsername(), username) && !session.isCommitted()
+					&& !this.isExpired(session, ttlMinutes)).count();
+		}
+
+		@Override
+		public int deleteExpiredSessions(final long ttlMinutes) {
+			final List<String> expired = this.sessions.values().stream().filter(session -> this.isExpired(session, ttlMinutes))
+				.map(StagedSession::getSessionId).collect(Collectors.toList());
+			for (final String sessionId : expired) {
+				this.sessions.remove(sessionId);
+				this.batches.remove(sessionId);
+			}
+			return expired.size();
+		}
+
+		@Override
+		public StagedSession getStagedSession(final String sessionId, final long ttlMinutes, final boolean lock) {
+			final StagedSession session = this.sessions.get(sessionId);
+			return session == null || this.isExpired(session, ttlMinutes) ? null : session;
+		}
+
+		@Override
+		public List<StagedBatch> getBatches(final String sessionId) {
+			final List<StagedBatch> stagedBatches = new ArrayList<>();
+			for (final Map.Entry<Integer, List<ObservationDTO>> batch : this.batches.get(sessionId).entrySet()) {
+				stagedBatches.add(new StagedBatch(batch.getKey(), batch.getValue().size(),
+					this.committedBatches.contains(sessionId + "#" + batch.getKey())));
+			}
+			return stagedBatches;
+		}
+
+		@Override
+		public void stageBatch(final String sessionId, final int sequenceNumber, final List<ObservationDTO> observations) {
+			this.batches.get(sessionId).put(sequenceNumber, new ArrayList<>(observations));
+			this.committedBatches.remove(sessionId + "#" + sequenceNumber);
+		}
+
+		@Override
+		public List<ObservationDTO> commitBatch(final String sessionId, final Integer studyDbId, final int sequenceNumber) {
+			final List<ObservationDTO> observations = this.batches.get(sessionId).get(sequenceNumber);
+			if (observations == null || this.committedBatches.contains(sessionId + "#" + sequenceNumber)) {
+				return Collections.emptyList();
+			}
+			this.datasetService.importObservations(studyDbId, observations);
+			this.committedBatches.add(sessionId + "#" + sequenceNumber);
+			return observations;
+		}
+
+		@Override
+		public void commitSession(final String sessionId) {
+			final StagedSession session = this.sessions.get(sessionId);
+			this.sessions.put(sessionId, new StagedSession(sessionId, session.getStudyDbId(), session.getUsername(),
+				session.getCreatedDate(), new Date(), true));
+		}
+
+		@Override
+		void setDatasetService(final DatasetService datasetService) {
+			this.datasetService = datasetService;
+		}
+
+		void expire(final String sessionId) {
+			final StagedSession session = this.sessions.get(sessionId);
+			this.sessions.put(sessionId, new StagedSession(sessionId, session.getStudyDbId(), session.getUsername(),
+				session.getCreatedDate(), new Date(0), session.isCommitted()));
+		}
+
+		private boolean isExpired(final StagedSession session, final long ttlMinutes) {
+			return session.getLastUpdatedDate().getTime() < System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ttlMinutes);
+		}
+	}
+}
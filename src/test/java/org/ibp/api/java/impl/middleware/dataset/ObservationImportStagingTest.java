@@ -0,0 +1,105 @@
+package org.ibp.api.java.impl.middleware.dataset;
+
+import org.generationcp.middleware.api.brapi.v1.observation.ObservationDTO;
+import org.generationcp.middleware.hibernate.HibernateSessionPerRequestProvider;
+import org.hibernate.SQLQuery;
+import org.hibernate.Session;
+import org.ibp.api.java.dataset.DatasetService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ObservationImportStagingTest {
+
+	private static final String SESSION_ID = "5b0b7c36-0a51-4b0e-9b8e-3c1f4c2a9d10";
+	private static final Integer STUDY_DB_ID = 10;
+
+	@Mock
+	private HibernateSessionPerRequestProvider cropDatabaseSessionProvider;
+
+	@Mock
+	private Session session;
+
+	@Mock
+	private DatasetService datasetService;
+
+	private SQLQuery query;
+
+	private ObservationImportStaging staging;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+		this.query = Mockito.mock(SQLQuery.class, Mockito.RETURNS_SELF);
+		Mockito.when(this.cropDatabaseSessionProvider.getSession()).thenReturn(this.session);
+		Mockito.when(this.session.createSQLQuery(ArgumentMatchers.anyString())).thenReturn(this.query);
+		this.staging = new ObservationImportStaging();
+		this.staging.setCropDatabaseSessionProvider(this.cropDatabaseSessionProvider);
+		this.staging.setDatasetService(this.datasetService);
+	}
+
+	@Test
+	public void testCommitBatchSavesTheStagedObservations() {
+		final List<ObservationDTO> observations = Arrays.asList(this.createObservation("1"), this.createObservation("2"));
+		final String json = this.stage(observations);
+		// The session lock, then the batch
+		Mockito.when(this.query.uniqueResult()).thenReturn(SESSION_ID, (Object) new Object[] {json, Boolean.FALSE});
+
+		final List<ObservationDTO> saved = this.staging.commitBatch(SESSION_ID, STUDY_DB_ID, 1);
+
+		Assert.assertEquals(2, saved.size());
+		Assert.assertEquals("obs-unit-1", saved.get(0).getObservationUnitDbId());
+		Assert.assertEquals("2", saved.get(1).getValue());
+		Mockito.verify(this.datasetService).importObservations(STUDY_DB_ID, saved);
+		final ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		Mockito.verify(this.session, Mockito.atLeastOnce()).createSQLQuery(sql.capture());
+		Assert.assertTrue(sql.getAllValues().contains("UPDATE observation_import_batch SET committed = 1 "
+			+ "WHERE session_id = :sessionId AND sequence_number = :sequenceNumber"));
+	}
+
+	@Test
+	public void testCommitBatchSkipsACommittedBatch() {
+		final String json = this.stage(Arrays.asList(this.createObservation("1")));
+		Mockito.when(this.query.uniqueResult()).thenReturn(SESSION_ID, (Object) new Object[] {json, 1});
+
+		Assert.assertTrue(this.staging.commitBatch(SESSION_ID, STUDY_DB_ID, 1).isEmpty());
+		Mockito.verifyZeroInteractions(this.datasetService);
+		Mockito.verify(this.query, Mockito.never()).executeUpdate();
+	}
+
+	@Test
+	public void testCommitBatchSkipsAMissingBatch() {
+		Mockito.when(this.query.uniqueResult()).thenReturn(SESSION_ID, (Object) null);
+
+		Assert.assertTrue(this.staging.commitBatch(SESSION_ID, STUDY_DB_ID, 3).isEmpty());
+		Mockito.verifyZeroInteractions(this.datasetService);
+	}
+
+	/**
+	 * @return the observations as written in the staging table
+	 */
+	private String stage(final List<ObservationDTO> observations) {
+		this.staging.stageBatch(SESSION_ID, 1, observations);
+		final ArgumentCaptor<Object> json = ArgumentCaptor.forClass(Object.class);
+		Mockito.verify(this.query).setParameter(ArgumentMatchers.eq("observations"), json.capture());
+		Mockito.verify(this.query).setParameter("observationCount", observations.size());
+		Mockito.clearInvocations(this.query, this.session);
+		return (String) json.getValue();
+	}
+
+	private ObservationDTO createObservation(final String value) {
+		final ObservationDTO observation = new ObservationDTO();
+		observation.setObservationUnitDbId("obs-unit-" + value);
+		observation.setObservationVariableDbId(1);
+		observation.setValue(value);
+		return observation;
+	}
+}
@@ -0,0 +1,261 @@
+package org.ibp.api.java.impl.middleware.derived;
+
+import org.generationcp.middleware.domain.dms.ValueReference;
+import org.generationcp.middleware.domain.etl.MeasurementVariable;
+import org.generationcp.middleware.domain.ontology.DataType;
+import org.generationcp.middleware.hibernate.HibernateSessionPerRequestProvider;
+import org.generationcp.middleware.pojos.dms.ExperimentModel;
+import org.generationcp.middleware.pojos.dms.Phenotype;
+import org.generationcp.middleware.service.api.dataset.ObservationUnitData;
+import org.generationcp.middleware.service.api.dataset.ObservationUnitRow;
+import org.generationcp.middleware.service.api.derived_variables.DerivedVariableService;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.SessionStatistics;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CalculatedResultWriterTest {
+
+	private static final String TARGET_VARIABLE_NAME = "TARGET_VARIABLE";
+	private static final int TARGET_VARIABLE_TERMID = 321;
+	private static final int BATCH_SIZE = 500;
+
+	@Mock
+	private DerivedVariableService middlewareDerivedVariableService;
+
+	@Mock
+	private HibernateSessionPerRequestProvider cropDatabaseSessionProvider;
+
+	@Mock
+	private Session session;
+
+	@Mock
+	private SessionStatistics sessionStatistics;
+
+	@InjectMocks
+	private CalculatedResultWriter calculatedResultWriter;
+
+	// Entities managed by the session, the saved phenotypes are added to them
+	private final Map<EntityKey, String> managedEntities = new HashMap<>();
+
+	// Saves not flushed yet
+	private int pendingSaves;
+
+	@Before
+	public void setUp() {
+		this.calculatedResultWriter.setBatchSize(BATCH_SIZE);
+		Mockito.lenient().when(this.cropDatabaseSessionProvider.getSession()).thenReturn(this.session);
+		Mockito.lenient().when(this.session.getStatistics()).thenReturn(this.sessionStatistics);
+		Mockito.lenient().when(this.sessionStatistics.getEntityKeys()).thenAnswer(invocation -> this.managedEntities.keySet());
+		Mockito.lenient().when(this.session.get(Mockito.anyString(), any(Serializable.class))).thenAnswer(
+			invocation -> this.managedEntities.get(this.findEntityKey(invocation.getArgument(0), invocation.getArgument(1))));
+		Mockito.lenient().doAnswer(invocation -> this.managedEntities.values().remove(invocation.getArgument(0)))
+			.when(this.session).evict(any());
+		Mockito.lenient().doAnswer(invocation -> {
+			final Integer observationId = invocation.getArgument(3);
+			this.managedEntities.put(this.createEntityKey(Phenotype.class.getName(), observationId), "phenotype " + observationId);
+			this.pendingSaves++;
+			return null;
+		}).when(this.middlewareDerivedVariableService).saveCalculatedResult(any(), any(), any(), any(), any());
+	}
+
+	@Test
+	public void testWrite() {
+		final MeasurementVariable target = this.createTargetMeasurementVariable(DataType.NUMERIC_VARIABLE);
+		final List<DerivedVariableCalculator.CalculatedValue> calculatedValues = this.createCalculatedValues(3);
+
+		final Set<Integer> observationUnitIds = this.calculatedResultWriter.write(calculatedValues, TARGET_VARIABLE_NAME, target);
+
+		for (final DerivedVariableCalculator.CalculatedValue calculatedValue : calculatedValues) {
+			final ObservationUnitRow row = calculatedValue.getObservationUnitRow();
+			Mockito.verify(this.middlewareDerivedVariableService).saveCalculatedResult(calculatedValue.getValue(), null,
+				row.getObservationUnitId(), row.getVariables().get(TARGET_VARIABLE_NAME).getObservationId(), target);
+		}
+		Assert.assertEquals(3, observationUnitIds.size());
+		Assert.assertTrue(observationUnitIds.containsAll(Arrays.asList(1, 2, 3)));
+		// Less values than the batch size are flushed once at the end
+		Mockito.verify(this.session).flush();
+		Mockito.verify(this.session, Mockito.never()).clear();
+	}
+
+	@Test
+	public void testWriteEvictsOnlyThePhenotypesSavedByTheChunk() {
+		final EntityKey callerPhenotype = this.createEntityKey(Phenotype.class.getName(), 1);
+		final EntityKey callerExperiment = this.createEntityKey(ExperimentModel.class.getName(), 1);
+		this.managedEntities.put(callerPhenotype, "caller phenotype");
+		this.managedEntities.put(callerExperiment, "caller experiment");
+		this.calculatedResultWriter.setBatchSize(2);
+
+		this.calculatedResultWriter
+			.write(this.createCalculatedValues(5), TARGET_VARIABLE_NAME, this.createTargetMeasurementVariable(DataType.NUMERIC_VARIABLE));
+
+		Mockito.verify(this.session, Mockito.times(3)).flush();
+		Mockito.verify(this.session, Mockito.times(5)).evict(Mockito.startsWith("phenotype "));
+		Mockito.verify(this.session, Mockito.never()).clear();
+		Assert.assertEquals(2, this.managedEntities.size());
+		Assert.assertTrue(this.managedEntities.keySet().containsAll(Arrays.asList(callerPhenotype, callerExperiment)));
+	}
+
+	/**
+	 * Counts the round trips of the statements that save the values of a 50k-unit dataset. They used to be sent one by one, now the
+	 * ones pending at each flush are sent in JDBC batches of the crop session factories.
+	 */
+	@Test
+	public void testStatementsSentForFiftyThousandUnits() {
+		final int units = 50000;
+		final int jdbcBatchSize = 50;
+		final int[] roundTrips = {0};
+		Mockito.doAnswer(invocation -> {
+			roundTrips[0] += (this.pendingSaves + jdbcBatchSize - 1) / jdbcBatchSize;
+			this.pendingSaves = 0;
+			return null;
+		}).when(this.session).flush();
+
+		this.calculatedResultWriter
+			.write(this.createCalculatedValues(units), TARGET_VARIABLE_NAME, this.createTargetMeasurementVariable(DataType.NUMERIC_VARIABLE));
+
+		Assert.assertEquals(units / jdbcBatchSize, roundTrips[0]);
+		Assert.assertTrue(roundTrips[0] * 10 <= units);
+		// The saved phenotypes do not pile up in the session
+		Assert.assertTrue(this.managedEntities.isEmpty());
+	}
+
+	@Test
+	public void testWriteCategoricalValue() {
+		final MeasurementVariable target = this.createTargetMeasurementVariable(DataType.CATEGORICAL_VARIABLE);
+		target.setPossibleValues(Arrays.asList(new ValueReference(10, "low"), new ValueReference(11, "High"),
+			new ValueReference(12, "HIGH")));
+		final List<DerivedVariableCalculator.CalculatedValue> calculatedValues = new ArrayList<>();
+		calculatedValues.add(new DerivedVariableCalculator.CalculatedValue(this.createObservationUnitRow(1), "high"));
+		calculatedValues.add(new DerivedVariableCalculator.CalculatedValue(this.createObservationUnitRow(2), "medium"));
+
+		this.calculatedResultWriter.write(calculatedValues, TARGET_VARIABLE_NAME, target);
+
+		// The first possible value matching the calculated value ignoring case is used
+		Mockito.verify(this.middlewareDerivedVariableService)
+			.saveCalculatedResult(Mockito.eq("high"), Mockito.eq(11), Mockito.eq(1), anyInt(), Mockito.eq(target));
+		Mockito.verify(this.middlewareDerivedVariableService)
+			.saveCalculatedResult(Mockito.eq("medium"), Mockito.isNull(), Mockito.eq(2), anyInt(), Mockito.eq(target));
+	}
+
+	@Test
+	public void testWriteNothing() {
+		final Set<Integer> observationUnitIds = this.calculatedResultWriter
+			.write(new ArrayList<>(), TARGET_VARIABLE_NAME, this.createTargetMeasurementVariable(DataType.NUMERIC_VARIABLE));
+
+		Assert.assertTrue(observationUnitIds.isEmpty());
+		Mockito.verifyZeroInteractions(this.middlewareDerivedVariableService, this.session);
+	}
+
+	@Test
+	public void testWriteFlushesAfterEveryFullChunk() {
+		final int chunks = 3;
+		final int chunkSize = 4;
+		final MeasurementVariable target = this.createTargetMeasurementVariable(DataType.NUMERIC_VARIABLE);
+		final List<DerivedVariableCalculator.CalculatedValue> calculatedValues = this.createCalculatedValues(chunks * chunkSize);
+		this.calculatedResultWriter.setBatchSize(chunkSize);
+
+		final Set<Integer> observationUnitIds = this.calculatedResultWriter.write(calculatedValues, TARGET_VARIABLE_NAME, target);
+
+		Assert.assertEquals(chunks * chunkSize, observationUnitIds.size());
+		// No extra flush for an empty last chunk
+		Mockito.verify(this.session, Mockito.times(chunks)).flush();
+		this.verifyFlushedAfterEveryChunk(calculatedValues, chunkSize);
+	}
+
+	@Test
+	public void testWriteFlushesTheLastPartialChunk() {
+		final int chunks = 3;
+		final int chunkSize = 4;
+		final MeasurementVariable target = this.createTargetMeasurementVariable(DataType.NUMERIC_VARIABLE);
+		final List<DerivedVariableCalculator.CalculatedValue> calculatedValues = this.createCalculatedValues(chunks * chunkSize + 1);
+		this.calculatedResultWriter.setBatchSize(chunkSize);
+
+		final Set<Integer> observationUnitIds = this.calculatedResultWriter.write(calculatedValues, TARGET_VARIABLE_NAME, target);
+
+		Assert.assertEquals(chunks * chunkSize + 1, observationUnitIds.size());
+		Mockito.verify(this.session, Mockito.times(chunks + 1)).flush();
+		this.verifyFlushedAfterEveryChunk(calculatedValues, chunkSize);
+	}
+
+	/**
+	 * Checks that the session is flushed right after the last value of every chunk is saved, and before the next one
+	 */
+	private void verifyFlushedAfterEveryChunk(final List<DerivedVariableCalculator.CalculatedValue> calculatedValues, final int chunkSize) {
+		final InOrder inOrder = Mockito.inOrder(this.middlewareDerivedVariableService, this.session);
+		for (int i = 0; i < calculatedValues.size(); i++) {
+			final ObservationUnitRow row = calculatedValues.get(i).getObservationUnitRow();
+			inOrder.verify(this.middlewareDerivedVariableService).saveCalculatedResult(Mockito.eq(calculatedValues.get(i).getValue()),
+				Mockito.isNull(), Mockito.eq(row.getObservationUnitId()), anyInt(), any(MeasurementVariable.class));
+			if ((i + 1) % chunkSize == 0 || i == calculatedValues.size() - 1) {
+				inOrder.verify(this.session).flush();
+			}
+		}
+	}
+
+	private EntityKey createEntityKey(final String entityName, final Serializable id) {
+		final EntityPersister persister = Mockito.mock(EntityPersister.class, Mockito.RETURNS_DEEP_STUBS);
+		Mockito.lenient().when(persister.getEntityName()).thenReturn(entityName);
+		return new EntityKey(id, persister);
+	}
+
+	private EntityKey findEntityKey(final String entityName, final Serializable id) {
+		return this.managedEntities.keySet().stream()
+			.filter(entityKey -> entityKey.getEntityName().equals(entityName) && entityKey.getIdentifier().equals(id)).findFirst()
+			.orElse(null);
+	}
+
+	private List<DerivedVariableCalculator.CalculatedValue> createCalculatedValues(final int numberOfUnits) {
+		final List<DerivedVariableCalculator.CalculatedValue> calculatedValues = new ArrayList<>(numberOfUnits);
+		for (int observationUnitId = 1; observationUnitId <= numberOfUnits; observationUnitId++) {
+			calculatedValues
+				.add(new DerivedVariableCalculator.CalculatedValue(this.createObservationUnitRow(observationUnitId),
+					String.valueOf(observationUnitId * 10)));
+		}
+		return calculatedValues;
+	}
+
+	private ObservationUnitRow createObservationUnitRow(final int observationUnitId) {
+		final ObservationUnitData target = new ObservationUnitData();
+		target.setVariableId(TARGET_VARIABLE_TERMID);
+		target.setObservationId(observationUnitId + 100000);
+
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		variables.put(TARGET_VARIABLE_NAME, target);
+
+		final ObservationUnitRow observationUnitRow = new ObservationUnitRow();
+		observationUnitRow.setObservationUnitId(observationUnitId);
+		observationUnitRow.setVariables(variables);
+		return observationUnitRow;
+	}
+
+	private MeasurementVariable createTargetMeasurementVariable(final DataType dataType) {
+		final MeasurementVariable measurementVariable = new MeasurementVariable();
+		measurementVariable.setTermId(TARGET_VARIABLE_TERMID);
+		measurementVariable.setName(TARGET_VARIABLE_NAME);
+		measurementVariable.setDataTypeId(dataType.getId());
+		return measurementVariable;
+	}
+
+}
@@ -0,0 +1,258 @@
+package org.ibp.api.java.impl.middleware.derived;
+
+import org.generationcp.commons.derivedvariable.DerivedVariableProcessor;
+import org.generationcp.commons.derivedvariable.DerivedVariableUtils;
+import org.generationcp.middleware.domain.etl.MeasurementVariable;
+import org.generationcp.middleware.domain.ontology.DataType;
+import org.generationcp.middleware.domain.ontology.FormulaDto;
+import org.generationcp.middleware.domain.ontology.FormulaVariable;
+import org.generationcp.middleware.service.api.dataset.ObservationUnitData;
+import org.generationcp.middleware.service.api.dataset.ObservationUnitRow;
+import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
+import org.ibp.api.java.job.JobProgress;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+public class DerivedVariableCalculatorTest {
+
+	private static final int VARIABLE1_TERMID = 123;
+	private static final int VARIABLE2_TERMID = 456;
+	private static final int VARIABLE6_TERMID = 8830;
+	private static final String VARIABLE1_NAME = "VARIABLE1";
+	private static final String VARIABLE2_NAME = "VARIABLE2";
+	private static final String VARIABLE6_NAME = "VARIABLE6";
+	private static final String FORMULA = "{{" + VARIABLE1_TERMID + "}} + {{" + VARIABLE2_TERMID + "}}";
+
+	private final DerivedVariableCalculator derivedVariableCalculator = new DerivedVariableCalculator();
+
+	private final ParallelExecutor parallelExecutor = Mockito.mock(ParallelExecutor.class);
+
+	@Before
+	public void setUp() throws Exception {
+		Mockito.when(this.parallelExecutor.submit(ArgumentMatchers.any(Callable.class)))
+			.thenAnswer(invocation -> CompletableFuture.completedFuture(((Callable<?>) invocation.getArgument(0)).call()));
+		this.derivedVariableCalculator.setParallelExecutor(this.parallelExecutor);
+	}
+
+	@Test
+	public void testCalculate() {
+		final List<List<ObservationUnitRow>> instances = new ArrayList<>();
+		int observationUnitId = 1;
+		for (int instance = 1; instance <= 5; instance++) {
+			final List<ObservationUnitRow> observationUnitRows = new ArrayList<>();
+			for (int plot = 1; plot <= 20; plot++) {
+				observationUnitRows.add(this.createObservationUnitRow(observationUnitId, String.valueOf(observationUnitId), "1"));
+				observationUnitId++;
+			}
+			instances.add(observationUnitRows);
+		}
+
+		final DerivedVariableCalculator.Calculation calculation = this.derivedVariableCalculator
+			.calculate(CompiledFormula.compile(this.createFormula(FORMULA)), instances, this.createMeasurementVariablesMap(),
+				new ArrayList<>(), new HashMap<>());
+
+		Assert.assertTrue(calculation.getInputMissingData().isEmpty());
+		Assert.assertEquals(100, calculation.getCalculatedValues().size());
+		for (int i = 0; i < 100; i++) {
+			final DerivedVariableCalculator.CalculatedValue calculatedValue = calculation.getCalculatedValues().get(i);
+			// Values are returned in the original order
+			Assert.assertEquals(i + 1, calculatedValue.getObservationUnitRow().getObservationUnitId().intValue());
+			Assert.assertEquals(i + 2, Double.valueOf(calculatedValue.getValue()).intValue());
+		}
+	}
+
+	@Test
+	public void testCalculateWithMissingData() {
+		final List<ObservationUnitRow> observationUnitRows =
+			Arrays.asList(this.createObservationUnitRow(1, "1", "1"), this.createObservationUnitRow(2, "", "1"));
+
+		final DerivedVariableCalculator.Calculation calculation = this.derivedVariableCalculator
+			.calculate(CompiledFormula.compile(this.createFormula(FORMULA)), Collections.singletonList(observationUnitRows),
+				this.createMeasurementVariablesMap(), new ArrayList<>(), new HashMap<>());
+
+		Assert.assertEquals(1, calculation.getCalculatedValues().size());
+		Assert.assertEquals(1, calculation.getCalculatedValues().get(0).getObservationUnitRow().getObservationUnitId().intValue());
+		Assert.assertFalse(calculation.getInputMissingData().isEmpty());
+	}
+
+	@Test
+	public void testCalculateReportsJobProgress() {
+		final JobProgress progress = new JobProgress();
+		JobProgress.bind(progress);
+		try {
+			this.derivedVariableCalculator
+				.calculate(CompiledFormula.compile(this.createFormula(FORMULA)),
+					Arrays.asList(Arrays.asList(this.createObservationUnitRow(1, "1", "1"), this.createObservationUnitRow(2, "1", "1")),
+						Collections.singletonList(this.createObservationUnitRow(3, "1", "1"))),
+					this.createMeasurementVariablesMap(), new ArrayList<>(), new HashMap<>());
+		} finally {
+			JobProgress.unbind();
+		}
+		Assert.assertEquals(3, progress.getProcessed());
+	}
+
+	@Test(expected = CancellationException.class)
+	public void testCalculateCancelledJob() {
+		final JobProgress progress = new JobProgress();
+		progress.cancel();
+		JobProgress.bind(progress);
+		try {
+			this.derivedVariableCalculator
+				.calculate(CompiledFormula.compile(this.createFormula(FORMULA)),
+					Collections.singletonList(Collections.singletonList(this.createObservationUnitRow(1, "1", "1"))),
+					this.createMeasurementVariablesMap(), new ArrayList<>(), new HashMap<>());
+		} finally {
+			JobProgress.unbind();
+		}
+	}
+
+	@Test
+	public void testCalculateEngineException() throws Exception {
+		final DerivedVariableCalculator calculator = Mockito.spy(new DerivedVariableCalculator());
+		calculator.setParallelExecutor(this.parallelExecutor);
+		final DerivedVariableProcessor processor = Mockito.mock(DerivedVariableProcessor.class);
+		Mockito.doReturn(processor).when(calculator).createProcessor();
+		Mockito.when(processor.evaluateFormula(ArgumentMatchers.anyString(), ArgumentMatchers.anyMap()))
+			.thenThrow(new IllegalStateException());
+
+		try {
+			calculator.calculate(CompiledFormula.compile(this.createFormula(FORMULA)),
+				Arrays.asList(Collections.singletonList(this.createObservationUnitRow(1, "1", "1")),
+					Collections.singletonList(this.createObservationUnitRow(2, "1", "1"))),
+				this.createMeasurementVariablesMap(), new ArrayList<>(), new HashMap<>());
+			Assert.fail("Should throw ApiRequestValidationException");
+		} catch (final ApiRequestValidationException e) {
+			Assert.assertEquals(DerivedVariableServiceImpl.STUDY_EXECUTE_CALCULATION_ENGINE_EXCEPTION, e.getErrors().get(0).getCode());
+		}
+	}
+
+	@Test
+	public void testCreateProcessor() {
+		Assert.assertNotSame(this.derivedVariableCalculator.createProcessor(), this.derivedVariableCalculator.createProcessor());
+	}
+
+	@Test
+	public void testFillWithSubObservationLevelValuesWithNoValues() throws ParseException {
+		final DerivedVariableProcessor processor = Mockito.mock(DerivedVariableProcessor.class);
+		final int observationUnitId = 1;
+		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation = new HashMap<>();
+		final Map<String, List<Object>> valuesMap = new HashMap<>();
+
+		valuesFromSubObservation.put(observationUnitId, valuesMap);
+		final Map<Integer, MeasurementVariable> measurementVariablesMap = this.createMeasurementVariablesMap();
+		final List<String> inputVariables = Collections.singletonList(DerivedVariableUtils.wrapTerm(String.valueOf(VARIABLE1_TERMID)));
+		final Map<String, Object> parameters = new HashMap<>();
+		parameters.put(inputVariables.get(0), null);
+
+		this.derivedVariableCalculator
+			.fillWithSubObservationLevelValues(observationUnitId, valuesFromSubObservation, measurementVariablesMap, new HashSet<>(),
+				parameters, inputVariables, processor);
+		final ArgumentCaptor<Map<String, List<Object>>> variableAggregateValuesMapCaptor = ArgumentCaptor.forClass(Map.class);
+		Mockito.verify(processor).setData(variableAggregateValuesMapCaptor.capture());
+		final Map<String, List<Object>> variableAggregateValuesMap = variableAggregateValuesMapCaptor.getValue();
+		Assert.assertTrue(variableAggregateValuesMap.get(inputVariables.get(0)).isEmpty());
+		Assert.assertFalse(parameters.containsKey(inputVariables.get(0)));
+	}
+
+	@Test
+	public void testFillWithSubObservationLevelValues() throws ParseException {
+		final DerivedVariableProcessor processor = Mockito.mock(DerivedVariableProcessor.class);
+		final int observationUnitId = 1;
+		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation = new HashMap<>();
+		final Map<String, List<Object>> valuesMap = new HashMap<>();
+		valuesMap.put(String.valueOf(VARIABLE1_TERMID), Arrays.asList("1", "2", "3"));
+		valuesFromSubObservation.put(observationUnitId, valuesMap);
+		final Map<Integer, MeasurementVariable> measurementVariablesMap = this.createMeasurementVariablesMap();
+		final List<String> inputVariables = Collections.singletonList(DerivedVariableUtils.wrapTerm(String.valueOf(VARIABLE1_TERMID)));
+		final Map<String, Object> parameters = new HashMap<>();
+		parameters.put(inputVariables.get(0), null);
+
+		this.derivedVariableCalculator
+			.fillWithSubObservationLevelValues(observationUnitId, valuesFromSubObservation, measurementVariablesMap, new HashSet<>(),
+				parameters, inputVariables, processor);
+		final ArgumentCaptor<Map<String, List<Object>>> variableAggregateValuesMapCaptor = ArgumentCaptor.forClass(Map.class);
+		Mockito.verify(processor).setData(variableAggregateValuesMapCaptor.capture());
+		final Map<String, List<Object>> variableAggregateValuesMap = variableAggregateValuesMapCaptor.getValue();
+		Assert.assertEquals(3, variableAggregateValuesMap.get(inputVariables.get(0)).size());
+		Assert.assertFalse(parameters.containsKey(inputVariables.get(0)));
+	}
+
+	@Test(expected = ParseException.class)
+	public void testFillWithSubObservationLevelWithDateValues() throws ParseException {
+		final DerivedVariableProcessor processor = Mockito.mock(DerivedVariableProcessor.class);
+		final int observationUnitId = 1;
+		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation = new HashMap<>();
+		final Map<String, List<Object>> valuesMap = new HashMap<>();
+		valuesMap.put(String.valueOf(VARIABLE6_TERMID), Collections.singletonList("03/31/2018"));
+		valuesFromSubObservation.put(observationUnitId, valuesMap);
+		final Map<Integer, MeasurementVariable> measurementVariablesMap = this.createMeasurementVariablesMap();
+		final List<String> inputVariables = Collections.singletonList(DerivedVariableUtils.wrapTerm(String.valueOf(VARIABLE6_TERMID)));
+		final Map<String, Object> parameters = new HashMap<>();
+		parameters.put(inputVariables.get(0), null);
+
+		this.derivedVariableCalculator
+			.fillWithSubObservationLevelValues(observationUnitId, valuesFromSubObservation, measurementVariablesMap, new HashSet<>(),
+				parameters, inputVariables, processor);
+	}
+
+	private FormulaDto createFormula(final String formula) {
+		final FormulaDto formulaDto = new FormulaDto();
+		formulaDto.setDefinition(formula);
+		final FormulaVariable targetVariable = new FormulaVariable();
+		targetVariable.setName("TARGET_VARIABLE");
+		targetVariable.setId(321);
+		formulaDto.setTarget(targetVariable);
+		return formulaDto;
+	}
+
+	private ObservationUnitRow createObservationUnitRow(final Integer observationUnitId, final String value1, final String value2) {
+		final ObservationUnitRow observationUnitRow = new ObservationUnitRow();
+		observationUnitRow.setObservationUnitId(observationUnitId);
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		variables.put(VARIABLE1_NAME, this.createObservationUnitData(VARIABLE1_TERMID, value1));
+		variables.put(VARIABLE2_NAME, this.createObservationUnitData(VARIABLE2_TERMID, value2));
+		observationUnitRow.setVariables(variables);
+		observationUnitRow.setEnvironmentVariables(new HashMap<>());
+		return observationUnitRow;
+	}
+
+	private ObservationUnitData createObservationUnitData(final Integer variableId, final String value) {
+		final ObservationUnitData observationUnitData = new ObservationUnitData();
+		observationUnitData.setVariableId(variableId);
+		observationUnitData.setValue(value);
+		return observationUnitData;
+	}
+
+	private Map<Integer, MeasurementVariable> createMeasurementVariablesMap() {
+		final Map<Integer, MeasurementVariable> measurementVariablesMap = new HashMap<>();
+		measurementVariablesMap.put(VARIABLE1_TERMID, this.createMeasurementVariable(VARIABLE1_TERMID, VARIABLE1_NAME, DataType.NUMERIC_VARIABLE));
+		measurementVariablesMap.put(VARIABLE2_TERMID, this.createMeasurementVariable(VARIABLE2_TERMID, VARIABLE2_NAME, DataType.NUMERIC_VARIABLE));
+		measurementVariablesMap.put(VARIABLE6_TERMID, this.createMeasurementVariable(VARIABLE6_TERMID, VARIABLE6_NAME, DataType.DATE_TIME_VARIABLE));
+		return measurementVariablesMap;
+	}
+
+	private MeasurementVariable createMeasurementVariable(final int variableId, final String variableName, final DataType dataType) {
+		final MeasurementVariable measurementVariable = new MeasurementVariable();
+		measurementVariable.setTermId(variableId);
+		measurementVariable.setName(variableName);
+		measurementVariable.setDataTypeId(dataType.getId());
+		return measurementVariable;
+	}
+}
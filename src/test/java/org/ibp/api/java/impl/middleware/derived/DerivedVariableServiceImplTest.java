@@ -3,8 +3,6 @@ package org.ibp.api.java.impl.middleware.derived;
 import com.google.common.base.Optional;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang.math.RandomUtils;
-import org.generationcp.commons.derivedvariable.DerivedVariableProcessor;
-import org.generationcp.commons.derivedvariable.DerivedVariableUtils;
 import org.generationcp.middleware.domain.dms.DatasetDTO;
 import org.generationcp.middleware.domain.dms.VariableDatasetsDTO;
 import org.generationcp.middleware.domain.etl.MeasurementVariable;
@@ -12,6 +10,7 @@ import org.generationcp.middleware.domain.ontology.DataType;
 import org.generationcp.middleware.domain.ontology.FormulaDto;
 import org.generationcp.middleware.domain.ontology.FormulaVariable;
 import org.generationcp.middleware.enumeration.DatasetTypeEnum;
+import org.generationcp.middleware.hibernate.HibernateSessionPerRequestProvider;
 import org.generationcp.middleware.service.api.dataset.DatasetService;
 import org.generationcp.middleware.service.api.dataset.DatasetTypeService;
 import org.generationcp.middleware.service.api.dataset.ObservationUnitData;
@@ -20,27 +19,30 @@ import org.generationcp.middleware.service.api.derived_variables.FormulaService;
 import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.exception.OverwriteDataException;
 import org.ibp.api.java.impl.middleware.dataset.validator.DatasetValidator;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
 import org.ibp.api.java.impl.middleware.study.validator.StudyValidator;
-import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.context.support.ResourceBundleMessageSource;
 
-import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -123,10 +125,20 @@ public class DerivedVariableServiceImplTest {
 
 	private final ResourceBundleMessageSource resourceBundleMessageSource = new ResourceBundleMessageSource();
 
+	@Mock(answer = Answers.RETURNS_DEEP_STUBS)
+	private HibernateSessionPerRequestProvider cropDatabaseSessionProvider;
+
+	@Mock
+	private ParallelExecutor parallelExecutor;
+
+	@Spy
+	private DerivedVariableCalculator derivedVariableCalculator = new DerivedVariableCalculator();
+
 	@InjectMocks
-	private final DerivedVariableServiceImpl derivedVariableService = new DerivedVariableServiceImpl();
+	private final CalculatedResultWriter calculatedResultWriter = new CalculatedResultWriter();
 
-	private final DerivedVariableProcessor processor = new DerivedVariableProcessor();
+	@InjectMocks
+	private final DerivedVariableServiceImpl derivedVariableService = new DerivedVariableServiceImpl();
 
 	@Before
 	public void init() {
@@ -135,7 +147,11 @@ public class DerivedVariableServiceImplTest {
 		// So as a workaround, use a real class instance and set setUseCodeAsDefaultMessage to true
 		this.resourceBundleMessageSource.setUseCodeAsDefaultMessage(true);
 		this.derivedVariableService.setResourceBundleMessageSource(this.resourceBundleMessageSource);
-		this.derivedVariableService.setProcessor(this.processor);
+		this.calculatedResultWriter.setBatchSize(500);
+		this.derivedVariableService.setCalculatedResultWriter(this.calculatedResultWriter);
+		Mockito.lenient().when(this.parallelExecutor.submit(any(Callable.class)))
+			.thenAnswer(invocation -> CompletableFuture.completedFuture(((Callable<?>) invocation.getArgument(0)).call()));
+		this.derivedVariableCalculator.setParallelExecutor(this.parallelExecutor);
 
 		GEO_LOCATION_IDS.add(RandomUtils.nextInt());
 
@@ -232,15 +248,10 @@ public class DerivedVariableServiceImplTest {
 				.validateForAggregateFunctions(TARGET_VARIABLE_TERMID, STUDY_ID, DATASET_ID,
 					this.inputVariableDatasetMap);
 
-			final ArgumentCaptor<String> captureValue = ArgumentCaptor.forClass(String.class);
-			final ArgumentCaptor<Integer> captureCategoricalId = ArgumentCaptor.forClass(Integer.class);
-			final ArgumentCaptor<Integer> captureObservationUnitId = ArgumentCaptor.forClass(Integer.class);
-			final ArgumentCaptor<Integer> captureObservationId = ArgumentCaptor.forClass(Integer.class);
-			final ArgumentCaptor<MeasurementVariable> captureTargetMeasurementVariable = ArgumentCaptor.forClass(MeasurementVariable.class);
-
-			verify(this.middlewareDerivedVariableService).saveCalculatedResult(captureValue.capture(),
-				captureCategoricalId.capture(), captureObservationUnitId.capture(), captureObservationId.capture(),
-				captureTargetMeasurementVariable.capture());
+			// Existing data is checked before saving anything
+			verify(this.middlewareDerivedVariableService, times(0)).saveCalculatedResult(anyString(),
+				any(), anyInt(), anyInt(), any(MeasurementVariable.class));
+			verify(this.middlwareDatasetService, times(0)).updateDependentPhenotypesAsOutOfSync(anyInt(), any());
 
 		}
 
@@ -440,70 +451,36 @@ public class DerivedVariableServiceImplTest {
 	}
 
 	@Test
-	public void testFillWithSubObservationLevelValuesWithNoValues() throws ParseException {
-		final DerivedVariableProcessor processor = Mockito.mock(DerivedVariableProcessor.class);
-		this.derivedVariableService.setProcessor(processor);
-		final int observationUnitId = 1;
-		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation = new HashMap<>();
-		final Map<String, List<Object>> valuesMap = new HashMap<>();
-
-		valuesFromSubObservation.put(observationUnitId, valuesMap);
-		final Map<Integer, MeasurementVariable> measurementVariablesMap = this.createMeasurementVariablesMap();
-		final List<String> inputVariables = Collections.singletonList(DerivedVariableUtils.wrapTerm(String.valueOf(VARIABLE1_TERMID)));
-		final Map<String, Object> parameters = new HashMap<>();
-		parameters.put(inputVariables.get(0), null);
-
-		this.derivedVariableService
-			.fillWithSubObservationLevelValues(observationUnitId, valuesFromSubObservation, measurementVariablesMap, new HashSet<>(),
-				parameters, inputVariables);
-		final ArgumentCaptor<Map<String, List<Object>>> variableAggregateValuesMapCaptor = ArgumentCaptor.forClass(Map.class);
-		Mockito.verify(processor).setData(variableAggregateValuesMapCaptor.capture());
-		final Map<String, List<Object>> variableAggregateValuesMap = variableAggregateValuesMapCaptor.getValue();
-		Assert.assertTrue(variableAggregateValuesMap.get(inputVariables.get(0)).isEmpty());
-		Assert.assertFalse(parameters.containsKey(inputVariables.get(0)));
-	}
-
-	@Test
-	public void testFillWithSubObservationLevelValues() throws ParseException {
-		final DerivedVariableProcessor processor = Mockito.mock(DerivedVariableProcessor.class);
-		this.derivedVariableService.setProcessor(processor);
-		final int observationUnitId = 1;
-		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation = new HashMap<>();
-		final Map<String, List<Object>> valuesMap = new HashMap<>();
-		valuesMap.put(String.valueOf(VARIABLE1_TERMID), Arrays.asList("1", "2", "3"));
-		valuesFromSubObservation.put(observationUnitId, valuesMap);
-		final Map<Integer, MeasurementVariable> measurementVariablesMap = this.createMeasurementVariablesMap();
-		final List<String> inputVariables = Collections.singletonList(DerivedVariableUtils.wrapTerm(String.valueOf(VARIABLE1_TERMID)));
-		final Map<String, Object> parameters = new HashMap<>();
-		parameters.put(inputVariables.get(0), null);
+	public void testExecuteMultipleInstances() {
+		final Map<Integer, List<ObservationUnitRow>> instanceIdObservationUnitRowsMap = new LinkedHashMap<>();
+		final Map<Integer, Map<String, List<Object>>> aggregateValuesFromSubObservation = new HashMap<>();
+		final int numberOfInstances = 10;
+		for (int instance = 1; instance <= numberOfInstances; instance++) {
+			instanceIdObservationUnitRowsMap
+				.put(instance, Arrays.asList(this.createObservationUnitRowTestData(instance * 2), this.createObservationUnitRowTestData(instance * 2 + 1)));
+			aggregateValuesFromSubObservation.putAll(this.createValuesFromSubObservationMap(instance * 2));
+			aggregateValuesFromSubObservation.putAll(this.createValuesFromSubObservationMap(instance * 2 + 1));
+		}
+		when(this.middlwareDatasetService.getInstanceIdToObservationUnitRowsMap(STUDY_ID, DATASET_ID, GEO_LOCATION_IDS))
+			.thenReturn(instanceIdObservationUnitRowsMap);
+		when(this.middlewareDerivedVariableService.getValuesFromObservations(STUDY_ID, Arrays.asList(1, 2, 3),
+			this.inputVariableDatasetMap)).thenReturn(aggregateValuesFromSubObservation);
 
 		this.derivedVariableService
-			.fillWithSubObservationLevelValues(observationUnitId, valuesFromSubObservation, measurementVariablesMap, new HashSet<>(),
-				parameters, inputVariables);
-		final ArgumentCaptor<Map<String, List<Object>>> variableAggregateValuesMapCaptor = ArgumentCaptor.forClass(Map.class);
-		Mockito.verify(processor).setData(variableAggregateValuesMapCaptor.capture());
-		final Map<String, List<Object>> variableAggregateValuesMap = variableAggregateValuesMapCaptor.getValue();
-		Assert.assertEquals(3, variableAggregateValuesMap.get(inputVariables.get(0)).size());
-		Assert.assertFalse(parameters.containsKey(inputVariables.get(0)));
-	}
+			.execute(STUDY_ID, DATASET_ID, TARGET_VARIABLE_TERMID, GEO_LOCATION_IDS, this.inputVariableDatasetMap, true);
 
-	@Test(expected = ParseException.class)
-	public void testFillWithSubObservationLevelWithDateValues() throws ParseException {
-		final DerivedVariableProcessor processor = Mockito.mock(DerivedVariableProcessor.class);
-		this.derivedVariableService.setProcessor(processor);
-		final int observationUnitId = 1;
-		final Map<Integer, Map<String, List<Object>>> valuesFromSubObservation = new HashMap<>();
-		final Map<String, List<Object>> valuesMap = new HashMap<>();
-		valuesMap.put(String.valueOf(VARIABLE6_TERMID), Collections.singletonList("03/31/2018"));
-		valuesFromSubObservation.put(observationUnitId, valuesMap);
-		final Map<Integer, MeasurementVariable> measurementVariablesMap = this.createMeasurementVariablesMap();
-		final List<String> inputVariables = Collections.singletonList(DerivedVariableUtils.wrapTerm(String.valueOf(VARIABLE6_TERMID)));
-		final Map<String, Object> parameters = new HashMap<>();
-		parameters.put(inputVariables.get(0), null);
+		final ArgumentCaptor<Integer> captureObservationUnitId = ArgumentCaptor.forClass(Integer.class);
+		verify(this.middlewareDerivedVariableService, times(numberOfInstances * 2)).saveCalculatedResult(anyString(),
+			any(), captureObservationUnitId.capture(), anyInt(), any(MeasurementVariable.class));
 
-		this.derivedVariableService
-			.fillWithSubObservationLevelValues(observationUnitId, valuesFromSubObservation, measurementVariablesMap, new HashSet<>(),
-				parameters, inputVariables);
+		// Calculated values are saved in the original order of the observation units
+		final List<Integer> expectedObservationUnitIds = new ArrayList<>();
+		for (int observationUnitId = 2; observationUnitId < numberOfInstances * 2 + 2; observationUnitId++) {
+			expectedObservationUnitIds.add(observationUnitId);
+		}
+		assertEquals(expectedObservationUnitIds, captureObservationUnitId.getAllValues());
+		verify(this.middlwareDatasetService)
+			.updateDependentPhenotypesAsOutOfSync(TARGET_VARIABLE_TERMID, new HashSet<>(expectedObservationUnitIds));
 	}
 
 	private FormulaDto createFormula(final String formula) {
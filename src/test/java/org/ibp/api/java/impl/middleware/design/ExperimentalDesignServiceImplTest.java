@@ -23,6 +23,7 @@ import org.ibp.api.rest.design.ExperimentalDesignInput;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -31,7 +32,11 @@ import org.mockito.MockitoAnnotations;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class ExperimentalDesignServiceImplTest {
@@ -149,6 +154,32 @@ public class ExperimentalDesignServiceImplTest {
 				ArgumentMatchers.anyMap());
 	}
 
+	@Test
+	public void testSaveExperimentDesignOnce() {
+		for (int instance = 1; instance <= 3; instance++) {
+			for (int plot = 1; plot <= 4; plot++) {
+				final ObservationUnitRow row = new ObservationUnitRow();
+				row.setTrialInstance(instance);
+				row.setVariables(new HashMap<>());
+				row.setEnvironmentVariables(new HashMap<>());
+				this.rows.add(row);
+			}
+		}
+
+		this.experimentDesignService.saveExperimentDesign(this.cropType, STUDY_ID, this.variables, this.rows);
+
+		// All the instances are saved by a single call, in the order they were generated
+		final ArgumentCaptor<Map> instanceRowsCaptor = ArgumentCaptor.forClass(Map.class);
+		Mockito.verify(this.middlewareExperimentDesignService)
+			.saveExperimentDesign(ArgumentMatchers.eq(this.cropType), ArgumentMatchers.eq(STUDY_ID), ArgumentMatchers.eq(this.variables),
+				instanceRowsCaptor.capture());
+		final Map instanceRowsMap = instanceRowsCaptor.getValue();
+		Assert.assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(instanceRowsMap.keySet()));
+		Assert.assertEquals(4, ((List) instanceRowsMap.get(2)).size());
+		// The generated rows are released once converted
+		Assert.assertEquals(Collections.nCopies(12, null), this.rows);
+	}
+
 	@Test
 	public void testGetExperimentalDesignTypes() {
 		final List<ExperimentDesignType> types = Arrays.asList(ExperimentDesignType.RANDOMIZED_COMPLETE_BLOCK,
@@ -7,12 +7,14 @@ import org.ibp.api.exception.BVDesignException;
 import org.ibp.api.java.design.runner.DesignRunner;
 import org.ibp.api.java.impl.middleware.design.breedingview.BreedingViewDesignParameter;
 import org.ibp.api.java.impl.middleware.design.type.StudyEntryTestDataGenerator;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
 import org.ibp.api.rest.dataset.ObservationUnitRow;
 import org.ibp.api.rest.design.ExperimentalDesignInput;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -20,6 +22,8 @@ import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ExperimentalDesignProcessorTest {
@@ -41,6 +45,9 @@ public class ExperimentalDesignProcessorTest {
 	@Mock
 	private DesignRunner designRunner;
 
+	@Mock
+	private ParallelExecutor parallelExecutor;
+
 	@InjectMocks
 	private ExperimentalDesignProcessor experimentalDesignProcessor;
 
@@ -51,6 +58,8 @@ public class ExperimentalDesignProcessorTest {
 		this.designInput = new ExperimentalDesignInput();
 		this.designInput.setNumberOfBlocks(2);
 		this.designInput.setStartingPlotNo(301);
+		Mockito.lenient().when(this.parallelExecutor.submit(ArgumentMatchers.any(Callable.class)))
+			.thenAnswer(invocation -> CompletableFuture.completedFuture(((Callable<?>) invocation.getArgument(0)).call()));
 	}
 
 	@Test
@@ -94,6 +103,8 @@ public class ExperimentalDesignProcessorTest {
 				.generateObservationUnitRows(trialInstancesForDesignGeneration, new ArrayList<>(), studyEntryDtoList,
 					mainDesign, ENTRY_NO,
 					treatmentFactorValues, new HashMap<>());
+		// The rows of each instance are built by the shared executor
+		Mockito.verify(this.parallelExecutor, Mockito.times(3)).submit(ArgumentMatchers.any(Callable.class));
 
 		final Map<Integer, List<ObservationUnitRow>> instancesRowMap = new HashMap<>();
 		for (final ObservationUnitRow row : measurementRowList) {
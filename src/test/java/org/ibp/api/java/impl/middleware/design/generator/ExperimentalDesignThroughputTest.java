@@ -0,0 +1,149 @@
+package org.ibp.api.java.impl.middleware.design.generator;
+
+import org.generationcp.middleware.domain.etl.MeasurementVariable;
+import org.generationcp.middleware.domain.oms.TermId;
+import org.generationcp.middleware.domain.ontology.VariableType;
+import org.generationcp.middleware.service.api.study.StudyEntryDto;
+import org.ibp.api.domain.design.MainDesign;
+import org.ibp.api.java.impl.middleware.design.runner.JavaDesignRunner;
+import org.ibp.api.java.impl.middleware.design.type.StudyEntryTestDataGenerator;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
+import org.ibp.api.mapper.ObservationUnitRowMapper;
+import org.ibp.api.rest.dataset.ObservationUnitRow;
+import org.ibp.api.rest.design.ExperimentalDesignInput;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures the generation of the observation unit rows of a multi-location trial, 100 instances of 2,000 plots each, with the in process
+ * design runner, and their conversion to the rows saved by the middleware. It is meant to be run manually when touching the design
+ * generation or save code.
+ */
+@Ignore("Throughput measurement, run manually")
+@RunWith(MockitoJUnitRunner.class)
+public class ExperimentalDesignThroughputTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ExperimentalDesignThroughputTest.class);
+
+	private static final int NUMBER_OF_INSTANCES = 100;
+	private static final int NUMBER_OF_ENTRIES = 1000;
+	private static final int NUMBER_OF_REPS = 2;
+
+	private static final String ENTRY_NO = "ENTRY_NO";
+	private static final String PLOT_NO = "PLOT_NO";
+	private static final String REP_NO = "REP_NO";
+
+	@Spy
+	private JavaDesignRunner designRunner;
+
+	@Mock
+	private ParallelExecutor parallelExecutor;
+
+	@InjectMocks
+	private ExperimentalDesignProcessor experimentalDesignProcessor;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+	@Before
+	public void setUp() {
+		Mockito.when(this.parallelExecutor.submit(ArgumentMatchers.any(Callable.class)))
+			.thenAnswer(invocation -> this.executor.submit((Callable<?>) invocation.getArgument(0)));
+		ReflectionTestUtils.setField(this.designRunner, "parallelExecutor", this.parallelExecutor);
+	}
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testGenerateObservationUnitRowsThroughput() {
+		final List<StudyEntryDto> studyEntryDtoList = StudyEntryTestDataGenerator.createStudyEntryDtoList(NUMBER_OF_ENTRIES, 0);
+		final List<MeasurementVariable> measurementVariables = this.createMeasurementVariables();
+		final Set<Integer> instances = new HashSet<>();
+		for (int instance = 1; instance <= NUMBER_OF_INSTANCES; instance++) {
+			instances.add(instance);
+		}
+
+		// Warm up, so class initialization is not measured
+		this.generate(Collections.singleton(1), measurementVariables, studyEntryDtoList);
+
+		for (int run = 1; run <= 3; run++) {
+			final long start = System.nanoTime();
+			final List<ObservationUnitRow> rows = this.generate(instances, measurementVariables, studyEntryDtoList);
+			final double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+			LOG.info("{} instances, {} plots generated in {} s ({} plots/s)", NUMBER_OF_INSTANCES, rows.size(),
+				String.format("%.2f", seconds), String.format("%.0f", rows.size() / seconds));
+			Assert.assertEquals(NUMBER_OF_INSTANCES * NUMBER_OF_ENTRIES * NUMBER_OF_REPS, rows.size());
+
+			final long conversionStart = System.nanoTime();
+			int converted = 0;
+			for (final ObservationUnitRow row : rows) {
+				if (ObservationUnitRowMapper.map(row) != null) {
+					converted++;
+				}
+			}
+			final double conversionSeconds = (System.nanoTime() - conversionStart) / 1_000_000_000d;
+
+			LOG.info("{} plots converted to middleware rows in {} s ({} plots/s)", converted, String.format("%.2f", conversionSeconds),
+				String.format("%.0f", converted / conversionSeconds));
+			Assert.assertEquals(rows.size(), converted);
+		}
+	}
+
+	private List<ObservationUnitRow> generate(final Set<Integer> instances, final List<MeasurementVariable> measurementVariables,
+		final List<StudyEntryDto> studyEntryDtoList) {
+		final ExperimentalDesignInput experimentalDesignInput = new ExperimentalDesignInput();
+		experimentalDesignInput.setNumberOfBlocks(NUMBER_OF_REPS);
+		experimentalDesignInput.setStartingPlotNo(1);
+		final MainDesign mainDesign = new RandomizeCompleteBlockDesignGenerator()
+			.generate(experimentalDesignInput, ExperimentalDesignGeneratorTestDataUtil.getRCBDVariablesMap(REP_NO, PLOT_NO), null, null,
+				ExperimentalDesignGeneratorTestDataUtil.getTreatmentFactorsParametersMap(Collections.singletonList(ENTRY_NO),
+					Collections.singletonList(String.valueOf(NUMBER_OF_ENTRIES))));
+		return this.experimentalDesignProcessor
+			.generateObservationUnitRows(instances, measurementVariables, studyEntryDtoList, mainDesign, ENTRY_NO, new HashMap<>(),
+				new HashMap<>());
+	}
+
+	private List<MeasurementVariable> createMeasurementVariables() {
+		final List<MeasurementVariable> measurementVariables = new ArrayList<>();
+		measurementVariables.add(this.createMeasurementVariable(TermId.ENTRY_NO.getId(), ENTRY_NO, VariableType.ENTRY_DETAIL));
+		measurementVariables.add(this.createMeasurementVariable(TermId.GID.getId(), "GID", VariableType.GERMPLASM_DESCRIPTOR));
+		measurementVariables.add(this.createMeasurementVariable(TermId.DESIG.getId(), "DESIGNATION", VariableType.GERMPLASM_DESCRIPTOR));
+		measurementVariables.add(this.createMeasurementVariable(TermId.PLOT_NO.getId(), PLOT_NO, VariableType.EXPERIMENTAL_DESIGN));
+		measurementVariables.add(this.createMeasurementVariable(TermId.REP_NO.getId(), REP_NO, VariableType.EXPERIMENTAL_DESIGN));
+		return measurementVariables;
+	}
+
+	private MeasurementVariable createMeasurementVariable(final int termId, final String name, final VariableType variableType) {
+		final MeasurementVariable measurementVariable = new MeasurementVariable();
+		measurementVariable.setTermId(termId);
+		measurementVariable.setName(name);
+		measurementVariable.setVariableType(variableType);
+		return measurementVariable;
+	}
+}
@@ -0,0 +1,337 @@
+package org.ibp.api.java.impl.middleware.design.runner;
+
+import org.ibp.api.domain.design.BVDesignOutput;
+import org.ibp.api.domain.design.BVDesignTrialInstance;
+import org.ibp.api.domain.design.ExperimentDesignParameter;
+import org.ibp.api.domain.design.ListItem;
+import org.ibp.api.domain.design.MainDesign;
+import org.ibp.api.java.impl.middleware.design.breedingview.BreedingViewDesignParameter;
+import org.ibp.api.java.impl.middleware.design.generator.AugmentedRandomizedBlockDesignGenerator;
+import org.ibp.api.java.impl.middleware.design.generator.ExperimentalDesignGeneratorTestDataUtil;
+import org.ibp.api.java.impl.middleware.design.generator.PRepDesignGenerator;
+import org.ibp.api.java.impl.middleware.design.generator.RandomizeCompleteBlockDesignGenerator;
+import org.ibp.api.java.impl.middleware.design.generator.ResolvableIncompleteBlockDesignGenerator;
+import org.ibp.api.java.impl.middleware.design.generator.ResolvableRowColumnDesignGenerator;
+import org.ibp.api.java.impl.middleware.job.ParallelExecutor;
+import org.ibp.api.rest.design.ExperimentalDesignInput;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+public class JavaDesignRunnerTest {
+
+	private static final String SEED = "12345";
+
+	private final JavaDesignRunner designRunner = new JavaDesignRunner();
+
+	@Before
+	public void setUp() throws Exception {
+		final ParallelExecutor parallelExecutor = Mockito.mock(ParallelExecutor.class);
+		Mockito.when(parallelExecutor.submit(ArgumentMatchers.any(Callable.class)))
+			.thenAnswer(invocation -> CompletableFuture.completedFuture(((Callable<?>) invocation.getArgument(0)).call()));
+		this.designRunner.setParallelExecutor(parallelExecutor);
+	}
+
+	@Test
+	public void testRCBD() throws Exception {
+		final MainDesign mainDesign = this.createRCBD(Collections.singletonList("ENTRY_NO"), Collections.singletonList("20"));
+		final BVDesignOutput output = this.run(mainDesign, 2);
+
+		Assert.assertTrue(output.isSuccess());
+		Assert.assertEquals(2, output.getTrialInstances().size());
+		for (final BVDesignTrialInstance instance : output.getTrialInstances()) {
+			Assert.assertEquals(60, instance.getRows().size());
+			this.assertPlotNumbers(instance, 200);
+			// Each replication is a complete block
+			final Map<String, List<String>> entriesByRep = this.groupBy(instance, "REP_NO", "ENTRY_NO");
+			Assert.assertEquals(3, entriesByRep.size());
+			for (final List<String> entries : entriesByRep.values()) {
+				Assert.assertEquals(this.range(1, 20), new HashSet<>(entries));
+				Assert.assertEquals(20, entries.size());
+			}
+		}
+	}
+
+	@Test
+	public void testRCBDWithTreatmentFactors() throws Exception {
+		final MainDesign mainDesign = this.createRCBD(Arrays.asList("ENTRY_NO", "_8260", "ENTRY_NO"), Arrays.asList("10", "2", "10"));
+		final BVDesignOutput output = this.run(mainDesign, 1);
+
+		final BVDesignTrialInstance instance = output.getTrialInstances().get(0);
+		// 10 entries x 2 levels per replication
+		Assert.assertEquals(60, instance.getRows().size());
+		final Map<String, Set<String>> combinationsByRep = new HashMap<>();
+		for (final Map<String, String> row : instance.getRows()) {
+			combinationsByRep.computeIfAbsent(row.get("REP_NO"), rep -> new HashSet<>()).add(row.get("ENTRY_NO") + ":" + row.get("_8260"));
+		}
+		for (final Set<String> combinations : combinationsByRep.values()) {
+			Assert.assertEquals(20, combinations.size());
+		}
+	}
+
+	@Test
+	public void testRIBD() throws Exception {
+		final ExperimentalDesignInput experimentalDesignInput = new ExperimentalDesignInput();
+		experimentalDesignInput.setBlockSize(4);
+		experimentalDesignInput.setReplicationsCount(3);
+		experimentalDesignInput.setStartingPlotNo(1);
+		experimentalDesignInput.setUseLatenized(false);
+		final MainDesign mainDesign = new ResolvableIncompleteBlockDesignGenerator()
+			.generate(experimentalDesignInput,
+				ExperimentalDesignGeneratorTestDataUtil.getRIBDVariablesMap("BLOCK_NO", "PLOT_NO", "ENTRY_NO", "REP_NO"), 20, null, null);
+		final BVDesignOutput output = this.run(mainDesign, 3);
+
+		Assert.assertEquals(3, output.getTrialInstances().size());
+		for (final BVDesignTrialInstance instance : output.getTrialInstances()) {
+			Assert.assertEquals(60, instance.getRows().size());
+			this.assertPlotNumbers(instance, 1);
+			for (final List<String> entries : this.groupBy(instance, "REP_NO", "ENTRY_NO").values()) {
+				Assert.assertEquals(this.range(1, 20), new HashSet<>(entries));
+			}
+			final Map<String, List<String>> entriesByBlock = this.groupBy(instance, "BLOCK_NO", "ENTRY_NO");
+			Assert.assertEquals(15, entriesByBlock.size());
+			for (final List<String> entries : entriesByBlock.values()) {
+				Assert.assertEquals(4, entries.size());
+			}
+			// 20 treatments in blocks of 4 (5 blocks per replication, 5 is prime): two entries share a block at most once
+			Assert.assertEquals(1, this.getMaxConcurrence(entriesByBlock.values()));
+		}
+	}
+
+	@Test
+	public void testRowColumn() throws Exception {
+		final ExperimentalDesignInput experimentalDesignInput = new ExperimentalDesignInput();
+		experimentalDesignInput.setReplicationsCount(3);
+		experimentalDesignInput.setRowsPerReplications(4);
+		experimentalDesignInput.setColsPerReplications(5);
+		experimentalDesignInput.setStartingPlotNo(10);
+		experimentalDesignInput.setUseLatenized(false);
+		final MainDesign mainDesign = new ResolvableRowColumnDesignGenerator()
+			.generate(experimentalDesignInput,
+				ExperimentalDesignGeneratorTestDataUtil.getRowColVariablesMap("ROW", "COL", "PLOT_NO", "ENTRY_NO", "REP_NO"), 20, null,
+				null);
+		final BVDesignOutput output = this.run(mainDesign, 5);
+
+		Assert.assertEquals(5, output.getTrialInstances().size());
+		for (final BVDesignTrialInstance instance : output.getTrialInstances()) {
+			Assert.assertEquals(60, instance.getRows().size());
+			this.assertPlotNumbers(instance, 10);
+			for (final List<String> entries : this.groupBy(instance, "REP_NO", "ENTRY_NO").values()) {
+				Assert.assertEquals(this.range(1, 20), new HashSet<>(entries));
+			}
+			// Each position of a replication has one plot
+			final Set<String> positions = new HashSet<>();
+			for (final Map<String, String> row : instance.getRows()) {
+				final int rowNumber = Integer.parseInt(row.get("ROW"));
+				final int columnNumber = Integer.parseInt(row.get("COL"));
+				Assert.assertTrue(rowNumber >= 1 && rowNumber <= 4);
+				Assert.assertTrue(columnNumber >= 1 && columnNumber <= 5);
+				Assert.assertTrue(positions.add(row.get("REP_NO") + ":" + rowNumber + ":" + columnNumber));
+			}
+
+			// Rows and columns are blocks of every replication, and the entries sharing a column change between replications
+			final Map<String, List<String>> entriesByRow = this.groupBy(instance, "REP_NO", "ROW", "ENTRY_NO");
+			final Map<String, List<String>> entriesByColumn = this.groupBy(instance, "REP_NO", "COL", "ENTRY_NO");
+			Assert.assertEquals(12, entriesByRow.size());
+			Assert.assertEquals(15, entriesByColumn.size());
+			for (final List<String> entries : entriesByRow.values()) {
+				Assert.assertEquals(5, entries.size());
+			}
+			final Set<Set<String>> columnBlocks = new HashSet<>();
+			for (final List<String> entries : entriesByColumn.values()) {
+				Assert.assertEquals(4, entries.size());
+				columnBlocks.add(new HashSet<>(entries));
+			}
+			Assert.assertEquals(15, columnBlocks.size());
+		}
+	}
+
+	@Test
+	public void testLatinizedRowColumnIsNotGeneratedWithoutBVDesign() throws Exception {
+		final ExperimentalDesignInput experimentalDesignInput = new ExperimentalDesignInput();
+		experimentalDesignInput.setReplicationsCount(2);
+		experimentalDesignInput.setRowsPerReplications(4);
+		experimentalDesignInput.setColsPerReplications(5);
+		experimentalDesignInput.setStartingPlotNo(1);
+		experimentalDesignInput.setUseLatenized(true);
+		experimentalDesignInput.setNrlatin(1);
+		experimentalDesignInput.setNclatin(1);
+		experimentalDesignInput.setReplatinGroups("1,1");
+		final MainDesign mainDesign = new ResolvableRowColumnDesignGenerator()
+			.generate(experimentalDesignInput,
+				ExperimentalDesignGeneratorTestDataUtil.getRowColVariablesMap("ROW", "COL", "PLOT_NO", "ENTRY_NO", "REP_NO"), 20, null,
+				null);
+
+		Assert.assertFalse(this.designRunner.supportsLatinizedDesigns());
+		Assert.assertFalse(this.designRunner.runBVDesign(mainDesign).isSuccess());
+	}
+
+	@Test
+	public void testAugmented() throws Exception {
+		final ExperimentalDesignInput experimentalDesignInput = new ExperimentalDesignInput();
+		experimentalDesignInput.setNumberOfBlocks(3);
+		experimentalDesignInput.setStartingPlotNo(1);
+		final MainDesign mainDesign = new AugmentedRandomizedBlockDesignGenerator()
+			.generate(experimentalDesignInput, ExperimentalDesignGeneratorTestDataUtil.getPRepVariablesMap("BLOCK_NO", "ENTRY_NO", "PLOT_NO"),
+				20, 2, null);
+		final BVDesignOutput output = this.run(mainDesign, 1);
+
+		final BVDesignTrialInstance instance = output.getTrialInstances().get(0);
+		// 20 test entries once, 2 checks in each of the 3 blocks
+		Assert.assertEquals(26, instance.getRows().size());
+		final Set<String> testEntries = new HashSet<>();
+		for (final List<String> entries : this.groupBy(instance, "BLOCK_NO", "ENTRY_NO").values()) {
+			Assert.assertTrue(entries.containsAll(Arrays.asList("21", "22")));
+			Assert.assertTrue(entries.size() == 8 || entries.size() == 9);
+			for (final String entry : entries) {
+				if (Integer.parseInt(entry) <= 20) {
+					Assert.assertTrue(testEntries.add(entry));
+				}
+			}
+		}
+		Assert.assertEquals(this.range(1, 20), testEntries);
+	}
+
+	@Test
+	public void testPRep() throws Exception {
+		final List<ListItem> repeats = new ArrayList<>();
+		for (int entry = 1; entry <= 20; entry++) {
+			repeats.add(new ListItem(entry <= 5 ? "3" : "1"));
+		}
+		final ExperimentalDesignInput experimentalDesignInput = new ExperimentalDesignInput();
+		experimentalDesignInput.setNumberOfBlocks(4);
+		experimentalDesignInput.setStartingPlotNo(1);
+		final MainDesign mainDesign = new PRepDesignGenerator()
+			.generate(experimentalDesignInput, ExperimentalDesignGeneratorTestDataUtil.getPRepVariablesMap("BLOCK_NO", "ENTRY_NO", "PLOT_NO"),
+				20, null, Collections.singletonMap(BreedingViewDesignParameter.NREPEATS, repeats));
+		final BVDesignOutput output = this.run(mainDesign, 1);
+
+		final BVDesignTrialInstance instance = output.getTrialInstances().get(0);
+		Assert.assertEquals(30, instance.getRows().size());
+		final Map<String, List<String>> blocksByEntry = this.groupBy(instance, "ENTRY_NO", "BLOCK_NO");
+		for (int entry = 1; entry <= 20; entry++) {
+			final List<String> blocks = blocksByEntry.get(String.valueOf(entry));
+			Assert.assertEquals(entry <= 5 ? 3 : 1, blocks.size());
+			// Copies of an entry are in different blocks
+			Assert.assertEquals(blocks.size(), new HashSet<>(blocks).size());
+		}
+		for (final List<String> entries : this.groupBy(instance, "BLOCK_NO", "ENTRY_NO").values()) {
+			Assert.assertTrue(entries.size() == 7 || entries.size() == 8);
+		}
+	}
+
+	@Test
+	public void testSameSeedGeneratesSameDesign() throws Exception {
+		final BVDesignOutput output = this.run(this.createRCBD(Collections.singletonList("ENTRY_NO"), Collections.singletonList("20")), 2);
+		final BVDesignOutput sameSeedOutput =
+			this.run(this.createRCBD(Collections.singletonList("ENTRY_NO"), Collections.singletonList("20")), 2);
+
+		Assert.assertEquals(output.getTrialInstances().get(1).getRows(), sameSeedOutput.getTrialInstances().get(1).getRows());
+		// Instances are randomized separately
+		Assert.assertNotEquals(output.getTrialInstances().get(0).getRows(), output.getTrialInstances().get(1).getRows());
+	}
+
+	@Test
+	public void testSeedIsSetWhenNotGiven() throws Exception {
+		final MainDesign mainDesign = this.createRCBD(Collections.singletonList("ENTRY_NO"), Collections.singletonList("20"));
+		this.designRunner.runBVDesign(mainDesign);
+
+		final String seed = mainDesign.getDesign().getParameterValue(BreedingViewDesignParameter.SEED.getParameterName());
+		Assert.assertTrue(seed.matches("\\d+"));
+	}
+
+	@Test
+	public void testManyInstances() throws Exception {
+		final ExperimentalDesignInput experimentalDesignInput = new ExperimentalDesignInput();
+		experimentalDesignInput.setBlockSize(10);
+		experimentalDesignInput.setReplicationsCount(3);
+		experimentalDesignInput.setStartingPlotNo(1);
+		experimentalDesignInput.setUseLatenized(false);
+		final MainDesign mainDesign = new ResolvableIncompleteBlockDesignGenerator()
+			.generate(experimentalDesignInput,
+				ExperimentalDesignGeneratorTestDataUtil.getRIBDVariablesMap("BLOCK_NO", "PLOT_NO", "ENTRY_NO", "REP_NO"), 500, null, null);
+		final BVDesignOutput output = this.run(mainDesign, 50);
+
+		Assert.assertEquals(50, output.getTrialInstances().size());
+		for (final BVDesignTrialInstance instance : output.getTrialInstances()) {
+			Assert.assertEquals(1500, instance.getRows().size());
+		}
+	}
+
+	private MainDesign createRCBD(final List<String> treatmentFactors, final List<String> levels) {
+		final ExperimentalDesignInput experimentalDesignInput = new ExperimentalDesignInput();
+		experimentalDesignInput.setNumberOfBlocks(3);
+		experimentalDesignInput.setStartingPlotNo(200);
+		return new RandomizeCompleteBlockDesignGenerator()
+			.generate(experimentalDesignInput, ExperimentalDesignGeneratorTestDataUtil.getRCBDVariablesMap("REP_NO", "PLOT_NO"), null, null,
+				ExperimentalDesignGeneratorTestDataUtil.getTreatmentFactorsParametersMap(treatmentFactors, levels));
+	}
+
+	private BVDesignOutput run(final MainDesign mainDesign, final int numberOfTrials) throws Exception {
+		mainDesign.getDesign().setParameterValue(BreedingViewDesignParameter.SEED.getParameterName(), SEED);
+		mainDesign.getDesign().getParameters()
+			.add(new ExperimentDesignParameter(BreedingViewDesignParameter.NUMBER_TRIALS.getParameterName(), String.valueOf(numberOfTrials)));
+		final BVDesignOutput output = this.designRunner.runBVDesign(mainDesign);
+		Assert.assertTrue(output.isSuccess());
+		return output;
+	}
+
+	private void assertPlotNumbers(final BVDesignTrialInstance instance, final int initialPlotNumber) {
+		int plotNumber = initialPlotNumber;
+		for (final Map<String, String> row : instance.getRows()) {
+			Assert.assertEquals(String.valueOf(plotNumber++), row.get("PLOT_NO"));
+		}
+	}
+
+	private Map<String, List<String>> groupBy(final BVDesignTrialInstance instance, final String key, final String value) {
+		final Map<String, List<String>> values = new HashMap<>();
+		for (final Map<String, String> row : instance.getRows()) {
+			values.computeIfAbsent(row.get(key), k -> new ArrayList<>()).add(row.get(value));
+		}
+		return values;
+	}
+
+	private Map<String, List<String>> groupBy(final BVDesignTrialInstance instance, final String key, final String otherKey,
+		final String value) {
+		final Map<String, List<String>> values = new HashMap<>();
+		for (final Map<String, String> row : instance.getRows()) {
+			values.computeIfAbsent(row.get(key) + ":" + row.get(otherKey), k -> new ArrayList<>()).add(row.get(value));
+		}
+		return values;
+	}
+
+	private int getMaxConcurrence(final Iterable<List<String>> blocks) {
+		final Map<String, Integer> concurrences = new HashMap<>();
+		for (final List<String> block : blocks) {
+			for (final String entry : block) {
+				for (final String otherEntry : block) {
+					if (entry.compareTo(otherEntry) < 0) {
+						concurrences.merge(entry + ":" + otherEntry, 1, Integer::sum);
+					}
+				}
+			}
+		}
+		return Collections.max(concurrences.values());
+	}
+
+	private Set<String> range(final int from, final int to) {
+		final Set<String> values = new HashSet<>();
+		for (int value = from; value <= to; value++) {
+			values.add(String.valueOf(value));
+		}
+		return values;
+	}
+}
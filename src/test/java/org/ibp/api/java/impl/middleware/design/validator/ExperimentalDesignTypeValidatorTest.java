@@ -8,10 +8,12 @@ import org.generationcp.middleware.domain.oms.TermId;
 import org.generationcp.middleware.service.api.study.StudyEntryDto;
 import org.generationcp.middleware.service.api.study.StudyEntryPropertyData;
 import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.java.design.runner.DesignRunner;
 import org.ibp.api.rest.design.ExperimentalDesignInput;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.MapBindingResult;
 
@@ -24,9 +26,14 @@ public class ExperimentalDesignTypeValidatorTest {
 	
 	private ExperimentalDesignTypeValidator designTypeValidator = new ExperimentalDesignTypeValidator();
 
+	private DesignRunner designRunner;
+
 	@Before
 	public void init() {
 		this.designTypeValidator = new ExperimentalDesignTypeValidator();
+		this.designRunner = Mockito.mock(DesignRunner.class);
+		Mockito.when(this.designRunner.supportsLatinizedDesigns()).thenReturn(true);
+		this.designTypeValidator.setDesignRunner(this.designRunner);
 	}
 
 	@Test
@@ -203,6 +210,51 @@ public class ExperimentalDesignTypeValidatorTest {
 		}
 	}
 
+	@Test
+	public void testValidateResolvableRowColumnDesignSuccess_Latinized() {
+		final ExperimentalDesignInput designInput = this.createLatinizedRowColumnDesignInput();
+
+		try {
+			this.designTypeValidator.validate(designInput, this.createStudyGermplasmList());
+		} catch (final ApiRequestValidationException e) {
+			Assert.fail("Should not throw an ApiRequestValidationException.");
+		}
+	}
+
+	@Test
+	public void testValidateResolvableRowColumnDesignFail_LatinizedNotAvailable() {
+		Mockito.when(this.designRunner.supportsLatinizedDesigns()).thenReturn(false);
+		final ExperimentalDesignInput designInput = this.createLatinizedRowColumnDesignInput();
+
+		try {
+			this.designTypeValidator.validate(designInput, this.createStudyGermplasmList());
+			Assert.fail("Should throw an ApiRequestValidationException.");
+		} catch (final ApiRequestValidationException e) {
+			assertThat(Arrays.asList(e.getErrors().get(0).getCodes()),
+				hasItem("experiment.design.latinized.not.available"));
+		}
+	}
+
+	@Test
+	public void testValidateResolvableIncompleteBlockDesignFail_LatinizedNotAvailable() {
+		Mockito.when(this.designRunner.supportsLatinizedDesigns()).thenReturn(false);
+		final ExperimentalDesignInput designInput = new ExperimentalDesignInput();
+		designInput.setStartingPlotNo(1);
+		designInput.setReplicationsCount(2);
+		designInput.setBlockSize(2);
+		designInput.setUseLatenized(true);
+		designInput.setNblatin(1);
+		designInput.setDesignType(ExperimentDesignType.RESOLVABLE_INCOMPLETE_BLOCK.getId());
+
+		try {
+			this.designTypeValidator.validate(designInput, this.createStudyGermplasmList());
+			Assert.fail("Should throw an ApiRequestValidationException.");
+		} catch (final ApiRequestValidationException e) {
+			assertThat(Arrays.asList(e.getErrors().get(0).getCodes()),
+				hasItem("experiment.design.latinized.not.available"));
+		}
+	}
+
 	@Test
 	public void testValidateResolvableIncompleteBlockDesignFail_TreatmentFactorsPresent() {
 		final ExperimentalDesignInput designInput = new ExperimentalDesignInput();
@@ -741,6 +793,19 @@ public class ExperimentalDesignTypeValidatorTest {
 
 
 
+	private ExperimentalDesignInput createLatinizedRowColumnDesignInput() {
+		final ExperimentalDesignInput designInput = new ExperimentalDesignInput();
+		designInput.setStartingPlotNo(1);
+		designInput.setReplicationsCount(2);
+		designInput.setRowsPerReplications(2);
+		designInput.setColsPerReplications(5);
+		designInput.setUseLatenized(true);
+		designInput.setNrlatin(1);
+		designInput.setNclatin(1);
+		designInput.setDesignType(ExperimentDesignType.ROW_COL.getId());
+		return designInput;
+	}
+
 	private List<StudyEntryDto> createStudyGermplasmList() {
 
 		final List<StudyEntryDto> importedGermplasmList = new LinkedList<>();
@@ -6,6 +6,8 @@ import org.generationcp.commons.pojo.treeview.TreeNode;
 import org.generationcp.middleware.ContextHolder;
 import org.generationcp.middleware.api.germplasm.GermplasmService;
 import org.generationcp.middleware.api.germplasm.search.GermplasmSearchRequest;
+import org.generationcp.middleware.api.germplasm.search.GermplasmSearchResponse;
+import org.generationcp.middleware.api.germplasm.search.GermplasmSearchService;
 import org.generationcp.middleware.api.germplasmlist.GermplasmListGeneratorDTO;
 import org.generationcp.middleware.api.germplasmlist.GermplasmListService;
 import org.generationcp.middleware.dao.GermplasmListDataDAO;
@@ -24,6 +26,7 @@ import org.hamcrest.Matchers;
 import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.exception.ApiValidationException;
 import org.ibp.api.exception.ResourceNotFoundException;
+import org.ibp.api.java.impl.middleware.common.ListTreeCache;
 import org.ibp.api.java.impl.middleware.common.validator.GermplasmValidator;
 import org.ibp.api.java.impl.middleware.common.validator.ProgramValidator;
 import org.ibp.api.java.impl.middleware.common.validator.SearchCompositeDtoValidator;
@@ -31,11 +34,15 @@ import org.ibp.api.java.impl.middleware.security.SecurityService;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.validation.MapBindingResult;
 
 import java.util.ArrayList;
@@ -47,6 +54,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.instanceOf;
@@ -65,6 +73,7 @@ public class GermplasmListServiceImplTest {
 	private static final String PROGRAM_UUID = UUID.randomUUID().toString();
 	private static final Integer USER_ID = new Random().nextInt();
 	private static final String CROP = "maize";
+	private static final Integer LIST_ID = 10;
 
 	@InjectMocks
 	private GermplasmListServiceImpl germplasmListService;
@@ -99,10 +108,19 @@ public class GermplasmListServiceImplTest {
 	@Mock
 	private GermplasmService germplasmService;
 
+	@Mock
+	private GermplasmSearchService germplasmSearchService;
+
+	@Spy
+	private ListTreeCache listTreeCache = new ListTreeCache();
+
+	private List<GermplasmListGeneratorDTO.GermplasmEntryDTO> createdEntries;
+
 	@Before
 	public void init() {
 		MockitoAnnotations.initMocks(this);
 		ContextHolder.setCurrentProgram(PROGRAM_UUID);
+		this.germplasmListService.setEntriesBatchSize(500);
 
 		final UserDefinedField userDefinedField = new UserDefinedField();
 		userDefinedField.setFcode(GERMPLASM_LIST_TYPE);
@@ -269,6 +287,90 @@ public class GermplasmListServiceImplTest {
 		Assert.assertThat(request.getEntries().get(1).getEntryCode(), is(String.valueOf(request.getEntries().get(1).getEntryNo())));
 	}
 
+	@Test
+	public void testCreate_FromSearchComposite_ShouldProcessEntriesInBatches() {
+		this.germplasmListService.setEntriesBatchSize(2);
+		final GermplasmListGeneratorDTO request = this.createGermplasmList();
+		request.setEntries(null);
+		final GermplasmSearchRequest searchRequest = new GermplasmSearchRequest();
+		final SearchCompositeDto<GermplasmSearchRequest, Integer> searchComposite = Mockito.mock(SearchCompositeDto.class);
+		Mockito.when(searchComposite.isValid()).thenReturn(true);
+		Mockito.when(searchComposite.getSearchRequest()).thenReturn(searchRequest);
+		request.setSearchComposite(searchComposite);
+		Mockito.when(this.germplasmSearchService
+			.searchGermplasm(ArgumentMatchers.eq(searchRequest), ArgumentMatchers.any(), ArgumentMatchers.eq(PROGRAM_UUID)))
+			.thenReturn(this.createSearchResponses(1, 2), this.createSearchResponses(3));
+		final GermplasmListGeneratorDTO germplasmList = this.mockCreate();
+
+		this.germplasmListService.create(request);
+
+		Assert.assertThat(request.getEntries(), hasSize(3));
+		Assert.assertThat(request.getEntries().get(2).getGid(), is(3));
+		Assert.assertThat(request.getEntries().get(2).getEntryNo(), is(3));
+		Mockito.verify(this.germplasmSearchService, times(2))
+			.searchGermplasm(ArgumentMatchers.eq(searchRequest), ArgumentMatchers.any(), ArgumentMatchers.eq(PROGRAM_UUID));
+		// gids returned by the search are not loaded again
+		Mockito.verify(this.germplasmDataManager, Mockito.never()).getGermplasms(ArgumentMatchers.anyList());
+		Mockito.verify(this.pedigreeService).getCrossExpansionsBulk(new HashSet<>(Arrays.asList(1, 2)), null, this.crossExpansionProperties);
+		Mockito.verify(this.pedigreeService).getCrossExpansionsBulk(new HashSet<>(Arrays.asList(3)), null, this.crossExpansionProperties);
+		Mockito.verify(this.germplasmService, times(2)).getPlotCodeValues(ArgumentMatchers.anySet());
+		// The list is created with the first batch, the second one is added to it
+		Assert.assertThat(this.createdEntries, hasSize(2));
+		Mockito.verify(this.germplasmListServiceMiddleware)
+			.addGermplasmEntriesToList(ArgumentMatchers.eq(LIST_ID), this.hasItemIds(3), ArgumentMatchers.eq(PROGRAM_UUID));
+		Mockito.verify(germplasmList).setEntries(request.getEntries());
+	}
+
+	@Test
+	public void testCreate_FromSearchComposite_ShouldPageTheSearchByGid() {
+		this.germplasmListService.setEntriesBatchSize(2);
+		final GermplasmListGeneratorDTO request = this.createGermplasmList();
+		request.setEntries(null);
+		final GermplasmSearchRequest searchRequest = new GermplasmSearchRequest();
+		final SearchCompositeDto<GermplasmSearchRequest, Integer> searchComposite = Mockito.mock(SearchCompositeDto.class);
+		Mockito.when(searchComposite.isValid()).thenReturn(true);
+		Mockito.when(searchComposite.getSearchRequest()).thenReturn(searchRequest);
+		request.setSearchComposite(searchComposite);
+		Mockito.when(this.germplasmSearchService
+			.searchGermplasm(ArgumentMatchers.eq(searchRequest), ArgumentMatchers.any(), ArgumentMatchers.eq(PROGRAM_UUID)))
+			.thenReturn(this.createSearchResponses(1, 2), this.createSearchResponses(3, 4), this.createSearchResponses(5, 6),
+				this.createSearchResponses());
+		this.mockCreate();
+
+		this.germplasmListService.create(request);
+
+		Assert.assertThat(this.createdEntries.stream().map(GermplasmListGeneratorDTO.GermplasmEntryDTO::getGid).collect(Collectors.toList()),
+			is(Arrays.asList(1, 2)));
+		final ArgumentCaptor<Pageable> pageables = ArgumentCaptor.forClass(Pageable.class);
+		Mockito.verify(this.germplasmSearchService, times(4))
+			.searchGermplasm(ArgumentMatchers.eq(searchRequest), pageables.capture(), ArgumentMatchers.eq(PROGRAM_UUID));
+		for (int pageNumber = 0; pageNumber < 4; pageNumber++) {
+			final Pageable pageable = pageables.getAllValues().get(pageNumber);
+			Assert.assertThat(pageable.getPageNumber(), is(pageNumber));
+			final Sort.Order order = pageable.getSort().iterator().next();
+			Assert.assertThat(order.getProperty(), is(GermplasmListServiceImpl.GID_SORT));
+			Assert.assertThat(order.getDirection(), is(Sort.Direction.ASC));
+		}
+		Mockito.verify(this.germplasmListServiceMiddleware)
+			.addGermplasmEntriesToList(ArgumentMatchers.eq(LIST_ID), this.hasItemIds(3, 4), ArgumentMatchers.eq(PROGRAM_UUID));
+		Mockito.verify(this.germplasmListServiceMiddleware)
+			.addGermplasmEntriesToList(ArgumentMatchers.eq(LIST_ID), this.hasItemIds(5, 6), ArgumentMatchers.eq(PROGRAM_UUID));
+	}
+
+	@Test
+	public void testCreate_WithSeedSources_ShouldSaveTheEntriesInOneCall() {
+		this.germplasmListService.setEntriesBatchSize(1);
+		final GermplasmListGeneratorDTO request = this.createGermplasmList();
+		this.mockCreate();
+
+		this.germplasmListService.create(request);
+
+		// The Middleware adds entries by gid only, so the entries with their own seed sources are all saved when the list is created
+		Assert.assertThat(this.createdEntries, hasSize(2));
+		Mockito.verify(this.germplasmListServiceMiddleware, Mockito.never())
+			.addGermplasmEntriesToList(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any());
+	}
+
 	@Test
 	public void shouldCreateGermplasmListFolder() {
 
@@ -299,6 +401,7 @@ public class GermplasmListServiceImplTest {
 		Mockito.verify(this.germplasmListServiceMiddleware).getGermplasmListByIdAndProgramUUID(parentId, PROGRAM_UUID);
 		Mockito.verify(this.germplasmListServiceMiddleware).getGermplasmListByParentAndName(folderName, parentId, PROGRAM_UUID);
 		Mockito.verify(this.germplasmListServiceMiddleware).createGermplasmListFolder(USER_ID, folderName, parentId, PROGRAM_UUID);
+		Mockito.verify(this.listTreeCache).invalidateNodes(ListTreeCache.GERMPLASM_LISTS, PROGRAM_UUID, String.valueOf(parentId));
 
 		Mockito.verifyNoMoreInteractions(this.programValidator);
 		Mockito.verifyNoMoreInteractions(this.germplasmListServiceMiddleware);
@@ -1198,7 +1301,8 @@ public class GermplasmListServiceImplTest {
 	public void testAddGermplasmEntriesToList_WithSelectedItems_OK() {
 		final Integer germplasmListId = new Random().nextInt(Integer.MAX_VALUE);
 		final SearchCompositeDto<GermplasmSearchRequest, Integer> searchComposite = Mockito.mock(SearchCompositeDto.class);
-		Mockito.when(searchComposite.getItemIds()).thenReturn(new HashSet<>(Arrays.asList(new Random().nextInt())));
+		final Integer gid = new Random().nextInt();
+		Mockito.when(searchComposite.getItemIds()).thenReturn(new HashSet<>(Arrays.asList(gid)));
 
 		Mockito.doNothing().when(this.searchCompositeDtoValidator).validateSearchCompositeDto(ArgumentMatchers.eq(searchComposite),
 			ArgumentMatchers.any(MapBindingResult.class));
@@ -1219,15 +1323,22 @@ public class GermplasmListServiceImplTest {
 		Mockito.verify(this.germplasmListServiceMiddleware).getGermplasmListById(germplasmListId);
 		Mockito.verify(this.germplasmValidator).validateGids(ArgumentMatchers.any(MapBindingResult.class), ArgumentMatchers.anyList());
 
-		Mockito.verify(this.germplasmListServiceMiddleware).addGermplasmEntriesToList(germplasmListId, searchComposite, PROGRAM_UUID);
+		Mockito.verify(this.germplasmListServiceMiddleware).addGermplasmEntriesToList(ArgumentMatchers.eq(germplasmListId),
+			this.hasItemIds(gid), ArgumentMatchers.eq(PROGRAM_UUID));
 
 		Mockito.verifyNoMoreInteractions(this.germplasmListServiceMiddleware);
 	}
 
 	@Test
 	public void testAddGermplasmEntriesToList_WithoutSelectedItems_OK() {
+		this.germplasmListService.setEntriesBatchSize(2);
 		final Integer germplasmListId = new Random().nextInt(Integer.MAX_VALUE);
 		final SearchCompositeDto<GermplasmSearchRequest, Integer> searchComposite = Mockito.mock(SearchCompositeDto.class);
+		final GermplasmSearchRequest searchRequest = new GermplasmSearchRequest();
+		Mockito.when(searchComposite.getSearchRequest()).thenReturn(searchRequest);
+		Mockito.when(this.germplasmSearchService
+			.searchGermplasm(ArgumentMatchers.eq(searchRequest), ArgumentMatchers.any(), ArgumentMatchers.eq(PROGRAM_UUID)))
+			.thenReturn(this.createSearchResponses(1, 2), this.createSearchResponses(3));
 
 		Mockito.doNothing().when(this.searchCompositeDtoValidator).validateSearchCompositeDto(ArgumentMatchers.eq(searchComposite),
 			ArgumentMatchers.any(MapBindingResult.class));
@@ -1246,7 +1357,11 @@ public class GermplasmListServiceImplTest {
 		Mockito.verify(this.germplasmListServiceMiddleware).getGermplasmListById(germplasmListId);
 		Mockito.verifyZeroInteractions(this.germplasmValidator);
 
-		Mockito.verify(this.germplasmListServiceMiddleware).addGermplasmEntriesToList(germplasmListId, searchComposite, PROGRAM_UUID);
+		// The search is paged here and its gids are added a batch at a time
+		Mockito.verify(this.germplasmListServiceMiddleware)
+			.addGermplasmEntriesToList(ArgumentMatchers.eq(germplasmListId), this.hasItemIds(1, 2), ArgumentMatchers.eq(PROGRAM_UUID));
+		Mockito.verify(this.germplasmListServiceMiddleware)
+			.addGermplasmEntriesToList(ArgumentMatchers.eq(germplasmListId), this.hasItemIds(3), ArgumentMatchers.eq(PROGRAM_UUID));
 
 		Mockito.verifyNoMoreInteractions(this.germplasmListServiceMiddleware);
 	}
@@ -1356,6 +1471,34 @@ public class GermplasmListServiceImplTest {
 		Mockito.verifyZeroInteractions(this.germplasmValidator);
 	}
 
+	private GermplasmListGeneratorDTO mockCreate() {
+		final GermplasmListGeneratorDTO germplasmList = Mockito.mock(GermplasmListGeneratorDTO.class);
+		Mockito.when(germplasmList.getId()).thenReturn(LIST_ID);
+		// The entries of the request are kept as they are when the list is created
+		Mockito.when(this.germplasmListServiceMiddleware
+			.create(ArgumentMatchers.any(), ArgumentMatchers.anyInt(), ArgumentMatchers.any(), ArgumentMatchers.any()))
+			.thenAnswer(invocation -> {
+				this.createdEntries = new ArrayList<>(invocation.<GermplasmListGeneratorDTO>getArgument(0).getEntries());
+				return germplasmList;
+			});
+		return germplasmList;
+	}
+
+	private SearchCompositeDto<GermplasmSearchRequest, Integer> hasItemIds(final Integer... gids) {
+		return ArgumentMatchers.argThat(searchComposite -> searchComposite.getSearchRequest() == null
+			&& new ArrayList<>(searchComposite.getItemIds()).equals(Arrays.asList(gids)));
+	}
+
+	private List<GermplasmSearchResponse> createSearchResponses(final Integer... gids) {
+		final List<GermplasmSearchResponse> responses = new ArrayList<>();
+		for (final Integer gid : gids) {
+			final GermplasmSearchResponse response = new GermplasmSearchResponse();
+			response.setGid(gid);
+			responses.add(response);
+		}
+		return responses;
+	}
+
 	private GermplasmListGeneratorDTO createGermplasmList() {
 		final GermplasmListGeneratorDTO list = new GermplasmListGeneratorDTO();
 		list.setName(RandomStringUtils.random(50));
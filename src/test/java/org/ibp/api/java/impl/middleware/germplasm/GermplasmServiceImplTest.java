@@ -4,6 +4,7 @@ package org.ibp.api.java.impl.middleware.germplasm;
 import com.beust.jcommander.internal.Sets;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang.RandomStringUtils;
+import org.generationcp.middleware.ContextHolder;
 import org.generationcp.middleware.api.attribute.AttributeDTO;
 import org.generationcp.middleware.api.brapi.v1.germplasm.GermplasmDTO;
 import org.generationcp.middleware.api.brapi.v2.germplasm.GermplasmImportRequest;
@@ -22,7 +23,9 @@ import org.ibp.api.domain.germplasm.GermplasmDeleteResponse;
 import org.ibp.api.java.impl.middleware.common.validator.GermplasmDeleteValidator;
 import org.ibp.api.java.impl.middleware.common.validator.GermplasmValidator;
 import org.ibp.api.java.impl.middleware.security.SecurityService;
+import org.junit.After;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
@@ -87,6 +90,18 @@ public class GermplasmServiceImplTest {
 	@InjectMocks
 	private GermplasmServiceImpl germplasmServiceImpl;
 
+	@Before
+	public void setUp() {
+		final PedigreeCache pedigreeCache = new PedigreeCache();
+		pedigreeCache.setSize(100);
+		pedigreeCache.setTtlMinutes(60);
+		this.germplasmServiceImpl.setPedigreeCache(pedigreeCache);
+	}
+
+	@After
+	public void tearDown() {
+		ContextHolder.setCurrentCrop(null);
+	}
 
 	@Test
 	public void testSearchGermplasmDTO() {
@@ -273,6 +288,30 @@ public class GermplasmServiceImplTest {
 		Assert.assertThat(importResponse.getErrors(), is(Lists.newArrayList(error)));
 	}
 
+	@Test
+	public void testSearchGermplasmDTO_PedigreeIsCachedUntilGermplasmIsDeleted() {
+		ContextHolder.setCurrentCrop("maize");
+		final GermplasmSearchRequestDto germplasmSearchRequestDTO = new GermplasmSearchRequestDto();
+		final GermplasmDTO germplasmDTO = new GermplasmDTO();
+		germplasmDTO.setGid("1");
+		Mockito.when(this.middlewareGermplasmService.searchFilteredGermplasm(germplasmSearchRequestDTO, new PageRequest(PAGE, PAGE_SIZE)))
+			.thenReturn(Lists.newArrayList(germplasmDTO));
+		Mockito.when(this.pedigreeService.getCrossExpansions(Collections.singleton(1), null, this.crossExpansionProperties))
+			.thenReturn(Collections.singletonMap(1, "CB1"));
+
+		this.germplasmServiceImpl.searchGermplasmDTO(germplasmSearchRequestDTO, new PageRequest(PAGE, PAGE_SIZE));
+		this.germplasmServiceImpl.searchGermplasmDTO(germplasmSearchRequestDTO, new PageRequest(PAGE, PAGE_SIZE));
+		Assert.assertEquals("CB1", germplasmDTO.getPedigree());
+		Mockito.verify(this.pedigreeService, Mockito.times(1))
+			.getCrossExpansions(Collections.singleton(1), null, this.crossExpansionProperties);
 
+		final List<Integer> gids = Lists.newArrayList(2);
+		Mockito.when(this.germplasmDeleteValidator.checkInvalidGidsForDeletion(gids)).thenReturn(Sets.newHashSet());
+		this.germplasmServiceImpl.deleteGermplasm(gids);
+
+		this.germplasmServiceImpl.searchGermplasmDTO(germplasmSearchRequestDTO, new PageRequest(PAGE, PAGE_SIZE));
+		Mockito.verify(this.pedigreeService, Mockito.times(2))
+			.getCrossExpansions(Collections.singleton(1), null, this.crossExpansionProperties);
+	}
 
 }
@@ -0,0 +1,131 @@
+package org.ibp.api.java.impl.middleware.germplasm;
+
+import org.generationcp.middleware.ContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+public class PedigreeCacheTest {
+
+	private static final int LEVEL = 1;
+
+	private final PedigreeCache pedigreeCache = new PedigreeCache();
+
+	private final List<Set<Integer>> loadedGids = new ArrayList<>();
+
+	private final Function<Set<Integer>, Map<Integer, String>> loader = gids -> {
+		this.loadedGids.add(new HashSet<>(gids));
+		final Map<Integer, String> crossExpansions = new HashMap<>();
+		for (final Integer gid : gids) {
+			crossExpansions.put(gid, "A/B-" + gid);
+		}
+		return crossExpansions;
+	};
+
+	@Before
+	public void setUp() {
+		ContextHolder.setCurrentCrop("maize");
+		this.pedigreeCache.setSize(100);
+		this.pedigreeCache.setTtlMinutes(60);
+	}
+
+	@After
+	public void tearDown() {
+		ContextHolder.setCurrentCrop(null);
+	}
+
+	@Test
+	public void testGetCrossExpansionsOnlyLoadsMissingGids() {
+		this.pedigreeCache.getCrossExpansions(this.gids(1, 2), LEVEL, this.loader);
+		final Map<Integer, String> crossExpansions = this.pedigreeCache.getCrossExpansions(this.gids(1, 2, 3), LEVEL, this.loader);
+
+		Assert.assertEquals("A/B-1", crossExpansions.get(1));
+		Assert.assertEquals("A/B-3", crossExpansions.get(3));
+		Assert.assertEquals(Arrays.asList(this.gids(1, 2), this.gids(3)), this.loadedGids);
+	}
+
+	@Test
+	public void testGetCrossExpansionsByLevel() {
+		this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+		this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL + 1, this.loader);
+
+		Assert.assertEquals(2, this.loadedGids.size());
+	}
+
+	@Test
+	public void testInvalidate() {
+		this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+		this.pedigreeCache.invalidate("wheat");
+		this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+		Assert.assertEquals(1, this.loadedGids.size());
+
+		this.pedigreeCache.invalidate();
+		this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+		Assert.assertEquals(2, this.loadedGids.size());
+	}
+
+	@Test
+	public void testInvalidateAgainAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+			this.pedigreeCache.invalidate();
+
+			// Cached by another request before the changes are committed
+			this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+			this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+			Assert.assertEquals(2, this.loadedGids.size());
+
+			for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCommit();
+			}
+			this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+			Assert.assertEquals(3, this.loadedGids.size());
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testCropsAreCachedSeparately() {
+		this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+		ContextHolder.setCurrentCrop("wheat");
+		this.pedigreeCache.getCrossExpansions(this.gids(1), LEVEL, this.loader);
+
+		Assert.assertEquals(2, this.loadedGids.size());
+	}
+
+	@Test
+	public void testGetParents() {
+		final PedigreeCache.Parents parents = new PedigreeCache.Parents("2", "FEMALE", null, null);
+		final List<Set<Integer>> loadedParents = new ArrayList<>();
+		final Function<Set<Integer>, Map<Integer, PedigreeCache.Parents>> parentsLoader = gids -> {
+			loadedParents.add(gids);
+			final Map<Integer, PedigreeCache.Parents> parentsMap = new HashMap<>();
+			parentsMap.put(1, parents);
+			return parentsMap;
+		};
+
+		this.pedigreeCache.getParents(this.gids(1), LEVEL, parentsLoader);
+		final Map<Integer, PedigreeCache.Parents> parentsMap = this.pedigreeCache.getParents(this.gids(1), LEVEL, parentsLoader);
+
+		Assert.assertSame(parents, parentsMap.get(1));
+		Assert.assertEquals(1, loadedParents.size());
+	}
+
+	private Set<Integer> gids(final Integer... gids) {
+		return new HashSet<>(Arrays.asList(gids));
+	}
+}
@@ -0,0 +1,71 @@
+package org.ibp.api.java.impl.middleware.inventory.common;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.ibp.api.exception.ConflictException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class DatabaseInventoryLockProviderTest {
+
+	private static final String MAIZE = "maize";
+
+	private SessionFactory sessionFactory;
+
+	private Session session;
+
+	private DatabaseInventoryLockProvider lockProvider;
+
+	@Before
+	public void setUp() {
+		this.sessionFactory = Mockito.mock(SessionFactory.class);
+		this.session = Mockito.mock(Session.class, Answers.RETURNS_DEEP_STUBS);
+		Mockito.when(this.sessionFactory.openSession()).thenReturn(this.session);
+		this.lockProvider = new DatabaseInventoryLockProvider(this.sessionFactory, 1);
+	}
+
+	@Test
+	public void testLockWrite() {
+		this.mockGetLock(1);
+
+		this.lockProvider.lockWrite(MAIZE);
+		// Nested writes reuse the named lock
+		this.lockProvider.lockWrite(MAIZE);
+		this.lockProvider.unlockWrite(MAIZE);
+		Mockito.verify(this.session, Mockito.never()).close();
+		this.lockProvider.unlockWrite(MAIZE);
+
+		Mockito.verify(this.sessionFactory, Mockito.times(1)).openSession();
+		Mockito.verify(this.session).createSQLQuery("SELECT RELEASE_LOCK(:name)");
+		Mockito.verify(this.session).close();
+	}
+
+	@Test
+	public void testLockWriteTimeout() {
+		this.mockGetLock(0);
+
+		try {
+			this.lockProvider.lockWrite(MAIZE);
+			Assert.fail("Should throw ConflictException");
+		} catch (final ConflictException e) {
+			Assert.assertEquals(DatabaseInventoryLockProvider.INVENTORY_LOCK_TIMEOUT, e.getErrors().get(0).getCode());
+		}
+		Mockito.verify(this.session).close();
+
+		// The local lock was released
+		this.mockGetLock(1);
+		this.lockProvider.lockWrite(MAIZE);
+		this.lockProvider.unlockWrite(MAIZE);
+	}
+
+	private void mockGetLock(final int result) {
+		Mockito.when(this.session.createSQLQuery("SELECT GET_LOCK(:name, :timeout)")
+			.setParameter(ArgumentMatchers.eq("name"), ArgumentMatchers.any())
+			.setParameter(ArgumentMatchers.eq("timeout"), ArgumentMatchers.any())
+			.uniqueResult()).thenReturn(result);
+	}
+}
@@ -0,0 +1,244 @@
+package org.ibp.api.java.impl.middleware.inventory.common;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class InventoryLockTest {
+
+	private static final String MAIZE = "maize";
+	private static final String WHEAT = "wheat";
+	private static final long TIMEOUT_SECONDS = 10;
+	private static final int STRIPES = 16;
+
+	private final InventoryLock inventoryLock = new InventoryLock();
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+	@Before
+	public void setUp() {
+		this.inventoryLock.setLockProvider(new LocalInventoryLockProvider());
+		this.inventoryLock.setSlowWaitMillis(1000);
+		this.inventoryLock.setStripes(STRIPES);
+	}
+
+	@After
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void testWriteDoesNotBlockOtherCrops() throws Exception {
+		this.inventoryLock.lockWrite(MAIZE);
+		try {
+			final Future<Boolean> wheatRead = this.executor.submit(() -> {
+				this.inventoryLock.lockRead(WHEAT);
+				this.inventoryLock.unlockRead(WHEAT);
+				return true;
+			});
+			Assert.assertTrue(wheatRead.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+			final CountDownLatch maizeReadAcquired = new CountDownLatch(1);
+			this.executor.submit(() -> {
+				this.inventoryLock.lockRead(MAIZE.toUpperCase());
+				maizeReadAcquired.countDown();
+				this.inventoryLock.unlockRead(MAIZE.toUpperCase());
+			});
+			// Same crop, whatever the case of its name
+			Assert.assertFalse(maizeReadAcquired.await(100, TimeUnit.MILLISECONDS));
+		} finally {
+			this.inventoryLock.unlockWrite(MAIZE);
+		}
+	}
+
+	@Test
+	public void testMixedLoadAcrossCrops() throws Exception {
+		final String[] crops = {MAIZE, WHEAT, "rice", "cowpea"};
+		final int operations = 200;
+		final AtomicInteger[] writers = new AtomicInteger[crops.length];
+		final AtomicInteger[] readers = new AtomicInteger[crops.length];
+		for (int i = 0; i < crops.length; i++) {
+			writers[i] = new AtomicInteger();
+			readers[i] = new AtomicInteger();
+		}
+		final AtomicInteger violations = new AtomicInteger();
+		final AtomicInteger reads = new AtomicInteger();
+		final AtomicInteger writes = new AtomicInteger();
+
+		final List<Callable<Void>> tasks = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			final int thread = t;
+			tasks.add(() -> {
+				for (int i = 0; i < operations; i++) {
+					final int crop = (thread + i) % crops.length;
+					if (i % 4 == 0) {
+						this.inventoryLock.lockWrite(crops[crop]);
+						try {
+							if (writers[crop].incrementAndGet() != 1 || readers[crop].get() != 0) {
+								violations.incrementAndGet();
+							}
+							Thread.yield();
+							writes.incrementAndGet();
+							writers[crop].decrementAndGet();
+						} finally {
+							this.inventoryLock.unlockWrite(crops[crop]);
+						}
+					} else {
+						this.inventoryLock.lockRead(crops[crop]);
+						try {
+							readers[crop].incrementAndGet();
+							if (writers[crop].get() != 0) {
+								violations.incrementAndGet();
+							}
+							Thread.yield();
+							reads.incrementAndGet();
+							readers[crop].decrementAndGet();
+						} finally {
+							this.inventoryLock.unlockRead(crops[crop]);
+						}
+					}
+				}
+				return null;
+			});
+		}
+		for (final Future<Void> future : this.executor.invokeAll(tasks, TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+			future.get();
+		}
+
+		Assert.assertEquals(0, violations.get());
+		Assert.assertEquals(8 * operations / 4, writes.get());
+		Assert.assertEquals(8 * operations - writes.get(), reads.get());
+		long lockedReads = 0;
+		long lockedWrites = 0;
+		for (final String crop : crops) {
+			final InventoryLockMetrics metrics = this.inventoryLock.getMetrics().get(crop);
+			lockedReads += metrics.getReadLocks();
+			lockedWrites += metrics.getWriteLocks();
+		}
+		Assert.assertEquals(writes.get(), lockedWrites);
+		Assert.assertEquals(reads.get(), lockedReads);
+	}
+
+	@Test
+	public void testWriteDoesNotBlockLotsInOtherStripes() throws Exception {
+		final String lotUUID = "0b7a0a5e-5d0c-4d2a-9c6e-2f1d1c3b4a01";
+		final String otherLotUUID = this.getLotUUIDInOtherStripe(lotUUID);
+		this.inventoryLock.lockWrite(MAIZE, Collections.singleton(lotUUID));
+		try {
+			final Future<Boolean> otherLotWrite = this.executor.submit(() -> {
+				this.inventoryLock.lockWrite(MAIZE, Collections.singleton(otherLotUUID));
+				this.inventoryLock.unlockWrite(MAIZE, Collections.singleton(otherLotUUID));
+				return true;
+			});
+			Assert.assertTrue(otherLotWrite.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+			final CountDownLatch sameLotReadAcquired = new CountDownLatch(1);
+			final CountDownLatch searchAcquired = new CountDownLatch(1);
+			this.executor.submit(() -> {
+				// Same lot, whatever the case of its UUID
+				this.inventoryLock.lockRead(MAIZE, Collections.singleton(lotUUID.toUpperCase()));
+				sameLotReadAcquired.countDown();
+				this.inventoryLock.unlockRead(MAIZE, Collections.singleton(lotUUID.toUpperCase()));
+			});
+			this.executor.submit(() -> {
+				this.inventoryLock.lockRead(MAIZE);
+				searchAcquired.countDown();
+				this.inventoryLock.unlockRead(MAIZE);
+			});
+			Assert.assertFalse(sameLotReadAcquired.await(100, TimeUnit.MILLISECONDS));
+			// Searches read all the lots of the crop
+			Assert.assertFalse(searchAcquired.await(100, TimeUnit.MILLISECONDS));
+		} finally {
+			this.inventoryLock.unlockWrite(MAIZE, Collections.singleton(lotUUID));
+		}
+	}
+
+	@Test
+	public void testOverlappingLotWritesAcrossStripes() throws Exception {
+		final String[] lotUUIDs = new String[8];
+		for (int i = 0; i < lotUUIDs.length; i++) {
+			lotUUIDs[i] = "lot-" + i;
+		}
+		final int operations = 200;
+		final AtomicInteger[] writers = new AtomicInteger[lotUUIDs.length];
+		for (int i = 0; i < lotUUIDs.length; i++) {
+			writers[i] = new AtomicInteger();
+		}
+		final AtomicInteger violations = new AtomicInteger();
+
+		final List<Callable<Void>> tasks = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			final int thread = t;
+			tasks.add(() -> {
+				for (int i = 0; i < operations; i++) {
+					// Each write takes two lots, given in either order, so that stripes taken out of order would deadlock
+					final int first = (thread + i) % lotUUIDs.length;
+					final int second = (thread + 3 * i + 1) % lotUUIDs.length;
+					final List<String> lots = thread % 2 == 0 ? Arrays.asList(lotUUIDs[first], lotUUIDs[second])
+						: Arrays.asList(lotUUIDs[second], lotUUIDs[first]);
+					this.inventoryLock.lockWrite(MAIZE, lots);
+					try {
+						if (writers[first].incrementAndGet() != 1) {
+							violations.incrementAndGet();
+						}
+						Thread.yield();
+						writers[first].decrementAndGet();
+					} finally {
+						this.inventoryLock.unlockWrite(MAIZE, lots);
+					}
+				}
+				return null;
+			});
+		}
+		for (final Future<Void> future : this.executor.invokeAll(tasks, TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+			future.get();
+		}
+
+		Assert.assertEquals(0, violations.get());
+		Assert.assertEquals(8 * operations, this.inventoryLock.getMetrics().get(MAIZE).getWriteLocks());
+	}
+
+	@Test
+	public void testGetLockNames() {
+		Assert.assertEquals(STRIPES, this.inventoryLock.getLockNames("Maize", null).size());
+		Assert.assertEquals("maize#0", this.inventoryLock.getLockNames("Maize", null).get(0));
+		Assert.assertEquals(this.inventoryLock.getLockNames(MAIZE, null), this.inventoryLock.getLockNames(MAIZE, Collections.emptySet()));
+		Assert.assertEquals(1, this.inventoryLock.getLockNames(MAIZE, Arrays.asList("ABC", "abc")).size());
+	}
+
+	@Test
+	public void testMetrics() {
+		this.inventoryLock.lockWrite(MAIZE);
+		this.inventoryLock.unlockWrite(MAIZE);
+		this.inventoryLock.lockRead("Maize", Collections.singleton("abc"));
+		this.inventoryLock.unlockRead("Maize", Collections.singleton("abc"));
+
+		final InventoryLockMetrics metrics = this.inventoryLock.getMetrics().get(MAIZE);
+		Assert.assertEquals(1, metrics.getWriteLocks());
+		Assert.assertEquals(1, metrics.getReadLocks());
+		Assert.assertNull(this.inventoryLock.getMetrics().get(WHEAT));
+	}
+
+	private String getLotUUIDInOtherStripe(final String lotUUID) {
+		final List<String> lockNames = this.inventoryLock.getLockNames(MAIZE, Collections.singleton(lotUUID));
+		for (int i = 0; ; i++) {
+			final String otherLotUUID = lotUUID + i;
+			if (!lockNames.equals(this.inventoryLock.getLockNames(MAIZE, Collections.singleton(otherLotUUID)))) {
+				return otherLotUUID;
+			}
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package org.ibp.api.java.impl.middleware.job;
+
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobStatus;
+import org.ibp.api.domain.job.JobType;
+import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.exception.ConflictException;
+import org.ibp.api.exception.ResourceNotFoundException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.MapBindingResult;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class JobServiceImplTest {
+
+	private static final String MAIZE = "maize";
+	private static final String WHEAT = "wheat";
+	private static final long TIMEOUT_MILLIS = 10000;
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private JobServiceImpl jobService;
+
+	@Before
+	public void setUp() {
+		final ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+		messageSource.setUseCodeAsDefaultMessage(true);
+
+		this.jobService = new JobServiceImpl();
+		this.jobService.setThreads(2);
+		this.jobService.setQueueSize(10);
+		this.jobService.setCropMaxConcurrent(5);
+		this.jobService.setResultTtlMinutes(60);
+		this.jobService.setMessageSource(messageSource);
+		this.jobService.init();
+		this.authenticate("user1", "ADMIN");
+	}
+
+	@After
+	public void tearDown() {
+		this.release.countDown();
+		this.jobService.shutdown();
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void testSubmit() throws InterruptedException {
+		final Map<String, Object> result = Collections.singletonMap("key", "value");
+
+		final JobDTO submitted = this.jobService.submit(MAIZE, JobType.DERIVED_VARIABLE_CALCULATION, progress -> {
+			progress.setTotal(10);
+			for (int i = 0; i < 10; i++) {
+				progress.increment();
+			}
+			return result;
+		});
+		Assert.assertNotNull(submitted.getJobId());
+		Assert.assertEquals(JobType.DERIVED_VARIABLE_CALCULATION, submitted.getType());
+		Assert.assertEquals(MAIZE, submitted.getCropName());
+
+		final JobDTO job = this.waitUntilFinished(MAIZE, submitted.getJobId());
+		Assert.assertEquals(JobStatus.COMPLETED, job.getStatus());
+		Assert.assertEquals(10, job.getTotal());
+		Assert.assertEquals(10, job.getProcessed());
+		Assert.assertFalse(job.isHasResultFile());
+		Assert.assertNotNull(job.getStartedDate());
+		Assert.assertNotNull(job.getFinishedDate());
+		Assert.assertEquals(result, this.jobService.getResult(MAIZE, job.getJobId()));
+	}
+
+	@Test
+	public void testSubmitFileResult() throws InterruptedException, IOException {
+		final File file = File.createTempFile("job", ".csv");
+		file.deleteOnExit();
+
+		final JobDTO submitted = this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> file);
+
+		final JobDTO job = this.waitUntilFinished(MAIZE, submitted.getJobId());
+		Assert.assertEquals(JobStatus.COMPLETED, job.getStatus());
+		Assert.assertTrue(job.isHasResultFile());
+		Assert.assertEquals(file, this.jobService.getResultFile(MAIZE, job.getJobId()));
+		try {
+			this.jobService.getResult(MAIZE, job.getJobId());
+			Assert.fail("Should throw ResourceNotFoundException");
+		} catch (final ResourceNotFoundException e) {
+			Assert.assertEquals(JobServiceImpl.JOB_RESULT_NOT_AVAILABLE, e.getError().getCode());
+		}
+	}
+
+	@Test
+	public void testFailedJob() throws InterruptedException {
+		final JobDTO submitted = this.jobService.submit(MAIZE, JobType.DERIVED_VARIABLE_CALCULATION, progress -> {
+			final BindingResult errors = new MapBindingResult(new HashMap<String, String>(), Integer.class.getName());
+			errors.reject("study.execute.calculation.engine.exception");
+			throw new ApiRequestValidationException(errors.getAllErrors());
+		});
+
+		final JobDTO job = this.waitUntilFinished(MAIZE, submitted.getJobId());
+		Assert.assertEquals(JobStatus.FAILED, job.getStatus());
+		Assert.assertEquals(Collections.singletonList("study.execute.calculation.engine.exception"), job.getErrors());
+	}
+
+	@Test
+	public void testUnexpectedError() throws InterruptedException {
+		final JobDTO submitted = this.jobService.submit(MAIZE, JobType.LABEL_PRINTING, progress -> {
+			throw new IllegalStateException("Unexpected");
+		});
+
+		final JobDTO job = this.waitUntilFinished(MAIZE, submitted.getJobId());
+		Assert.assertEquals(JobStatus.FAILED, job.getStatus());
+		Assert.assertEquals(Collections.singletonList(JobServiceImpl.JOB_FAILED), job.getErrors());
+	}
+
+	@Test
+	public void testCropLimit() throws InterruptedException {
+		this.jobService.setCropMaxConcurrent(1);
+
+		final JobDTO running = this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> this.awaitRelease());
+		try {
+			this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> null);
+			Assert.fail("Should throw ConflictException");
+		} catch (final ConflictException e) {
+			Assert.assertEquals(JobServiceImpl.JOB_CROP_LIMIT_REACHED, e.getErrors().get(0).getCode());
+		}
+
+		// Other crops are not affected
+		final JobDTO otherCrop = this.jobService.submit(WHEAT, JobType.DATASET_EXPORT, progress -> null);
+		Assert.assertEquals(JobStatus.COMPLETED, this.waitUntilFinished(WHEAT, otherCrop.getJobId()).getStatus());
+
+		this.release.countDown();
+		Assert.assertEquals(JobStatus.COMPLETED, this.waitUntilFinished(MAIZE, running.getJobId()).getStatus());
+
+		// The crop can submit again once its job is finished
+		final JobDTO next = this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> null);
+		Assert.assertEquals(JobStatus.COMPLETED, this.waitUntilFinished(MAIZE, next.getJobId()).getStatus());
+	}
+
+	@Test
+	public void testQueueFull() {
+		this.jobService.setThreads(1);
+		this.jobService.setQueueSize(1);
+		this.jobService.shutdown();
+		this.jobService.init();
+
+		this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> this.awaitRelease());
+		this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> this.awaitRelease());
+		try {
+			this.jobService.submit(WHEAT, JobType.DATASET_EXPORT, progress -> null);
+			Assert.fail("Should throw ConflictException");
+		} catch (final ConflictException e) {
+			Assert.assertEquals(JobServiceImpl.JOB_QUEUE_FULL, e.getErrors().get(0).getCode());
+		}
+	}
+
+	@Test
+	public void testCancelRunningJob() throws InterruptedException {
+		final CountDownLatch started = new CountDownLatch(1);
+		final JobDTO submitted = this.jobService.submit(MAIZE, JobType.DERIVED_VARIABLE_CALCULATION, progress -> {
+			started.countDown();
+			while (true) {
+				progress.increment();
+				Thread.sleep(1);
+			}
+		});
+		Assert.assertTrue(started.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+		this.jobService.cancel(MAIZE, submitted.getJobId());
+
+		final JobDTO job = this.waitUntilFinished(MAIZE, submitted.getJobId());
+		Assert.assertEquals(JobStatus.CANCELLED, job.getStatus());
+		Assert.assertTrue(job.getProcessed() > 0);
+	}
+
+	@Test
+	public void testCancelQueuedJob() throws InterruptedException {
+		this.jobService.setThreads(1);
+		this.jobService.shutdown();
+		this.jobService.init();
+		final CountDownLatch queuedJobRun = new CountDownLatch(1);
+
+		final JobDTO running = this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> this.awaitRelease());
+		final JobDTO queued = this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> {
+			queuedJobRun.countDown();
+			return null;
+		});
+		Assert.assertEquals(JobStatus.QUEUED, queued.getStatus());
+
+		Assert.assertEquals(JobStatus.CANCELLED, this.jobService.cancel(MAIZE, queued.getJobId()).getStatus());
+
+		this.release.countDown();
+		this.waitUntilFinished(MAIZE, running.getJobId());
+		Assert.assertFalse(queuedJobRun.await(100, TimeUnit.MILLISECONDS));
+		Assert.assertEquals(JobStatus.CANCELLED, this.jobService.getJob(MAIZE, queued.getJobId()).getStatus());
+	}
+
+	@Test
+	public void testJobIsOnlyVisibleToItsUser() throws InterruptedException {
+		final JobDTO submitted = this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> null);
+		this.waitUntilFinished(MAIZE, submitted.getJobId());
+
+		this.authenticate("user2", "ADMIN");
+		this.assertJobNotFound(MAIZE, submitted.getJobId());
+
+		// Nor from another crop
+		this.authenticate("user1", "ADMIN");
+		this.assertJobNotFound(WHEAT, submitted.getJobId());
+
+		SecurityContextHolder.clearContext();
+		this.assertJobNotFound(MAIZE, submitted.getJobId());
+	}
+
+	@Test
+	public void testJobIsOnlyVisibleWithTheAuthoritiesOfItsType() throws InterruptedException {
+		this.authenticate("user1", "LOT_LABEL_PRINTING");
+		final JobDTO labels = this.jobService.submit(MAIZE, JobType.LABEL_PRINTING, progress -> null);
+		this.waitUntilFinished(MAIZE, labels.getJobId());
+
+		this.authenticate("user1", "ADMIN");
+		final JobDTO export = this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> null);
+		this.waitUntilFinished(MAIZE, export.getJobId());
+
+		this.authenticate("user1", "LOT_LABEL_PRINTING");
+		this.assertJobNotFound(MAIZE, export.getJobId());
+		try {
+			this.jobService.cancel(MAIZE, export.getJobId());
+			Assert.fail("Should throw ResourceNotFoundException");
+		} catch (final ResourceNotFoundException e) {
+			Assert.assertEquals(JobServiceImpl.JOB_NOT_FOUND, e.getError().getCode());
+		}
+	}
+
+	@Test
+	public void testExpiredJobsAreRemoved() throws InterruptedException, IOException {
+		final File file = File.createTempFile("job", ".csv");
+		file.deleteOnExit();
+		final JobDTO submitted = this.jobService.submit(MAIZE, JobType.DATASET_EXPORT, progress -> file);
+		this.waitUntilFinished(MAIZE, submitted.getJobId());
+		// Finished dates are compared in milliseconds
+		Thread.sleep(5);
+
+		this.jobService.setResultTtlMinutes(0);
+		this.assertJobNotFound(MAIZE, submitted.getJobId());
+		Assert.assertFalse(file.exists());
+	}
+
+	private void authenticate(final String username, final String authority) {
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, "password",
+			Collections.singletonList(new SimpleGrantedAuthority(authority))));
+	}
+
+	private void assertJobNotFound(final String cropName, final String jobId) {
+		try {
+			this.jobService.getJob(cropName, jobId);
+			Assert.fail("Should throw ResourceNotFoundException");
+		} catch (final ResourceNotFoundException e) {
+			Assert.assertEquals(JobServiceImpl.JOB_NOT_FOUND, e.getError().getCode());
+		}
+	}
+
+	private Object awaitRelease() throws InterruptedException {
+		this.release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		return null;
+	}
+
+	private JobDTO waitUntilFinished(final String cropName, final String jobId) throws InterruptedException {
+		final long timeout = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		JobDTO job = this.jobService.getJob(cropName, jobId);
+		while (!job.getStatus().isFinished() && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+			job = this.jobService.getJob(cropName, jobId);
+		}
+		return job;
+	}
+}
@@ -0,0 +1,70 @@
+package org.ibp.api.java.impl.middleware.job;
+
+import org.generationcp.middleware.ContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ParallelExecutorTest {
+
+	private final ParallelExecutor parallelExecutor = new ParallelExecutor();
+
+	@Before
+	public void setUp() {
+		this.parallelExecutor.setThreads(1);
+		this.parallelExecutor.setQueueSize(1);
+		this.parallelExecutor.init();
+		ContextHolder.setCurrentCrop("maize");
+	}
+
+	@After
+	public void tearDown() {
+		this.parallelExecutor.shutdown();
+		ContextHolder.setCurrentCrop(null);
+	}
+
+	@Test
+	public void testSubmitRunsWithTheContextOfTheCaller() throws Exception {
+		final Future<String> crop = this.parallelExecutor.submit(ContextHolder::getCurrentCrop);
+
+		Assert.assertEquals("maize", crop.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testSubmitRunsInTheCallerWhenTheQueueIsFull() throws Exception {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final Future<Boolean> running = this.parallelExecutor.submit(() -> {
+			started.countDown();
+			return release.await(10, TimeUnit.SECONDS);
+		});
+		Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+		final Future<Thread> queued = this.parallelExecutor.submit(Thread::currentThread);
+
+		final Future<Thread> rejected = this.parallelExecutor.submit(Thread::currentThread);
+
+		Assert.assertTrue(rejected.isDone());
+		Assert.assertSame(Thread.currentThread(), rejected.get());
+		// The context of the caller is kept after running the task
+		Assert.assertEquals("maize", ContextHolder.getCurrentCrop());
+
+		release.countDown();
+		Assert.assertTrue(running.get(10, TimeUnit.SECONDS));
+		Assert.assertNotSame(Thread.currentThread(), queued.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testTasksSubmittedByATaskRunInItsThread() throws Exception {
+		final Future<Boolean> sameThread = this.parallelExecutor.submit(() -> {
+			final Thread thread = Thread.currentThread();
+			return this.parallelExecutor.submit(Thread::currentThread).get() == thread;
+		});
+
+		Assert.assertTrue(sameThread.get(10, TimeUnit.SECONDS));
+	}
+}
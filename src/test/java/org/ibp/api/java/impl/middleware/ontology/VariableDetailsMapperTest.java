@@ -0,0 +1,93 @@
+package org.ibp.api.java.impl.middleware.ontology;
+
+import org.generationcp.middleware.domain.ontology.Variable;
+import org.generationcp.middleware.domain.ontology.VariableType;
+import org.ibp.api.domain.ontology.Category;
+import org.ibp.api.domain.ontology.MetadataDetails;
+import org.ibp.api.domain.ontology.TermSummary;
+import org.ibp.api.domain.ontology.VariableDetails;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class VariableDetailsMapperTest {
+
+	@Test
+	public void testMapIsTheSameAsOntologyMapper() {
+		final Variable variable = TestDataProvider.getTestVariable();
+		variable.addVariableType(VariableType.SELECTION_METHOD);
+
+		this.assertSameDetails(OntologyMapper.getInstance().map(variable, VariableDetails.class), VariableDetailsMapper.map(variable));
+	}
+
+	@Test
+	public void testMapWithoutMethodPropertyAndScale() {
+		final Variable variable = TestDataProvider.getTestVariable();
+		variable.setMethod(null);
+		variable.setProperty(null);
+		variable.setScale(null);
+
+		final VariableDetails variableDetails = VariableDetailsMapper.map(variable);
+
+		Assert.assertNull(variableDetails.getMethod());
+		Assert.assertNull(variableDetails.getProperty());
+		Assert.assertNull(variableDetails.getScale());
+		Assert.assertEquals(String.valueOf(variable.getId()), variableDetails.getId());
+	}
+
+	private void assertSameDetails(final VariableDetails expected, final VariableDetails actual) {
+		this.assertSameTerm(expected, actual);
+		Assert.assertEquals(expected.getAlias(), actual.getAlias());
+		Assert.assertEquals(expected.isFavourite(), actual.isFavourite());
+		Assert.assertEquals(expected.getExpectedRange(), actual.getExpectedRange());
+		Assert.assertEquals(expected.getFormula(), actual.getFormula());
+		Assert.assertEquals(expected.isAllowsFormula(), actual.isAllowsFormula());
+		this.assertSameMetadata(expected.getMetadata(), actual.getMetadata());
+		Assert.assertEquals(expected.getMetadata().getUsage().getObservations(), actual.getMetadata().getUsage().getObservations());
+		Assert.assertEquals(expected.getMetadata().getUsage().getStudies(), actual.getMetadata().getUsage().getStudies());
+		Assert.assertEquals(expected.getMetadata().getUsage().getDatasets(), actual.getMetadata().getUsage().getDatasets());
+
+		Assert.assertEquals(expected.getVariableTypes().size(), actual.getVariableTypes().size());
+		for (final org.ibp.api.domain.ontology.VariableType variableType : expected.getVariableTypes()) {
+			Assert.assertTrue(actual.getVariableTypes().stream().anyMatch(type -> type.getId().equals(variableType.getId())
+				&& type.getName().equals(variableType.getName()) && type.getDescription().equals(variableType.getDescription())));
+		}
+
+		this.assertSameTerm(expected.getMethod(), actual.getMethod());
+		this.assertSameMetadata(expected.getMethod().getMetadata(), actual.getMethod().getMetadata());
+
+		this.assertSameTerm(expected.getProperty(), actual.getProperty());
+		Assert.assertEquals(expected.getProperty().getCropOntologyId(), actual.getProperty().getCropOntologyId());
+		Assert.assertEquals(expected.getProperty().getClasses(), actual.getProperty().getClasses());
+		this.assertSameMetadata(expected.getProperty().getMetadata(), actual.getProperty().getMetadata());
+
+		this.assertSameTerm(expected.getScale(), actual.getScale());
+		Assert.assertEquals(expected.getScale().getDataType().getId(), actual.getScale().getDataType().getId());
+		Assert.assertEquals(expected.getScale().getDataType().getName(), actual.getScale().getDataType().getName());
+		Assert.assertEquals(expected.getScale().getValidValues().getMin(), actual.getScale().getValidValues().getMin());
+		Assert.assertEquals(expected.getScale().getValidValues().getMax(), actual.getScale().getValidValues().getMax());
+		final List<Category> expectedCategories = expected.getScale().getValidValues().getCategories();
+		final List<Category> actualCategories = actual.getScale().getValidValues().getCategories();
+		Assert.assertFalse(expectedCategories.isEmpty());
+		Assert.assertEquals(expectedCategories.size(), actualCategories.size());
+		for (int i = 0; i < expectedCategories.size(); i++) {
+			this.assertSameTerm(expectedCategories.get(i), actualCategories.get(i));
+			Assert.assertEquals(expectedCategories.get(i).getEditable(), actualCategories.get(i).getEditable());
+		}
+		this.assertSameMetadata(expected.getScale().getMetadata(), actual.getScale().getMetadata());
+	}
+
+	private void assertSameTerm(final TermSummary expected, final TermSummary actual) {
+		Assert.assertEquals(expected.getId(), actual.getId());
+		Assert.assertEquals(expected.getName(), actual.getName());
+		Assert.assertEquals(expected.getDescription(), actual.getDescription());
+	}
+
+	private void assertSameMetadata(final MetadataDetails expected, final MetadataDetails actual) {
+		Assert.assertEquals(expected.getDateCreated(), actual.getDateCreated());
+		Assert.assertEquals(expected.getDateLastModified(), actual.getDateLastModified());
+		Assert.assertEquals(expected.isDeletable(), actual.isDeletable());
+		Assert.assertEquals(expected.getEditableFields(), actual.getEditableFields());
+	}
+}
@@ -11,8 +11,10 @@ import org.generationcp.middleware.service.api.user.UserService;
 import org.ibp.ApiUnitTestBase;
 import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.exception.ConflictException;
+import org.ibp.api.java.impl.middleware.security.ProgramMembersCache;
 import org.ibp.api.rest.role.RoleGeneratorInput;
 import org.ibp.api.rest.role.RoleValidator;
+import org.ibp.api.security.xauth.XAuthTokenCache;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
@@ -45,6 +47,12 @@ public class RoleServiceImplTest extends ApiUnitTestBase {
 	@Mock
 	private UserService userService;
 
+	@Mock
+	private XAuthTokenCache xAuthTokenCache;
+
+	@Mock
+	private ProgramMembersCache programMembersCache;
+
 	@InjectMocks
 	private RoleServiceImpl roleServiceImpl;
 
@@ -87,6 +95,8 @@ public class RoleServiceImplTest extends ApiUnitTestBase {
 
 		verify(this.roleValidator).validateRoleGeneratorInput(roleGeneratorInput, false);
 		verify(this.workbenchDataManager).saveRole(role);
+		verify(this.xAuthTokenCache).invalidateAll();
+		verify(this.programMembersCache).invalidateAll();
 		assertEquals(roleGeneratorInput.getName(), role.getName());
 		assertEquals(roleGeneratorInput.getDescription(), role.getDescription());
 		assertEquals(permissionId, role.getPermissions().get(0).getPermissionId().intValue());
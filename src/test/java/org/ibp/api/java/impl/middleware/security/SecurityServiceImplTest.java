@@ -15,7 +15,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -30,6 +33,8 @@ public class SecurityServiceImplTest {
 	@InjectMocks
 	private final SecurityServiceImpl securityServiceImpl = new SecurityServiceImpl();
 
+	private ProgramMembersCache programMembersCache;
+
 	private WorkbenchUser me;
 	private WorkbenchUser otherBreeder;
 	private UsernamePasswordAuthenticationToken loggedInUser;
@@ -40,6 +45,11 @@ public class SecurityServiceImplTest {
 	@Before
 	public void beforeEachTest() {
 		MockitoAnnotations.initMocks(this);
+		this.programMembersCache = new ProgramMembersCache();
+		this.programMembersCache.setSize(10);
+		this.programMembersCache.setTtlSeconds(60);
+		this.programMembersCache.init();
+		this.securityServiceImpl.setProgramMembersCache(this.programMembersCache);
 
 		this.me = new WorkbenchUser();
 		this.me.setName("Mr. Breeder");
@@ -62,6 +72,7 @@ public class SecurityServiceImplTest {
 	@After
 	public void afterEachTest() {
 		SecurityContextHolder.getContext().setAuthentication(null);
+		RequestContextHolder.resetRequestAttributes();
 	}
 
 
@@ -139,6 +150,43 @@ public class SecurityServiceImplTest {
 			this.securityServiceImpl.isAccessible(list, this.cropname));
 	}
 
+	@Test
+	public void testGetCurrentlyLoggedInUserIsLoadedOncePerRequest() {
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+		Assert.assertEquals(this.me, this.securityServiceImpl.getCurrentlyLoggedInUser());
+		Assert.assertEquals(this.me, this.securityServiceImpl.getCurrentlyLoggedInUser());
+		Mockito.verify(this.userService, Mockito.times(1)).getUserByUsername(this.me.getName());
+
+		// Another request loads it again
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+		Assert.assertEquals(this.me, this.securityServiceImpl.getCurrentlyLoggedInUser());
+		Mockito.verify(this.userService, Mockito.times(2)).getUserByUsername(this.me.getName());
+	}
+
+	@Test
+	public void testProgramMembersAreCachedUntilInvalidated() {
+		final GermplasmList list = new GermplasmList();
+		list.setUserId(this.otherBreeder.getUserid());
+		list.setProgramUUID(this.programUUID);
+
+		final Project listProgram = new Project();
+		listProgram.setProjectId(2L);
+		listProgram.setUniqueID(list.getProgramUUID());
+		Mockito.when(this.workbenchDataManager.getProjectByUuidAndCrop(list.getProgramUUID(), this.cropname)).thenReturn(listProgram);
+		Mockito.when(this.userService.getUsersByProjectId(listProgram.getProjectId())).thenReturn(
+			Lists.newArrayList(this.otherBreeder), Lists.newArrayList(this.otherBreeder, this.me));
+
+		Assert.assertFalse(this.securityServiceImpl.isAccessible(list, this.cropname));
+		Assert.assertFalse(this.securityServiceImpl.isAccessible(list, this.cropname));
+		Mockito.verify(this.userService, Mockito.times(1)).getUsersByProjectId(listProgram.getProjectId());
+
+		// e.g. the logged in user was given a role in the program
+		this.programMembersCache.invalidateAll();
+		Assert.assertTrue(this.securityServiceImpl.isAccessible(list, this.cropname));
+		Mockito.verify(this.userService, Mockito.times(2)).getUsersByProjectId(listProgram.getProjectId());
+	}
+
 	/**
 	 * Case 4 Lists with no program reference.
 	 */
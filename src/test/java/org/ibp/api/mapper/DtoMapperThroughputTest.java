@@ -0,0 +1,131 @@
+package org.ibp.api.mapper;
+
+import org.generationcp.middleware.domain.ontology.Variable;
+import org.generationcp.middleware.domain.search_request.brapi.v2.ObservationUnitsSearchRequestDto;
+import org.generationcp.middleware.pojos.dms.Phenotype;
+import org.generationcp.middleware.service.api.phenotype.PhenotypeSearchRequestDTO;
+import org.ibp.api.brapi.v2.observationunits.ObservationUnitMapper;
+import org.ibp.api.domain.ontology.VariableDetails;
+import org.ibp.api.java.impl.middleware.ontology.OntologyMapper;
+import org.ibp.api.java.impl.middleware.ontology.TestDataProvider;
+import org.ibp.api.rest.dataset.ObservationUnitData;
+import org.ibp.api.rest.dataset.ObservationUnitRow;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.modelmapper.Conditions;
+import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Compares the cost per mapped object of the ways DTOs are mapped: a ModelMapper created for each request, the shared {@link DtoMapper}
+ * instances, the hand written {@link ObservationUnitRowMapper} and the {@link ApiMapper}, {@link OntologyMapper} and
+ * {@link ObservationUnitMapper} singletons. The full measurements are meant to be run manually when touching the mappers, only the short
+ * check that the hand written mapper still outruns ModelMapper runs with the build.
+ */
+public class DtoMapperThroughputTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DtoMapperThroughputTest.class);
+
+	private static final int ITERATIONS = 100000;
+	private static final int REQUESTS = 1000;
+	private static final int NUMBER_OF_VARIABLES = 20;
+	private static final int CHECK_ITERATIONS = 2000;
+	private static final int CHECK_RUNS = 3;
+
+	@Test
+	public void testObservationUnitRowMapperIsFasterThanModelMapper() {
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitRow row = this.createObservationUnitRow();
+		final ModelMapper mapper = DtoMapper.getNotNullInstance();
+
+		// Best of a few short runs, so a GC pause on a loaded build agent does not decide the outcome
+		long modelMapperNanos = Long.MAX_VALUE;
+		long rowMapperNanos = Long.MAX_VALUE;
+		for (int run = 0; run < CHECK_RUNS; run++) {
+			modelMapperNanos = Math.min(modelMapperNanos, this.measure("Shared DtoMapper", CHECK_ITERATIONS, () -> this.map(mapper, row)));
+			rowMapperNanos =
+				Math.min(rowMapperNanos, this.measure("ObservationUnitRowMapper", CHECK_ITERATIONS, () -> ObservationUnitRowMapper.map(row)));
+		}
+
+		Assert.assertTrue("ObservationUnitRowMapper took " + rowMapperNanos + " ns against " + modelMapperNanos + " ns for ModelMapper",
+			rowMapperNanos < modelMapperNanos);
+	}
+
+	@Ignore("Throughput measurement, run manually")
+	@Test
+	public void testObservationUnitRowMappingThroughput() {
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitRow row = this.createObservationUnitRow();
+
+		this.measure("ModelMapper per request", REQUESTS, () -> {
+			final ModelMapper mapper = new ModelMapper();
+			mapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+			return this.map(mapper, row);
+		});
+		this.measure("Shared DtoMapper", ITERATIONS, () -> this.map(DtoMapper.getNotNullInstance(), row));
+		this.measure("ObservationUnitRowMapper", ITERATIONS, () -> ObservationUnitRowMapper.map(row));
+	}
+
+	@Ignore("Throughput measurement, run manually")
+	@Test
+	public void testSingletonMappersThroughput() {
+		final Variable variable = TestDataProvider.getTestVariable();
+		final ObservationUnitsSearchRequestDto searchRequestDto = new ObservationUnitsSearchRequestDto();
+
+		this.measure("OntologyMapper", ITERATIONS, () -> OntologyMapper.getInstance().map(variable, VariableDetails.class));
+		this.measure("ObservationUnitMapper", ITERATIONS,
+			() -> ObservationUnitMapper.getInstance().map(searchRequestDto, PhenotypeSearchRequestDTO.class));
+		this.measure("ApiMapper", ITERATIONS, () -> ApiMapper.getInstance().map(searchRequestDto, PhenotypeSearchRequestDTO.class));
+	}
+
+	private long measure(final String name, final int iterations, final Supplier<Object> mapping) {
+		// Warm up, so the first introspection of the shared mappers and JIT compilation are not measured
+		for (int i = 0; i < Math.min(iterations, REQUESTS); i++) {
+			mapping.get();
+		}
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			mapping.get();
+		}
+		final long elapsed = System.nanoTime() - start;
+		LOG.info("{}: {} objects mapped in {} ms ({} us per object)", name, iterations, elapsed / 1_000_000,
+			String.format("%.2f", elapsed / 1000d / iterations));
+		return elapsed;
+	}
+
+	private ObservationUnitRow map(final ModelMapper mapper,
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitRow row) {
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		for (final Map.Entry<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> entry : row.getVariables()
+			.entrySet()) {
+			variables.put(entry.getKey(), mapper.map(entry.getValue(), ObservationUnitData.class));
+		}
+		final ObservationUnitRow observationUnitRow = mapper.map(row, ObservationUnitRow.class);
+		observationUnitRow.setVariables(variables);
+		observationUnitRow.setEnvironmentVariables(new HashMap<>());
+		return observationUnitRow;
+	}
+
+	private org.generationcp.middleware.service.api.dataset.ObservationUnitRow createObservationUnitRow() {
+		final ObservationUnitRow row = new ObservationUnitRow();
+		row.setObservationUnitId(1);
+		row.setGid(1);
+		row.setDesignation("CML1");
+		row.setEntryNumber(1);
+		row.setTrialInstance(1);
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		for (int i = 0; i < NUMBER_OF_VARIABLES; i++) {
+			final ObservationUnitData data = new ObservationUnitData(i, null, String.valueOf(i), Phenotype.ValueStatus.MANUALLY_EDITED);
+			data.setVariableId(20000 + i);
+			variables.put("TRAIT_" + i, data);
+		}
+		row.setVariables(variables);
+		row.setEnvironmentVariables(new HashMap<>());
+		return ObservationUnitRowMapper.map(row);
+	}
+}
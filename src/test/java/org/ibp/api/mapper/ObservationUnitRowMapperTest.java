@@ -0,0 +1,204 @@
+package org.ibp.api.mapper;
+
+import org.generationcp.middleware.pojos.dms.Phenotype;
+import org.ibp.api.rest.dataset.ObservationUnitData;
+import org.ibp.api.rest.dataset.ObservationUnitRow;
+import org.junit.Assert;
+import org.junit.Test;
+import org.modelmapper.Conditions;
+import org.modelmapper.ModelMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ObservationUnitRowMapperTest {
+
+	@Test
+	public void testMapToMiddlewareAndBack() {
+		final ObservationUnitRow row = this.createObservationUnitRow();
+
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitRow middlewareRow = ObservationUnitRowMapper.map(row);
+
+		Assert.assertEquals(row.getObservationUnitId(), middlewareRow.getObservationUnitId());
+		Assert.assertEquals(row.getGid(), middlewareRow.getGid());
+		Assert.assertEquals(row.getDesignation(), middlewareRow.getDesignation());
+		Assert.assertEquals(row.getEntryNumber(), middlewareRow.getEntryNumber());
+		Assert.assertEquals(row.getTrialInstance(), middlewareRow.getTrialInstance());
+		Assert.assertEquals(row.getVariables().keySet(), middlewareRow.getVariables().keySet());
+		Assert.assertEquals(row.getEnvironmentVariables().keySet(), middlewareRow.getEnvironmentVariables().keySet());
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitData plotNo = middlewareRow.getVariables().get("PLOT_NO");
+		Assert.assertEquals(Integer.valueOf(8200), plotNo.getVariableId());
+		Assert.assertEquals("1", plotNo.getValue());
+		Assert.assertEquals(Phenotype.ValueStatus.OUT_OF_SYNC, plotNo.getStatus());
+
+		Assert.assertEquals(row, ObservationUnitRowMapper.map(middlewareRow));
+	}
+
+	@Test
+	public void testMapIsEquivalentToModelMapper() {
+		for (final ObservationUnitRow row : this.createParityRows()) {
+			final org.generationcp.middleware.service.api.dataset.ObservationUnitRow middlewareRow = this.mapWithModelMapper(row);
+
+			Assert.assertEquals(this.mapWithModelMapper(middlewareRow), ObservationUnitRowMapper.map(middlewareRow));
+		}
+	}
+
+	@Test
+	public void testMapToMiddlewareIsEquivalentToModelMapper() {
+		for (final ObservationUnitRow row : this.createParityRows()) {
+			final org.generationcp.middleware.service.api.dataset.ObservationUnitRow expected = this.mapWithModelMapper(row);
+			final org.generationcp.middleware.service.api.dataset.ObservationUnitRow actual = ObservationUnitRowMapper.map(row);
+
+			Assert.assertEquals(expected.getObservationUnitId(), actual.getObservationUnitId());
+			Assert.assertEquals(expected.getGid(), actual.getGid());
+			Assert.assertEquals(expected.getDesignation(), actual.getDesignation());
+			Assert.assertEquals(expected.getEntryNumber(), actual.getEntryNumber());
+			Assert.assertEquals(expected.getTrialInstance(), actual.getTrialInstance());
+			Assert.assertEquals(expected.getAction(), actual.getAction());
+			Assert.assertEquals(expected.getSamplesCount(), actual.getSamplesCount());
+			Assert.assertEquals(expected.getStockId(), actual.getStockId());
+			this.assertSameData(expected.getVariables(), actual.getVariables());
+			this.assertSameData(expected.getEnvironmentVariables(), actual.getEnvironmentVariables());
+		}
+	}
+
+	@Test
+	public void testMapWithoutVariables() {
+		final ObservationUnitRow row = new ObservationUnitRow();
+		row.setObservationUnitId(1);
+
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitRow middlewareRow = ObservationUnitRowMapper.map(row);
+
+		Assert.assertEquals(Integer.valueOf(1), middlewareRow.getObservationUnitId());
+		Assert.assertNull(middlewareRow.getGid());
+		Assert.assertTrue(middlewareRow.getVariables().isEmpty());
+		Assert.assertTrue(middlewareRow.getEnvironmentVariables().isEmpty());
+	}
+
+	/**
+	 * @return rows with every property set, and rows where the properties and observation values are left null, which the ModelMapper
+	 * configuration used to skip
+	 */
+	private List<ObservationUnitRow> createParityRows() {
+		final List<ObservationUnitRow> rows = new ArrayList<>();
+		rows.add(this.createObservationUnitRow());
+		for (int i = 0; i < 20; i++) {
+			final ObservationUnitRow row = new ObservationUnitRow();
+			row.setObservationUnitId(i);
+			if (i % 2 == 0) {
+				row.setGid(1000 + i);
+				row.setDesignation("CML" + i);
+				row.setStockId("STK-" + i);
+			}
+			if (i % 3 == 0) {
+				row.setEntryNumber(i);
+				row.setTrialInstance(i % 4 + 1);
+				row.setSamplesCount(String.valueOf(i));
+			}
+			final Map<String, ObservationUnitData> variables = new HashMap<>();
+			for (int variable = 0; variable < i % 5; variable++) {
+				final ObservationUnitData data = new ObservationUnitData();
+				data.setVariableId(20000 + variable);
+				if (variable % 2 == 0) {
+					data.setObservationId(i * 10 + variable);
+					data.setValue(String.valueOf(variable));
+					data.setStatus(Phenotype.ValueStatus.MANUALLY_EDITED);
+				} else {
+					data.setDraftValue(String.valueOf(variable));
+					data.setDraftCategoricalValueId(variable);
+				}
+				variables.put("TRAIT_" + variable, data);
+			}
+			row.setVariables(variables);
+			row.setEnvironmentVariables(new HashMap<>());
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	// The middleware to API mapping that ObservationUnitRowMapper replaced
+	private ObservationUnitRow mapWithModelMapper(final org.generationcp.middleware.service.api.dataset.ObservationUnitRow source) {
+		final ModelMapper modelMapper = new ModelMapper();
+		modelMapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		for (final Map.Entry<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> entry : source.getVariables()
+			.entrySet()) {
+			variables.put(entry.getKey(), modelMapper.map(entry.getValue(), ObservationUnitData.class));
+		}
+		final Map<String, ObservationUnitData> environmentVariables = new HashMap<>();
+		for (final Map.Entry<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> entry : source
+			.getEnvironmentVariables().entrySet()) {
+			environmentVariables.put(entry.getKey(), modelMapper.map(entry.getValue(), ObservationUnitData.class));
+		}
+		final ObservationUnitRow row = modelMapper.map(source, ObservationUnitRow.class);
+		row.setVariables(variables);
+		row.setEnvironmentVariables(environmentVariables);
+		return row;
+	}
+
+	// The API to middleware mapping that ObservationUnitRowMapper replaced
+	private org.generationcp.middleware.service.api.dataset.ObservationUnitRow mapWithModelMapper(final ObservationUnitRow source) {
+		final ModelMapper modelMapper = new ModelMapper();
+		modelMapper.getConfiguration().setPropertyCondition(Conditions.isNotNull());
+		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> variables = new HashMap<>();
+		for (final Map.Entry<String, ObservationUnitData> entry : source.getVariables().entrySet()) {
+			variables.put(entry.getKey(),
+				modelMapper.map(entry.getValue(), org.generationcp.middleware.service.api.dataset.ObservationUnitData.class));
+		}
+		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> environmentVariables = new HashMap<>();
+		for (final Map.Entry<String, ObservationUnitData> entry : source.getEnvironmentVariables().entrySet()) {
+			environmentVariables.put(entry.getKey(),
+				modelMapper.map(entry.getValue(), org.generationcp.middleware.service.api.dataset.ObservationUnitData.class));
+		}
+		final org.generationcp.middleware.service.api.dataset.ObservationUnitRow row =
+			modelMapper.map(source, org.generationcp.middleware.service.api.dataset.ObservationUnitRow.class);
+		row.setVariables(variables);
+		row.setEnvironmentVariables(environmentVariables);
+		return row;
+	}
+
+	private void assertSameData(final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> expected,
+		final Map<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> actual) {
+		Assert.assertEquals(expected.keySet(), actual.keySet());
+		for (final Map.Entry<String, org.generationcp.middleware.service.api.dataset.ObservationUnitData> entry : expected.entrySet()) {
+			final org.generationcp.middleware.service.api.dataset.ObservationUnitData expectedData = entry.getValue();
+			final org.generationcp.middleware.service.api.dataset.ObservationUnitData actualData = actual.get(entry.getKey());
+			Assert.assertEquals(expectedData.getObservationId(), actualData.getObservationId());
+			Assert.assertEquals(expectedData.getCategoricalValueId(), actualData.getCategoricalValueId());
+			Assert.assertEquals(expectedData.getValue(), actualData.getValue());
+			Assert.assertEquals(expectedData.getStatus(), actualData.getStatus());
+			Assert.assertEquals(expectedData.getVariableId(), actualData.getVariableId());
+			Assert.assertEquals(expectedData.getDraftCategoricalValueId(), actualData.getDraftCategoricalValueId());
+			Assert.assertEquals(expectedData.getDraftValue(), actualData.getDraftValue());
+		}
+	}
+
+	private ObservationUnitRow createObservationUnitRow() {
+		final ObservationUnitRow row = new ObservationUnitRow();
+		row.setObservationUnitId(10);
+		row.setGid(100);
+		row.setDesignation("CML1");
+		row.setEntryNumber(1);
+		row.setTrialInstance(2);
+		row.setAction("1");
+		row.setSamplesCount("-");
+
+		final Map<String, ObservationUnitData> variables = new HashMap<>();
+		final ObservationUnitData plotNo = new ObservationUnitData(1, null, "1", Phenotype.ValueStatus.OUT_OF_SYNC);
+		plotNo.setVariableId(8200);
+		variables.put("PLOT_NO", plotNo);
+		final ObservationUnitData trait = new ObservationUnitData(2, 3, "5", null);
+		trait.setVariableId(20001);
+		trait.setDraftValue("6");
+		trait.setDraftCategoricalValueId(4);
+		variables.put("TRAIT", trait);
+		row.setVariables(variables);
+
+		final Map<String, ObservationUnitData> environmentVariables = new HashMap<>();
+		environmentVariables.put("LOCATION_NAME", new ObservationUnitData(8190, "Agua Fria"));
+		row.setEnvironmentVariables(environmentVariables);
+		return row;
+	}
+}
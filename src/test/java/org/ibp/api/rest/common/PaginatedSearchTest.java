@@ -3,6 +3,7 @@ package org.ibp.api.rest.common;
 
 import java.util.List;
 
+import org.ibp.api.domain.common.KeysetPagedResult;
 import org.ibp.api.domain.common.PagedResult;
 import org.junit.Assert;
 import org.junit.Test;
@@ -60,4 +61,84 @@ public class PaginatedSearchTest {
 				result.getPageNumber());
 		Assert.assertEquals("Expected page size to be defaulted when not provided.", PagedResult.DEFAULT_PAGE_SIZE, result.getPageSize());
 	}
+
+	@Test
+	public void testExecuteKeysetSearch() {
+		final List<String> sampleResults = Lists.newArrayList("Item1", "Item2", "Item3", "Item4", "Item5");
+		final SearchSpec<String> searchSpec = new SearchSpec<String>() {
+
+			@Override
+			public long getCount() {
+				throw new AssertionError("Keyset searches are not counted");
+			}
+
+			@Override
+			public List<String> getResults(final PagedResult<String> pagedResult) {
+				throw new AssertionError("Keyset searches do not fetch offset pages");
+			}
+
+			@Override
+			public List<String> getResultsAfter(final String lastKey, final int maxResults) {
+				final int fromIndex = lastKey == null ? 0 : sampleResults.indexOf(lastKey) + 1;
+				return sampleResults.subList(fromIndex, Math.min(fromIndex + maxResults, sampleResults.size()));
+			}
+
+			@Override
+			public String getKey(final String result) {
+				return result;
+			}
+		};
+
+		final KeysetPagedResult<String> firstPage = new PaginatedSearch().executeKeysetSearch(null, 2, searchSpec);
+		Assert.assertEquals(Lists.newArrayList("Item1", "Item2"), firstPage.getPageResults());
+		Assert.assertTrue(firstPage.isHasNextPage());
+
+		final KeysetPagedResult<String> secondPage =
+			new PaginatedSearch().executeKeysetSearch(firstPage.getNextPageToken(), 2, searchSpec);
+		Assert.assertEquals(Lists.newArrayList("Item3", "Item4"), secondPage.getPageResults());
+		Assert.assertTrue(secondPage.isHasNextPage());
+
+		final KeysetPagedResult<String> lastPage =
+			new PaginatedSearch().executeKeysetSearch(secondPage.getNextPageToken(), 2, searchSpec);
+		Assert.assertEquals(Lists.newArrayList("Item5"), lastPage.getPageResults());
+		Assert.assertFalse(lastPage.isHasNextPage());
+		Assert.assertNull(lastPage.getNextPageToken());
+	}
+
+	@Test
+	public void testExecuteKeysetSearchLastPageIsFull() {
+		final List<String> sampleResults = Lists.newArrayList("Item1", "Item2");
+
+		final KeysetPagedResult<String> result = new PaginatedSearch().executeKeysetSearch(null, 2, new SearchSpec<String>() {
+
+			@Override
+			public long getCount() {
+				return sampleResults.size();
+			}
+
+			@Override
+			public List<String> getResults(final PagedResult<String> pagedResult) {
+				return sampleResults;
+			}
+
+			@Override
+			public List<String> getResultsAfter(final String lastKey, final int maxResults) {
+				return sampleResults;
+			}
+		});
+
+		Assert.assertEquals(sampleResults, result.getPageResults());
+		Assert.assertFalse(result.isHasNextPage());
+	}
+
+	@Test
+	public void testPageToken() {
+		final String key = "1234:abc/é";
+		Assert.assertEquals(key, PaginatedSearch.decodePageToken(PaginatedSearch.encodePageToken(key)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPageToken() {
+		PaginatedSearch.decodePageToken("not a token!");
+	}
 }
@@ -0,0 +1,92 @@
+package org.ibp.api.rest.common;
+
+import org.generationcp.middleware.ContextHolder;
+import org.ibp.api.domain.common.PagedResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SearchCountCacheTest {
+
+	private final SearchCountCache searchCountCache = new SearchCountCache();
+
+	private final AtomicInteger countQueries = new AtomicInteger();
+
+	private final AtomicInteger filteredCountQueries = new AtomicInteger();
+
+	@Before
+	public void setUp() {
+		this.searchCountCache.setSize(100);
+		this.searchCountCache.setTtlSeconds(300);
+		this.searchCountCache.init();
+		ContextHolder.setCurrentCrop("maize");
+	}
+
+	@After
+	public void tearDown() {
+		ContextHolder.setCurrentCrop(null);
+	}
+
+	@Test
+	public void testCountsAreCachedPerSearchRequest() {
+		for (int page = 0; page < 5; page++) {
+			final SearchSpec<String> searchSpec = this.searchCountCache.cached("1", this.searchSpec(100, 40));
+			Assert.assertEquals(100, searchSpec.getCount());
+			Assert.assertEquals(40, searchSpec.getFilteredCount());
+			Assert.assertEquals(Collections.singletonList("Item"), searchSpec.getResults(null));
+		}
+		Assert.assertEquals(1, this.countQueries.get());
+		Assert.assertEquals(1, this.filteredCountQueries.get());
+
+		// Other search requests are counted
+		Assert.assertEquals(7, this.searchCountCache.cached("2", this.searchSpec(7, 0)).getCount());
+		Assert.assertEquals(2, this.countQueries.get());
+	}
+
+	@Test
+	public void testCountsAreCachedPerCrop() {
+		Assert.assertEquals(100, this.searchCountCache.cached("1", this.searchSpec(100, 0)).getCount());
+
+		// The same search request id in another crop database is another search
+		ContextHolder.setCurrentCrop("wheat");
+		Assert.assertEquals(20, this.searchCountCache.cached("1", this.searchSpec(20, 0)).getCount());
+		Assert.assertEquals(2, this.countQueries.get());
+	}
+
+	@Test
+	public void testCountsAreNotCachedAfterTtl() {
+		this.searchCountCache.setTtlSeconds(0);
+		this.searchCountCache.init();
+
+		this.searchCountCache.cached("1", this.searchSpec(100, 0)).getCount();
+		this.searchCountCache.cached("1", this.searchSpec(100, 0)).getCount();
+		Assert.assertEquals(2, this.countQueries.get());
+	}
+
+	private SearchSpec<String> searchSpec(final long count, final long filteredCount) {
+		return new SearchSpec<String>() {
+
+			@Override
+			public long getCount() {
+				SearchCountCacheTest.this.countQueries.incrementAndGet();
+				return count;
+			}
+
+			@Override
+			public long getFilteredCount() {
+				SearchCountCacheTest.this.filteredCountQueries.incrementAndGet();
+				return filteredCount;
+			}
+
+			@Override
+			public List<String> getResults(final PagedResult<String> pagedResult) {
+				return Collections.singletonList("Item");
+			}
+		};
+	}
+}
@@ -22,6 +22,7 @@ import org.ibp.api.exception.ResourceNotFoundException;
 import org.ibp.api.java.dataset.DatasetExportService;
 import org.ibp.api.java.dataset.DatasetService;
 import org.ibp.api.java.impl.middleware.dataset.DatasetCollectionOrderServiceImpl;
+import org.ibp.api.java.impl.middleware.dataset.ObservationChanges;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatchers;
@@ -72,6 +73,8 @@ public class DatasetResourceTest extends ApiUnitTestBase {
 	@Autowired
 	private DatasetExportService datasetCSVExportService;
 
+	@Autowired
+	private ObservationChanges observationChanges;
 
 	@Configuration
 	public static class TestConfiguration {
@@ -87,6 +90,12 @@ public class DatasetResourceTest extends ApiUnitTestBase {
 		public DatasetExportService datasetCSVExportService() {
 			return Mockito.mock(DatasetExportService.class);
 		}
+
+		@Bean
+		@Primary
+		public ObservationChanges observationChanges() {
+			return Mockito.mock(ObservationChanges.class);
+		}
 	}
 
 	@Before
@@ -663,6 +672,37 @@ public class DatasetResourceTest extends ApiUnitTestBase {
 
 	}
 
+	@Test
+	public void testGetObservationUnitChangesAsCSV() throws Exception {
+
+		final Random random = new Random();
+		final int studyId = random.nextInt(10000);
+		final int datasetId = random.nextInt(10000);
+		final Set<Integer> instanceIds = new HashSet<>(Arrays.asList(1, 2, 3));
+		final int collectionOrderId = DatasetCollectionOrderServiceImpl.CollectionOrder.PLOT_ORDER.getId();
+
+		final File file = File.createTempFile("test", ".csv");
+		Mockito.when(this.datasetCSVExportService.exportChanges(studyId, datasetId, instanceIds, collectionOrderId, false, 1000L))
+			.thenReturn(file);
+		Mockito.when(this.observationChanges.newWatermark()).thenReturn(2000L);
+
+		this.mockMvc
+			.perform(MockMvcRequestBuilders
+				.get(
+					"/crops/{crop}/programs/{programUUID}/studies/{studyId}/datasets/{datasetId}/{fileType}",
+					this.cropName, this.programUuid, studyId, datasetId, DatasetResource.CSV)
+				.param("instanceIds", "1,2,3")
+				.param("collectionOrderId", String.valueOf(collectionOrderId))
+				.param("singleFile", String.valueOf(false))
+				.param("changedSince", "1000")
+				.contentType(this.csvContentType))
+			.andDo(MockMvcResultHandlers.print())
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.header().string(ObservationChanges.WATERMARK_HEADER, "2000"));
+
+		verify(this.datasetCSVExportService, Mockito.never()).export(studyId, datasetId, instanceIds, collectionOrderId, false);
+	}
+
 	@Test
 	public void testGetObservationUnitAsExcel() throws Exception {
 
@@ -3,12 +3,19 @@ package org.ibp.api.rest.derived;
 import org.apache.commons.lang.math.RandomUtils;
 import org.generationcp.middleware.domain.ontology.FormulaVariable;
 import org.ibp.ApiUnitTestBase;
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobStatus;
+import org.ibp.api.domain.job.JobType;
 import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.exception.OverwriteDataException;
 import org.ibp.api.java.derived.DerivedVariableService;
 import org.ibp.api.java.impl.middleware.derived.DerivedVariableServiceImpl;
+import org.ibp.api.java.job.Job;
+import org.ibp.api.java.job.JobProgress;
+import org.ibp.api.java.job.JobService;
 import org.ibp.api.rest.dataset.DatasetDTO;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -25,6 +32,8 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -35,6 +44,8 @@ public class DerivedVariableResourceTest extends ApiUnitTestBase {
 	@Resource
 	private DerivedVariableService derivedVariableService;
 
+	@Resource
+	private JobService jobService;
 
 	@Configuration
 	public static class TestConfiguration {
@@ -44,6 +55,12 @@ public class DerivedVariableResourceTest extends ApiUnitTestBase {
 		public DerivedVariableService derivedVariableService() {
 			return mock(DerivedVariableService.class);
 		}
+
+		@Bean
+		@Primary
+		public JobService jobService() {
+			return mock(JobService.class);
+		}
 	}
 
 	@Test
@@ -97,6 +114,40 @@ public class DerivedVariableResourceTest extends ApiUnitTestBase {
 
 	}
 
+	@Test
+	public void testSubmitCalculation() throws Exception {
+
+		final CalculateVariableRequest calculateVariableRequest = new CalculateVariableRequest();
+		calculateVariableRequest.setVariableId(RandomUtils.nextInt());
+		calculateVariableRequest.setOverwriteExistingData(false);
+		calculateVariableRequest.setGeoLocationIds(Arrays.asList(RandomUtils.nextInt()));
+
+		final JobDTO jobDTO = new JobDTO();
+		jobDTO.setJobId("job-id");
+		jobDTO.setStatus(JobStatus.QUEUED);
+		when(this.jobService.submit(eq(this.cropName), eq(JobType.DERIVED_VARIABLE_CALCULATION), any(Job.class))).thenReturn(jobDTO);
+
+		this.mockMvc
+			.perform(MockMvcRequestBuilders
+				.post(
+					"/crops/{crop}/programs/{programUUID}/studies/{studyId}/datasets/{datasetId}/derived-variables/calculation/jobs",
+					this.cropName, this.programUuid, 100, 102)
+				.contentType(this.contentType).content(this.convertObjectToByte(calculateVariableRequest)))
+			.andDo(MockMvcResultHandlers.print())
+			.andExpect(MockMvcResultMatchers.status().isAccepted())
+			.andExpect(MockMvcResultMatchers.jsonPath("$.jobId", is("job-id")))
+			.andExpect(MockMvcResultMatchers.jsonPath("$.status", is(JobStatus.QUEUED.name())));
+
+		// The calculation runs when the job is executed
+		final ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+		verify(this.jobService).submit(eq(this.cropName), eq(JobType.DERIVED_VARIABLE_CALCULATION), jobCaptor.capture());
+		jobCaptor.getValue().execute(new JobProgress());
+		verify(this.derivedVariableService)
+			.execute(100, 102, calculateVariableRequest.getVariableId(), calculateVariableRequest.getGeoLocationIds(),
+				calculateVariableRequest.getInputVariableDatasetMap(),
+				calculateVariableRequest.isOverwriteExistingData());
+	}
+
 	@Test
 	public void testGetMissingFormulaVariablesInStudy() throws Exception {
 
@@ -1,22 +1,38 @@
 package org.ibp.api.rest.labelprinting;
 
 import org.generationcp.middleware.pojos.workbench.PermissionsEnum;
+import org.ibp.api.domain.job.JobDTO;
+import org.ibp.api.domain.job.JobType;
 import org.ibp.api.exception.NotSupportedException;
+import org.ibp.api.java.job.Job;
+import org.ibp.api.java.job.JobProgress;
+import org.ibp.api.java.job.JobService;
 import org.ibp.api.rest.common.FileType;
+import org.ibp.api.rest.labelprinting.domain.LabelsData;
+import org.ibp.api.rest.labelprinting.domain.LabelsGeneratorInput;
 import org.ibp.api.rest.labelprinting.filegenerator.CSVLabelsFileGenerator;
 import org.ibp.api.rest.labelprinting.filegenerator.LabelsFileGenerator;
 import org.ibp.api.rest.labelprinting.filegenerator.PDFLabelsFileGenerator;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 
 @RunWith(MockitoJUnitRunner.class)
 public class LabelPrintingResourceTest {
@@ -24,6 +40,9 @@ public class LabelPrintingResourceTest {
 	@Mock
 	private LabelPrintingStrategy subObservationDatasetLabelPrinting;
 
+	@Mock
+	private LabelPrintingStrategy lotLabelPrinting;
+
 	@Mock
 	private CSVLabelsFileGenerator csvLabelsFileGenerator;
 
@@ -36,6 +55,15 @@ public class LabelPrintingResourceTest {
 	@Mock
 	private HttpServletRequest request;
 
+	@Mock
+	private HttpServletResponse response;
+
+	@Mock
+	private ServletOutputStream outputStream;
+
+	@Mock
+	private JobService jobService;
+
 	@Test
 	public void testGetLabelsFileGenerator() {
 		Mockito.when(this.subObservationDatasetLabelPrinting.getSupportedFileTypes()).thenReturn(SubObservationDatasetLabelPrinting.SUPPORTED_FILE_TYPES);
@@ -72,4 +100,63 @@ public class LabelPrintingResourceTest {
 		}
 		Assert.assertNull(e);
 	}
+
+	@Test
+	public void testGetLabelsFile_PdfIsWrittenToTheResponse() throws IOException {
+		this.labelPrintingResource.setRequest(this.request);
+		Mockito.when(this.request.isUserInRole(PermissionsEnum.ADMIN.name())).thenReturn(true);
+		Mockito.when(this.lotLabelPrinting.getSupportedFileTypes()).thenReturn(LotLabelPrinting.SUPPORTED_FILE_TYPES);
+		Mockito.when(this.response.getOutputStream()).thenReturn(this.outputStream);
+
+		final LabelsGeneratorInput labelsGeneratorInput = new LabelsGeneratorInput();
+		labelsGeneratorInput.setFileName("labels");
+		final LabelsData labelsData = new LabelsData(1, Collections.emptyList());
+		Mockito.when(this.lotLabelPrinting.getLabelsData(labelsGeneratorInput)).thenReturn(labelsData);
+		Mockito.when(this.lotLabelPrinting.validateBarcode(labelsGeneratorInput, labelsData)).thenReturn(labelsData);
+
+		final ResponseEntity<FileSystemResource> responseEntity = this.labelPrintingResource
+			.getLabelsFile("maize", "programUUID", "Lot", FileType.PDF.getExtension(), labelsGeneratorInput, this.response);
+
+		Assert.assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+		Assert.assertNull(responseEntity.getBody());
+
+		Mockito.verify(this.lotLabelPrinting).validateLabelsGeneratorInputData(labelsGeneratorInput);
+		Mockito.verify(this.lotLabelPrinting).validateBarcode(labelsGeneratorInput, labelsData);
+		Mockito.verify(this.response).setHeader("Content-Disposition", "attachment; filename=labels.pdf");
+		Mockito.verify(this.pdfLabelsFileGenerator).generate(labelsGeneratorInput, labelsData, this.outputStream);
+		Mockito.verify(this.response).flushBuffer();
+		Mockito.verify(this.pdfLabelsFileGenerator, Mockito.never()).generate(labelsGeneratorInput, labelsData);
+	}
+
+	@Test
+	public void testSubmitLabelsFile() throws Exception {
+		this.labelPrintingResource.setRequest(this.request);
+		Mockito.when(this.request.isUserInRole(PermissionsEnum.ADMIN.name())).thenReturn(true);
+		Mockito.when(this.lotLabelPrinting.getSupportedFileTypes()).thenReturn(LotLabelPrinting.SUPPORTED_FILE_TYPES);
+
+		final LabelsGeneratorInput labelsGeneratorInput = new LabelsGeneratorInput();
+		labelsGeneratorInput.setFileName("labels");
+		final LabelsData labelsData = new LabelsData(1, Collections.emptyList());
+		Mockito.when(this.lotLabelPrinting.getLabelsData(labelsGeneratorInput)).thenReturn(labelsData);
+		Mockito.when(this.lotLabelPrinting.validateBarcode(labelsGeneratorInput, labelsData)).thenReturn(labelsData);
+		final File file = new File("labels.pdf");
+		Mockito.when(this.pdfLabelsFileGenerator.generate(labelsGeneratorInput, labelsData)).thenReturn(file);
+		final JobDTO jobDTO = new JobDTO();
+		Mockito.when(this.jobService.submit(Mockito.eq("maize"), Mockito.eq(JobType.LABEL_PRINTING), Mockito.any(Job.class)))
+			.thenReturn(jobDTO);
+
+		final ResponseEntity<JobDTO> response =
+			this.labelPrintingResource.submitLabelsFile("maize", "programUUID", "Lot", FileType.PDF.getExtension(), labelsGeneratorInput);
+
+		Assert.assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+		Assert.assertSame(jobDTO, response.getBody());
+		// Labels are only loaded and generated when the job runs
+		Mockito.verify(this.lotLabelPrinting, Mockito.never()).getLabelsData(labelsGeneratorInput);
+
+		final ArgumentCaptor<Job> jobCaptor = ArgumentCaptor.forClass(Job.class);
+		Mockito.verify(this.jobService).submit(Mockito.eq("maize"), Mockito.eq(JobType.LABEL_PRINTING), jobCaptor.capture());
+		Assert.assertSame(file, jobCaptor.getValue().execute(new JobProgress()));
+		Mockito.verify(this.lotLabelPrinting).validateLabelsGeneratorInputData(labelsGeneratorInput);
+		Mockito.verify(this.lotLabelPrinting).validateBarcode(labelsGeneratorInput, labelsData);
+	}
 }
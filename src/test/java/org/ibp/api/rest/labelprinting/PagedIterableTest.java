@@ -0,0 +1,63 @@
+package org.ibp.api.rest.labelprinting;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PagedIterableTest {
+
+	private static final int PAGE_SIZE = 3;
+
+	private final List<Integer> loadedPages = new ArrayList<>();
+
+	@Test
+	public void testIteratorReadsOnePageAtATime() {
+		final PagedIterable<Integer> iterable = this.newPagedIterable(7);
+
+		final List<Integer> elements = new ArrayList<>();
+		for (final Integer element : iterable) {
+			elements.add(element);
+			// The next page is only read once the current one is exhausted
+			Assert.assertEquals(element / PAGE_SIZE + 1, this.loadedPages.size());
+		}
+
+		Assert.assertEquals(IntStream.range(0, 7).boxed().collect(Collectors.toList()), elements);
+		Assert.assertEquals(Lists.newArrayList(0, 1, 2), this.loadedPages);
+	}
+
+	@Test
+	public void testIteratorStopsAfterAFullLastPage() {
+		final List<Integer> elements = Lists.newArrayList(this.newPagedIterable(6));
+
+		Assert.assertEquals(6, elements.size());
+		// The empty page after a full one tells that there are no more elements
+		Assert.assertEquals(Lists.newArrayList(0, 1, 2), this.loadedPages);
+	}
+
+	@Test
+	public void testEveryIterationReadsThePagesAgain() {
+		final PagedIterable<Integer> iterable = this.newPagedIterable(2);
+
+		Assert.assertEquals(Lists.newArrayList(0, 1), Lists.newArrayList(iterable));
+		Assert.assertEquals(Lists.newArrayList(0, 1), Lists.newArrayList(iterable));
+		Assert.assertEquals(Lists.newArrayList(0, 0), this.loadedPages);
+	}
+
+	@Test
+	public void testEmptySource() {
+		Assert.assertFalse(this.newPagedIterable(0).iterator().hasNext());
+		Assert.assertEquals(Lists.newArrayList(0), this.loadedPages);
+	}
+
+	private PagedIterable<Integer> newPagedIterable(final int total) {
+		return new PagedIterable<>(PAGE_SIZE, page -> {
+			this.loadedPages.add(page);
+			return IntStream.range(page * PAGE_SIZE, Math.min((page + 1) * PAGE_SIZE, total)).boxed().collect(Collectors.toList());
+		});
+	}
+}
@@ -1,5 +1,6 @@
 package org.ibp.api.rest.labelprinting;
 
+import com.google.common.collect.Iterables;
 import org.apache.commons.lang3.StringUtils;
 import org.generationcp.middleware.domain.dms.DataSet;
 import org.generationcp.middleware.domain.dms.DatasetDTO;
@@ -11,9 +12,12 @@ import org.generationcp.middleware.enumeration.DatasetTypeEnum;
 import org.generationcp.middleware.manager.api.StudyDataManager;
 import org.generationcp.middleware.service.api.dataset.DatasetService;
 import org.generationcp.middleware.service.api.dataset.DatasetTypeService;
+import org.ibp.api.exception.ApiRequestValidationException;
 import org.ibp.api.rest.common.FileType;
 import org.ibp.api.rest.labelprinting.domain.Field;
 import org.ibp.api.rest.labelprinting.domain.LabelType;
+import org.ibp.api.rest.labelprinting.domain.LabelsData;
+import org.ibp.api.rest.labelprinting.domain.LabelsGeneratorInput;
 import org.ibp.api.rest.labelprinting.domain.LabelsInfoInput;
 import org.junit.Assert;
 import org.junit.Before;
@@ -27,7 +31,10 @@ import org.springframework.context.support.ResourceBundleMessageSource;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 @RunWith(MockitoJUnitRunner.class)
 public class SubObservationDatasetLabelPrintingTest {
@@ -127,6 +134,36 @@ public class SubObservationDatasetLabelPrintingTest {
 		Assert.assertEquals(TermId.ENTRY_NO.name(), fields.get(0).getName());
 	}
 
+	@Test
+	public void testValidateBarcodeChecksTheLabelsWhileTheyAreRead() {
+		final LabelsGeneratorInput labelsGeneratorInput = new LabelsGeneratorInput();
+		labelsGeneratorInput.setBarcodeRequired(true);
+		labelsGeneratorInput.setAutomaticBarcode(false);
+		labelsGeneratorInput.setBarcodeFields(Arrays.asList(TermId.GID.getId()));
+		final Map<Integer, String> labelWithBarcode = new HashMap<>();
+		labelWithBarcode.put(TermId.GID.getId(), "1");
+		final List<Map<Integer, String>> rows = Arrays.asList(labelWithBarcode, new HashMap<>());
+		final int[] reads = {0};
+		final Iterable<Map<Integer, String>> data = Iterables.transform(rows, row -> {
+			reads[0]++;
+			return row;
+		});
+
+		final LabelsData labelsData =
+			this.subObservationDatasetLabelPrinting.validateBarcode(labelsGeneratorInput, new LabelsData(1, data, rows.size()));
+
+		Assert.assertEquals(0, reads[0]);
+		final Iterator<Map<Integer, String>> iterator = labelsData.getData().iterator();
+		Assert.assertSame(labelWithBarcode, iterator.next());
+		try {
+			iterator.next();
+			Assert.fail("The label without barcode should be rejected");
+		} catch (final ApiRequestValidationException e) {
+			Assert.assertEquals("label.fields.barcodes.selected.empty.value", e.getErrors().get(0).getCode());
+		}
+		Assert.assertEquals(2, reads[0]);
+	}
+
 	@Test
 	public void testGetSupportedFileTypes() {
 		final List<FileType> fileTypes = this.subObservationDatasetLabelPrinting.getSupportedFileTypes();
@@ -4,6 +4,7 @@ import com.google.zxing.common.BitMatrix;
 import com.lowagie.text.BadElementException;
 import com.lowagie.text.Document;
 import com.lowagie.text.DocumentException;
+import com.lowagie.text.Image;
 import com.lowagie.text.PageSize;
 import org.apache.commons.lang.RandomStringUtils;
 import org.generationcp.middleware.domain.oms.TermId;
@@ -12,16 +13,20 @@ import org.ibp.api.rest.labelprinting.domain.LabelsData;
 import org.ibp.api.rest.labelprinting.domain.LabelsGeneratorInput;
 import org.ibp.api.rest.labelprinting.filegenerator.PDFLabelsFileGenerator;
 import org.ibp.api.rest.labelprinting.template.LabelPaper;
+import org.ibp.api.rest.labelprinting.template.LabelPaperFactory;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -32,6 +37,9 @@ import java.util.Set;
 @RunWith(MockitoJUnitRunner.class)
 public class PDFLabelsFileGeneratorTest {
 
+	@Spy
+	private LabelPaperFactory labelPaperFactory;
+
 	@InjectMocks
 	private PDFLabelsFileGenerator pdfLabelsFileGenerator;
 
@@ -98,10 +106,37 @@ public class PDFLabelsFileGeneratorTest {
 
 	@Test
 	public void testGetBarcodeImage() throws BadElementException, IOException {
-		final List<File> files = new ArrayList<>();
-		final com.lowagie.text.Image image = this.pdfLabelsFileGenerator.getBarcodeImage(files, "label");
+		final Map<String, Image> barcodeImages = this.pdfLabelsFileGenerator.createBarcodeImageCache();
+		final Image image = this.pdfLabelsFileGenerator.getBarcodeImage(barcodeImages, "label");
 		Assert.assertNotNull(image);
-		files.get(0).delete();
+		Assert.assertSame(image, this.pdfLabelsFileGenerator.getBarcodeImage(barcodeImages, "label"));
+		Assert.assertNotSame(image, this.pdfLabelsFileGenerator.getBarcodeImage(barcodeImages, "label2"));
+		Assert.assertEquals(2, barcodeImages.size());
+	}
+
+	@Test
+	public void testCreateBarcodeImageCacheIsBounded() throws BadElementException, IOException {
+		final Map<String, Image> barcodeImages = this.pdfLabelsFileGenerator.createBarcodeImageCache();
+		for (int i = 0; i <= PDFLabelsFileGenerator.BARCODE_IMAGE_CACHE_SIZE; i++) {
+			this.pdfLabelsFileGenerator.getBarcodeImage(barcodeImages, String.valueOf(i));
+		}
+		Assert.assertEquals(PDFLabelsFileGenerator.BARCODE_IMAGE_CACHE_SIZE, barcodeImages.size());
+		Assert.assertFalse(barcodeImages.containsKey("0"));
+	}
+
+	@Test
+	public void testToImage() throws BadElementException {
+		final BitMatrix bitMatrix = this.pdfLabelsFileGenerator.encodeBarcode("LABEL");
+		final Image image = this.pdfLabelsFileGenerator.toImage(bitMatrix);
+		Assert.assertEquals(bitMatrix.getWidth(), image.getWidth(), 0);
+		Assert.assertEquals(bitMatrix.getHeight(), image.getHeight(), 0);
+		Assert.assertEquals(1, image.getBpc());
+		Assert.assertEquals(1, image.getColorspace());
+	}
+
+	@Test
+	public void testGetUnicodeFontIsLoadedOnce() throws DocumentException, IOException {
+		Assert.assertSame(PDFLabelsFileGenerator.getUnicodeFont(), PDFLabelsFileGenerator.getUnicodeFont());
 	}
 
 	@Test
@@ -119,6 +154,35 @@ public class PDFLabelsFileGeneratorTest {
 		file.delete();
 	}
 
+	@Test
+	public void testGenerateToOutputStream() throws IOException {
+		final LabelsGeneratorInput input = new LabelsGeneratorInput();
+		input.setAllAvailablefields(this.mockAvailableFields());
+		input.setFields(Arrays.asList(Arrays.asList(TermId.ENTRY_CODE.getId()), Arrays.asList(TermId.GID.getId())));
+		input.setFileName("filename");
+		input.setBarcodeRequired(true);
+		input.setAutomaticBarcode(true);
+		input.setNumberOfRowsPerPageOfLabel("7");
+		input.setSizeOfLabelSheet("1");
+		final LabelsData data = new LabelsData(TermId.OBS_UNIT_ID.getId(), Arrays.asList(this.mockLabels(), this.mockLabels()));
+
+		final boolean[] closed = {false};
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+				super.close();
+			}
+		};
+		this.pdfLabelsFileGenerator.generate(input, data, outputStream);
+
+		final String pdf = new String(outputStream.toByteArray(), StandardCharsets.ISO_8859_1);
+		Assert.assertTrue(pdf.startsWith("%PDF"));
+		Assert.assertTrue(pdf.trim().endsWith("%%EOF"));
+		Assert.assertFalse("The stream of the caller should not be closed", closed[0]);
+	}
+
 	private Set<Field> mockAvailableFields() {
 		final Set<Field> availableFields = new HashSet<>();
 		availableFields.add(new Field(TermId.ENTRY_CODE.getId(), TermId.ENTRY_CODE.name()));
@@ -0,0 +1,122 @@
+package org.ibp.api.rest.labelprinting.filegenerator;
+
+import com.google.common.base.Splitter;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.generationcp.middleware.domain.oms.TermId;
+import org.ibp.api.rest.labelprinting.domain.Field;
+import org.ibp.api.rest.labelprinting.domain.LabelsData;
+import org.ibp.api.rest.labelprinting.domain.LabelsGeneratorInput;
+import org.ibp.api.rest.labelprinting.template.LabelPaperFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Measures labels per second of the pdf label generation and checks the calls that make it fast: every distinct barcode is encoded
+ * once and the rows are pulled one by one. It runs 1000 labels by default, the larger runs of the seed packet prints can be measured
+ * with -Dlabels.throughput.sizes=1000,10000,50000
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class PDFLabelsFileGeneratorThroughputTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PDFLabelsFileGeneratorThroughputTest.class);
+
+	// Seed packets are usually printed several times for the same plot, so barcodes repeat
+	private static final int LABELS_PER_BARCODE = 4;
+
+	@Spy
+	private LabelPaperFactory labelPaperFactory;
+
+	@InjectMocks
+	private PDFLabelsFileGenerator pdfLabelsFileGenerator;
+
+	@Before
+	public void setUp() throws IOException {
+		// Warm up, so the font loading and class initialization are not measured
+		this.generate(this.pdfLabelsFileGenerator, 100);
+	}
+
+	@Test
+	public void testGenerateThroughput() throws IOException {
+		for (final String size : Splitter.on(',').trimResults().split(System.getProperty("labels.throughput.sizes", "1000"))) {
+			final int numberOfLabels = Integer.parseInt(size);
+			final PDFLabelsFileGenerator generator = Mockito.spy(this.pdfLabelsFileGenerator);
+
+			final long start = System.nanoTime();
+			final long bytes = this.generate(generator, numberOfLabels);
+			final double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+			LOG.info("{} labels generated in {} s ({} labels/s, {} bytes)", numberOfLabels, String.format("%.2f", seconds),
+				String.format("%.0f", numberOfLabels / seconds), bytes);
+			Assert.assertTrue(bytes > 0);
+			// Repeated barcodes are taken from the cache of the document
+			final int distinctBarcodes = (numberOfLabels + LABELS_PER_BARCODE - 1) / LABELS_PER_BARCODE;
+			Mockito.verify(generator, Mockito.times(distinctBarcodes)).encodeBarcode(Mockito.anyString());
+			Mockito.verify(generator, Mockito.times(distinctBarcodes)).toImage(Mockito.any());
+		}
+	}
+
+	private long generate(final PDFLabelsFileGenerator generator, final int numberOfLabels) throws IOException {
+		final LabelsGeneratorInput input = new LabelsGeneratorInput();
+		input.setAllAvailablefields(this.createAvailableFields());
+		input.setFields(Arrays.asList(Arrays.asList(TermId.ENTRY_CODE.getId()), Arrays.asList(TermId.GID.getId())));
+		input.setFileName("throughput");
+		input.setBarcodeRequired(true);
+		input.setAutomaticBarcode(true);
+		input.setNumberOfRowsPerPageOfLabel("7");
+		input.setSizeOfLabelSheet(String.valueOf(LabelPaperFactory.SIZE_OF_PAPER_A4));
+
+		// The rows are created while they are read, the same way the label printing strategies page through the dataset
+		final Iterable<Map<Integer, String>> data = () -> new Iterator<Map<Integer, String>>() {
+
+			private int i;
+
+			@Override
+			public boolean hasNext() {
+				return this.i < numberOfLabels;
+			}
+
+			@Override
+			public Map<Integer, String> next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final Map<Integer, String> labels = new HashMap<>();
+				labels.put(TermId.ENTRY_CODE.getId(), String.valueOf(this.i));
+				labels.put(TermId.GID.getId(), String.valueOf(this.i / LABELS_PER_BARCODE));
+				labels.put(TermId.OBS_UNIT_ID.getId(), "OBS-UNIT-" + this.i / LABELS_PER_BARCODE);
+				this.i++;
+				return labels;
+			}
+		};
+
+		final CountingOutputStream outputStream = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+		generator.generate(input, new LabelsData(TermId.OBS_UNIT_ID.getId(), data, numberOfLabels), outputStream);
+		return outputStream.getByteCount();
+	}
+
+	private Set<Field> createAvailableFields() {
+		final Set<Field> availableFields = new HashSet<>();
+		availableFields.add(new Field(TermId.ENTRY_CODE.getId(), TermId.ENTRY_CODE.name()));
+		availableFields.add(new Field(TermId.GID.getId(), TermId.GID.name()));
+		availableFields.add(new Field(TermId.OBS_UNIT_ID.getId(), TermId.OBS_UNIT_ID.name()));
+		return availableFields;
+	}
+}
@@ -12,6 +12,7 @@ import org.generationcp.middleware.pojos.SampleList;
 import org.generationcp.middleware.pojos.workbench.WorkbenchUser;
 import org.generationcp.middleware.service.impl.study.SamplePlateInfo;
 import org.ibp.api.exception.ApiRequestValidationException;
+import org.ibp.api.java.impl.middleware.common.ListTreeCache;
 import org.ibp.api.java.impl.middleware.common.validator.ProgramValidator;
 import org.ibp.api.java.impl.middleware.security.SecurityService;
 import org.junit.Before;
@@ -20,6 +21,7 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.validation.ObjectError;
 
@@ -51,6 +53,9 @@ public class SampleListServiceImplTest {
 	@Mock
 	private ProgramValidator programValidator;
 
+	@Spy
+	private ListTreeCache listTreeCache = new ListTreeCache();
+
 	@InjectMocks
 	private SampleListServiceImpl sampleListService;
 
@@ -0,0 +1,92 @@
+package org.ibp.api.security.xauth;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collections;
+
+public class XAuthTokenCacheTest {
+
+	private static final String TOKEN = "admin:1234:signature";
+	private static final String OTHER_TOKEN = "user:1234:signature";
+	private static final String MAIZE = "maize";
+	private static final String PROGRAM_UUID = "a7b2e4c1";
+
+	private final XAuthTokenCache tokenCache = new XAuthTokenCache(100, 300);
+
+	private final User admin = new User("admin", "password", Collections.<GrantedAuthority>emptyList());
+
+	private final User user = new User("user", "password", Collections.<GrantedAuthority>emptyList());
+
+	@Test
+	public void testGet() {
+		this.tokenCache.put(TOKEN, MAIZE, PROGRAM_UUID, this.admin, this.notExpired());
+
+		Assert.assertSame(this.admin, this.tokenCache.get(TOKEN, MAIZE, PROGRAM_UUID));
+		// Crop and program are resolved in lower case
+		Assert.assertSame(this.admin, this.tokenCache.get(TOKEN, MAIZE.toUpperCase(), PROGRAM_UUID.toUpperCase()));
+		Assert.assertNull(this.tokenCache.get(TOKEN, MAIZE, null));
+		Assert.assertNull(this.tokenCache.get(TOKEN, "wheat", PROGRAM_UUID));
+		Assert.assertNull(this.tokenCache.get(OTHER_TOKEN, MAIZE, PROGRAM_UUID));
+		Assert.assertEquals(2, this.tokenCache.getHitCount());
+		Assert.assertEquals(3, this.tokenCache.getMissCount());
+	}
+
+	@Test
+	public void testGetExpiredToken() {
+		this.tokenCache.put(TOKEN, MAIZE, PROGRAM_UUID, this.admin, System.currentTimeMillis() - 1);
+
+		Assert.assertNull(this.tokenCache.get(TOKEN, MAIZE, PROGRAM_UUID));
+		Assert.assertEquals(0, this.tokenCache.size());
+		Assert.assertEquals(1, this.tokenCache.getMissCount());
+	}
+
+	@Test
+	public void testInvalidate() {
+		this.tokenCache.put(TOKEN, MAIZE, PROGRAM_UUID, this.admin, this.notExpired());
+		this.tokenCache.put(TOKEN, MAIZE, null, this.admin, this.notExpired());
+
+		this.tokenCache.invalidate(TOKEN, MAIZE.toUpperCase(), PROGRAM_UUID);
+
+		Assert.assertNull(this.tokenCache.get(TOKEN, MAIZE, PROGRAM_UUID));
+		Assert.assertSame(this.admin, this.tokenCache.get(TOKEN, MAIZE, null));
+	}
+
+	@Test
+	public void testMaxSize() {
+		final XAuthTokenCache smallCache = new XAuthTokenCache(1, 300);
+		smallCache.put(TOKEN, MAIZE, PROGRAM_UUID, this.admin, this.notExpired());
+		smallCache.put(OTHER_TOKEN, MAIZE, PROGRAM_UUID, this.user, this.notExpired());
+
+		Assert.assertEquals(1, smallCache.size());
+	}
+
+	@Test
+	public void testInvalidateUser() {
+		this.tokenCache.put(TOKEN, MAIZE, PROGRAM_UUID, this.admin, this.notExpired());
+		this.tokenCache.put(TOKEN, MAIZE, null, this.admin, this.notExpired());
+		this.tokenCache.put(OTHER_TOKEN, MAIZE, PROGRAM_UUID, this.user, this.notExpired());
+
+		this.tokenCache.invalidateUser("ADMIN");
+
+		Assert.assertNull(this.tokenCache.get(TOKEN, MAIZE, PROGRAM_UUID));
+		Assert.assertNull(this.tokenCache.get(TOKEN, MAIZE, null));
+		Assert.assertSame(this.user, this.tokenCache.get(OTHER_TOKEN, MAIZE, PROGRAM_UUID));
+	}
+
+	@Test
+	public void testInvalidateAll() {
+		this.tokenCache.put(TOKEN, MAIZE, PROGRAM_UUID, this.admin, this.notExpired());
+		this.tokenCache.put(OTHER_TOKEN, MAIZE, PROGRAM_UUID, this.user, this.notExpired());
+
+		this.tokenCache.invalidateAll();
+
+		Assert.assertEquals(0, this.tokenCache.size());
+	}
+
+	private long notExpired() {
+		return System.currentTimeMillis() + 60000;
+	}
+}
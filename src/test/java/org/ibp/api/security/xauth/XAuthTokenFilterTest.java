@@ -2,6 +2,7 @@
 package org.ibp.api.security.xauth;
 
 import org.ibp.api.java.impl.middleware.common.ContextResolutionException;
+import org.ibp.api.java.impl.middleware.common.ContextResolver;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -29,11 +30,22 @@ public class XAuthTokenFilterTest {
 	@Mock
 	private UserDetailsService userDetailsService;
 
+	@Mock
+	private ContextResolver contextResolver;
+
 	private final TokenProvider tokenProvider = new TokenProvider("bmsXAuthSecret", 3600);
 
+	private XAuthTokenCache tokenCache;
+
+	private XAuthTokenFilter filter;
+
 	@Before
 	public void beforeEachTest() {
 		MockitoAnnotations.initMocks(this);
+		Mockito.when(this.contextResolver.resolveCropNameFromUrl()).thenReturn("maize");
+		Mockito.when(this.contextResolver.resolveProgramUuidFromRequest()).thenReturn("");
+		this.tokenCache = new XAuthTokenCache(100, 300);
+		this.filter = new XAuthTokenFilter(this.userDetailsService, this.tokenProvider, this.contextResolver, this.tokenCache);
 	}
 
 	@After
@@ -59,8 +71,7 @@ public class XAuthTokenFilterTest {
 		// Add to x-auth-token header to the request
 		request.addHeader(XAuthTokenFilter.XAUTH_TOKEN_HEADER_NAME, token.getToken());
 
-		final XAuthTokenFilter filter = new XAuthTokenFilter(this.userDetailsService, this.tokenProvider);
-		filter.doFilter(request, response, filterChain);
+		this.filter.doFilter(request, response, filterChain);
 
 		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 		Assert.assertNotNull("Expected security context to have authenticated principal.", authentication);
@@ -83,8 +94,7 @@ public class XAuthTokenFilterTest {
 
 		request.addHeader(XAuthTokenFilter.OAUTH_TOKEN_HEADER_NAME, XAuthTokenFilter.OAUTH_TOKEN_PREFIX + token.getToken());
 
-		final XAuthTokenFilter filter = new XAuthTokenFilter(this.userDetailsService, this.tokenProvider);
-		filter.doFilter(request, response, filterChain);
+		this.filter.doFilter(request, response, filterChain);
 
 		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 		Assert.assertNotNull("Expected security context to have authenticated principal.", authentication);
@@ -97,8 +107,7 @@ public class XAuthTokenFilterTest {
 		final MockHttpServletResponse response = new MockHttpServletResponse();
 		final MockFilterChain filterChain = new MockFilterChain();
 
-		final XAuthTokenFilter filter = new XAuthTokenFilter(this.userDetailsService, this.tokenProvider);
-		filter.doFilter(request, response, filterChain);
+		this.filter.doFilter(request, response, filterChain);
 
 		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 		Assert.assertNull("Expected security context to not have set authenticated principal.", authentication);
@@ -121,8 +130,7 @@ public class XAuthTokenFilterTest {
 
 		request.addHeader(XAuthTokenFilter.OAUTH_TOKEN_HEADER_NAME, XAuthTokenFilter.OAUTH_TOKEN_PREFIX + token.getToken());
 
-		final XAuthTokenFilter filter = new XAuthTokenFilter(this.userDetailsService, this.tokenProvider);
-		filter.doFilter(request, response, filterChain);
+		this.filter.doFilter(request, response, filterChain);
 
 		Assert.assertEquals(HttpServletResponse.SC_BAD_REQUEST, response.getStatus());
 		Assert.assertEquals("application/json", response.getContentType());
@@ -148,8 +156,7 @@ public class XAuthTokenFilterTest {
 
 		request.addHeader(XAuthTokenFilter.OAUTH_TOKEN_HEADER_NAME, XAuthTokenFilter.OAUTH_TOKEN_PREFIX + token.getToken());
 
-		final XAuthTokenFilter filter = new XAuthTokenFilter(this.userDetailsService, this.tokenProvider);
-		filter.doFilter(request, response, filterChain);
+		this.filter.doFilter(request, response, filterChain);
 
 		Assert.assertEquals(HttpServletResponse.SC_FORBIDDEN, response.getStatus());
 		Assert.assertEquals("application/json", response.getContentType());
@@ -158,4 +165,95 @@ public class XAuthTokenFilterTest {
 
 	}
 
+	@Test
+	public void testDoFilterCachedToken() throws IOException, ServletException {
+		final String testUser = "admin";
+		final User userDetails = new User(testUser, "password", Collections.<GrantedAuthority>emptyList());
+		Mockito.when(this.userDetailsService.loadUserByUsername(testUser)).thenReturn(userDetails);
+		final Token token = this.tokenProvider.createToken(userDetails);
+
+		this.doFilter(token);
+		SecurityContextHolder.getContext().setAuthentication(null);
+		this.doFilter(token);
+
+		final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		Assert.assertNotNull("Expected security context to have authenticated principal.", authentication);
+		Assert.assertEquals(testUser, authentication.getName());
+		// The second request is authenticated from the cache, but still resolves its crop and program
+		Mockito.verify(this.userDetailsService, Mockito.times(1)).loadUserByUsername(testUser);
+		Mockito.verify(this.contextResolver, Mockito.times(2)).resolveCropNameFromUrl();
+		Mockito.verify(this.contextResolver, Mockito.times(2)).resolveProgramUuidFromRequest();
+		Assert.assertEquals(1, this.tokenCache.getHitCount());
+		Assert.assertEquals(1, this.tokenCache.getMissCount());
+	}
+
+	@Test
+	public void testDoFilterCachedUserWithOtherPassword() throws IOException, ServletException {
+		final String testUser = "admin";
+		final User userDetails = new User(testUser, "password", Collections.<GrantedAuthority>emptyList());
+		final User userWithNewPassword = new User(testUser, "newPassword", Collections.<GrantedAuthority>emptyList());
+		Mockito.when(this.userDetailsService.loadUserByUsername(testUser)).thenReturn(userWithNewPassword);
+		final Token token = this.tokenProvider.createToken(userDetails);
+		this.tokenCache.put(token.getToken(), "maize", "", userWithNewPassword, token.getExpires());
+
+		this.doFilter(token);
+
+		// The token was signed with the old password, so it is checked against the user loaded again and rejected
+		Assert.assertNull(SecurityContextHolder.getContext().getAuthentication());
+		Mockito.verify(this.userDetailsService, Mockito.times(1)).loadUserByUsername(testUser);
+		Assert.assertEquals(0, this.tokenCache.size());
+	}
+
+	@Test
+	public void testDoFilterCachedTokenForOtherProgram() throws IOException, ServletException {
+		final String testUser = "admin";
+		final User userDetails = new User(testUser, "password", Collections.<GrantedAuthority>emptyList());
+		Mockito.when(this.userDetailsService.loadUserByUsername(testUser)).thenReturn(userDetails);
+		final Token token = this.tokenProvider.createToken(userDetails);
+
+		this.doFilter(token);
+		// Authorities depend on the program, so they are loaded again
+		Mockito.when(this.contextResolver.resolveProgramUuidFromRequest()).thenReturn("a7b2e4c1");
+		this.doFilter(token);
+
+		Mockito.verify(this.userDetailsService, Mockito.times(2)).loadUserByUsername(testUser);
+		Assert.assertEquals(0, this.tokenCache.getHitCount());
+		Assert.assertEquals(2, this.tokenCache.getMissCount());
+	}
+
+	@Test
+	public void testDoFilterInvalidTokenIsNotCached() throws IOException, ServletException {
+		final String testUser = "admin";
+		final User userDetails = new User(testUser, "password", Collections.<GrantedAuthority>emptyList());
+		Mockito.when(this.userDetailsService.loadUserByUsername(testUser)).thenReturn(userDetails);
+		final Token token = new TokenProvider("otherSecret", 3600).createToken(userDetails);
+
+		this.doFilter(token);
+		this.doFilter(token);
+
+		Assert.assertNull(SecurityContextHolder.getContext().getAuthentication());
+		Mockito.verify(this.userDetailsService, Mockito.times(2)).loadUserByUsername(testUser);
+		Assert.assertEquals(0, this.tokenCache.size());
+	}
+
+	@Test
+	public void testDoFilterAfterUserIsInvalidated() throws IOException, ServletException {
+		final String testUser = "admin";
+		final User userDetails = new User(testUser, "password", Collections.<GrantedAuthority>emptyList());
+		Mockito.when(this.userDetailsService.loadUserByUsername(testUser)).thenReturn(userDetails);
+		final Token token = this.tokenProvider.createToken(userDetails);
+
+		this.doFilter(token);
+		this.tokenCache.invalidateUser(testUser);
+		this.doFilter(token);
+
+		Mockito.verify(this.userDetailsService, Mockito.times(2)).loadUserByUsername(testUser);
+	}
+
+	private void doFilter(final Token token) throws IOException, ServletException {
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(XAuthTokenFilter.XAUTH_TOKEN_HEADER_NAME, token.getToken());
+		this.filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+	}
+
 }